@@ -0,0 +1,69 @@
+package utils.rendimiento.jmh;
+
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.juego2d.utils.Fisica;
+import utils.juego2d.utils.Poligonos;
+
+/** Pruebas JMH del área de polígonos: {@link Fisica#approxAreaSinCurvas(Area)} frente al cálculo sobre arrays de
+ * {@link Poligonos#calcula(double[], double[], int, int, double[])}.<br/>
+ * Cada escena es un polígono regular de tamanyoEscena vértices.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PruebaArea {
+
+	/** Número de vértices del polígono */
+	@Param({ "3", "30", "300" })
+	public int tamanyoEscena;
+
+	private Area area;
+	private double[] xs, ys;
+	private final double[] propiedades = new double[Poligonos.NUM_PROPIEDADES];
+
+	@Setup
+	public void preparaEscena() {
+		int n = tamanyoEscena;
+		xs = new double[n];
+		ys = new double[n];
+		Path2D.Double path = new Path2D.Double();
+		for (int i=0; i<n; i++) {
+			xs[i] = 100*Math.cos( 2*Math.PI*i/n );
+			ys[i] = 100*Math.sin( 2*Math.PI*i/n );
+			if (i==0) path.moveTo( xs[i], ys[i] );
+			else path.lineTo( xs[i], ys[i] );
+		}
+		path.closePath();
+		area = new Area( path );
+	}
+
+	@Benchmark
+	public double approxAreaSinCurvas() {
+		return Fisica.approxAreaSinCurvas( area );
+	}
+
+	@Benchmark
+	public double poligonosCalcula() {
+		return Poligonos.calcula( xs, ys, 0, tamanyoEscena, propiedades )[Poligonos.INERCIA];
+	}
+
+}
@@ -0,0 +1,101 @@
+package utils.rendimiento.jmh;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.juego2d.pruebas.Nave;
+import utils.juego2d.pruebas.ObjetoMovil;
+import utils.juego2d.pruebas.Pelota;
+import utils.juego2d.utils.Fisica;
+import utils.ventanas.ventanaBitmap.VentanaGrafica;
+
+/** Pruebas JMH de la respuesta de choque {@link Fisica#calcChoqueEntreObjetos(VentanaGrafica, ObjetoMovil, ObjetoMovil, double, boolean)}
+ * entre naves y entre pelotas que se están montando.<br/>
+ * Cada escena tiene tamanyoEscena parejas, y cada operación restaura todas las parejas a su estado inicial y calcula su choque
+ * (para que la escena no cambie entre operaciones).
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PruebaCalcChoque {
+
+	/** Número de parejas de objetos que chocan */
+	@Param({ "10", "100", "1000" })
+	public int tamanyoEscena;
+
+	private ObjetoMovil[] naves1, naves2;
+	private ObjetoMovil[] pelotas1, pelotas2;
+	private double[] estadoNaves, estadoPelotas;  // Posición y velocidad iniciales de cada pareja (8 valores por pareja)
+
+	@Setup
+	public void preparaEscena() {
+		Fisica.setGravedad( false );
+		int n = tamanyoEscena;
+		naves1 = new ObjetoMovil[n]; naves2 = new ObjetoMovil[n];
+		pelotas1 = new ObjetoMovil[n]; pelotas2 = new ObjetoMovil[n];
+		estadoNaves = new double[n*8]; estadoPelotas = new double[n*8];
+		Random r = new Random( 1 );
+		for (int i=0; i<n; i++) {
+			double x = r.nextDouble()*1000, y = r.nextDouble()*1000;
+			naves1[i] = new Nave( x, y, 30, x+r.nextDouble()*200-100, y+r.nextDouble()*200-100, Color.blue );
+			naves2[i] = new Nave( x+10, y+5, 30, x+r.nextDouble()*200-100, y+r.nextDouble()*200-100, Color.red );
+			guardaEstado( naves1[i], naves2[i], estadoNaves, i );
+			x = r.nextDouble()*1000; y = r.nextDouble()*1000;
+			pelotas1[i] = new Pelota( x, y, 20, Color.blue, true );
+			pelotas2[i] = new Pelota( x+15, y+10, 20, Color.red, true );
+			pelotas1[i].setVelocidad( r.nextDouble()*200-100, r.nextDouble()*200-100 );
+			pelotas2[i].setVelocidad( r.nextDouble()*200-100, r.nextDouble()*200-100 );
+			guardaEstado( pelotas1[i], pelotas2[i], estadoPelotas, i );
+		}
+	}
+
+	@Benchmark
+	public double calcChoqueNaves() {
+		return calculaChoques( naves1, naves2, estadoNaves );
+	}
+
+	@Benchmark
+	public double calcChoquePelotas() {
+		return calculaChoques( pelotas1, pelotas2, estadoPelotas );
+	}
+
+		private double calculaChoques( ObjetoMovil[] objs1, ObjetoMovil[] objs2, double[] estado ) {
+			double suma = 0.0;
+			for (int i=0; i<tamanyoEscena; i++) {
+				restauraEstado( objs1[i], objs2[i], estado, i );
+				Fisica.calcChoqueEntreObjetos( null, objs1[i], objs2[i], 16, false );
+				suma += objs1[i].getVelocidadX();
+			}
+			return suma;
+		}
+
+		private static void guardaEstado( ObjetoMovil o1, ObjetoMovil o2, double[] estado, int i ) {
+			estado[i*8] = o1.getX(); estado[i*8+1] = o1.getY(); estado[i*8+2] = o1.getVelocidadX(); estado[i*8+3] = o1.getVelocidadY();
+			estado[i*8+4] = o2.getX(); estado[i*8+5] = o2.getY(); estado[i*8+6] = o2.getVelocidadX(); estado[i*8+7] = o2.getVelocidadY();
+		}
+
+		private static void restauraEstado( ObjetoMovil o1, ObjetoMovil o2, double[] estado, int i ) {
+			o1.setPosicion( estado[i*8], estado[i*8+1] ); o1.setVelocidad( estado[i*8+2], estado[i*8+3] );
+			o1.setMovimientoAnterior( estado[i*8]-2, estado[i*8+1]-1, estado[i*8+2], estado[i*8+3] );
+			o2.setPosicion( estado[i*8+4], estado[i*8+5] ); o2.setVelocidad( estado[i*8+6], estado[i*8+7] );
+			o2.setMovimientoAnterior( estado[i*8+4]+1, estado[i*8+5]+2, estado[i*8+6], estado[i*8+7] );
+		}
+
+}
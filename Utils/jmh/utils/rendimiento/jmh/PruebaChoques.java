@@ -0,0 +1,108 @@
+package utils.rendimiento.jmh;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.juego2d.pruebas.Bloque;
+import utils.juego2d.pruebas.Nave;
+import utils.juego2d.pruebas.ObjetoMovil;
+import utils.juego2d.pruebas.Pelota;
+import utils.juego2d.utils.Vector2D;
+
+/** Pruebas JMH de la detección de choques {@link Nave#chocaConObjeto(ObjetoMovil)}, {@link Pelota#chocaConObjeto(ObjetoMovil)}
+ * y {@link Bloque#chocaConObjeto(ObjetoMovil)} (y sus versiones sin reserva de memoria con {@link Vector2D}).<br/>
+ * Cada escena tiene tamanyoEscena objetos repartidos con la misma densidad, y cada operación prueba tamanyoEscena parejas
+ * (cada objeto con otro de la escena).
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PruebaChoques {
+
+	/** Número de objetos de cada tipo en la escena */
+	@Param({ "10", "100", "1000" })
+	public int tamanyoEscena;
+
+	private Nave[] naves;
+	private Pelota[] pelotas;
+	private Bloque[] bloques;
+	private int[] segundos;  // Objeto con el que se prueba cada uno
+	private final Vector2D choque = new Vector2D();
+
+	@Setup
+	public void preparaEscena() {
+		int n = tamanyoEscena;
+		naves = new Nave[n];
+		pelotas = new Pelota[n];
+		bloques = new Bloque[n];
+		segundos = new int[n];
+		Random r = new Random( 1 );
+		double lado = Math.sqrt( n ) * 40;
+		for (int i=0; i<n; i++) {
+			naves[i] = new Nave( r.nextDouble()*lado, r.nextDouble()*lado, 20+r.nextDouble()*20, r.nextDouble()*lado, r.nextDouble()*lado, Color.blue );
+			pelotas[i] = new Pelota( r.nextDouble()*lado, r.nextDouble()*lado, 10+r.nextDouble()*10, Color.blue, true );
+			bloques[i] = new Bloque( r.nextDouble()*lado, r.nextDouble()*lado, 20+r.nextDouble()*40, 10+r.nextDouble()*20 );
+			segundos[i] = (i + 1 + r.nextInt( n - 1 > 0 ? n - 1 : 1 )) % n;  // Nunca el propio objeto (si hay más de uno)
+		}
+	}
+
+	@Benchmark
+	public int naveChocaConObjeto() {
+		int choques = 0;
+		for (int i=0; i<tamanyoEscena; i++) if (naves[i].chocaConObjeto( naves[segundos[i]] ) != null) choques++;
+		return choques;
+	}
+
+	@Benchmark
+	public int naveChocaConObjetoVector2D() {
+		int choques = 0;
+		for (int i=0; i<tamanyoEscena; i++) if (naves[i].chocaConObjeto( naves[segundos[i]], choque )) choques++;
+		return choques;
+	}
+
+	@Benchmark
+	public int pelotaChocaConObjeto() {
+		int choques = 0;
+		for (int i=0; i<tamanyoEscena; i++) if (pelotas[i].chocaConObjeto( pelotas[segundos[i]] ) != null) choques++;
+		return choques;
+	}
+
+	@Benchmark
+	public int pelotaChocaConObjetoVector2D() {
+		int choques = 0;
+		for (int i=0; i<tamanyoEscena; i++) if (pelotas[i].chocaConObjeto( pelotas[segundos[i]], choque )) choques++;
+		return choques;
+	}
+
+	@Benchmark
+	public int bloqueChocaConObjeto() {
+		int choques = 0;
+		for (int i=0; i<tamanyoEscena; i++) if (bloques[i].chocaConObjeto( pelotas[segundos[i]] ) != null) choques++;
+		return choques;
+	}
+
+	@Benchmark
+	public int bloqueChocaConObjetoVector2D() {
+		int choques = 0;
+		for (int i=0; i<tamanyoEscena; i++) if (bloques[i].chocaConObjeto( pelotas[segundos[i]], choque )) choques++;
+		return choques;
+	}
+
+}
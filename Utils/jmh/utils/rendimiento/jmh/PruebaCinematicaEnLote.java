@@ -0,0 +1,88 @@
+package utils.rendimiento.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.juego2d.utils.Fisica;
+
+/** Pruebas JMH de la cinemática de {@link Fisica} con tamanyoEscena proyectiles: cada operación calcula todos los proyectiles,
+ * llamando a la fórmula de cada uno (1 a 1) o con el cálculo en lote sobre arrays
+ * ({@link Fisica#calcEspacio(double[], double[], double[], double, double[], int)} y similares).
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PruebaCinematicaEnLote {
+
+	/** Número de proyectiles */
+	@Param({ "10", "100", "1000" })
+	public int tamanyoEscena;
+
+	private double[] pos, vel, acel;
+	private double[] res;
+
+	@Setup
+	public void preparaEscena() {
+		int n = tamanyoEscena;
+		pos = new double[n]; vel = new double[n]; acel = new double[n]; res = new double[n];
+		Random r = new Random( 1 );
+		for (int i=0; i<n; i++) {
+			pos[i] = r.nextDouble()*800;
+			vel[i] = r.nextDouble()*2000 - 1000;
+			acel[i] = 9800.0;
+		}
+	}
+
+	@Benchmark
+	public double[] calcEspacioUnoAUno() {
+		for (int k=0; k<tamanyoEscena; k++) res[k] = Fisica.calcEspacio( pos[k], 16, vel[k], acel[k] );
+		return res;
+	}
+
+	@Benchmark
+	public double[] calcEspacioLote() {
+		Fisica.calcEspacio( pos, vel, acel, 16, res, tamanyoEscena );
+		return res;
+	}
+
+	@Benchmark
+	public double[] calcVelocidadUnoAUno() {
+		for (int k=0; k<tamanyoEscena; k++) res[k] = Fisica.calcVelocidad( vel[k], 16, acel[k] );
+		return res;
+	}
+
+	@Benchmark
+	public double[] calcVelocidadLote() {
+		Fisica.calcVelocidad( vel, acel, 16, res, tamanyoEscena );
+		return res;
+	}
+
+	@Benchmark
+	public double[] calcTiempoHastaEspacioUnoAUno() {
+		for (int k=0; k<tamanyoEscena; k++) res[k] = Fisica.calcTiempoHastaEspacio( vel[k], pos[k], acel[k], 800 );
+		return res;
+	}
+
+	@Benchmark
+	public double[] calcTiempoHastaEspacioLote() {
+		Fisica.calcTiempoHastaEspacio( vel, pos, acel, 800, res, tamanyoEscena );
+		return res;
+	}
+
+}
@@ -0,0 +1,66 @@
+package utils.rendimiento.jmh;
+
+import java.awt.GraphicsEnvironment;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.ventanas.ventanaBitmap.VentanaGrafica;
+
+/** Pruebas JMH de {@link VentanaGrafica#dibujaImagen(String, double, double, double, double, float)}: cada operación dibuja
+ * tamanyoEscena imágenes de UDcito en distintas posiciones de la ventana, con el zoom indicado.<br/>
+ * Necesita pantalla: sin ella (máquina virtual headless) la preparación falla y JMH pasa a la siguiente prueba.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PruebaDibujaImagen {
+
+	private static final String IMAGEN = "/utils/juego2d/pruebas/img/UD-normal.png";
+
+	/** Número de imágenes dibujadas en cada operación */
+	@Param({ "10", "100", "1000" })
+	public int tamanyoEscena;
+
+	/** Zoom de las imágenes */
+	@Param({ "0.5", "1.0", "2.0" })
+	public double zoom;
+
+	private VentanaGrafica ventana;
+
+	@Setup
+	public void preparaVentana() {
+		if (GraphicsEnvironment.isHeadless()) throw new IllegalStateException( "VentanaGrafica.dibujaImagen necesita pantalla" );
+		ventana = new VentanaGrafica( 800, 600, "Prueba de rendimiento" );
+		ventana.setDibujadoInmediato( false );
+	}
+
+	@TearDown
+	public void cierraVentana() {
+		if (ventana!=null) ventana.acaba();
+	}
+
+	@Benchmark
+	public int dibujaImagen() {
+		for (int i=0; i<tamanyoEscena; i++) {
+			ventana.dibujaImagen( IMAGEN, 100 + i % 600, 100 + (i * 7) % 400, zoom, 0.0, 1.0f );
+		}
+		return tamanyoEscena;
+	}
+
+}
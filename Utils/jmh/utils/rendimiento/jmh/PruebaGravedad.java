@@ -0,0 +1,70 @@
+package utils.rendimiento.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.juego2d.utils.GravedadMutua;
+import utils.juego2d.utils.Vector2D;
+
+/** Pruebas JMH de la gravedad mutua entre tamanyoEscena masas: cada operación es un paso completo, con la suma directa
+ * ({@link GravedadMutua#calculaAceleracionDirecta(double, double, Vector2D)}) o con Barnes-Hut
+ * (construcción del árbol y {@link GravedadMutua#calculaAceleracion(double, double, Vector2D)} de todas las masas).
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PruebaGravedad {
+
+	/** Número de masas */
+	@Param({ "10", "100", "1000" })
+	public int tamanyoEscena;
+
+	private GravedadMutua gravedad;
+	private double[] xs, ys;
+	private final Vector2D acel = new Vector2D();
+
+	@Setup
+	public void preparaEscena() {
+		int n = tamanyoEscena;
+		gravedad = new GravedadMutua();
+		xs = new double[n]; ys = new double[n];
+		Random r = new Random( 1 );
+		for (int i=0; i<n; i++) {
+			xs[i] = r.nextDouble() * 40 * Math.sqrt( n );
+			ys[i] = r.nextDouble() * 40 * Math.sqrt( n );
+			gravedad.anyadeMasa( xs[i], ys[i], 1000 + r.nextDouble() * 10000 );
+		}
+	}
+
+	@Benchmark
+	public double directa() {
+		double suma = 0.0;
+		for (int i=0; i<tamanyoEscena; i++) suma += gravedad.calculaAceleracionDirecta( xs[i], ys[i], acel ).getX();
+		return suma;
+	}
+
+	@Benchmark
+	public double barnesHut() {
+		double suma = 0.0;
+		gravedad.construye();
+		for (int i=0; i<tamanyoEscena; i++) suma += gravedad.calculaAceleracion( xs[i], ys[i], acel ).getX();
+		return suma;
+	}
+
+}
@@ -0,0 +1,65 @@
+package utils.rendimiento.jmh;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.juego2d.pruebas.UDcito;
+import utils.juego2d.utils.MascaraBits;
+
+/** Pruebas JMH del choque exacto por máscaras de bits {@link MascaraBits#chocaCon(MascaraBits, int, int)}: cada operación
+ * prueba la máscara de UDcito con tamanyoEscena pelotas de distintos radios en posiciones cercanas.<br/>
+ * Necesita la imagen de UDcito: sin ella la preparación falla y JMH pasa a la siguiente prueba.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PruebaMascaraBits {
+
+	/** Número de pelotas */
+	@Param({ "10", "100", "1000" })
+	public int tamanyoEscena;
+
+	private MascaraBits ud;
+	private MascaraBits[] circulos;
+	private int[] dxs, dys;
+
+	@Setup
+	public void preparaEscena() {
+		ud = new UDcito( 0, 0, 40, Color.green ).getMascara();
+		if (ud==null) throw new IllegalStateException( "No se ha podido cargar la máscara de UDcito" );
+		int n = tamanyoEscena;
+		circulos = new MascaraBits[n];
+		dxs = new int[n]; dys = new int[n];
+		Random r = new Random( 1 );
+		for (int i=0; i<n; i++) {
+			circulos[i] = MascaraBits.getCirculo( 10 + r.nextInt( 40 ) );
+			dxs[i] = r.nextInt( ud.getAnchura() + circulos[i].getAnchura() ) - circulos[i].getAnchura();
+			dys[i] = r.nextInt( ud.getAltura() + circulos[i].getAltura() ) - circulos[i].getAltura();
+		}
+	}
+
+	@Benchmark
+	public int chocaCon() {
+		int choques = 0;
+		for (int i=0; i<tamanyoEscena; i++) if (ud.chocaCon( circulos[i], dxs[i], dys[i] )) choques++;
+		return choques;
+	}
+
+}
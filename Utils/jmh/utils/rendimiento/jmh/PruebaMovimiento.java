@@ -0,0 +1,67 @@
+package utils.rendimiento.jmh;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.juego2d.pruebas.Nave;
+import utils.juego2d.pruebas.ObjetoMovil;
+import utils.juego2d.pruebas.Pelota;
+import utils.juego2d.utils.LimitesEnMemoria;
+
+/** Pruebas JMH del movimiento con gravedad {@link ObjetoMovil#mueveUnPoco(utils.juego2d.utils.Limites, double, boolean)}:
+ * cada operación mueve un paso de 16 ms los tamanyoEscena objetos de la escena (mitad pelotas, mitad naves)
+ * y deshace el movimiento, para que la escena no cambie entre operaciones.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PruebaMovimiento {
+
+	/** Número de objetos de la escena */
+	@Param({ "10", "100", "1000" })
+	public int tamanyoEscena;
+
+	private ObjetoMovil[] objs;
+	private LimitesEnMemoria limites;
+
+	@Setup
+	public void preparaEscena() {
+		objs = new ObjetoMovil[tamanyoEscena];
+		limites = new LimitesEnMemoria( 1000, 1000 );
+		Random r = new Random( 1 );
+		for (int i=0; i<tamanyoEscena; i++) {
+			if (i%2==0) objs[i] = new Pelota( r.nextDouble()*1000, r.nextDouble()*1000, 20, Color.blue, true );
+			else objs[i] = new Nave( r.nextDouble()*1000, r.nextDouble()*1000, 30, r.nextDouble()*1000, r.nextDouble()*1000, Color.blue );
+		}
+	}
+
+	@Benchmark
+	public double mueveUnPoco() {
+		double suma = 0.0;
+		for (int i=0; i<tamanyoEscena; i++) {
+			ObjetoMovil o = objs[i];
+			o.mueveUnPoco( limites, 16, false );
+			suma += o.getX();
+			o.deshazUltimoMovimiento( limites );
+		}
+		return suma;
+	}
+
+}
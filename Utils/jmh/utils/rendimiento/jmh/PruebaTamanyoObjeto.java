@@ -0,0 +1,51 @@
+package utils.rendimiento.jmh;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.exploradorObjetos.ExploradorObjetos;
+import utils.juego2d.pruebas.Nave;
+
+/** Pruebas JMH de {@link ExploradorObjetos#getTamanyoObjeto(Object)} con listas de tamanyoEscena naves.<br/>
+ * La máquina virtual de la prueba se lanza con los --add-opens que necesita la reflectividad (Java 9 o superior).
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-opens", "java.base/java.util=ALL-UNNAMED", "--add-opens", "java.base/java.lang=ALL-UNNAMED",
+		"--add-opens", "java.desktop/java.awt=ALL-UNNAMED", "--add-opens", "java.desktop/java.awt.geom=ALL-UNNAMED" })
+public class PruebaTamanyoObjeto {
+
+	/** Número de naves de la lista */
+	@Param({ "10", "100", "1000" })
+	public int tamanyoEscena;
+
+	private ArrayList<Nave> naves;
+
+	@Setup
+	public void preparaEscena() {
+		naves = new ArrayList<>();
+		for (int i=0; i<tamanyoEscena; i++) naves.add( new Nave( i, i, 20 ) );
+	}
+
+	@Benchmark
+	public int getTamanyoObjeto() {
+		return ExploradorObjetos.getTamanyoObjeto( naves );
+	}
+
+}
@@ -6,10 +6,10 @@ import java.lang.reflect.Modifier;
 import java.util.*;
 import javax.swing.tree.*;
 
-/** Utilidad de exploracin de objetos y sus atributos, usando reflectividad (accede a todos los atributos, aunque sean privados).
- * Suministra informacin de uso (terico) de memoria, en una mquina virtual Java de 32 bits.
- * @author Andoni Eguluz Morn
- * Facultad de Ingeniera - Universidad de Deusto
+/** Utilidad de exploración de objetos y sus atributos, usando reflectividad (accede a todos los atributos, aunque sean privados).
+ * Suministra información de uso (teórico) de memoria, en una máquina virtual Java de 32 bits.
+ * @author Andoni Eguíluz Morán
+ * Facultad de Ingeniería - Universidad de Deusto
  */
 public class ExploradorObjetos {
 	
@@ -18,14 +18,14 @@ public class ExploradorObjetos {
 	private static String MARCA_OBJETO_PARCIAL = "<...> ";
 	private static String TEXTO_METADATOS = "<Metadatos: Ref.Clase + Flags + Locks>";
 	private static int TAM_METADATOS = 12;
-	private static int NUM_MAX_LLAMADAS = 20;  // Nmero de llamadas recursivas que se permiten - ms se truncan
-	private static int PUNTO_CONTROL = 17;  // Punto de control de las llamadas recursivas para ver iteratividad (menor que NUM_MAX_LLAMADAS para posibilitar que haya recursividades en estructuras con objetos ms internos)
-	private static int NUM_MAX_ITERATIVIDAD_VISUAL = 50;  // Nmero de recorrido iterativo mximo que se permite visualizar - ms se computa pero no se visualiza
-	private static int NUM_MAX_ITERATIVIDAD = 10000000;  // Nmero de recorrido iterativo mximo que se permite - ms se truncan (ni se visualizan ni se computan)
-	private static int NUM_MAX_SEPRS = 10; // Nmero de llamadas recursivas que se visualizan con separador - ms se mantiene la separacin y se indica "...(n) " al principio
-	private static int NUM_REC_COINC = 8;  // Nmero de llamadas recursivas coincidentes en atributo y espacio para hacer iteratividad
-	private static int NUM_MAX_DATO_ARRAY = 16;  // Nmero mximo de valores de array que se muestra en valor de atributo
-	private static boolean ANYADIR_ATRIBUTOS_HEREDADOS = true;  // true para aadir atributos heredados al desglosar cada clase, false solo atributos propios
+	private static int NUM_MAX_LLAMADAS = 20;  // Número de llamadas recursivas que se permiten - más se truncan
+	private static int PUNTO_CONTROL = 17;  // Punto de control de las llamadas recursivas para ver iteratividad (menor que NUM_MAX_LLAMADAS para posibilitar que haya recursividades en estructuras con objetos más internos)
+	private static int NUM_MAX_ITERATIVIDAD_VISUAL = 50;  // Número de recorrido iterativo máximo que se permite visualizar - más se computa pero no se visualiza
+	private static int NUM_MAX_ITERATIVIDAD = 10000000;  // Número de recorrido iterativo máximo que se permite - más se truncan (ni se visualizan ni se computan)
+	private static int NUM_MAX_SEPRS = 10; // Número de llamadas recursivas que se visualizan con separador - más se mantiene la separación y se indica "...(n) " al principio
+	private static int NUM_REC_COINC = 8;  // Número de llamadas recursivas coincidentes en atributo y espacio para hacer iteratividad
+	private static int NUM_MAX_DATO_ARRAY = 16;  // Número máximo de valores de array que se muestra en valor de atributo
+	private static boolean ANYADIR_ATRIBUTOS_HEREDADOS = true;  // true para añadir atributos heredados al desglosar cada clase, false solo atributos propios
 	private static int TAM_REF_EN_BYTES = 4;
 	private static HashMap<String, Integer> TAM_EN_BYTES;
 	static {
@@ -37,7 +37,7 @@ public class ExploradorObjetos {
 		TAM_EN_BYTES.put( "float", 4 );
 		TAM_EN_BYTES.put( "double", 8 );
 		TAM_EN_BYTES.put( "char", 2 );
-		TAM_EN_BYTES.put( "boolean", 1 );   // Es un bit pero la unidad mnima de asignacin es un byte
+		TAM_EN_BYTES.put( "boolean", 1 );   // Es un bit pero la unidad mínima de asignación es un byte
 	}
 
 	private static int numLlamadas = 0;  // Para truncar la recursividad
@@ -49,16 +49,16 @@ public class ExploradorObjetos {
 	private static String atsStatic = "";
 	private static String atsErr = "";
 	private static boolean hayErr = false;
-	private static boolean soloCalcTamanyo = false;      // Utilizado para recorridos de devolver tamao en lugar de crear String
-	private static DefaultMutableTreeNode raiz = null;   // Utilizado para recorridos de crear rbol en lugar de crear String
+	private static boolean soloCalcTamanyo = false;      // Utilizado para recorridos de devolver tamaño en lugar de crear String
+	private static DefaultMutableTreeNode raiz = null;   // Utilizado para recorridos de crear árbol en lugar de crear String
 	private static UltimasN<AtributoYEspacio> ultimosAtEsp = new UltimasN<>(NUM_REC_COINC);
 	
-	/** Calcula un string para visualizacin de atributos (y sus valores, y sus tamaos en memoria) del objeto indicado
-	 * @param sep	Separador (de tabulacin) que se usa en cada lnea de atributo
+	/** Calcula un string para visualización de atributos (y sus valores, y sus tamaños en memoria) del objeto indicado
+	 * @param sep	Separador (de tabulación) que se usa en cada línea de atributo
 	 * @param o	Objeto que se quiere analizar (diferente de null)
-	 * @param tbStatic	true si se quieren visualizar tambin los atributos estticos
-	 * @param mostrarTam true si se quiere mostrar el tamao ocupado por el objeto y sus atributos
-	 * @return	String maquetado con toda la informacin
+	 * @param tbStatic	true si se quieren visualizar también los atributos estáticos
+	 * @param mostrarTam true si se quiere mostrar el tamaño ocupado por el objeto y sus atributos
+	 * @return	String maquetado con toda la información
 	 */
 	public static String atributosYValoresToString( String sep, Object o, boolean tbStatic, boolean mostrarTam ) {
 		ret = "";
@@ -68,8 +68,8 @@ public class ExploradorObjetos {
 		numLlamadas = 0;
 		tamObjeto = 0;
 		hayErr = false;
-		// objetosYaRecorridos = new HashSet<>();  // Hecho ya una vez en inicializacin
-		// ultimosAtEsp = new UltimasN<>(5);  // Hecho ya en inicializacin
+		// objetosYaRecorridos = new HashSet<>();  // Hecho ya una vez en inicialización
+		// ultimosAtEsp = new UltimasN<>(5);  // Hecho ya en inicialización
 		atributosYValoresToStringRec( sep, o, tbStatic, mostrarTam, raiz );
 		objetosYaRecorridos.clear();
 		ultimosAtEsp.clear();
@@ -77,29 +77,29 @@ public class ExploradorObjetos {
 		if (tbStatic) ret += atsStatic;
 		if (hayErr) ret += atsErr;
 		if (mostrarTam) ret += (tamDe(tamObjeto) + "\n");
-		camposAMostrar = "";  // Prepara para la siguiente ejecucin
+		camposAMostrar = "";  // Prepara para la siguiente ejecución
 		return ret;
 	}
 	
-	/** Devuelve un despliegue de los atributos (y sus valores, y sus tamaos en memoria) de un objeto,
-	 * explorando en profundidad todos los objetos contenidos en l.
-	 * @param sep	Separador (de tabulacin) que se usa en cada lnea de atributo
+	/** Devuelve un despliegue de los atributos (y sus valores, y sus tamaños en memoria) de un objeto,
+	 * explorando en profundidad todos los objetos contenidos en él.
+	 * @param sep	Separador (de tabulación) que se usa en cada línea de atributo
 	 * @param o	Objeto que se quiere analizar (diferente de null)
-	 * @param tbStatic	true si se quieren visualizar tambin los atributos estticos
-	 * @param mostrarTam true si se quiere mostrar el tamao ocupado por el objeto y sus atributos
+	 * @param tbStatic	true si se quieren visualizar también los atributos estáticos
+	 * @param mostrarTam true si se quiere mostrar el tamaño ocupado por el objeto y sus atributos
 	 * @param camposAMostrar String que incluye los nombres de campos que queremos mostrar (el resto no aparecen en el resultado).<p>
-	 * Por ejemplo, si queremos los atributos root y left podramos pasar "root#left" a este parmetro.
-	 * @return	String maquetado con toda la informacin
+	 * Por ejemplo, si queremos los atributos root y left podríamos pasar "root#left" a este parámetro.
+	 * @return	String maquetado con toda la información
 	 */
 	public static String atributosYValoresToString( String sep, Object o, boolean tbStatic, boolean mostrarTam, String camposAMostrar ) {
 		ExploradorObjetos.camposAMostrar = camposAMostrar;
 		return atributosYValoresToString( sep, o, tbStatic, mostrarTam );
 	}
 	
-	/** Devuelve el tamao de un objeto en memoria en bytes, explorando en profundidad todos los objetos contenidos en l.
-	 * Devuelve el tamao completo de todos los objetos referenciados.
+	/** Devuelve el tamaño de un objeto en memoria en bytes, explorando en profundidad todos los objetos contenidos en él.
+	 * Devuelve el tamaño completo de todos los objetos referenciados.
 	 * @param o	Objeto que se quiere analizar (diferente de null)
-	 * @return	Tamao en bytes del objeto
+	 * @return	Tamaño en bytes del objeto
 	 */
 	public static int getTamanyoObjeto(Object o) {
 		soloCalcTamanyo = true;
@@ -108,11 +108,11 @@ public class ExploradorObjetos {
 		return tamObjeto;
 	}
 	
-	/** Devuelve un despliegue de los atributos (y sus valores, y sus tamaos en memoria) de un objeto,
-	 * introducindolos en un modelo de datos de rbol, visualizable en un JTree.
+	/** Devuelve un despliegue de los atributos (y sus valores, y sus tamaños en memoria) de un objeto,
+	 * introduciéndolos en un modelo de datos de árbol, visualizable en un JTree.
 	 * @param o	Objeto que se quiere analizar (diferente de null)
 	 * @param atributosAVer	Lista de atributos que se quieren visualizar, incluidos en un string
-	 * @return	Tamao en bytes del objeto
+	 * @return	Tamaño en bytes del objeto
 	 */
 	public static DefaultTreeModel atributosYValoresToTree(Object o, String atributosAVer ) {
 		raiz = new DefaultMutableTreeNode( o.toString() );
@@ -122,10 +122,10 @@ public class ExploradorObjetos {
 		return arbol;
 	}
 	
-	/** Devuelve un despliegue de los atributos (y sus valores, y sus tamaos en memoria) de un objeto,
-	 * introducindolos en un modelo de datos de rbol, visualizable en un JTree.
+	/** Devuelve un despliegue de los atributos (y sus valores, y sus tamaños en memoria) de un objeto,
+	 * introduciéndolos en un modelo de datos de árbol, visualizable en un JTree.
 	 * @param o	Objeto que se quiere analizar (diferente de null)
-	 * @return	Tamao en bytes del objeto
+	 * @return	Tamaño en bytes del objeto
 	 */
 	public static DefaultTreeModel atributosYValoresToTree(Object o) {
 		raiz = new DefaultMutableTreeNode( o.toString() );
@@ -134,7 +134,7 @@ public class ExploradorObjetos {
 		raiz = null;
 		return arbol;
 	}
-		// Mtodo de utilidad para los rboles
+		// Método de utilidad para los árboles
 		private static DefaultMutableTreeNode anyadirHijoArbol( DefaultMutableTreeNode raiz, String nuevoHijo ) {
 			DefaultMutableTreeNode nuevo = new DefaultMutableTreeNode( nuevoHijo );
 			raiz.add( nuevo );
@@ -152,7 +152,7 @@ public class ExploradorObjetos {
 		}
 		Class<?> c = o.getClass();
 		Field fs[] = c.getDeclaredFields();
-		// Aadido de campos heredados
+		// Añadido de campos heredados
 		if (ANYADIR_ATRIBUTOS_HEREDADOS) {
 			Class<?> cParent = c.getSuperclass();
 			while (cParent!=null && !cParent.getName().equals("Object")) {
@@ -164,7 +164,7 @@ public class ExploradorObjetos {
 				cParent = cParent.getSuperclass();
 			}
 		}
-		// Fin aadido de campos heredados
+		// Fin añadido de campos heredados
 		tamObjeto += TAM_METADATOS;
 		if (mostrarTam && !soloCalcTamanyo) {
 			if (raiz==null)
@@ -195,7 +195,7 @@ public class ExploradorObjetos {
 					Object oArr = valorArray(o,i);
 					if (oArr!=null) {
 						String tamA = (mostrarTam) ? "{} " : "";
-						if (objetosYaRecorridos.contains( oArr )) {  // Si ya est recorrido, no insistimos :-)
+						if (objetosYaRecorridos.contains( oArr )) {  // Si ya está recorrido, no insistimos :-)
 							if (camposAMostrar.equals("") || camposAMostrar.contains("[]"))
 								if (!soloCalcTamanyo)
 									if (raiz==null)
@@ -231,7 +231,7 @@ public class ExploradorObjetos {
 						// atsInstancia += ( "#" + f.getType().toString().substring(6) );
 						// atsInstancia += ( "# - #" + c.getName().toString() + "#\n" );
 						String tam = "";
-						if (mostrarTam) {  // Clculo tamao
+						if (mostrarTam) {  // Cálculo tamaño
 							int tamanyo = 0;
 							if (f.getType().toString().startsWith("class [")) { //&& f.get(o)!=null) {
 								tamanyo = TAM_REF_EN_BYTES;  // Un array es una referencia
@@ -245,7 +245,7 @@ public class ExploradorObjetos {
 								tamanyo = TAM_EN_BYTES.get( f.getType().toString() );
 							else {
 								if (f.get(o)!=null) {
-									System.err.println( "TAMAO DESCONOCIDO!!!");
+									System.err.println( "TAMAÑO DESCONOCIDO!!!");
 									System.err.println( "Tipo -> " + f.getType().toString() );
 									System.err.println( "Objeto -> " + f.get(o) );
 								}
@@ -257,9 +257,9 @@ public class ExploradorObjetos {
 						numLlamadas++;
 						if (f.getType().toString().startsWith("class ") && f.get(o)!=null ||
 						    f.getType().toString().startsWith("interface ") && f.get(o)!=null) {
-							//	Si quisiramos diferenciar el objeto con definicin recursiva directa
+							//	Si quisiéramos diferenciar el objeto con definición recursiva directa
 							//	if (f.getType().toString().substring(6).equals( c.getName().toString() )) {
-							if (objetosYaRecorridos.contains( f.get(o) )) {  // Si ya est recorrido, no insistimos :-)
+							if (objetosYaRecorridos.contains( f.get(o) )) {  // Si ya está recorrido, no insistimos :-)
 								if (camposAMostrar.equals("") || camposAMostrar.contains(f.getName()))
 									if (!soloCalcTamanyo)
 										if (raiz==null)
@@ -275,7 +275,7 @@ public class ExploradorObjetos {
 											nodoHijo = anyadirHijoArbol( raiz,  tam + f.getName() + " = " + aString( f.get( o ), f.getType()) );
 										}
 								objetosYaRecorridos.add( f.get(o) );
-								int difEspacio = -1;  // Variable que slo es != -1 si hay iteratividad en vez de recursividad (ver cdigo subsiguiente)
+								int difEspacio = -1;  // Variable que sólo es != -1 si hay iteratividad en vez de recursividad (ver código subsiguiente)
 								if (numLlamadas == PUNTO_CONTROL) {
 									// System.out.println( "##" + ultimosAtEsp );
 									if (ultimosAtEsp.getEquals()!=null && ultimosAtEsp.getEquals().atributo.equals(f.getName()) && f.get(o)!=null ) {
@@ -290,16 +290,16 @@ public class ExploradorObjetos {
 												espacioIni = ultimosAtEsp.get(i).espacio;
 											}
 										}
-										// 2.- si es as, iniciamos proceso iterativo
+										// 2.- si es así, iniciamos proceso iterativo
 										if (difEspacio!=-1) {
 											// Proceso iterativo en vez de recursivo!!
 											miSep = sep + SEPR;
 											Object ref = f.get(o);  // Referencia inicial
 											if (!soloCalcTamanyo)
 												if (raiz==null)
-													atsInstancia += (miSep + "MOSTRADO ITERATIVAMENTE POR EXCESO DE RECURSIVIDAD (Informacin parcial, clculo de espacio correcto)\n");
+													atsInstancia += (miSep + "MOSTRADO ITERATIVAMENTE POR EXCESO DE RECURSIVIDAD (Información parcial, cálculo de espacio correcto)\n");
 												else
-													anyadirHijoArbol( raiz, "MOSTRADO ITERATIVAMENTE POR EXCESO DE RECURSIVIDAD (Informacin parcial, clculo de espacio correcto)" );
+													anyadirHijoArbol( raiz, "MOSTRADO ITERATIVAMENTE POR EXCESO DE RECURSIVIDAD (Información parcial, cálculo de espacio correcto)" );
 											String sTam = mostrarTam ? tamDe(difEspacio) : "";
 											boolean errNoRecursivo = true;
 											int numIt = NUM_MAX_LLAMADAS;
@@ -332,18 +332,18 @@ public class ExploradorObjetos {
 											if (!soloCalcTamanyo) {
 												if (raiz==null) {
 													if (numIt>=NUM_MAX_ITERATIVIDAD_VISUAL)
-														atsInstancia += (miSep + "(...) REFERENCIAS ADICIONALES NO MOSTRADAS POR EXCESO DE TAMAO (clculo de espacio correcto)\n");
+														atsInstancia += (miSep + "(...) REFERENCIAS ADICIONALES NO MOSTRADAS POR EXCESO DE TAMAÑO (cálculo de espacio correcto)\n");
 													if (numIt>=NUM_MAX_ITERATIVIDAD)
-														atsInstancia += (miSep + "ERROR: ALCANZADO TAMAO MAXIMO = " + numIt + " (Informacin parcial, clculo total de espacio INCORRECTO)\n");
+														atsInstancia += (miSep + "ERROR: ALCANZADO TAMAÑO MAXIMO = " + numIt + " (Información parcial, cálculo total de espacio INCORRECTO)\n");
 													if (errNoRecursivo)
-														atsInstancia += (miSep + "ERROR EN RECURSIVIDAD (Informacin incorrecta: enlace de objetos no coherente en algn punto)\n");
+														atsInstancia += (miSep + "ERROR EN RECURSIVIDAD (Información incorrecta: enlace de objetos no coherente en algún punto)\n");
 												} else {
 													if (numIt>=NUM_MAX_ITERATIVIDAD_VISUAL)
-														anyadirHijoArbol( raiz, "(...) REFERENCIAS ADICIONALES NO MOSTRADAS POR EXCESO DE TAMAO (clculo de espacio correcto)\n");
+														anyadirHijoArbol( raiz, "(...) REFERENCIAS ADICIONALES NO MOSTRADAS POR EXCESO DE TAMAÑO (cálculo de espacio correcto)\n");
 													if (numIt>=NUM_MAX_ITERATIVIDAD)
-														anyadirHijoArbol( raiz, "ERROR: ALCANZADO TAMAO MAXIMO = " + numIt + " (Informacin parcial, clculo total de espacio INCORRECTO)\n");
+														anyadirHijoArbol( raiz, "ERROR: ALCANZADO TAMAÑO MAXIMO = " + numIt + " (Información parcial, cálculo total de espacio INCORRECTO)\n");
 													if (errNoRecursivo)
-														anyadirHijoArbol( raiz, "ERROR EN RECURSIVIDAD (Informacin incorrecta: enlace de objetos no coherente en algn punto)\n");
+														anyadirHijoArbol( raiz, "ERROR EN RECURSIVIDAD (Información incorrecta: enlace de objetos no coherente en algún punto)\n");
 												}
 											}
 										}
@@ -396,7 +396,7 @@ public class ExploradorObjetos {
 			// o.getClass().getSimpleName() es "tipo[]"
 			return o.getClass().getSimpleName().substring(0, o.getClass().getSimpleName().length()-2 );
 		}
-		// Devuelve el nmero de elementos del array o
+		// Devuelve el número de elementos del array o
 		private static int tamArray( Object o ) {
 			if (o instanceof char[]) {
 				char[] arr = (char[]) o;
@@ -434,7 +434,7 @@ public class ExploradorObjetos {
 			return arr[i];
 		}
 	
-		// Devuelve la representacin (toString()) del objeto. Si es un array,
+		// Devuelve la representación (toString()) del objeto. Si es un array,
 		// en su lugar lo devuelve maquetado [ valor1 valor2 valor3 ... ]
 		private static String aString( Object o, Class<?> tipo ) {
 			String ret;
@@ -533,7 +533,7 @@ public class ExploradorObjetos {
 	 * @param args
 	 */
 	public static void main(String[] args) {
-		System.out.println( "Prueba de ejecucin de clase ExploradorObjetos." );
+		System.out.println( "Prueba de ejecución de clase ExploradorObjetos." );
 		System.out.println();
 		
 		ClaseExterna.ClaseInterna intt = (new ClaseExterna()).new ClaseInterna();
@@ -565,11 +565,11 @@ public class ExploradorObjetos {
 		ll = new LinkedList<>();
 		for (int i=1; i<=150; i++) ll.add( new Integer(i) );
 		System.out.println( tit + atributosYValoresToString( "", ll, false, true ) );
-		System.out.println( "Tamao de linkedlist: " + getTamanyoObjeto(ll) + " bytes.");
+		System.out.println( "Tamaño de linkedlist: " + getTamanyoObjeto(ll) + " bytes.");
 		System.out.println();
 
 		tit = "ARRAY DE STRINGS\n";
-		String[] sts = { "Hola", "Adis", "Vale" };
+		String[] sts = { "Hola", "Adiós", "Vale" };
 		System.out.println( tit + atributosYValoresToString( "", sts, false, true ) );
 		
 		tit = "HASHMAP DE STRINGS-ENTEROS CON 2 VALORES\n";
@@ -578,7 +578,7 @@ public class ExploradorObjetos {
 		hm.put( "Clave2", 2 );
 		System.out.println( tit + atributosYValoresToString( "", hm, false, true ) );
 
-		tit = "HASHSET DE STRINGS (vaco, cap. inicial 2, con 1, 2, 3 y 4 elementos)\n";
+		tit = "HASHSET DE STRINGS (vacío, cap. inicial 2, con 1, 2, 3 y 4 elementos)\n";
 		HashSet<String> hs = new HashSet<>(2);
 		System.out.println( tit + atributosYValoresToString( "", hs, false, true ) );
 		hs.add( "Andoni" );
@@ -612,10 +612,10 @@ public class ExploradorObjetos {
 		Object oo = new Object();
 		Integer i = 5;
 		System.out.println( "Objeto entero: " + i.toString() );
-		System.out.println( "  Su direccin de memoria:" + Integer.toHexString( System.identityHashCode( i ) ) );  // Mtodo dependiente de implementacin de la Java VM
+		System.out.println( "  Su dirección de memoria:" + Integer.toHexString( System.identityHashCode( i ) ) );  // Método dependiente de implementación de la Java VM
 		System.out.println( "  Cantidad de memoria utilizada: " + getTamanyoObjeto( i ) + " bytes." );
 		System.out.println( "Objeto Object: " + oo.toString() );
-		System.out.println( "  Su direccin de memoria:" + Integer.toHexString( System.identityHashCode( oo ) ) );
+		System.out.println( "  Su dirección de memoria:" + Integer.toHexString( System.identityHashCode( oo ) ) );
 		System.out.println( "  Cantidad de memoria utilizada: " + getTamanyoObjeto( oo ) + " bytes." );
 		
 	}
@@ -0,0 +1,218 @@
+package utils.juego2d.pruebas;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import utils.juego2d.utils.Fisica;
+
+/** Ejecución en lote de muchos mundos de naves independientes ({@link MundoNaves#crearMundoAleatorio(long, int, int)} con semillas
+ * consecutivas), sin ventana ni espera entre pasos, repartidos entre todos los procesadores. Sirve para ajustar la jugabilidad
+ * con las estadísticas de miles de partidas: choques, energía perdida y supervivencia de la nave tripulada.<br/>
+ * Se paraleliza por mundos (cada mundo se simula entero en un solo hilo), así que el resultado de cada partida depende solo
+ * de su semilla y no del número de hilos. La configuración estática de {@link MundoNaves} y la gravedad de {@link Fisica}
+ * son comunes a todos los mundos y no deben cambiarse durante el lote.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class LoteMundosNaves {
+
+	/** Energía inicial de la nave tripulada (la de su constructor) */
+	public static final double ENERGIA_INICIAL = 100.0;
+
+	private final int numMundos;
+	private final long semillaInicial;
+	private final int pasosPorMundo;
+	private int numNaves = 7;
+	private int numAsteroides = 2;
+
+	// Resultados por mundo (índice = semilla - semillaInicial)
+	private long[] choques;           // Choques entre objetos
+	private double[] energiaPerdida;  // Energía perdida por la nave tripulada
+	private int[] pasosVivo;          // Pasos hasta quedarse sin energía (pasosPorMundo si sobrevive)
+	private long nanosLote;
+
+	/** Crea un lote de mundos
+	 * @param numMundos	Número de mundos (partidas) a simular
+	 * @param semillaInicial	Semilla del primer mundo (el resto usan las siguientes)
+	 * @param pasosPorMundo	Pasos máximos de cada mundo (se para antes si la nave tripulada se queda sin energía)
+	 */
+	public LoteMundosNaves( int numMundos, long semillaInicial, int pasosPorMundo ) {
+		this.numMundos = numMundos;
+		this.semillaInicial = semillaInicial;
+		this.pasosPorMundo = pasosPorMundo;
+	}
+
+	/** Cambia el número de objetos de cada mundo (por defecto 7 naves y 2 asteroides, como el mundo de test 1)
+	 * @param numNaves	Número de naves (sin contar la tripulada)
+	 * @param numAsteroides	Número de asteroides
+	 */
+	public void setNumObjetos( int numNaves, int numAsteroides ) {
+		this.numNaves = numNaves;
+		this.numAsteroides = numAsteroides;
+	}
+
+	/** Simula todos los mundos del lote a toda velocidad
+	 * @param numHilos	Número de hilos (normalmente el de procesadores)
+	 */
+	public void ejecuta( int numHilos ) {
+		choques = new long[numMundos];
+		energiaPerdida = new double[numMundos];
+		pasosVivo = new int[numMundos];
+		boolean contarGeometria = Nave.CONTAR_GEOMETRIA;
+		Nave.CONTAR_GEOMETRIA = false;  // Contadores globales: con todos los hilos escribiendo en ellos no se escalaría
+		long inicio = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool( Math.max( 1, numHilos ) );
+		try {
+			pool.invoke( new TrozoLote( 0, numMundos ) );
+		} finally {
+			pool.shutdown();
+			Nave.CONTAR_GEOMETRIA = contarGeometria;
+		}
+		nanosLote = System.nanoTime() - inicio;
+	}
+
+		// Simula un mundo del lote y guarda su resultado
+		private void simulaMundo( int indice ) {
+			MundoNaves mundo = new MundoNaves( 1000, 800 );
+			mundo.crearMundoAleatorio( semillaInicial + indice, numNaves, numAsteroides );
+			NaveTripulada nave = mundo.getNavePrincipal();
+			int paso = 0;
+			while (paso<pasosPorMundo && nave.getId()>=0) {  // Al quedarse sin energía se quita del mundo
+				mundo.paso();
+				paso++;
+			}
+			choques[indice] = mundo.getNumChoques();
+			energiaPerdida[indice] = ENERGIA_INICIAL - nave.getEnergia();
+			pasosVivo[indice] = (nave.getId()>=0) ? pasosPorMundo : paso;
+		}
+
+		// Reparto recursivo de los mundos entre los hilos (un mundo por tarea, el pool equilibra la carga)
+		@SuppressWarnings("serial")
+		private class TrozoLote extends RecursiveAction {
+			private int desde;
+			private int hasta;
+			TrozoLote( int desde, int hasta ) {
+				this.desde = desde; this.hasta = hasta;
+			}
+			@Override
+			protected void compute() {
+				if (hasta-desde <= 1) {
+					if (hasta>desde) simulaMundo( desde );
+				} else {
+					int medio = (desde+hasta) >>> 1;
+					invokeAll( new TrozoLote( desde, medio ), new TrozoLote( medio, hasta ) );
+				}
+			}
+		}
+
+	/** Devuelve el número de choques de un mundo del lote
+	 * @param indice	Índice del mundo (0 a numMundos-1; su semilla es semillaInicial+indice)
+	 * @return	Choques entre objetos
+	 */
+	public long getChoques( int indice ) {
+		return choques[indice];
+	}
+
+	/** Devuelve la energía perdida por la nave tripulada de un mundo del lote
+	 * @param indice	Índice del mundo
+	 * @return	Energía perdida (más de {@link #ENERGIA_INICIAL} si se ha quedado sin energía)
+	 */
+	public double getEnergiaPerdida( int indice ) {
+		return energiaPerdida[indice];
+	}
+
+	/** Indica si la nave tripulada de un mundo del lote ha sobrevivido hasta el final
+	 * @param indice	Índice del mundo
+	 * @return	true si no se ha quedado sin energía
+	 */
+	public boolean isSuperviviente( int indice ) {
+		return pasosVivo[indice]==pasosPorMundo;
+	}
+
+	/** Devuelve el tiempo simulado con la nave tripulada viva en un mundo del lote
+	 * @param indice	Índice del mundo
+	 * @return	Segundos simulados hasta quedarse sin energía (o todos los del mundo si sobrevive)
+	 */
+	public double getSegundosVivo( int indice ) {
+		return pasosVivo[indice] * MundoNaves.getMilisPorMovimiento() / 1000.0;
+	}
+
+	/** Devuelve el rendimiento del lote
+	 * @return	Segundos simulados (sumando todos los mundos) por segundo real
+	 */
+	public double getSegundosSimuladosPorSegundo() {
+		long pasos = 0;
+		for (int i=0; i<numMundos; i++) pasos += pasosVivo[i];
+		return pasos * MundoNaves.getMilisPorMovimiento() / 1000.0 / (nanosLote/1E9);
+	}
+
+	/** Devuelve el resumen estadístico del lote
+	 * @return	Texto de varias líneas con supervivencia, choques, energía perdida y rendimiento
+	 */
+	public String getResumen() {
+		int supervivientes = 0;
+		double sumaChoques = 0, sumaVivoMuertos = 0;
+		double[] energias = Arrays.copyOf( energiaPerdida, numMundos );
+		for (int i=0; i<numMundos; i++) {
+			sumaChoques += choques[i];
+			if (isSuperviviente(i)) supervivientes++; else sumaVivoMuertos += getSegundosVivo(i);
+		}
+		Arrays.sort( energias );
+		int muertos = numMundos - supervivientes;
+		return String.format( "%1$d mundos de %2$.1f s simulados (%3$d naves, %4$d asteroides, semillas %5$d a %6$d)%n",
+					numMundos, pasosPorMundo * MundoNaves.getMilisPorMovimiento() / 1000.0, numNaves, numAsteroides, semillaInicial, semillaInicial+numMundos-1 )
+			+ String.format( "Supervivencia nave tripulada: %1$.1f%% (los que pierden duran %2$.1f s de media)%n",
+					100.0*supervivientes/numMundos, muertos==0 ? 0.0 : sumaVivoMuertos/muertos )
+			+ String.format( "Choques por mundo: %1$.1f de media%n", sumaChoques/numMundos )
+			+ String.format( "Energía perdida: media %1$.1f, p50 %2$.1f, p90 %3$.1f, máx %4$.1f%n",
+					media( energias ), percentil( energias, 50 ), percentil( energias, 90 ), energias[numMundos-1] )
+			+ String.format( "Tiempo real %1$.1f ms: %2$.1f segundos simulados por segundo real (%3$.1f mundos/s)",
+					nanosLote/1E6, getSegundosSimuladosPorSegundo(), numMundos/(nanosLote/1E9) );
+	}
+
+		private static double media( double[] valores ) {
+			double suma = 0;
+			for (double v : valores) suma += v;
+			return suma / valores.length;
+		}
+
+		// Percentil de un array ordenado (el valor más cercano por debajo)
+		private static double percentil( double[] ordenados, double p ) {
+			int i = (int) Math.ceil( p/100.0*ordenados.length ) - 1;
+			return ordenados[ Math.max( 0, Math.min( ordenados.length-1, i ) ) ];
+		}
+
+	/** Guarda los resultados de cada mundo en un fichero CSV (separado por ;)
+	 * @param fichero	Nombre del fichero
+	 * @throws FileNotFoundException	Si no se puede crear el fichero
+	 */
+	public void guardaCSV( String fichero ) throws FileNotFoundException {
+		PrintStream ps = new PrintStream( fichero );
+		ps.println( "semilla;choques;energiaPerdida;sobrevive;segundosVivo" );
+		for (int i=0; i<numMundos; i++) {
+			ps.println( (semillaInicial+i) + ";" + choques[i] + ";" + energiaPerdida[i] + ";" + isSuperviviente(i) + ";" + getSegundosVivo(i) );
+		}
+		ps.close();
+	}
+
+	/** Ejecuta un lote de mundos
+	 * @param args	[número de mundos (1000)] [segundos simulados por mundo (30)] [hilos (procesadores)] [fichero CSV de resultados]
+	 * @throws FileNotFoundException	Si no se puede crear el fichero de resultados
+	 */
+	public static void main(String[] args) throws FileNotFoundException {
+		int numMundos = (args.length>0) ? Integer.parseInt( args[0] ) : 1000;
+		double segundos = (args.length>1) ? Double.parseDouble( args[1] ) : 30;
+		int numHilos = (args.length>2) ? Integer.parseInt( args[2] ) : Runtime.getRuntime().availableProcessors();
+		Fisica.setGravedad( false );  // Como en MundoNaves
+		LoteMundosNaves lote = new LoteMundosNaves( numMundos, 1, (int) Math.round( segundos*1000 / MundoNaves.getMilisPorMovimiento() ) );
+		lote.ejecuta( numHilos );
+		System.out.println( lote.getResumen() );
+		if (args.length>3) {
+			lote.guardaCSV( args[3] );
+			System.out.println( "Resultados guardados en " + args[3] );
+		}
+	}
+
+}
@@ -1,404 +1,1006 @@
-package utils.juego2d.pruebas;
-import java.awt.*;
-import java.awt.event.*;
-import java.util.*;
-import utils.juego2d.utils.Fisica;
-import utils.ventanas.ventanaBitmap.VentanaGrafica;
-
-public class MundoNaves {
-	private ArrayList<ObjetoMovil> objetos;
-	private VentanaGrafica ventana;
-	
-	private static long MILIS_POR_MOVIMIENTO = 16;
-	private static long MILIS_ENTRE_MOVTOS = 16;
-	private static boolean PAUSA = false;
-	private static boolean VER_CHOQUES = false;
-	
-	public MundoNaves() {
-		objetos = new ArrayList<ObjetoMovil>();
-		ventana = new VentanaGrafica( 1000, 800, "MundoNaves" );
-	}
-	
-	public ArrayList<ObjetoMovil> getObjetos() {
-		return objetos;
-	}
-	
-	public VentanaGrafica getVentana() {
-		return ventana;
-	}
-	
-	public boolean addObjeto( ObjetoMovil objeto ) {
-		if (objeto.getNombre()==null || objeto.getNombre().isEmpty()) objeto.setNombre( "" + objetos.size() );
-		objetos.add( objeto );
-		return true;
-	}
-	
-
-	public static void main(String[] args) {
-		Fisica.setGravedad( false );
-		crearYMoverMundo();
-	}
-	
-	private static void crearYMoverMundo() {
-		MundoNaves mundo = new MundoNaves();
-		mundo.init();
-		mundo.crearMundoTest( 1 );
-		mundo.moverMundo();
-	}
-	
-	private void init() {
-		ventana.anyadeBoton( "Reinicio test 1", new ActionListener() {
-			@Override
-			public void actionPerformed(ActionEvent e) {
-				ejecutaSeguro( new Runnable() {
-					@Override
-					public void run() {
-						crearMundoTest( 1 );
-					}
-				} );
-			}
-		});
-//		ventana.anyadeBoton( "Reinicio test 2", new ActionListener() {
-//			@Override
-//			public void actionPerformed(ActionEvent e) {
-//				ObjetoEspacial.DIBUJAR_VELOCIDAD = false;
-//				VER_CHOQUES = true;
-//				ventana.setMensaje( "Parar clculo en choques ON" );
-//				crearMundoTest( 2 );
-//			}
-//		});
-		ventana.anyadeBoton( "Test", new ActionListener() {
-			@Override
-			public void actionPerformed(ActionEvent e) {
-				ejecutaSeguro( new Runnable() {
-					@Override
-					public void run() {
-						test( objetos );
-					}
-				} );
-			}
-		});
-		ventana.anyadeBoton( "Cargar", new ActionListener() {
-			@Override
-			public void actionPerformed(ActionEvent e) {
-				ejecutaSeguro( new Runnable() {
-					@Override
-					public void run() {
-						cargarDeFichero( objetos );
-					}
-				} );
-			}
-		});
-		ventana.anyadeBoton( "Guardar", new ActionListener() {
-			@Override
-			public void actionPerformed(ActionEvent e) {
-				ejecutaSeguro( new Runnable() {
-					@Override
-					public void run() {
-						guardarAFichero( objetos );
-					}
-				} );
-			}
-		});
-	}
-	
-		private static Random random = new Random();
-		public static int cont = 0;
-
-		private transient NaveTripulada navePrincipal = null;
-		private transient Runnable run = null;
-		private transient int tipoInit = 0;
-	// Crea objetos de test en el mundo
-	private void crearMundoTest( int tipoTest ) {
-		tipoInit = tipoTest;
-		objetos.clear();
-		if (tipoInit==1) {  // Unas cuantas naves chocando y movindose
-			MundoNaves.this.addObjeto( new Nave( 200, 100, 20, 100, 100, Color.red ) );  // Pone un nombre secuencial ... "1", "2"... y as sucesivamente
-			MundoNaves.this.addObjeto( new Nave( 200, 400, 20, -100, -50, Color.red ) );
-			MundoNaves.this.addObjeto( new Nave( 300, 350, 28, -40, 45, Color.blue ) );
-			MundoNaves.this.addObjeto( new Nave( 420, 550, 28, 420, 550, Color.blue ) );
-			MundoNaves.this.addObjeto( new Nave( 500, 120, 28, 530, 180, Color.blue ) );
-			MundoNaves.this.addObjeto( new Nave( 600, 280, 28, 690, 300, Color.blue ) );
-			MundoNaves.this.addObjeto( new Nave( 700, 500, 14, 630, 450, Color.green ) );
-			MundoNaves.this.addObjeto( new Asteroide( 350, 300, 150, Color.magenta ) );
-			MundoNaves.this.addObjeto( new Asteroide( 700, 130, 80, Color.magenta ) );
-			navePrincipal = new NaveTripulada( 600, 500, 40, 600, 500, Color.magenta );
-			MundoNaves.this.addObjeto( navePrincipal );
-		} else if (tipoInit==2) {  // Dos naves grandes que van a chocar
-			MundoNaves.this.addObjeto( new Nave( 300, 100, 100, 1900, 420, Color.blue ) );
-			MundoNaves.this.addObjeto( new Nave( 565, 120, 100, -215, 560, Color.magenta ) );
-		}
-	}
-	
-		// Mtodo privado para ejecutar un cdigo sin interferir con el ciclo de ejecucin del juego
-		private void ejecutaSeguro( Runnable miRun ) {
-			if (!running)
-				miRun.run();  // Si no est ejecutndose el juego, se inicia
-			else
-				run = miRun;  // Si ya est ejecutndose el juego se almacena el trabajo y el propio juego lo lanzar cuando sea seguro
-		}
-		
-		private boolean running = false;
-	// Permitiendo interaccin con el ratn para crear naves y/o lanzarlas en diagonal
-	private void moverMundo() {
-		running = true;
-		primerClick = null;
-		ultimoClick = null;
-		objetoClickado = null;
-		VentanaGrafica v = this.getVentana();
-		PAUSA = true;
-		ventana.setMensaje( "Pausa ON. Pulsa P para iniciar");
-		while (!v.estaCerrada()) {  // hasta que se cierre la ventana
-			// 0.- Cambiar parmetros con posibles indicaciones de teclado
-			procesarTeclado();
-			// 1.- Chequear posible interaccin de ratn
-			procesarRaton(v);
-			// 2.- Hacer movimiento de los objetos en el lapso de tiempo ocurrido
-			moverObjetos(v);
-			// 3.- Calcular y corregir choques en el mundo
-			corregirMovimiento(v);
-			// 4.- Dibujado explcito de todos los objetos
-			dibujadoMundo(v);
-			// 5.- Ciclo de espera hasta la siguiente iteracin
-			this.getVentana().espera( MILIS_ENTRE_MOVTOS );
-			// 6.- Posible trabajo de reinicializacin que est pendiente
-			if (run!=null) { run.run(); run = null; }
-		}
-		running = false;
-	}
-
-	// 0.- Cambiar parmetros con posibles indicaciones de teclado
-	private void procesarTeclado() {
-		int tecla = ventana.getCodUltimaTeclaTecleada(); 
-		if (tecla==KeyEvent.VK_V) {
-			ObjetoMovil.DIBUJAR_VELOCIDAD = !ObjetoMovil.DIBUJAR_VELOCIDAD;
-			ventana.setMensaje( "Dibujar velocidad " + (ObjetoMovil.DIBUJAR_VELOCIDAD ? "ON" : "OFF") );
-		} else if (tecla==KeyEvent.VK_P) {
-			PAUSA = !PAUSA;
-			ventana.setMensaje( "Pausa " + (PAUSA ? "ON" : "OFF") );
-		} else if (tecla==KeyEvent.VK_C) {
-			VER_CHOQUES = !VER_CHOQUES;
-			ventana.setMensaje( "Dibujar y parar clculo en choques " + (VER_CHOQUES ? "ON" : "OFF") );
-		} else if (tecla==KeyEvent.VK_PLUS) {
-			if (MILIS_POR_MOVIMIENTO<132) {
-				MILIS_POR_MOVIMIENTO = MILIS_POR_MOVIMIENTO * 2;
-				if (MILIS_POR_MOVIMIENTO >= MILIS_ENTRE_MOVTOS)
-					ventana.setMensaje( "Tiempo visualizacin x" + (1.0 * MILIS_POR_MOVIMIENTO / MILIS_ENTRE_MOVTOS) );
-				else 
-					ventana.setMensaje( "Tiempo visualizacin /" + (1.0 * MILIS_ENTRE_MOVTOS / MILIS_POR_MOVIMIENTO) );
-			}
-		} else if (tecla==KeyEvent.VK_MINUS) {
-			if (MILIS_POR_MOVIMIENTO>1) {
-				MILIS_POR_MOVIMIENTO = MILIS_POR_MOVIMIENTO / 2;
-				if (MILIS_POR_MOVIMIENTO >= MILIS_ENTRE_MOVTOS)
-					ventana.setMensaje( "Tiempo visualizacin x" + (1.0 * MILIS_POR_MOVIMIENTO / MILIS_ENTRE_MOVTOS) );
-				else 
-					ventana.setMensaje( "Tiempo visualizacin /" + (1.0 * MILIS_ENTRE_MOVTOS / MILIS_POR_MOVIMIENTO) );
-			}
-		}
-		// Pulsaciones activas
-		tecla = ventana.getCodTeclaQueEstaPulsada(); 
-		if (ventana.isTeclaPulsada( KeyEvent.VK_LEFT )) {
-			navePrincipal.gira( -Math.PI/20 );
-		} else if (ventana.isTeclaPulsada( KeyEvent.VK_RIGHT )) {
-			navePrincipal.gira( Math.PI/20 );
-		} else if (ventana.isTeclaPulsada( KeyEvent.VK_UP )) {
-			navePrincipal.acelera( 10 );
-		} else if (ventana.isTeclaPulsada( KeyEvent.VK_DOWN )) {
-			navePrincipal.acelera( -10 );
-		}
-	}
-
-		private Point primerClick = null;
-		private Point ultimoClick = null;
-		private ObjetoMovil objetoClickado = null;
-	// 1.- Chequear posible interaccin de ratn
-	private void procesarRaton(VentanaGrafica v) {
-		Point clickRaton = v.getRatonPulsado();
-		if (clickRaton==null) {
-			if (primerClick!=null && ultimoClick!=null && objetoClickado!=null && !primerClick.equals(ultimoClick)) { // Ha habido un drag sobre un objeto
-				// Aplicar fuerza a objeto
-				objetoClickado.setVelocidadX( (ultimoClick.x - primerClick.x)*10.0 );
-				objetoClickado.setVelocidadY( (ultimoClick.y - primerClick.y)*10.0 );
-			} else if (primerClick!=null && ultimoClick!=null && objetoClickado==null && !primerClick.equals(ultimoClick)) {  // No hay drag. Creacin de objeto nuevo
-				double radio = primerClick.distance( ultimoClick );
-				if (radio >= 5) {  // Por debajo de 10 pxels no se considera
-					Color color = Color.blue;
-					switch (random.nextInt( 3 )) {
-						case 0: {
-							color = Color.red;
-							break;
-						}
-						case 1: {
-							color = Color.green;
-							break;
-						}
-					}
-					Nave nave = new Nave( primerClick.x, primerClick.y, 20, ultimoClick.x, ultimoClick.y, color );
-					if (this.addObjeto( nave ))
-						nave.dibuja( this.getVentana() );
-				}
-			}
-			primerClick = null;
-		} else {
-			if (primerClick==null) {
-				primerClick = clickRaton;
-				ultimoClick = null;
-				objetoClickado = null;
-				for (ObjetoMovil objeto : this.getObjetos()) {
-						if (objeto!=null) {
-						if (objeto.contieneA(primerClick)) {
-							objetoClickado = objeto;
-							break;
-						}
-					}
-				}
-			} else {
-				ultimoClick = clickRaton;
-			}
-		}
-	}
-	
-	// 2.- Hacer movimiento de los objetos en el lapso de tiempo ocurrido
-	private void moverObjetos(VentanaGrafica v) {
-		if (!PAUSA) {
-			for (ObjetoMovil objeto : this.getObjetos()) {
-				if (objeto != null) {  // Ojo, solo con los objetos que haya!
-					// Se mueve el objeto
-					objeto.mueveUnPoco( v, MILIS_POR_MOVIMIENTO, false );  // Mtodo para movimiento con influencia de gravedad   (sin dibujado)
-				}
-			}
-		}
-	}
-
-	// 3.- Calcular y corregir choques en el mundo
-	private void corregirMovimiento(VentanaGrafica v) {
-		if (!PAUSA) {
-			boolean hayChoques;
-			int numIteraciones = 0;
-			do { 
-				numIteraciones++;
-				hayChoques = false;
-				// 3a.- Comprobamos choques con los lmites de la ventana
-				for (ObjetoMovil objeto : this.getObjetos()) {
-					if (objeto != null) {  // Ojo, solo con los objetos que haya!
-						// Choque lateral
-						int choque = objeto.chocaConBorde( v );
-						// System.out.println( choque );
-						if ((choque & 0b0001) != 0 && objeto.getVelocidadX()<0) { // Choque izquierda
-							objeto.rebotaIzquierda( 1.0 );  // Rebota al 100% -sale hacia la derecha-
-							objeto.corrigeChoqueLateral( v, false );
-							hayChoques = true;
-							reboteEnBorde( objeto, 0 );
-						} else if ((choque & 0b0010) != 0 && objeto.getVelocidadX()>0) {  // Choque derecha
-							objeto.rebotaDerecha( 1.0 );  // Rebota al 100% -sale hacia la izquierda-
-							objeto.corrigeChoqueLateral( v, false );
-							hayChoques = true;
-							reboteEnBorde( objeto, 1 );
-						}
-						// Choque en vertical
-						if (choque>=8) {  // Abajo
-							hayChoques = true;
-							if (objeto.getVelocidadY()>0) objeto.corrigeChoqueVertical( v, false );
-							objeto.rebotaAbajo( 1.0 );
-							objeto.corrigeChoqueVertical( v, false );
-							reboteEnBorde( objeto, 3 );
-						} else if (choque>=4) {  // Arriba
-							hayChoques = true;
-							if (objeto.getVelocidadY()<0) objeto.corrigeChoqueVertical( v, false );
-							objeto.rebotaArriba( 1.0 );
-							objeto.corrigeChoqueVertical( v, false );
-							reboteEnBorde( objeto, 2 );
-						}
-					}
-				}
-				// 3b.- Comprobamos choques entre objetos
-				// Probamos todas con todas (salen rebotadas en la direccin del choque)
-				for (int i=0; i<this.getObjetos().size(); i++) {
-					ObjetoMovil objeto = this.getObjetos().get(i); 
-					if (objeto != null) {
-						for (int j=i+1; j<this.getObjetos().size(); j++) {
-							ObjetoMovil objeto2 = this.getObjetos().get(j); 
-							if (objeto2 != null) {
-								if (objeto.chocaConObjeto( objeto2 )!=null) {
-									procesaChoque( objeto, objeto2 );
-								}
-							}
-						}
-					}
-				}
-			} while (hayChoques && numIteraciones<=3);
-		}
-	}
-
-	// 4.- Dibujado explcito de todos los objetos
-	private void dibujadoMundo(VentanaGrafica v) {
-		// Dibujado de mundo
-		this.getVentana().borra();  // Borra todo
-		for (ObjetoMovil objeto : this.getObjetos()) {  // Y dibuja de nuevo todos los objetos
-			if (objeto != null) {
-				objeto.dibuja( this.getVentana() );
-			}
-		}
-		// Feedback visual de interacciones
-		if (primerClick!=null && ultimoClick!=null) {
-			if (objetoClickado!=null) {  // Se est queriendo imprimir velocidad a un objeto
-				ventana.dibujaFlecha( primerClick.getX(), primerClick.getY(), ultimoClick.getX(), ultimoClick.getY(), 1.0f, Color.orange, 25 );
-			} else {  // Se est queriendo crear un objeto
-				ventana.dibujaCirculo( primerClick.getX(), primerClick.getY(), 20, 1.0f, Color.orange );
-				ventana.dibujaFlecha( primerClick.getX(), primerClick.getY(), ultimoClick.getX(), ultimoClick.getY(), 1.0f, Color.orange, 25 );
-			}
-		}
-		if (!PAUSA) trasCadaFotograma( this.getObjetos() );
-	}
-	
-	// Mtodos de lgica de la animacin
-	
-	// Se ejecuta en cada choque y recibe los objetos que chocan
-	private void procesaChoque( ObjetoMovil objeto, ObjetoMovil objeto2 ) {
-		double milis = MILIS_POR_MOVIMIENTO;
-		// Aplica velocidad de choque en funcin de las masas (el que tiene masa ms grande se ve menos afectado y viceversa)
-		Fisica.calcChoqueEntreObjetos(ventana, objeto, objeto2, milis, VER_CHOQUES );
-		if (VER_CHOQUES) {  // Espera a pulsacin de ratn
-			if (ventana.getRatonPulsado()==null) { // Si el ratn no est pulsado...
-				while (ventana.getRatonPulsado()==null && !ventana.estaCerrada()) {}  // Espera a pulsacin...
-				while (ventana.getRatonPulsado()!=null && !ventana.estaCerrada()) {}  // ...y suelta
-			}
-		}
-		if (objeto==navePrincipal || objeto2==navePrincipal) {
-			ObjetoMovil chocado = objeto;
-			if (objeto==navePrincipal) chocado = objeto2;
-			navePrincipal.cambiaEnergia( - chocado.getArea()/20 );
-			ventana.setMensaje( "Choque: Energa = " + navePrincipal.getEnergia() );
-			if (navePrincipal.getEnergia()<0) {
-				objetos.remove( navePrincipal );
-				ventana.setMensaje( "Juego terminado! Has perdido" );
-			}
-		}
-	}
-
-	// Se ejecuta tras cada fotograma y recibe todos los objetos en pantalla
-	private void trasCadaFotograma( ArrayList<ObjetoMovil> listaObjetos ) {
-		
-	}
-	
-	// Se ejecuta tras rebotar en un borde de la ventana un objeto.
-	// Cdigo de borde: 0-Izquierda 1-Derecha 2-Arriba 3-Abajo
-	private void reboteEnBorde( ObjetoMovil objeto, int codigoBorde ) {
-		// TODO
-	}
-	
-	// Se ejecuta al pulsar el botn de test y recibe todos los objetos en pantalla
-	private void test( ArrayList<ObjetoMovil> listaObjetos ) {
-		// TODO
-	}
-	public void cargarDeFichero( ArrayList<ObjetoMovil> listaObjetos ) {
-		// TODO
-	}
-
-	public void guardarAFichero( ArrayList<ObjetoMovil> listaObjetos ) {
-		// TODO
-	}
-
-	
-}
+package utils.juego2d.pruebas;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.util.*;
+import utils.juego2d.utils.BucleJuego;
+import utils.juego2d.utils.ChoqueContinuo;
+import utils.juego2d.utils.Entidades;
+import utils.juego2d.utils.EventosChoque;
+import utils.juego2d.utils.Fisica;
+import utils.juego2d.utils.GrabacionEntradas;
+import utils.juego2d.utils.GravedadMutua;
+import utils.juego2d.utils.InstantaneaMundo;
+import utils.juego2d.utils.Limites;
+import utils.juego2d.utils.LimitesEnMemoria;
+import utils.juego2d.utils.ListaParejas;
+import utils.juego2d.utils.PasoParalelo;
+import utils.juego2d.utils.PerfiladorFotograma;
+import utils.juego2d.utils.RejillaEspacial;
+import utils.juego2d.utils.ReservaObjetos;
+import utils.juego2d.utils.SistemaParticulas;
+import utils.juego2d.utils.SolverImpulsos;
+import utils.juego2d.utils.Vector2D;
+import utils.ventanas.ventanaBitmap.VentanaGrafica;
+
+public class MundoNaves {
+	private ArrayList<ObjetoMovil> objetos;
+	private Entidades entidades;  // Altas y bajas de los objetos en tiempo constante, con identificadores estables
+	private ReservaObjetos<Nave> reservaNaves;  // Naves y asteroides quitados, para reutilizarlos en las altas
+	private ReservaObjetos<Asteroide> reservaAsteroides;
+	private VentanaGrafica ventana;  // null si el mundo se simula sin ventana
+	private Limites limites;        // Límites del mundo (la propia ventana o unos límites en memoria)
+	private RejillaEspacial rejilla;  // Fase amplia de choques: solo se prueban las parejas que comparten celda
+	private ListaParejas parejas;
+	private ChoqueContinuo choqueContinuo;  // Evita que los objetos rápidos se atraviesen (si está activo CHOQUE_CONTINUO)
+	private PasoParalelo pasoParalelo;  // Movimiento y choques en varios hilos (si está activo PASO_PARALELO)
+	private SolverImpulsos solver;  // Resolución conjunta de los choques por impulsos (si está activo SOLVER_IMPULSOS)
+	private GravedadMutua gravedad;  // Atracción entre todos los objetos según su volumen (si está activo GRAVEDAD_MUTUA)
+	private PerfiladorFotograma perfil;  // Tiempos y memoria de cada fase del fotograma (tecla F para verlo, X para guardarlo en CSV)
+	private BucleJuego bucle;  // Bucle de paso fijo (MILIS_ENTRE_MOVTOS) y dibujado interpolado (MILIS_ENTRE_FOTOGRAMAS)
+	private GrabacionEntradas grabacion;   // Entradas de cada fotograma desde la última instantánea guardada (null si no se está grabando)
+	private GrabacionEntradas repeticion;  // Entradas grabadas que se están repitiendo en lugar de las de la ventana (null si no se repite)
+	private long numChoques = 0;  // Choques entre objetos procesados desde la creación del mundo
+	private EventosChoque eventos;  // Choques y rebotes del paso, que se entregan juntos a la lógica de juego al terminar el paso
+	private SistemaParticulas particulas;  // Restos de los choques, solo visuales (null si el mundo no tiene ventana)
+	
+	private static long MILIS_POR_MOVIMIENTO = 16;
+	private static long MILIS_ENTRE_MOVTOS = 16;
+	private static long MILIS_ENTRE_FOTOGRAMAS = 16;
+	private static double TAMANYO_CELDA_REJILLA = 100;
+	private static boolean PAUSA = false;
+	private static boolean VER_CHOQUES = false;
+	private static boolean VER_ESTADISTICAS = false;
+	private static boolean PASO_PARALELO = false;
+	private static boolean CHOQUE_CONTINUO = true;
+	private static boolean SOLVER_IMPULSOS = false;
+	private static boolean GRAVEDAD_MUTUA = false;
+	private static int NUM_HILOS = PasoParalelo.NUM_HILOS_POR_DEFECTO;
+	private static boolean RENDERIZADO_ACTIVO = false;  // Presentación en pantalla desde el bucle, una vez por fotograma (argumento "activo")
+	private static int PARTICULAS_EXPLOSION = 100000;  // Tecla B: explosión de prueba desde la nave principal
+	private static String FICHERO_INSTANTANEA = "MundoNaves-instantanea.dat";  // Botones Guardar y Cargar
+	private static String FICHERO_ENTRADAS = "MundoNaves-entradas.dat";        // Entradas grabadas desde el último Guardar (tecla R para repetirlas)
+	
+	public MundoNaves() {
+		this( new VentanaGrafica( 1000, 800, "MundoNaves", RENDERIZADO_ACTIVO ) );
+		if (RENDERIZADO_ACTIVO) ventana.setDibujadoInmediato( false );  // Se presenta una sola vez al final de cada fotograma
+	}
+	
+	/** Crea un mundo sin ventana, solo para simular (sin dibujado ni interacción)
+	 * @param anchura	Anchura del mundo en píxels
+	 * @param altura	Altura del mundo en píxels
+	 */
+	public MundoNaves( int anchura, int altura ) {
+		this( null, new LimitesEnMemoria( anchura, altura ) );
+	}
+	
+	private MundoNaves( VentanaGrafica ventana ) {
+		this( ventana, ventana );
+	}
+	
+	private MundoNaves( VentanaGrafica ventana, Limites limites ) {
+		objetos = new ArrayList<ObjetoMovil>();
+		entidades = new Entidades( objetos );
+		reservaNaves = new ReservaObjetos<Nave>( Nave.class, new ReservaObjetos.Fabrica<Nave>() {
+			@Override
+			public Nave crea() {
+				return new Nave( 0, 0, 1 );
+			}
+		});
+		reservaAsteroides = new ReservaObjetos<Asteroide>( Asteroide.class, new ReservaObjetos.Fabrica<Asteroide>() {
+			@Override
+			public Asteroide crea() {
+				return new Asteroide( 0, 0, 1 );
+			}
+		});
+		entidades.registraReserva( reservaNaves );
+		entidades.registraReserva( reservaAsteroides );
+		this.ventana = ventana;
+		this.limites = limites;
+		rejilla = new RejillaEspacial( TAMANYO_CELDA_REJILLA );
+		parejas = new ListaParejas();
+		choqueContinuo = new ChoqueContinuo();
+		pasoParalelo = new PasoParalelo( NUM_HILOS );
+		solver = new SolverImpulsos();
+		gravedad = new GravedadMutua();
+		perfil = new PerfiladorFotograma();
+		bucle = new BucleJuego( MILIS_ENTRE_MOVTOS, MILIS_ENTRE_FOTOGRAMAS );
+		eventos = new EventosChoque();
+		eventos.anyadeOyente( new EventosChoque.Oyente() {  // Lógica de juego, ya resueltos todos los choques del paso
+			@Override
+			public void evento( int tipo, ObjetoMovil objeto1, ObjetoMovil objeto2, int borde ) {
+				if (tipo==EventosChoque.CHOQUE) logicaChoque( objeto1, objeto2 ); else reboteEnBorde( objeto1, borde );
+			}
+		}, EventosChoque.CHOQUE | EventosChoque.BORDE, null, null );
+		entidades.setEventos( eventos );  // Fin de contactos de los objetos quitados antes de que vuelvan a su reserva
+		if (ventana!=null) {
+			particulas = new SistemaParticulas();
+			particulas.setRozamiento( 0.8 );
+			eventos.anyadeOyente( new EventosChoque.Oyente() {  // Restos al empezar cada choque entre asteroides
+				@Override
+				public void evento( int tipo, ObjetoMovil objeto1, ObjetoMovil objeto2, int borde ) {
+					explosionAsteroides( (Asteroide) objeto1, (Asteroide) objeto2 );
+				}
+			}, EventosChoque.INICIO, Asteroide.class, Asteroide.class );
+		}
+	}
+	
+	public ArrayList<ObjetoMovil> getObjetos() {
+		return objetos;
+	}
+	
+	public VentanaGrafica getVentana() {
+		return ventana;
+	}
+	
+	public Limites getLimites() {
+		return limites;
+	}
+	
+	/** Devuelve la nave controlada por el jugador
+	 * @return	Nave principal (puede haberse quitado ya del mundo si se ha quedado sin energía), null si el mundo no tiene
+	 */
+	public NaveTripulada getNavePrincipal() {
+		return navePrincipal;
+	}
+	
+	/** Devuelve el número de choques entre objetos procesados desde que se creó o se cargó el mundo
+	 * @return	Número de choques
+	 */
+	public long getNumChoques() {
+		return numChoques;
+	}
+	
+	/** Devuelve el tiempo simulado en cada paso
+	 * @return	Milisegundos simulados por paso
+	 */
+	public static long getMilisPorMovimiento() {
+		return MILIS_POR_MOVIMIENTO;
+	}
+	
+	public boolean addObjeto( ObjetoMovil objeto ) {
+		entidades.anyade( objeto );  // Si no tiene nombre, su nombre es su número de ranura
+		return true;
+	}
+	
+	/** Crea una nave (reutilizando una de las quitadas si la hay) y la añade al mundo
+	 * @param x	Coordenada x del centro de la nave
+	 * @param y	Coordenada y del centro de la nave
+	 * @param tamanyo	Tamaño de la nave (en pixels)
+	 * @param xDest	Coordenada x del vector de velocidad de la nave
+	 * @param yDest	Coordenada y del vector de velocidad de la nave
+	 * @param color	Color de la nave
+	 * @return	Nave añadida
+	 */
+	public Nave creaNave( double x, double y, double tamanyo, double xDest, double yDest, Color color ) {
+		Nave nave = reservaNaves.obtiene();
+		nave.inicia( x, y, tamanyo, xDest, yDest, color );
+		addObjeto( nave );
+		return nave;
+	}
+	
+	/** Crea un asteroide (reutilizando uno de los quitados si lo hay) y lo añade al mundo
+	 * @param x	Coordenada x del centro del asteroide
+	 * @param y	Coordenada y del centro del asteroide
+	 * @param radio	Radio del asteroide
+	 * @param color	Color del asteroide
+	 * @return	Asteroide añadido
+	 */
+	public Asteroide creaAsteroide( double x, double y, double radio, Color color ) {
+		Asteroide asteroide = reservaAsteroides.obtiene();
+		asteroide.inicia( x, y, radio, color );
+		addObjeto( asteroide );
+		return asteroide;
+	}
+	
+	/** Quita un objeto del mundo al final del paso en curso (se puede llamar durante el movimiento o los choques).
+	 * Las naves y asteroides quitados se reutilizan en las siguientes altas, así que no deben guardarse referencias a ellos
+	 * @param objeto	Objeto a quitar
+	 */
+	public void quitaObjeto( ObjetoMovil objeto ) {
+		entidades.quitaAlFinal( objeto );
+	}
+	
+	/** Devuelve un objeto del mundo por su identificador
+	 * @param id	Identificador del objeto ({@link ObjetoMovil#getId()})
+	 * @return	Objeto, o null si ya no está en el mundo
+	 */
+	public ObjetoMovil getObjeto( int id ) {
+		return entidades.getObjeto( id );
+	}
+	
+
+	public static void main(String[] args) {
+		Fisica.setGravedad( false );
+		if (args.length>1 && args[1].equals("gravedad")) GRAVEDAD_MUTUA = true;
+		if (args.length>0 && args[0].equals("activo")) RENDERIZADO_ACTIVO = true;
+		if (args.length>1 && args[0].equals("sinVentana") && args[1].equals("repetir"))
+			repetirSinVentana();
+		else if (args.length>0 && args[0].equals("sinVentana"))
+			simularSinVentana( 100000 );
+		else
+			crearYMoverMundo();
+	}
+	
+	// Simula el mundo de test sin ventana a toda velocidad e informa del rendimiento
+	private static void simularSinVentana( int numPasos ) {
+		MundoNaves mundo = new MundoNaves( 1000, 800 );
+		mundo.crearMundoTest( 1 );
+		long inicio = System.nanoTime();
+		for (int i=0; i<numPasos; i++) mundo.paso();
+		long nanos = System.nanoTime() - inicio;
+		System.out.println( String.format( "%1$d pasos en %2$.1f ms: %3$.1f segundos simulados por segundo real",
+			numPasos, nanos/1E6, numPasos * MILIS_POR_MOVIMIENTO / 1000.0 / (nanos/1E9) ) );
+	}
+	
+	// Repite sin ventana y a toda velocidad la última grabación (instantánea y entradas guardadas desde la ventana) y comprueba el estado final
+	private static void repetirSinVentana() {
+		MundoNaves mundo = new MundoNaves( 1000, 800 );
+		if (!mundo.iniciaRepeticion()) return;
+		int numFotogramas = mundo.repeticion.getNumFotogramas();
+		long numPasos = 0;
+		long inicio = System.nanoTime();
+		while (mundo.repeticion!=null) {
+			mundo.entradaFotograma( mundo.limites );
+			numPasos += mundo.pasosFotograma;
+		}
+		long nanos = System.nanoTime() - inicio;
+		System.out.println( String.format( "%1$d fotogramas (%2$d pasos) en %3$.1f ms: %4$.1f segundos simulados por segundo real",
+			numFotogramas, numPasos, nanos/1E6, numPasos * MILIS_POR_MOVIMIENTO / 1000.0 / (nanos/1E9) ) );
+	}
+	
+	private static void crearYMoverMundo() {
+		MundoNaves mundo = new MundoNaves();
+		mundo.init();
+		mundo.crearMundoTest( 1 );
+		mundo.moverMundo();
+	}
+	
+	private void init() {
+		ventana.anyadeBoton( "Reinicio test 1", new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				ejecutaSeguro( new Runnable() {
+					@Override
+					public void run() {
+						crearMundoTest( 1 );
+					}
+				} );
+			}
+		});
+//		ventana.anyadeBoton( "Reinicio test 2", new ActionListener() {
+//			@Override
+//			public void actionPerformed(ActionEvent e) {
+//				ObjetoEspacial.DIBUJAR_VELOCIDAD = false;
+//				VER_CHOQUES = true;
+//				ventana.setMensaje( "Parar cálculo en choques ON" );
+//				crearMundoTest( 2 );
+//			}
+//		});
+		ventana.anyadeBoton( "Test", new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				ejecutaSeguro( new Runnable() {
+					@Override
+					public void run() {
+						test( objetos );
+					}
+				} );
+			}
+		});
+		ventana.anyadeBoton( "Cargar", new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				ejecutaSeguro( new Runnable() {
+					@Override
+					public void run() {
+						cargarDeFichero( objetos );
+					}
+				} );
+			}
+		});
+		ventana.anyadeBoton( "Guardar", new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				ejecutaSeguro( new Runnable() {
+					@Override
+					public void run() {
+						guardarAFichero( objetos );
+					}
+				} );
+			}
+		});
+	}
+	
+		private static Random random = new Random();
+		public static int cont = 0;
+
+		private transient NaveTripulada navePrincipal = null;
+		private transient Runnable run = null;
+		private transient int tipoInit = 0;
+	/** Crea objetos de test en el mundo (borrando los que hubiera)
+	 * @param tipoTest	1 - Unas cuantas naves, asteroides y la nave principal. 2 - Dos naves grandes que van a chocar
+	 */
+	public void crearMundoTest( int tipoTest ) {
+		terminaGrabacion();
+		repeticion = null;
+		tipoInit = tipoTest;
+		eventos.olvidaContactos();  // Antes de limpiar: al vaciar el mundo no hay eventos de fin de contacto
+		entidades.limpia();  // Las naves y asteroides vuelven a sus reservas
+		numChoques = 0;
+		if (particulas!=null) particulas.vacia();
+		if (tipoInit==1) {  // Unas cuantas naves chocando y moviéndose
+			MundoNaves.this.creaNave( 200, 100, 20, 100, 100, Color.red );  // Sin nombre: se llaman por su ranura en el mundo ... "0", "1"... y así sucesivamente
+			MundoNaves.this.creaNave( 200, 400, 20, -100, -50, Color.red );
+			MundoNaves.this.creaNave( 300, 350, 28, -40, 45, Color.blue );
+			MundoNaves.this.creaNave( 420, 550, 28, 420, 550, Color.blue );
+			MundoNaves.this.creaNave( 500, 120, 28, 530, 180, Color.blue );
+			MundoNaves.this.creaNave( 600, 280, 28, 690, 300, Color.blue );
+			MundoNaves.this.creaNave( 700, 500, 14, 630, 450, Color.green );
+			MundoNaves.this.creaAsteroide( 350, 300, 150, Color.magenta );
+			MundoNaves.this.creaAsteroide( 700, 130, 80, Color.magenta );
+			navePrincipal = new NaveTripulada( 600, 500, 40, 600, 500, Color.magenta );
+			MundoNaves.this.addObjeto( navePrincipal );
+		} else if (tipoInit==2) {  // Dos naves grandes que van a chocar
+			MundoNaves.this.creaNave( 300, 100, 100, 1900, 420, Color.blue );
+			MundoNaves.this.creaNave( 565, 120, 100, -215, 560, Color.magenta );
+		}
+	}
+	
+	/** Crea un mundo de test aleatorio (borrando los objetos que hubiera): naves y asteroides en posiciones, tamaños
+	 * y velocidades aleatorias, y la nave principal. El mismo mundo para la misma semilla
+	 * @param semilla	Semilla de los números aleatorios
+	 * @param numNaves	Número de naves (sin contar la principal)
+	 * @param numAsteroides	Número de asteroides
+	 */
+	public void crearMundoAleatorio( long semilla, int numNaves, int numAsteroides ) {
+		crearMundoTest( 0 );  // Vacío
+		Random r = new Random( semilla );
+		int anchura = limites.getAnchura();
+		int altura = limites.getAltura();
+		for (int i=0; i<numAsteroides; i++) {
+			double radio = 40 + r.nextDouble()*110;
+			creaAsteroide( radio + r.nextDouble()*(anchura-2*radio), radio + r.nextDouble()*(altura-2*radio), radio, Color.magenta );
+		}
+		Color[] colores = { Color.red, Color.green, Color.blue };
+		for (int i=0; i<numNaves; i++) {
+			double x = 30 + r.nextDouble()*(anchura-60);
+			double y = 30 + r.nextDouble()*(altura-60);
+			creaNave( x, y, 14 + r.nextInt(15), x + r.nextGaussian()*150, y + r.nextGaussian()*150, colores[r.nextInt(3)] );
+		}
+		double x = 40 + r.nextDouble()*(anchura-80);
+		double y = 40 + r.nextDouble()*(altura-80);
+		navePrincipal = new NaveTripulada( x, y, 40, x, y, Color.magenta );
+		addObjeto( navePrincipal );
+	}
+	
+		// Método privado para ejecutar un código sin interferir con el ciclo de ejecución del juego
+		private void ejecutaSeguro( Runnable miRun ) {
+			if (!running)
+				miRun.run();  // Si no está ejecutándose el juego, se inicia
+			else
+				run = miRun;  // Si ya está ejecutándose el juego se almacena el trabajo y el propio juego lo lanzará cuando sea seguro
+		}
+		
+		private boolean running = false;
+	// Permitiendo interacción con el ratón para crear naves y/o lanzarlas en diagonal
+	private void moverMundo() {
+		running = true;
+		primerClick = null;
+		ultimoClick = null;
+		objetoClickado = null;
+		final VentanaGrafica v = this.getVentana();
+		PAUSA = true;
+		ventana.setMensaje( "Pausa ON. Pulsa P para iniciar");
+		bucle.ejecuta( new BucleJuego.Juego() {
+			@Override
+			public boolean sigue() {
+				return !v.estaCerrada();  // hasta que se cierre la ventana
+			}
+			@Override
+			public void entrada() {
+				perfil.iniciaFotograma();
+				rejilla.iniciaFotograma();  // Los contadores de la rejilla y de geometría cubren un fotograma completo (movimiento, choques y dibujado)
+				Nave.iniciaContadoresGeometria();
+				// 0.- y 1.- Teclado y ratón (de la ventana, o de la grabación que se esté repitiendo, junto con sus pasos)
+				entradaFotograma(v);
+			}
+			@Override
+			public void actualiza() {  // Se llama cada MILIS_ENTRE_MOVTOS reales (y mueve MILIS_POR_MOVIMIENTO simulados)
+				// 2.- y 3.- Movimiento y choques (al repetir una grabación se dan los pasos grabados en la entrada)
+				if (repeticion==null) pasoDeFotograma(v);
+			}
+			@Override
+			public void dibuja( double alfa ) {
+				// 4.- Dibujado explícito de todos los objetos (interpolando entre el paso anterior y el actual)
+				perfil.fase( PerfiladorFotograma.DIBUJADO );
+				dibujadoMundo(v, alfa);
+				if (VER_ESTADISTICAS && !PAUSA) muestraEstadisticas();
+				// 5.- La espera hasta la siguiente iteración la hace el bucle
+				registraFotograma();  // Si se están grabando las entradas
+				// 6.- Posible trabajo de reinicialización que esté pendiente
+				if (run!=null) { run.run(); run = null; }
+				perfil.fase( PerfiladorFotograma.ESPERA );
+			}
+		} );
+		running = false;
+	}
+
+	// 0.- y 1.- Entrada del fotograma y, si se está repitiendo una grabación, los pasos que se dieron en él
+	private void entradaFotograma( Limites v ) {
+		// 0.- Cambiar parámetros con posibles indicaciones de teclado
+		perfil.fase( PerfiladorFotograma.TECLADO );
+		leeEntrada();
+		procesarTeclado();
+		// 1.- Chequear posible interacción de ratón
+		perfil.fase( PerfiladorFotograma.RATON );
+		procesarRaton();
+		pasosFotograma = 0;
+		if (repeticion!=null) {
+			for (int i=0; i<repeticion.getValor( ENT_PASOS ); i++) pasoDeFotograma( v );
+		}
+	}
+	
+		// Entrada del fotograma en curso (leída de la ventana o de la repetición) y su grabación
+		private static final int ENT_TECLA = 0, ENT_PULSADAS = 1, ENT_RATON_X = 2, ENT_RATON_Y = 3, ENT_PASOS = 4, NUM_ENTRADAS = 5;
+		private static final int PULSADA_IZQ = 1, PULSADA_DER = 2, PULSADA_ARR = 4, PULSADA_ABJ = 8, PULSADO_RATON = 16;
+		private int teclaFotograma = 0;       // Última tecla tecleada (0 si ninguna)
+		private int pulsadasFotograma = 0;    // Flechas y ratón pulsados (PULSADA_IZQ | PULSADA_DER...)
+		private Point ratonFotograma = null;  // Posición del ratón si está pulsado
+		private int pasosFotograma = 0;       // Pasos de simulación dados en el fotograma
+		
+		// Lee la entrada del fotograma: de la ventana, o de la grabación si se está repitiendo
+		private void leeEntrada() {
+			teclaFotograma = 0;
+			pulsadasFotograma = 0;
+			ratonFotograma = null;
+			if (ventana!=null) {
+				teclaFotograma = ventana.getCodUltimaTeclaTecleada();
+				if (teclaFotograma==KeyEvent.VK_R) {  // Repetir no es una entrada del juego (no se graba)
+					teclaFotograma = 0;
+					ejecutaSeguro( new Runnable() {
+						@Override
+						public void run() {
+							iniciaRepeticion();
+						}
+					} );
+				}
+				if (ventana.isTeclaPulsada( KeyEvent.VK_LEFT )) pulsadasFotograma |= PULSADA_IZQ;
+				if (ventana.isTeclaPulsada( KeyEvent.VK_RIGHT )) pulsadasFotograma |= PULSADA_DER;
+				if (ventana.isTeclaPulsada( KeyEvent.VK_UP )) pulsadasFotograma |= PULSADA_ARR;
+				if (ventana.isTeclaPulsada( KeyEvent.VK_DOWN )) pulsadasFotograma |= PULSADA_ABJ;
+				ratonFotograma = ventana.getRatonPulsado();
+				if (ratonFotograma!=null) pulsadasFotograma |= PULSADO_RATON;
+			}
+			if (repeticion!=null) {  // La entrada de la ventana se ignora (salvo la R)
+				if (repeticion.siguienteFotograma()) {
+					teclaFotograma = repeticion.getValor( ENT_TECLA );
+					pulsadasFotograma = repeticion.getValor( ENT_PULSADAS );
+					ratonFotograma = ((pulsadasFotograma & PULSADO_RATON)!=0) 
+							? new Point( repeticion.getValor( ENT_RATON_X ), repeticion.getValor( ENT_RATON_Y ) ) : null;
+				} else {
+					terminaRepeticion();
+				}
+			}
+		}
+		
+		// Añade la entrada del fotograma y sus pasos a la grabación (si se está grabando)
+		private void registraFotograma() {
+			if (grabacion==null) return;
+			grabacion.anyadeFotograma();
+			grabacion.setValor( ENT_TECLA, teclaFotograma );
+			grabacion.setValor( ENT_PULSADAS, pulsadasFotograma );
+			if (ratonFotograma!=null) {
+				grabacion.setValor( ENT_RATON_X, ratonFotograma.x );
+				grabacion.setValor( ENT_RATON_Y, ratonFotograma.y );
+			}
+			grabacion.setValor( ENT_PASOS, pasosFotograma );
+		}
+		
+		// Mensaje en la ventana, o en consola si no la hay
+		private void mensaje( String mensaje ) {
+			if (ventana!=null) ventana.setMensaje( mensaje ); else System.out.println( mensaje );
+		}
+
+	// 0.- Cambiar parámetros con posibles indicaciones de teclado
+	private void procesarTeclado() {
+		int tecla = teclaFotograma; 
+		if (tecla==KeyEvent.VK_V) {
+			ObjetoMovil.DIBUJAR_VELOCIDAD = !ObjetoMovil.DIBUJAR_VELOCIDAD;
+			mensaje( "Dibujar velocidad " + (ObjetoMovil.DIBUJAR_VELOCIDAD ? "ON" : "OFF") );
+		} else if (tecla==KeyEvent.VK_P) {
+			PAUSA = !PAUSA;
+			mensaje( "Pausa " + (PAUSA ? "ON" : "OFF") );
+		} else if (tecla==KeyEvent.VK_C) {
+			VER_CHOQUES = !VER_CHOQUES;
+			mensaje( "Dibujar y parar cálculo en choques " + (VER_CHOQUES ? "ON" : "OFF") );
+		} else if (tecla==KeyEvent.VK_E) {
+			VER_ESTADISTICAS = !VER_ESTADISTICAS;
+			mensaje( "Estadísticas de choques " + (VER_ESTADISTICAS ? "ON" : "OFF") );
+		} else if (tecla==KeyEvent.VK_F) {
+			perfil.setActivo( !perfil.isActivo() );
+			mensaje( "Perfil de fotograma " + (perfil.isActivo() ? "ON" : "OFF") );
+		} else if (tecla==KeyEvent.VK_X) {
+			mensaje( perfil.guarda( "perfil-MundoNaves" ) );
+		} else if (tecla==KeyEvent.VK_H) {
+			PASO_PARALELO = !PASO_PARALELO;
+			mensaje( "Paso paralelo (" + pasoParalelo.getNumHilos() + " hilos) " + (PASO_PARALELO ? "ON" : "OFF") );
+		} else if (tecla==KeyEvent.VK_T) {
+			CHOQUE_CONTINUO = !CHOQUE_CONTINUO;
+			mensaje( "Choque continuo (objetos rápidos) " + (CHOQUE_CONTINUO ? "ON" : "OFF") );
+		} else if (tecla==KeyEvent.VK_I) {
+			SOLVER_IMPULSOS = !SOLVER_IMPULSOS;
+			mensaje( "Solver de impulsos " + (SOLVER_IMPULSOS ? "ON" : "OFF") );
+		} else if (tecla==KeyEvent.VK_G) {
+			GRAVEDAD_MUTUA = !GRAVEDAD_MUTUA;
+			mensaje( "Gravedad mutua (Barnes-Hut, theta " + gravedad.getTheta() + ") " + (GRAVEDAD_MUTUA ? "ON" : "OFF") );
+		} else if (tecla==KeyEvent.VK_B) {
+			if (particulas!=null && navePrincipal!=null) {
+				particulas.explosion( navePrincipal.getX(), navePrincipal.getY(), PARTICULAS_EXPLOSION, 400, 3000, navePrincipal.getColor().getRGB() );
+				mensaje( "Explosión de " + PARTICULAS_EXPLOSION + " partículas" );
+			}
+		} else if (tecla==KeyEvent.VK_PLUS) {
+			if (MILIS_POR_MOVIMIENTO<132) {
+				MILIS_POR_MOVIMIENTO = MILIS_POR_MOVIMIENTO * 2;
+				if (MILIS_POR_MOVIMIENTO >= MILIS_ENTRE_MOVTOS)
+					mensaje( "Tiempo visualización x" + (1.0 * MILIS_POR_MOVIMIENTO / MILIS_ENTRE_MOVTOS) );
+				else 
+					mensaje( "Tiempo visualización /" + (1.0 * MILIS_ENTRE_MOVTOS / MILIS_POR_MOVIMIENTO) );
+			}
+		} else if (tecla==KeyEvent.VK_MINUS) {
+			if (MILIS_POR_MOVIMIENTO>1) {
+				MILIS_POR_MOVIMIENTO = MILIS_POR_MOVIMIENTO / 2;
+				if (MILIS_POR_MOVIMIENTO >= MILIS_ENTRE_MOVTOS)
+					mensaje( "Tiempo visualización x" + (1.0 * MILIS_POR_MOVIMIENTO / MILIS_ENTRE_MOVTOS) );
+				else 
+					mensaje( "Tiempo visualización /" + (1.0 * MILIS_ENTRE_MOVTOS / MILIS_POR_MOVIMIENTO) );
+			}
+		}
+		// Pulsaciones activas
+		if (navePrincipal==null) return;  // Mundo cargado sin nave principal
+		if ((pulsadasFotograma & PULSADA_IZQ)!=0) {
+			navePrincipal.gira( -Math.PI/20 );
+		} else if ((pulsadasFotograma & PULSADA_DER)!=0) {
+			navePrincipal.gira( Math.PI/20 );
+		} else if ((pulsadasFotograma & PULSADA_ARR)!=0) {
+			navePrincipal.acelera( 10 );
+		} else if ((pulsadasFotograma & PULSADA_ABJ)!=0) {
+			navePrincipal.acelera( -10 );
+		}
+	}
+
+		private Point primerClick = null;
+		private Point ultimoClick = null;
+		private ObjetoMovil objetoClickado = null;
+	// 1.- Chequear posible interacción de ratón
+	private void procesarRaton() {
+		Point clickRaton = ratonFotograma;
+		if (clickRaton==null) {
+			if (primerClick!=null && ultimoClick!=null && objetoClickado!=null && !primerClick.equals(ultimoClick)) { // Ha habido un drag sobre un objeto
+				// Aplicar fuerza a objeto
+				objetoClickado.setVelocidadX( (ultimoClick.x - primerClick.x)*10.0 );
+				objetoClickado.setVelocidadY( (ultimoClick.y - primerClick.y)*10.0 );
+			} else if (primerClick!=null && ultimoClick!=null && objetoClickado==null && !primerClick.equals(ultimoClick)) {  // No hay drag. Creación de objeto nuevo
+				double radio = primerClick.distance( ultimoClick );
+				if (radio >= 5) {  // Por debajo de 10 píxels no se considera
+					Color color = Color.blue;
+					switch (random.nextInt( 3 )) {
+						case 0: {
+							color = Color.red;
+							break;
+						}
+						case 1: {
+							color = Color.green;
+							break;
+						}
+					}
+					Nave nave = creaNave( primerClick.x, primerClick.y, 20, ultimoClick.x, ultimoClick.y, color );
+					if (ventana!=null) nave.dibuja( ventana );
+				}
+			}
+			primerClick = null;
+		} else {
+			if (primerClick==null) {
+				primerClick = clickRaton;
+				ultimoClick = null;
+				objetoClickado = null;
+				for (ObjetoMovil objeto : this.getObjetos()) {
+						if (objeto!=null) {
+						if (objeto.contieneA(primerClick)) {
+							objetoClickado = objeto;
+							break;
+						}
+					}
+				}
+			} else {
+				ultimoClick = clickRaton;
+			}
+		}
+	}
+	
+	/** Realiza un paso de simulación (movimiento y corrección de choques), sin dibujado ni interacción.
+	 * Funciona también en los mundos sin ventana
+	 */
+	public void paso() {
+		moverObjetos( limites );
+		corregirMovimiento( limites );
+	}
+
+		// Paso de simulación dentro de un fotograma (2.- y 3.-, con sus fases en el perfil)
+		private void pasoDeFotograma( Limites v ) {
+			// 2.- Hacer movimiento de los objetos en el lapso de tiempo ocurrido
+			perfil.fase( PerfiladorFotograma.MOVER );
+			moverObjetos(v);
+			if (particulas!=null && !PAUSA) particulas.mueve( MILIS_POR_MOVIMIENTO );
+			// 3.- Calcular y corregir choques en el mundo
+			perfil.fase( PerfiladorFotograma.CORREGIR );
+			corregirMovimiento(v);
+			pasosFotograma++;
+		}
+
+	// 2.- Hacer movimiento de los objetos en el lapso de tiempo ocurrido
+	private void moverObjetos(Limites v) {
+		if (!PAUSA && GRAVEDAD_MUTUA) {  // Árbol de masas en las posiciones de partida (todos los objetos se mueven con las mismas)
+			gravedad.limpia();
+			gravedad.anyade( this.getObjetos() );
+			gravedad.construye();
+		}
+		if (!PAUSA && PASO_PARALELO) {
+			pasoParalelo.mueve( this.getObjetos(), movimientoObjeto );
+		} else if (!PAUSA) {
+			for (ObjetoMovil objeto : this.getObjetos()) {
+				if (objeto != null) {  // Ojo, solo con los objetos que haya!
+					// Se mueve el objeto
+					mueveObjeto( objeto, v );
+				}
+			}
+		}
+	}
+
+		// Movimiento de cada objeto en el paso paralelo (el mismo que el secuencial)
+		private final PasoParalelo.Movimiento movimientoObjeto = new PasoParalelo.Movimiento() {
+			@Override
+			public void mueve( ObjetoMovil objeto ) {
+				mueveObjeto( objeto, limites );
+			}
+		};
+
+		// Movimiento de un objeto, con la atracción del resto si está activa la gravedad mutua
+		private void mueveObjeto( ObjetoMovil objeto, Limites v ) {
+			if (GRAVEDAD_MUTUA) {
+				Vector2D aceleracion = gravedad.calculaAceleracion( objeto, Vector2D.temporal( 2 ) );
+				objeto.mueveUnPoco( v, MILIS_POR_MOVIMIENTO, false, aceleracion.getX(), aceleracion.getY() );
+			} else {
+				objeto.mueveUnPoco( v, MILIS_POR_MOVIMIENTO, false );  // Método para movimiento con influencia de gravedad   (sin dibujado)
+			}
+		}
+
+	// 3.- Calcular y corregir choques en el mundo
+	private void corregirMovimiento(Limites v) {
+		if (!PAUSA) {
+			boolean hayChoques;
+			int numIteraciones = 0;
+			// 3.0.- Los objetos rápidos se retroceden a su primer impacto (para que no atraviesen a otros)
+			if (CHOQUE_CONTINUO && choqueContinuo.hayObjetosRapidos( objetos )) corregirTunelado();
+			do { 
+				numIteraciones++;
+				hayChoques = false;
+				// 3a.- Comprobamos choques con los límites de la ventana
+				for (ObjetoMovil objeto : this.getObjetos()) {
+					if (objeto != null) {  // Ojo, solo con los objetos que haya!
+						// Choque lateral
+						int choque = objeto.chocaConBorde( v );
+						// System.out.println( choque );
+						if ((choque & 0b0001) != 0 && objeto.getVelocidadX()<0) { // Choque izquierda
+							objeto.rebotaIzquierda( 1.0 );  // Rebota al 100% -sale hacia la derecha-
+							objeto.corrigeChoqueLateral( v, false );
+							hayChoques = true;
+							eventos.anyadeBorde( objeto, 0 );
+						} else if ((choque & 0b0010) != 0 && objeto.getVelocidadX()>0) {  // Choque derecha
+							objeto.rebotaDerecha( 1.0 );  // Rebota al 100% -sale hacia la izquierda-
+							objeto.corrigeChoqueLateral( v, false );
+							hayChoques = true;
+							eventos.anyadeBorde( objeto, 1 );
+						}
+						// Choque en vertical
+						if (choque>=8) {  // Abajo
+							hayChoques = true;
+							if (objeto.getVelocidadY()>0) objeto.corrigeChoqueVertical( v, false );
+							objeto.rebotaAbajo( 1.0 );
+							objeto.corrigeChoqueVertical( v, false );
+							eventos.anyadeBorde( objeto, 3 );
+						} else if (choque>=4) {  // Arriba
+							hayChoques = true;
+							if (objeto.getVelocidadY()<0) objeto.corrigeChoqueVertical( v, false );
+							objeto.rebotaArriba( 1.0 );
+							objeto.corrigeChoqueVertical( v, false );
+							eventos.anyadeBorde( objeto, 2 );
+						}
+					}
+				}
+				// 3b.- Comprobamos choques entre objetos
+				// Probamos solo las parejas candidatas de la rejilla (salen rebotadas en la dirección del choque)
+				calculaParejasCandidatas();
+				perfil.anyadeParejas( parejas.size() );
+				if (SOLVER_IMPULSOS) {  // El solver ya itera internamente: se resuelven todos los contactos una sola vez por paso
+					if (numIteraciones==1) resuelveConImpulsos();
+				} else if (PASO_PARALELO && !VER_CHOQUES) {  // En paralelo (si se visualizan los choques se hace secuencial)
+					pasoParalelo.calculaChoques( rejilla, parejas );
+					pasoParalelo.aplicaChoques( MILIS_POR_MOVIMIENTO );
+					for (int c=0; c<pasoParalelo.getNumChoques(); c++) {  // La lógica de juego se procesa después, en orden
+						if (pasoParalelo.getVectorChoque(c)!=null) eventos.anyadeChoque( pasoParalelo.getObjeto1(c), pasoParalelo.getObjeto2(c) );
+					}
+				} else {
+					for (int k=0; k<parejas.size(); k++) {
+						ObjetoMovil objeto = rejilla.getObjeto( parejas.getPrimero(k) );
+						ObjetoMovil objeto2 = rejilla.getObjeto( parejas.getSegundo(k) );
+						if (objeto.chocaConObjeto( objeto2 )!=null) {
+							procesaChoque( objeto, objeto2 );
+						}
+					}
+				}
+			} while (hayChoques && numIteraciones<=3);
+			// 3c.- Lógica de juego de los choques y rebotes del paso (todos juntos, con la física ya resuelta)
+			eventos.despacha();
+		}
+		// 3d.- Bajas pendientes de este paso
+		entidades.aplicaQuitados();
+	}
+	
+	// Registra los objetos en la rejilla y calcula las parejas candidatas a chocar (en el mismo orden que en la lista de objetos)
+	private void calculaParejasCandidatas() {
+		rejilla.limpia();
+		for (ObjetoMovil objeto : this.getObjetos()) {
+			if (objeto != null) rejilla.anyade( objeto );
+		}
+		rejilla.calculaParejas( parejas );
+	}
+
+	// Solver de impulsos: se recogen los contactos de todas las parejas y se resuelven juntos (las parejas que no soporta se calculan como siempre)
+	private void resuelveConImpulsos() {
+		solver.iniciaPaso();
+		for (int k=0; k<parejas.size(); k++) {
+			ObjetoMovil objeto = rejilla.getObjeto( parejas.getPrimero(k) );
+			ObjetoMovil objeto2 = rejilla.getObjeto( parejas.getSegundo(k) );
+			Point2D choque = objeto.chocaConObjeto( objeto2 );
+			if (choque!=null && !solver.anyadeContacto( objeto, objeto2, choque )) procesaChoque( objeto, objeto2 );
+		}
+		solver.resuelve();
+		for (int c=0; c<solver.getNumContactos(); c++) {  // La lógica de juego se procesa después, en orden
+			eventos.anyadeChoque( solver.getObjeto1(c), solver.getObjeto2(c) );
+		}
+	}
+
+	// Choque continuo: con las cajas barridas del último movimiento se buscan las parejas que se han podido cruzar
+	private void corregirTunelado() {
+		rejilla.setCajasBarridas( true );
+		calculaParejasCandidatas();
+		rejilla.setCajasBarridas( false );
+		choqueContinuo.corrige( rejilla, parejas );
+	}
+
+	// Muestra en la ventana las estadísticas del fotograma (una vez por fotograma, aunque haya varios pasos)
+	private void muestraEstadisticas() {
+		ventana.setMensaje( bucle.getEstadisticas()
+				+ String.format( " (pantalla %.1f fps%s)", ventana.getFps(), ventana.isRenderizadoActivo() ? ", activo" : "" )
+				+ " - " + rejilla.getEstadisticasFotograma() 
+				+ (CHOQUE_CONTINUO ? " - " + choqueContinuo.getEstadisticas() : "")
+				+ (SOLVER_IMPULSOS ? " - " + solver.getEstadisticas() : "")
+				+ (GRAVEDAD_MUTUA ? " - " + gravedad.getEstadisticas() : "")
+				+ " - " + Nave.getEstadisticasGeometria() + " - " + entidades.getEstadisticas()
+				+ " - " + eventos.getEstadisticas()
+				+ (particulas!=null ? " - " + particulas.getEstadisticas() : "")
+				+ (perfil.isActivo() ? " - " + perfil.getEstadisticas() : "") );
+	}
+	
+	// 4.- Dibujado explícito de todos los objetos
+	private void dibujadoMundo(VentanaGrafica v, double alfa) {
+		if (PAUSA) alfa = 1.0;  // En pausa no hay paso siguiente: se dibuja el estado actual
+		// Dibujado de mundo
+		this.getVentana().borra();  // Borra todo
+		for (ObjetoMovil objeto : this.getObjetos()) {  // Y dibuja de nuevo todos los objetos
+			if (objeto != null) {
+				objeto.dibujaInterpolado( this.getVentana(), alfa );
+			}
+		}
+		particulas.dibuja( v, 2 );  // Todas las partículas de una vez
+		// Feedback visual de interacciones
+		if (primerClick!=null && ultimoClick!=null) {
+			if (objetoClickado!=null) {  // Se está queriendo imprimir velocidad a un objeto
+				ventana.dibujaFlecha( primerClick.getX(), primerClick.getY(), ultimoClick.getX(), ultimoClick.getY(), 1.0f, Color.orange, 25 );
+			} else {  // Se está queriendo crear un objeto
+				ventana.dibujaCirculo( primerClick.getX(), primerClick.getY(), 20, 1.0f, Color.orange );
+				ventana.dibujaFlecha( primerClick.getX(), primerClick.getY(), ultimoClick.getX(), ultimoClick.getY(), 1.0f, Color.orange, 25 );
+			}
+		}
+		if (perfil.isActivo()) perfil.dibuja( v, 10, 10 );
+		if (!v.isDibujadoInmediato()) v.repaint();
+		if (!PAUSA) trasCadaFotograma( this.getObjetos() );
+	}
+	
+	// Métodos de lógica de la animación
+	
+	// Se ejecuta en cada choque y recibe los objetos que chocan
+	private void procesaChoque( ObjetoMovil objeto, ObjetoMovil objeto2 ) {
+		double milis = MILIS_POR_MOVIMIENTO;
+		// Aplica velocidad de choque en función de las masas (el que tiene masa más grande se ve menos afectado y viceversa)
+		Fisica.calcChoqueEntreObjetos(ventana, objeto, objeto2, milis, VER_CHOQUES && ventana!=null );
+		if (VER_CHOQUES && ventana!=null) {  // Espera a pulsación de ratón
+			if (ventana.getRatonPulsado()==null) { // Si el ratón no está pulsado...
+				ventana.esperaAClick();  // Espera a pulsación y suelta (bloqueado, sin consumir procesador)
+			}
+		}
+		eventos.anyadeChoque( objeto, objeto2 );  // La lógica de juego se procesa al terminar el paso
+	}
+	
+	// Lógica de juego de cada choque (al terminar el paso, ya resueltos todos los choques)
+	private void logicaChoque( ObjetoMovil objeto, ObjetoMovil objeto2 ) {
+		numChoques++;
+		if (objeto==navePrincipal || objeto2==navePrincipal) {
+			ObjetoMovil chocado = objeto;
+			if (objeto==navePrincipal) chocado = objeto2;
+			double perdida = chocado.getArea()/20;
+			navePrincipal.cambiaEnergia( - perdida );
+			if (ventana!=null) ventana.setMensaje( "Choque: Energía = " + navePrincipal.getEnergia() );
+			if (particulas!=null) {  // Restos proporcionales a la energía perdida
+				particulas.explosion( navePrincipal.getX(), navePrincipal.getY(), navePrincipal.getVelocidadX(), navePrincipal.getVelocidadY(),
+						(int) Math.min( 5000, perdida*100 ), 200, 1500, navePrincipal.getColor().getRGB() );
+			}
+			if (navePrincipal.getEnergia()<0) {
+				quitaObjeto( navePrincipal );  // Se quita al final del paso
+				if (ventana!=null) ventana.setMensaje( "Juego terminado! Has perdido" );
+				if (particulas!=null) particulas.explosion( navePrincipal.getX(), navePrincipal.getY(), 20000, 500, 3000, navePrincipal.getColor().getRGB() );
+			}
+		}
+	}
+	
+		// Restos en el punto de contacto de dos asteroides, más cuanto más fuerte es el choque
+		private void explosionAsteroides( Asteroide a1, Asteroide a2 ) {
+			double f = a1.getRadio() / (a1.getRadio() + a2.getRadio());
+			double x = a1.getX() + (a2.getX()-a1.getX())*f;
+			double y = a1.getY() + (a2.getY()-a1.getY())*f;
+			double velRelativa = Math.hypot( a1.getVelocidadX()-a2.getVelocidadX(), a1.getVelocidadY()-a2.getVelocidadY() );
+			int num = (int) Math.min( 3000, velRelativa*5 );
+			double vx = (a1.getVelocidadX() + a2.getVelocidadX()) / 2, vy = (a1.getVelocidadY() + a2.getVelocidadY()) / 2;
+			particulas.explosion( x, y, vx, vy, num/2, velRelativa/2 + 50, 1200, a1.getColor().getRGB() );
+			particulas.explosion( x, y, vx, vy, num - num/2, velRelativa/2 + 50, 1200, a2.getColor().getRGB() );
+		}
+
+	// Se ejecuta tras cada fotograma y recibe todos los objetos en pantalla
+	private void trasCadaFotograma( ArrayList<ObjetoMovil> listaObjetos ) {
+		
+	}
+	
+	// Se ejecuta tras rebotar en un borde de la ventana un objeto (al terminar el paso).
+	// Código de borde: 0-Izquierda 1-Derecha 2-Arriba 3-Abajo
+	private void reboteEnBorde( ObjetoMovil objeto, int codigoBorde ) {
+		// TODO
+	}
+	
+	// Se ejecuta al pulsar el botón de test y recibe todos los objetos en pantalla
+	private void test( ArrayList<ObjetoMovil> listaObjetos ) {
+		// TODO
+	}
+	
+	/** Sustituye los objetos del mundo por los de la última instantánea guardada con {@link #guardarAFichero(ArrayList)}
+	 * (si se estaban grabando entradas se termina la grabación, y si se estaban repitiendo se deja de hacerlo)
+	 * @param listaObjetos	Objetos del mundo
+	 */
+	public void cargarDeFichero( ArrayList<ObjetoMovil> listaObjetos ) {
+		terminaGrabacion();
+		repeticion = null;
+		try {
+			long inicio = System.nanoTime();
+			cargaInstantanea();
+			mensaje( String.format( "Cargados %1$d objetos de %2$s (%3$.1f ms)", listaObjetos.size(), FICHERO_INSTANTANEA, (System.nanoTime()-inicio)/1E6 ) );
+		} catch (IOException e) {
+			mensaje( "Error al cargar " + FICHERO_INSTANTANEA + ": " + e.getMessage() );
+		}
+	}
+
+	/** Guarda una instantánea de los objetos del mundo y empieza a grabar las entradas desde ella, para poder repetirlas con la tecla R
+	 * (o sin ventana con los argumentos "sinVentana repetir")
+	 * @param listaObjetos	Objetos del mundo
+	 */
+	public void guardarAFichero( ArrayList<ObjetoMovil> listaObjetos ) {
+		terminaGrabacion();
+		repeticion = null;
+		try {
+			long inicio = System.nanoTime();
+			long bytes = InstantaneaMundo.guarda( FICHERO_INSTANTANEA, listaObjetos, listaObjetos.indexOf( navePrincipal ) );
+			long nanos = System.nanoTime() - inicio;
+			iniciaGrabacion();
+			mensaje( String.format( "Guardados %1$d objetos en %2$s (%3$d bytes, %4$.1f ms). Grabando entradas: R para repetir desde aquí",
+				listaObjetos.size(), FICHERO_INSTANTANEA, bytes, nanos/1E6 ) );
+		} catch (IOException e) {
+			mensaje( "Error al guardar " + FICHERO_INSTANTANEA + ": " + e.getMessage() );
+		}
+	}
+	
+		// Sustituye los objetos del mundo por los de la instantánea (el dato del mundo es el índice de la nave principal)
+		private void cargaInstantanea() throws IOException {
+			ArrayList<ObjetoMovil> cargados = new ArrayList<>();
+			long[] datos = InstantaneaMundo.carga( FICHERO_INSTANTANEA, cargados );
+			eventos.olvidaContactos();  // Antes de limpiar: al sustituir el mundo no hay eventos de fin de contacto
+			entidades.limpia();
+			for (ObjetoMovil objeto : cargados) addObjeto( objeto );
+			numChoques = 0;
+			if (particulas!=null) particulas.vacia();
+			navePrincipal = null;
+			int indice = (datos.length>0) ? (int) datos[0] : -1;
+			if (indice>=0 && indice<objetos.size() && objetos.get(indice) instanceof NaveTripulada) navePrincipal = (NaveTripulada) objetos.get(indice);
+		}
+		
+		// Configuración que influye en la simulación, para repetir las entradas en las mismas condiciones en que se grabaron
+		private static final int CONF_PAUSA = 1, CONF_VER_CHOQUES = 2, CONF_PASO_PARALELO = 4, CONF_CHOQUE_CONTINUO = 8, 
+			CONF_SOLVER_IMPULSOS = 16, CONF_GRAVEDAD_MUTUA = 32, CONF_GRAVEDAD = 64;
+		
+		// Empieza a grabar las entradas desde el estado actual (el de la instantánea recién guardada)
+		private void iniciaGrabacion() {
+			long semilla = System.nanoTime();
+			int conf = (PAUSA ? CONF_PAUSA : 0) | (VER_CHOQUES ? CONF_VER_CHOQUES : 0) | (PASO_PARALELO ? CONF_PASO_PARALELO : 0)
+				| (CHOQUE_CONTINUO ? CONF_CHOQUE_CONTINUO : 0) | (SOLVER_IMPULSOS ? CONF_SOLVER_IMPULSOS : 0)
+				| (GRAVEDAD_MUTUA ? CONF_GRAVEDAD_MUTUA : 0) | (Fisica.getGravedad()!=0.0 ? CONF_GRAVEDAD : 0);
+			grabacion = new GrabacionEntradas( NUM_ENTRADAS, semilla, MILIS_POR_MOVIMIENTO, conf );
+			preparaSimulacionRepetible( semilla );
+		}
+		
+		// Termina la grabación en curso (si la hay) y la guarda con la huella del estado actual
+		private void terminaGrabacion() {
+			if (grabacion==null) return;
+			grabacion.setHuellaFinal( InstantaneaMundo.huella( objetos ) );
+			try {
+				grabacion.guarda( FICHERO_ENTRADAS );
+			} catch (IOException e) {
+				mensaje( "Error al guardar " + FICHERO_ENTRADAS + ": " + e.getMessage() );
+			}
+			grabacion = null;
+		}
+		
+		// Carga la instantánea y la grabación de entradas y empieza a repetirla (devuelve false si no se puede)
+		private boolean iniciaRepeticion() {
+			terminaGrabacion();
+			repeticion = null;
+			try {
+				GrabacionEntradas entradas = GrabacionEntradas.carga( FICHERO_ENTRADAS );
+				cargaInstantanea();
+				MILIS_POR_MOVIMIENTO = entradas.getConfiguracion( 0 );
+				int conf = (int) entradas.getConfiguracion( 1 );
+				PAUSA = (conf & CONF_PAUSA) != 0;
+				VER_CHOQUES = (conf & CONF_VER_CHOQUES) != 0;
+				PASO_PARALELO = (conf & CONF_PASO_PARALELO) != 0;
+				CHOQUE_CONTINUO = (conf & CONF_CHOQUE_CONTINUO) != 0;
+				SOLVER_IMPULSOS = (conf & CONF_SOLVER_IMPULSOS) != 0;
+				GRAVEDAD_MUTUA = (conf & CONF_GRAVEDAD_MUTUA) != 0;
+				Fisica.setGravedad( (conf & CONF_GRAVEDAD) != 0 );
+				preparaSimulacionRepetible( entradas.getSemilla() );
+				repeticion = entradas;
+				mensaje( "Repitiendo " + entradas.getNumFotogramas() + " fotogramas grabados (R para volver a empezar)" );
+				return true;
+			} catch (IOException e) {
+				mensaje( "No se puede repetir: " + e.getMessage() );
+				return false;
+			}
+		}
+		
+		// Termina la repetición e informa de si se ha llegado al mismo estado que al grabar
+		private void terminaRepeticion() {
+			boolean igual = InstantaneaMundo.huella( objetos )==repeticion.getHuellaFinal();
+			mensaje( "Repetición terminada (" + repeticion.getNumFotogramas() + " fotogramas): estado final " 
+				+ (igual ? "idéntico al grabado" : "DISTINTO del grabado") );
+			repeticion = null;
+		}
+		
+		// Estado que no está en la instantánea y también influye en la simulación: aleatorios (con semilla), arrastre de ratón y calentamiento del solver
+		private void preparaSimulacionRepetible( long semilla ) {
+			random = new Random( semilla );
+			primerClick = null;
+			ultimoClick = null;
+			objetoClickado = null;
+			solver.olvidaContactos();
+			eventos.olvidaContactos();
+		}
+
+	
+}
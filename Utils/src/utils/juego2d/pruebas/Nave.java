@@ -1,333 +1,532 @@
-package utils.juego2d.pruebas;
-import java.awt.*;
-import java.awt.geom.*;
-import utils.juego2d.utils.Fisica;
-import utils.juego2d.utils.PolarPoint;
-import utils.ventanas.ventanaBitmap.VentanaGrafica;
-
-/** Clase que permite crear y gestionar naves
- */
-public class Nave extends ObjetoMovil {
-	
-	private double tamanyo;  // Tamao en pixels de la nave
-	private double giro;     // ngulo de giro en radianes
-	private double modulo;   // Mdulo de la velocidad
-	protected transient Point2D[] puntos;   // Puntos del tringulo que se dibuja
-	
-	/** Constructor de nave con datos
-	 * @param x	Coordenada x del centro de la nave
-	 * @param y	Coordenada y del centro de la nave
-	 * @param tamanyo	Tamao de la nave (en pixels)
-	 * @param xDest	Coordenada x del vector de velocidad de la nave
-	 * @param yDest	Coordenada y del vector de velocidad de la nave
-	 * @param color	Color de la nave
-	 */
-	public Nave(double x, double y, double tamanyo, double xDest, double yDest, Color color) {
-		super( x, y, color );
-		this.tamanyo = tamanyo;
-		this.velocidadX = xDest-x;
-		this.velocidadY = yDest-y;
-		giro = Math.atan2( velocidadY, velocidadX );
-		calculosGeometria( false );
-	}
-	
-	/** Constructor de nave con datos mnimos, suponiendo color azul y sin velocidad
-	 * @param x	Coordenada x del centro de la nave
-	 * @param y	Coordenada y del centro de la nave
-	 * @param tamanyo	Tamao de la nave (en pixels)
-	 */
-	public Nave(double x, double y, double tamanyo) {
-		this( x, y, tamanyo, x, y, Color.blue );
-	}
-	
-	/** Pone el giro de la nave en una direccin determinada
-	 * @param angulo	ngulo de giro en radianes
-	 */
-	public void setGiro( double angulo ) {
-		giro = angulo;
-		calculosGeometria( false );
-	}
-	
-	public double getGiro() {
-		return giro;
-	}
-
-	@Override
-	public void gira( double angulo ) {
-		super.gira( angulo );
-		// giro += angulo;   // Lo hace el cdigo de setVelocidad
-		calculosGeometria( false );
-	}
-	
-	@Override
-	public void acelera( double vel ) {
-		setVelocidad( modulo + vel );
-	}
-
-	// Mtodos redefinidos para tener calculado siempre el giro y los puntos del tringulo en funcin
-	// de la posicin y la velocidad
-	@Override
-	public void setVelocidadX(double vel) {
-		super.setVelocidadX(vel);
-		calculosGeometria( true );
-	}
-
-	@Override
-	public void setVelocidadY(double vel) {
-		super.setVelocidadY(vel);
-		calculosGeometria( true );
-	}
-	
-	@Override
-	public void setVelocidad(double vx, double vy) {
-		super.setVelocidad(vx, vy);
-		calculosGeometria( true );
-	}
-	
-	/** Modifica la velocidad sin cambiar el giro
-	 * @param moduloV	Nueva velocidad (positiva; si es negativa, se pone a 0)
-	 */
-	public void setVelocidad( double moduloV ) {
-		if (moduloV<0) moduloV = 0;
-		modulo = moduloV;
-		PolarPoint pp = new PolarPoint( modulo, giro );
-		Point2D pXY = pp.toPoint();
-		setVelocidad( pXY.getX(), pXY.getY() );
-	}
-	
-	@Override
-	public void setX(double x) {
-		super.setX(x);
-		calculosGeometria( false );
-	}
-
-	@Override
-	public void setY(double y) {
-		super.setY(y);
-		calculosGeometria( false );
-	}
-
-
-	public double getTamanyo() {
-		return tamanyo;
-	}
-
-	public void setTamanyo(double tamanyo) {
-		this.tamanyo = tamanyo;
-	}
-
-	/** Calcula el volumen de la nave partiendo de su informacin de tamao (altura del cono)
-	 * @return	Volumen de la nave suponiendo un cono perfecto
-	 */
-	@Override
-	public double getVolumen() {
-		double radio = tamanyo / Math.sqrt(3.0);
-		return 1.0/3*Math.PI*radio*radio*tamanyo;
-	}
-	
-	/** Calcula el rea de la nave partiendo de su informacin de tamao (altura del tringulo)
-	 * @return	Area de la nave suponiendo una circunferencia perfecta
-	 */
-	@Override
-	public double getArea() {
-		double base = tamanyo / Math.sqrt(3.0) * 2.0;
-		return base * tamanyo / 2.0;
-	}
-	
-	/** Dibuja la nave en una ventana, en el color correspondiente de la nave (por defecto, negro)
-	 * @param v	Ventana en la que dibujar la nave
-	 */
-	@Override
-	public void dibuja( VentanaGrafica v ) {
-		v.dibujaPoligono( 1.5f, color, true, puntos );
-		v.dibujaCirculo( puntos[0].getX(), puntos[0].getY(), 2.0, 1.5f, color );
-		super.dibuja( v );  // Para dibujar la velocidad si procede
-	}
-	
-		// Mtodos auxiliares de geometra de la forma de las naves
-	
-		private void calculosGeometria( boolean cambiarTambienElGiro ) {
-			// Recalcular la geometra polar y si procede, ajustar el giro a la direccin de marcha
-			if (!Fisica.igualACero(velocidadX) || !Fisica.igualACero(velocidadY)) {
-				if (cambiarTambienElGiro) {
-					giro = Math.atan2( velocidadY, velocidadX );
-				}
-				modulo = Math.sqrt( velocidadX*velocidadX + velocidadY*velocidadY );
-			} else {
-				modulo = 0.0;
-			}
-			// Calcular la geometra de la nave en funcin del giro
-			double radio = tamanyo / Math.sqrt(3.0);
-			double medio = radio * Math.sqrt(3.0) / 3.0;
-			Point2D ret[] = new Point2D[3];
-			ret[0] = new Point2D.Double( x, y - tamanyo + medio );
-			ret[1] = new Point2D.Double( x + radio, y + medio );
-			ret[2] = new Point2D.Double( x - radio, y + medio );
-			Point2D centro = new Point2D.Double( x, y );
-			rotarPunto( ret[0], centro, giro + Math.PI/2 );
-			rotarPunto( ret[1], centro, giro + Math.PI/2 );
-			rotarPunto( ret[2], centro, giro + Math.PI/2 );
-			puntos = ret;
-		}
-		
-		private void rotarPunto( Point2D puntoARotar, Point2D centro, double angulo ) {
-			double x1 = puntoARotar.getX() - centro.getX();
-			double y1 = puntoARotar.getY() - centro.getY();
-			double x2 = x1 * Math.cos(angulo) - y1 * Math.sin(angulo);
-			double y2 = x1 * Math.sin(angulo) + y1 * Math.cos(angulo);
-			puntoARotar.setLocation( x2 + centro.getX(), y2 + centro.getY() );		
-		}
-		
-		private double mayorX( Point2D[] punto ) {
-			double xExtremo = Double.MIN_VALUE;
-			for (Point2D p : punto) if (p.getX()>xExtremo) xExtremo = p.getX();
-			return xExtremo;
-		}
-
-		private double menorX( Point2D[] punto ) {
-			double xExtremo = Double.MAX_VALUE;
-			for (Point2D p : punto) if (p.getX()<xExtremo) xExtremo = p.getX();
-			return xExtremo;
-		}
-
-		private double mayorY( Point2D[] punto ) {
-			double yExtremo = Double.MIN_VALUE;
-			for (Point2D p : punto) if (p.getY()>yExtremo) yExtremo = p.getY();
-			return yExtremo;
-		}
-
-		private double menorY( Point2D[] punto ) {
-			double yExtremo = Double.MAX_VALUE;
-			for (Point2D p : punto) if (p.getY()<yExtremo) yExtremo = p.getY();
-			return yExtremo;
-		}
-		
-	
-	/** Borra la nave en una ventana
-	 * @param v	Ventana en la que borrar la nave
-	 */
-	@Override
-	public void borra( VentanaGrafica v ) {
-		v.borraPoligono( 1.5f, true, puntos );
-	}
-
-	/** Ajusta la nave al borde vertical, si se ha "pasado" del borde.
-	 * @param v	Ventana de la que ajustar al suelo
-	 * @param dibujar	true si se quiere dibujar la nave, false en caso contrario
-	 */
-	@Override
-	public void corrigeChoqueVertical( VentanaGrafica v, boolean dibujar ) {
-		// Simplificado... se podra calcular con mejor precisin para que cambiara la velocidad
-		double mayorY = mayorY( puntos );
-		double menorY = menorY( puntos );
-		if (menorY<0) {  // Se sale por arriba
-			if (dibujar) borra( v );
-			setY( y - menorY + 1 );
-			if (dibujar) dibuja( v );
-		} else if (mayorY>v.getAltura()) {  // Se sale por abajo
-			if (dibujar) borra( v );
-			setY( y - mayorY + v.getAltura() - 1 );
-			if (dibujar) dibuja( v );
-		}
-	}
-	
-	/** Ajusta la nave al lateral
-	 * @param v	Ventana de la que ajustar al lateral
-	 * @param dibujar	true si se quiere dibujar la nave, false en caso contrario
-	 */
-	@Override
-	public void corrigeChoqueLateral( VentanaGrafica v, boolean dibujar ) {
-		// Simplificado... se podra calcular con mejor precisin para que cambiara la velocidad
-		double mayorX = mayorX( puntos );
-		double menorX = menorX( puntos );
-		double tiempo = -1;
-		if (menorX<0) {  // Se sale por izquierda
-			tiempo = 1.0 - Math.abs( menorX / (x - antX));
-		} else if (mayorX>v.getAnchura()) {  // Se sale por derecha
-			tiempo = 1.0 - Math.abs( (mayorX-v.getAnchura()) / (x - antX));
-		}
-		if (tiempo>=0) {
-			if (dibujar) borra( v );
-			setX( antX + (x-antX) * tiempo );
-			setY( antY + (y-antY) * tiempo );
-			if (dibujar) dibuja( v );
-		}
-	}
-	
-	/** Detecta el choque de la nave con los bordes de la ventana
-	 * @param v	Ventana con la que probar el choque
-	 * @return	Devuelve un nmero formado por la suma de: 0 si no choca, 1 si choca con la izquierda, 2 con la derecha, 4 arriba, 8 abajo.
-	 */
-	@Override
-	public int chocaConBorde( VentanaGrafica v ) {
-		double mayorX = mayorX( puntos );
-		double menorX = menorX( puntos );
-		double mayorY = mayorY( puntos );
-		double menorY = menorY( puntos );
-		int ret = 0;
-		if (menorX<=0) ret += 1;
-		if (mayorX>=v.getAnchura()) ret += 2;
-		if (menorY<=0) ret += 4;
-		if (mayorY>=v.getAltura()) ret += 8;
-		return ret;
-	}
-	
-	/** Detecta el choque de la nave con otro objeto
-	 * @param nave2	nave con la que probar el choque
-	 * @return	Devuelve null si no chocan, un vector con forma de punto indicando el ngulo y amplitud del choque sobre la nave en curso
-	 */
-	@Override
-	public Point2D chocaConObjeto( ObjetoMovil objeto2 ) {
-		if (objeto2 instanceof Nave) {
-			Point2D[] puntos2 = ((Nave)objeto2).puntos;
-			Path2D.Double shape1 = new Path2D.Double(); shape1.moveTo( puntos[0].getX(), puntos[0].getY() );
-				shape1.lineTo( puntos[1].getX(), puntos[1].getY() );
-				shape1.lineTo( puntos[2].getX(), puntos[2].getY() );
-				shape1.closePath();
-			Area area1 = new Area(shape1);
-			Path2D.Double shape2 = new Path2D.Double(); shape2.moveTo( puntos2[0].getX(), puntos2[0].getY() );
-				shape2.lineTo( puntos2[1].getX(), puntos2[1].getY() );
-				shape2.lineTo( puntos2[2].getX(), puntos2[2].getY() );
-				shape2.closePath();
-			Area area2 = new Area(shape2);
-			area1.intersect(area2);
-			if (area1.isEmpty()) 
-				return null;
-			else {
-				Rectangle r = area1.getBounds();
-				Point2D p = new Point.Double( r.getWidth(), r.getHeight() );
-				return p;
-			}
-		} else {
-			return null;
-		}
-	}
-	
-	/** Comprueba si la nave incluye a un punto dado
-	 * @param punto	Punto a chequear
-	 * @return	true si el punto est dentro de la nave, false en caso contrario
-	 */
-	@Override
-	public boolean contieneA( Point2D punto ) {
-		double radio = tamanyo / Math.sqrt(3.0);
-		double dist = punto.distance( x, y );
-		return dist <= radio;
-	}
-
-	@Override
-	public boolean isBota() {
-		return true;
-	}
-	
-	@Override
-	public boolean isFijo() {
-		return false;
-	}
-	
-	@Override
-	public String toString() {
-		return String.format( "nave %1s (%2$7.2f,%3$7.2f) Vel.=(%4$6.3f,%5$6.3f)", nombre, x, y, velocidadX, velocidadY );
-	}
-	
-}
-
+package utils.juego2d.pruebas;
+import java.awt.*;
+import java.awt.geom.*;
+import java.nio.ByteBuffer;
+import utils.juego2d.utils.ChoqueTriangulos;
+import utils.juego2d.utils.Fisica;
+import utils.juego2d.utils.Limites;
+import utils.juego2d.utils.Vector2D;
+import utils.ventanas.ventanaBitmap.VentanaGrafica;
+
+/** Clase que permite crear y gestionar naves
+ */
+public class Nave extends ObjetoMovil {
+	
+	/** Si es false no se cuentan los recálculos de geometría (los contadores son globales: con muchos mundos en paralelo
+	 * todos los hilos escribirían en ellos en cada recálculo) */
+	public static boolean CONTAR_GEOMETRIA = true;
+	
+	// Contadores globales de la geometría perezosa (aproximados si se mueven naves en varios hilos)
+	private static long invalidacionesGeometria = 0;   // Cambios de pose que invalidan la geometría
+	private static long recalculosGeometria = 0;       // Veces que se han recalculado los puntos del triángulo
+	private static long recalculosGiro = 0;            // Veces que se han recalculado seno y coseno del giro
+	
+	private double tamanyo;  // Tamaño en pixels de la nave
+	private double giro;     // Ángulo de giro en radianes
+	protected transient Point2D[] puntos;   // Puntos del triángulo que se dibuja (usar siempre a través de getPuntos())
+	private transient double[] puntosX = new double[3];  // Coordenadas de los mismos puntos en primitivos (para los choques)
+	private transient double[] puntosY = new double[3];
+	private transient Point2D[] puntosDibujo;  // Puntos desplazados para dibujar la nave en otra posición (interpolada)
+	// Caché de geometría: los puntos solo se recalculan cuando se necesitan (dibujo o choques) y ha cambiado la pose
+	private transient boolean geometriaValida = false;  // true si puntos/puntosX/puntosY corresponden a la pose actual
+	private transient boolean giroPendiente = false;    // true si el giro debe ajustarse a la última velocidad no nula asignada
+	private transient double giroVX, giroVY;            // Última velocidad no nula asignada (de la que sale el giro pendiente)
+	private transient double[] localX, localY;          // Vértices en coordenadas locales (nave apuntando a x+), dependen solo del tamaño
+	private transient double giroTrig = Double.NaN;     // Giro con el que se han calculado coseno y seno
+	private transient double cosGiro, sinGiro;
+	
+	/** Constructor de nave con datos
+	 * @param x	Coordenada x del centro de la nave
+	 * @param y	Coordenada y del centro de la nave
+	 * @param tamanyo	Tamaño de la nave (en pixels)
+	 * @param xDest	Coordenada x del vector de velocidad de la nave
+	 * @param yDest	Coordenada y del vector de velocidad de la nave
+	 * @param color	Color de la nave
+	 */
+	public Nave(double x, double y, double tamanyo, double xDest, double yDest, Color color) {
+		super( x, y, color );
+		this.tamanyo = tamanyo;
+		this.velocidadX = xDest-x;
+		this.velocidadY = yDest-y;
+		giro = Math.atan2( velocidadY, velocidadX );
+		calculaVerticesLocales();
+	}
+	
+	/** Reinicializa la nave con datos nuevos, como si se acabara de crear (para reutilizarla desde una reserva de objetos)
+	 * @param x	Coordenada x del centro de la nave
+	 * @param y	Coordenada y del centro de la nave
+	 * @param tamanyo	Tamaño de la nave (en pixels)
+	 * @param xDest	Coordenada x del vector de velocidad de la nave
+	 * @param yDest	Coordenada y del vector de velocidad de la nave
+	 * @param color	Color de la nave
+	 */
+	public void inicia(double x, double y, double tamanyo, double xDest, double yDest, Color color) {
+		reinicia( x, y, color );
+		this.tamanyo = tamanyo;
+		this.velocidadX = xDest-x;
+		this.velocidadY = yDest-y;
+		giro = Math.atan2( velocidadY, velocidadX );
+		giroPendiente = false;
+		calculaVerticesLocales();
+		invalidaGeometria();
+	}
+	
+	/** Constructor de nave con datos mínimos, suponiendo color azul y sin velocidad
+	 * @param x	Coordenada x del centro de la nave
+	 * @param y	Coordenada y del centro de la nave
+	 * @param tamanyo	Tamaño de la nave (en pixels)
+	 */
+	public Nave(double x, double y, double tamanyo) {
+		this( x, y, tamanyo, x, y, Color.blue );
+	}
+	
+	/** Pone el giro de la nave en una dirección determinada
+	 * @param angulo	Ángulo de giro en radianes
+	 */
+	public void setGiro( double angulo ) {
+		giro = angulo;
+		giroPendiente = false;
+		invalidaGeometria();
+	}
+	
+	public double getGiro() {
+		if (giroPendiente) resuelveGiro();
+		return giro;
+	}
+
+	@Override
+	public void gira( double angulo ) {
+		super.gira( angulo );  // El giro lo ajusta setVelocidad
+	}
+	
+	@Override
+	public void acelera( double vel ) {
+		setVelocidad( Math.sqrt( velocidadX*velocidadX + velocidadY*velocidadY ) + vel );
+	}
+
+	// Métodos redefinidos para que el giro siga a la velocidad y los puntos del triángulo a la posición.
+	// No se calcula nada aquí: solo se invalida la caché, que se recalcula al dibujar o al chocar
+	@Override
+	public void setVelocidadX(double vel) {
+		super.setVelocidadX(vel);
+		cambiaVelocidad();
+	}
+
+	@Override
+	public void setVelocidadY(double vel) {
+		super.setVelocidadY(vel);
+		cambiaVelocidad();
+	}
+	
+	@Override
+	public void setVelocidad(double vx, double vy) {
+		super.setVelocidad(vx, vy);
+		cambiaVelocidad();
+	}
+	
+	/** Modifica la velocidad sin cambiar el giro
+	 * @param moduloV	Nueva velocidad (positiva; si es negativa, se pone a 0)
+	 */
+	public void setVelocidad( double moduloV ) {
+		if (moduloV<0) moduloV = 0;
+		calculaTrigonometria();
+		setVelocidad( moduloV * cosGiro, moduloV * sinGiro );
+	}
+	
+	@Override
+	public void setX(double x) {
+		super.setX(x);
+		invalidaGeometria();
+	}
+
+	@Override
+	public void setY(double y) {
+		super.setY(y);
+		invalidaGeometria();
+	}
+
+
+	public double getTamanyo() {
+		return tamanyo;
+	}
+
+	public void setTamanyo(double tamanyo) {
+		this.tamanyo = tamanyo;
+		calculaVerticesLocales();
+		invalidaGeometria();
+	}
+	
+	/** Devuelve los puntos del triángulo de la nave, recalculándolos si ha cambiado la pose desde la última vez
+	 * @return	Array de 3 puntos (morro, y las dos esquinas traseras). Se reutiliza: no debe modificarse ni guardarse
+	 */
+	public Point2D[] getPuntos() {
+		aseguraGeometria();
+		return puntos;
+	}
+
+	/** Devuelve los puntos del triángulo de la nave desplazados para dibujarla con el centro en otra posición,
+	 * sin cambiar la posición de la nave ni invalidar su geometría
+	 * @param xDibujo	Coordenada x del centro en el dibujo
+	 * @param yDibujo	Coordenada y del centro en el dibujo
+	 * @return	Array de 3 puntos (morro, y las dos esquinas traseras). Se reutiliza: no debe modificarse ni guardarse
+	 */
+	protected Point2D[] getPuntosDibujo( double xDibujo, double yDibujo ) {
+		aseguraGeometria();
+		if (xDibujo==x && yDibujo==y) return puntos;
+		if (puntosDibujo==null) puntosDibujo = new Point2D[] { new Point2D.Double(), new Point2D.Double(), new Point2D.Double() };
+		for (int i=0; i<3; i++) puntosDibujo[i].setLocation( puntosX[i] + xDibujo - x, puntosY[i] + yDibujo - y );
+		return puntosDibujo;
+	}
+
+	/** Calcula el volumen de la nave partiendo de su información de tamaño (altura del cono)
+	 * @return	Volumen de la nave suponiendo un cono perfecto
+	 */
+	@Override
+	public double getVolumen() {
+		double radio = tamanyo / Math.sqrt(3.0);
+		return 1.0/3*Math.PI*radio*radio*tamanyo;
+	}
+	
+	/** Calcula el área de la nave partiendo de su información de tamaño (altura del triángulo)
+	 * @return	Area de la nave suponiendo una circunferencia perfecta
+	 */
+	@Override
+	public double getArea() {
+		double base = tamanyo / Math.sqrt(3.0) * 2.0;
+		return base * tamanyo / 2.0;
+	}
+
+	@Override
+	public double getXMin() {
+		aseguraGeometria();
+		return menor( puntosX );
+	}
+
+	@Override
+	public double getXMax() {
+		aseguraGeometria();
+		return mayor( puntosX );
+	}
+
+	@Override
+	public double getYMin() {
+		aseguraGeometria();
+		return menor( puntosY );
+	}
+
+	@Override
+	public double getYMax() {
+		aseguraGeometria();
+		return mayor( puntosY );
+	}
+	
+	/** Dibuja la nave en una ventana, en el color correspondiente de la nave (por defecto, negro)
+	 * @param v	Ventana en la que dibujar la nave
+	 * @param xDibujo	Coordenada x en la que dibujar el centro (normalmente x; otra para dibujar interpolado)
+	 * @param yDibujo	Coordenada y en la que dibujar el centro (normalmente y; otra para dibujar interpolado)
+	 */
+	@Override
+	public void dibuja( VentanaGrafica v, double xDibujo, double yDibujo ) {
+		aseguraGeometria();
+		Point2D[] dibujo = getPuntosDibujo( xDibujo, yDibujo );
+		v.dibujaPoligono( 1.5f, color, true, dibujo );
+		v.dibujaCirculo( dibujo[0].getX(), dibujo[0].getY(), 2.0, 1.5f, color );
+		super.dibuja( v, xDibujo, yDibujo );  // Para dibujar la velocidad si procede
+	}
+	
+	/** Inicializa a cero los contadores de la geometría perezosa de las naves (por ejemplo al principio de cada fotograma)
+	 */
+	public static void iniciaContadoresGeometria() {
+		invalidacionesGeometria = 0;
+		recalculosGeometria = 0;
+		recalculosGiro = 0;
+	}
+	
+	/** Devuelve los contadores de la geometría perezosa de las naves desde la última inicialización
+	 * @return	Texto con cambios de pose, recálculos de puntos y recálculos de seno/coseno
+	 */
+	public static String getEstadisticasGeometria() {
+		return "Geometría naves: " + recalculosGeometria + " recálculos (" + recalculosGiro + " sin/cos) de " + invalidacionesGeometria + " cambios";
+	}
+	
+		// Métodos auxiliares de geometría de la forma de las naves
+	
+		// Marca los puntos como no válidos (cambio de posición, giro o tamaño)
+		private void invalidaGeometria() {
+			if (geometriaValida) {
+				geometriaValida = false;
+				if (CONTAR_GEOMETRIA) invalidacionesGeometria++;
+			}
+		}
+		
+		// Tras cambiar la velocidad: si no es nula, el giro pasa a seguirla (se calcula cuando se necesite)
+		private void cambiaVelocidad() {
+			if (!Fisica.igualACero(velocidadX) || !Fisica.igualACero(velocidadY)) {
+				giroVX = velocidadX;
+				giroVY = velocidadY;
+				giroPendiente = true;
+				invalidaGeometria();
+			}
+		}
+		
+		// Ajusta el giro a la dirección de la última velocidad no nula asignada
+		private void resuelveGiro() {
+			giro = Math.atan2( giroVY, giroVX );
+			giroPendiente = false;
+		}
+		
+		// Actualiza coseno y seno del giro solo si el giro ha cambiado desde el último cálculo
+		private void calculaTrigonometria() {
+			if (giroPendiente) resuelveGiro();
+			if (giro != giroTrig) {
+				cosGiro = Math.cos( giro );
+				sinGiro = Math.sin( giro );
+				giroTrig = giro;
+				if (CONTAR_GEOMETRIA) recalculosGiro++;
+			}
+		}
+		
+		// Calcula los vértices del triángulo relativos al centro con la nave apuntando hacia x positivas
+		private void calculaVerticesLocales() {
+			double radio = tamanyo / Math.sqrt(3.0);
+			double medio = radio * Math.sqrt(3.0) / 3.0;
+			if (localX==null) { localX = new double[3]; localY = new double[3]; }
+			localX[0] = tamanyo - medio; localY[0] = 0.0;     // Morro
+			localX[1] = -medio;          localY[1] = radio;
+			localX[2] = -medio;          localY[2] = -radio;
+		}
+		
+		// Recalcula los puntos del triángulo si la pose ha cambiado (sin reservar memoria: se reutilizan los puntos)
+		private void aseguraGeometria() {
+			if (geometriaValida) return;
+			calculaTrigonometria();
+			if (localX==null) calculaVerticesLocales();  // Tras deserializar
+			if (puntos==null) puntos = new Point2D[] { new Point2D.Double(), new Point2D.Double(), new Point2D.Double() };
+			if (puntosX==null) { puntosX = new double[3]; puntosY = new double[3]; }
+			for (int i=0; i<3; i++) {
+				puntosX[i] = localX[i] * cosGiro - localY[i] * sinGiro + x;
+				puntosY[i] = localX[i] * sinGiro + localY[i] * cosGiro + y;
+				puntos[i].setLocation( puntosX[i], puntosY[i] );
+			}
+			geometriaValida = true;
+			if (CONTAR_GEOMETRIA) recalculosGeometria++;
+		}
+		
+		private static double mayor( double[] valores ) {
+			return Math.max( valores[0], Math.max( valores[1], valores[2] ) );
+		}
+
+		private static double menor( double[] valores ) {
+			return Math.min( valores[0], Math.min( valores[1], valores[2] ) );
+		}
+		
+	
+	/** Borra la nave en una ventana
+	 * @param v	Ventana en la que borrar la nave
+	 */
+	@Override
+	public void borra( VentanaGrafica v ) {
+		v.borraPoligono( 1.5f, true, getPuntos() );
+	}
+
+	/** Ajusta la nave al borde vertical, si se ha "pasado" del borde.
+	 * @param v	Límites (ventana o mundo) a cuyo suelo ajustar
+	 * @param dibujar	true si se quiere dibujar la nave, false en caso contrario
+	 */
+	@Override
+	public void corrigeChoqueVertical( Limites v, boolean dibujar ) {
+		// Simplificado... se podría calcular con mejor precisión para que cambiara la velocidad
+		double mayorY = getYMax();
+		double menorY = getYMin();
+		if (menorY<0) {  // Se sale por arriba
+			if (dibujar) borraEn( v );
+			setY( y - menorY + 1 );
+			if (dibujar) dibujaEn( v );
+		} else if (mayorY>v.getAltura()) {  // Se sale por abajo
+			if (dibujar) borraEn( v );
+			setY( y - mayorY + v.getAltura() - 1 );
+			if (dibujar) dibujaEn( v );
+		}
+	}
+	
+	/** Ajusta la nave al lateral
+	 * @param v	Límites (ventana o mundo) a cuyo lateral ajustar
+	 * @param dibujar	true si se quiere dibujar la nave, false en caso contrario
+	 */
+	@Override
+	public void corrigeChoqueLateral( Limites v, boolean dibujar ) {
+		// Simplificado... se podría calcular con mejor precisión para que cambiara la velocidad
+		double mayorX = getXMax();
+		double menorX = getXMin();
+		double tiempo = -1;
+		if (menorX<0) {  // Se sale por izquierda
+			tiempo = 1.0 - Math.abs( menorX / (x - antX));
+		} else if (mayorX>v.getAnchura()) {  // Se sale por derecha
+			tiempo = 1.0 - Math.abs( (mayorX-v.getAnchura()) / (x - antX));
+		}
+		if (tiempo>=0) {
+			if (dibujar) borraEn( v );
+			setX( antX + (x-antX) * tiempo );
+			setY( antY + (y-antY) * tiempo );
+			if (dibujar) dibujaEn( v );
+		}
+	}
+	
+	/** Detecta el choque de la nave con los bordes de la ventana
+	 * @param v	Límites (ventana o mundo) con los que probar el choque
+	 * @return	Devuelve un número formado por la suma de: 0 si no choca, 1 si choca con la izquierda, 2 con la derecha, 4 arriba, 8 abajo.
+	 */
+	@Override
+	public int chocaConBorde( Limites v ) {
+		double mayorX = getXMax();
+		double menorX = getXMin();
+		double mayorY = getYMax();
+		double menorY = getYMin();
+		int ret = 0;
+		if (menorX<=0) ret += 1;
+		if (mayorX>=v.getAnchura()) ret += 2;
+		if (menorY<=0) ret += 4;
+		if (mayorY>=v.getAltura()) ret += 8;
+		return ret;
+	}
+	
+	/** Detecta el choque de la nave con otro objeto
+	 * @param nave2	nave con la que probar el choque
+	 * @return	Devuelve null si no chocan, un vector con forma de punto indicando el ángulo y amplitud del choque sobre la nave en curso
+	 */
+	@Override
+	public Point2D chocaConObjeto( ObjetoMovil objeto2 ) {
+		Vector2D choque = new Vector2D();
+		return chocaConObjeto( objeto2, choque ) ? choque.toPoint() : null;
+	}
+	
+	/** Detecta el choque de la nave con otro objeto sin reservar memoria
+	 * @param objeto2	Objeto con el que probar el choque
+	 * @param choque	Vector en el que se devuelve la anchura y altura del rectángulo de choque
+	 * @return	true si chocan, false en caso contrario
+	 */
+	@Override
+	public boolean chocaConObjeto( ObjetoMovil objeto2, Vector2D choque ) {
+		if (objeto2 instanceof Nave) {
+			Nave nave2 = (Nave) objeto2;
+			// Descarte rápido si no se tocan las circunferencias circunscritas (radio = 2/3 del tamaño)
+			double difX = nave2.x - x;
+			double difY = nave2.y - y;
+			double sumaRadios = (tamanyo + nave2.tamanyo) * 2.0 / 3.0;
+			if (difX*difX + difY*difY > sumaRadios*sumaRadios) return false;
+			aseguraGeometria();
+			nave2.aseguraGeometria();
+			long solape = ChoqueTriangulos.solape( puntosX, puntosY, nave2.puntosX, nave2.puntosY );
+			if (solape<0) return false;
+			choque.set( ChoqueTriangulos.getAnchura(solape), ChoqueTriangulos.getAltura(solape) );
+			return true;
+		} else {
+			return false;
+		}
+	}
+	
+	/** Detecta el choque de la nave con otra nave intersectando sus áreas (versión anterior, mucho más costosa,
+	 * que se mantiene para comprobar los resultados de {@link #chocaConObjeto(ObjetoMovil)})
+	 * @param nave2	nave con la que probar el choque
+	 * @return	Devuelve null si no chocan, un vector con forma de punto con la anchura y altura del rectángulo de choque
+	 */
+	Point2D chocaConObjetoConArea( Nave nave2 ) {
+		Point2D[] puntos = getPuntos();
+		Point2D[] puntos2 = nave2.getPuntos();
+		Path2D.Double shape1 = new Path2D.Double(); shape1.moveTo( puntos[0].getX(), puntos[0].getY() );
+			shape1.lineTo( puntos[1].getX(), puntos[1].getY() );
+			shape1.lineTo( puntos[2].getX(), puntos[2].getY() );
+			shape1.closePath();
+		Area area1 = new Area(shape1);
+		Path2D.Double shape2 = new Path2D.Double(); shape2.moveTo( puntos2[0].getX(), puntos2[0].getY() );
+			shape2.lineTo( puntos2[1].getX(), puntos2[1].getY() );
+			shape2.lineTo( puntos2[2].getX(), puntos2[2].getY() );
+			shape2.closePath();
+		Area area2 = new Area(shape2);
+		area1.intersect(area2);
+		if (area1.isEmpty()) 
+			return null;
+		else {
+			Rectangle r = area1.getBounds();
+			Point2D p = new Point.Double( r.getWidth(), r.getHeight() );
+			return p;
+		}
+	}
+	
+	/** Comprueba si la nave incluye a un punto dado
+	 * @param punto	Punto a chequear
+	 * @return	true si el punto está dentro de la nave, false en caso contrario
+	 */
+	@Override
+	public boolean contieneA( Point2D punto ) {
+		double radio = tamanyo / Math.sqrt(3.0);
+		double dist = punto.distance( x, y );
+		return dist <= radio;
+	}
+
+	@Override
+	public boolean isBota() {
+		return true;
+	}
+	
+	@Override
+	public boolean isFijo() {
+		return false;
+	}
+	
+	@Override
+	public void escribeEstado( ByteBuffer buffer ) {
+		super.escribeEstado( buffer );
+		buffer.putDouble( tamanyo ).putDouble( getGiro() );
+	}
+	
+	@Override
+	public void leeEstado( ByteBuffer buffer ) {
+		super.leeEstado( buffer );
+		tamanyo = buffer.getDouble();
+		giro = buffer.getDouble();
+		giroPendiente = false;
+		calculaVerticesLocales();
+		invalidaGeometria();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format( "nave %1s (%2$7.2f,%3$7.2f) Vel.=(%4$6.3f,%5$6.3f)", getNombre(), x, y, velocidadX, velocidadY );
+	}
+	
+	/** Método de prueba: compara el choque con primitivos con el choque por áreas en naves aleatorias
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) {
+		java.util.Random r = new java.util.Random( 1 );
+		int pruebas = 200000;
+		int choques = 0;
+		int diferencias = 0;
+		Nave[] naves1 = new Nave[pruebas];
+		Nave[] naves2 = new Nave[pruebas];
+		for (int i=0; i<pruebas; i++) {
+			naves1[i] = new Nave( 100+r.nextDouble()*100, 100+r.nextDouble()*100, 5+r.nextDouble()*60, r.nextDouble()*300, r.nextDouble()*300, Color.blue );
+			naves2[i] = new Nave( 100+r.nextDouble()*100, 100+r.nextDouble()*100, 5+r.nextDouble()*60, r.nextDouble()*300, r.nextDouble()*300, Color.blue );
+		}
+		for (int i=0; i<pruebas; i++) {
+			Point2D p1 = naves1[i].chocaConObjeto( naves2[i] );
+			Point2D p2 = naves1[i].chocaConObjetoConArea( naves2[i] );
+			if (p2!=null) choques++;
+			if (p1==null ? p2!=null : !p1.equals(p2)) {
+				diferencias++;
+				if (diferencias<=10) System.out.println( "Diferencia: " + p1 + " / " + p2 + " en " + naves1[i] + " - " + naves2[i] );
+			}
+		}
+		System.out.println( pruebas + " pruebas, " + choques + " choques, " + diferencias + " diferencias" );
+		for (int vez=0; vez<3; vez++) {
+			long t0 = System.nanoTime();
+			for (int i=0; i<pruebas; i++) naves1[i].chocaConObjeto( naves2[i] );
+			long t1 = System.nanoTime();
+			for (int i=0; i<pruebas; i++) naves1[i].chocaConObjetoConArea( naves2[i] );
+			long t2 = System.nanoTime();
+			System.out.println( String.format( "Primitivos: %1$.1f ns/choque - Áreas: %2$.1f ns/choque", (t1-t0)*1.0/pruebas, (t2-t1)*1.0/pruebas ) );
+		}
+	}
+	
+}
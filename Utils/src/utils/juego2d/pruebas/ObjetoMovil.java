@@ -1,354 +1,614 @@
-package utils.juego2d.pruebas;
-
-
-import java.awt.Color;
-import java.awt.geom.Point2D;
-import utils.juego2d.utils.Fisica;
-import utils.juego2d.utils.PolarPoint;
-import utils.ventanas.ventanaBitmap.VentanaGrafica;
-
-public abstract class ObjetoMovil {
-	protected double x;      // Coordenada x del objeto
-	protected double y;      // Coordenada y del objeto
-	protected Color color;
-	protected String nombre;
-	protected double velocidadX; // Velocidad horizontal del objeto - se inicia a 0
-	protected double velocidadY; // Velocidad vertical del objeto - se inicia a 0
-	
-	protected double velXInicial = 0;   // Velocidad anterior al ltimo movimiento
-	protected double velYInicial = 0;
-	protected double antX = 0;  // Posicin anterior al ltimo movimiento
-	protected double antY = 0;
-	
-	public static boolean DIBUJAR_VELOCIDAD = false;
-	
-	/** Constructor de objeto fsico con datos
-	 * @param x	Coordenada x del centro del objeto
-	 * @param y	Coordenada y del centro del objeto
-	 * @param color	Color del objeto
-	 */
-	public ObjetoMovil(double x, double y, Color color) {
-		super();
-		this.x = x;
-		this.y = y;
-		this.color = color;
-		this.nombre = "";
-		antX = x;
-		antY = y;
-	}
-	
-	public double getX() {
-		return x;
-	}
-
-	public void setX(double x) {
-		this.x = x;
-	}
-
-	public double getY() {
-		return y;
-	}
-
-	public void setY(double y) {
-		this.y = y;
-	}
-
-	public void setPosicion(double x, double y) {
-		setX( x );
-		setY( y );
-	}
-
-	public Color getColor() {
-		return color;
-	}
-
-	public void setColor(Color color) {
-		this.color = color;
-	}
-
-	public void setNombre( String nombre ) {
-		this.nombre = nombre;
-	}
-
-	public String getNombre() {
-		return nombre;
-	}
-	
-	public double getVelocidadX() {
-		return velocidadX;
-	}
-	
-	public double getVelocidadY() {
-		return velocidadY;
-	}
-
-	public void setVelocidadX( double vel ) {
-		velocidadX = vel;
-	}
-
-	public void setVelocidadY( double vel ) {
-		velocidadY = vel;
-	}
-	
-	/** Define la velocidad actual del objeto
-	 * @param vectorVel	Vector de velocidad (x,y)
-	 */
-	public void setVelocidad( Point2D vectorVel ) {
-		setVelocidad( vectorVel.getX(), vectorVel.getY() );
-	}
-
-	/** Define la velocidad actual del objeto
-	 * @param vx	Componente de velocidad x
-	 * @param vy	Componente de velocidad y
-	 */
-	public void setVelocidad( double vx, double vy ) {
-		velocidadX = vx;
-		velocidadY = vy;
-	}
-
-	/** Aade una velocidad X a la actual del objeto
-	 * @param vel	Velocidad a aadir a la velocidad X
-	 */
-	public void addVelocidadX( double vel ) {
-		setVelocidadX( velocidadX + vel );
-	}
-
-	/** Aade una velocidad Y a la actual del objeto
-	 * @param vel	Velocidad a aadir a la velocidad Y
-	 */
-	public void addVelocidadY( double vel ) {
-		setVelocidadY( velocidadY + vel );
-	}
-
-	/** Aade una velocidad a la actual del objeto
-	 * @param vectorVel	Vector aadido de velocidad (x,y)
-	 */
-	public void addVelocidad( Point2D vectorVel ) {
-		setVelocidadX( velocidadX + vectorVel.getX() );
-		setVelocidadY( velocidadY + vectorVel.getY() );
-	}
-
-	/** Aade una velocidad a la actual del objeto
-	 * @param velX	Velocidad a aadir a la velocidad X
-	 * @param velY	Velocidad a aadir a la velocidad Y
-	 */
-	public void addVelocidad( double velX, double velY) {
-		setVelocidad( velocidadX + velX, velocidadY + velY );
-	}
-	
-	/** Gira el objeto en el ngulo indicado (en radianes)
-	 * @param angulo	ngulo de giro en radianes
-	 */
-	public void gira( double angulo ) {
-		PolarPoint pp = PolarPoint.pointToPolar( new Point2D.Double( velocidadX, velocidadY ) );
-		pp.setArgumento( pp.getArgumento() + angulo );
-		Point2D pXY = pp.toPoint();
-		setVelocidad( pXY.getX(), pXY.getY() );
-	}
-
-	/** Acelera el objeto en la velocidad indicada (en pixels/segundo)
-	 * @param vel	Velocidad de avance a acelerar (negativa para decelerar: si se hace negativa se queda a cero)
-	 */
-	public void acelera( double vel ) {
-		PolarPoint pp = PolarPoint.pointToPolar( new Point2D.Double( velocidadX, velocidadY ) );
-		pp.setModulo( pp.getModulo() + vel );
-		if (pp.getModulo()<0) pp.setModulo( 0 );
-		Point2D pXY = pp.toPoint();
-		setVelocidad( pXY.getX(), pXY.getY() );
-	}
-	
-	/** Calcula el volumen del objeto
-	 * @return	Volumen del objeto
-	 */
-	public abstract double getVolumen();
-	
-	/** Calcula el rea del objeto
-	 * @return	Area del objeto
-	 */
-	public abstract double getArea();
-	
-	/** Dibuja el objeto en una ventana, en el color correspondiente (por defecto, negro)
-	 * Si est activado el dibujado de velocidad, dibuja una flecha correspondiente a la
-	 * velocidad de la nave en pxels por dcima de segundo
-	 * @param v	Ventana en la que dibujar el objeto
-	 */
-	public void dibuja( VentanaGrafica v ) {
-		// No se sabe cmo dibujar el objeto... pero s la velocidad
-		if (DIBUJAR_VELOCIDAD) {
-			v.dibujaFlecha( x,  y, x+velocidadX/10, y+velocidadY/10, 1.5f, Color.orange );
-		}
-	}
-	
-	/** Borra el objeto en una ventana
-	 * @param v	Ventana en la que borrar el objeto
-	 */
-	public abstract void borra( VentanaGrafica v );
-
-	/** Provoca el movimiento del objeto.
-	 * La cada se producir en funcin de la velocidad e ir incrementndose con la gravedad (si existe).
-	 * @param v	Ventana de referencia y dibujado
-	 * @param miliSgs	Tiempo de cada
-	 * @param dibujar	true si se quiere borrar y dibujar el objeto en la ventana, false si se hace aparte
-	 */
-	public void mueveUnPoco( VentanaGrafica v, double miliSgs, boolean dibujar ) {
-		mueveUnPoco( v, miliSgs, dibujar, null );
-	}
-	
-	/** Provoca el movimiento solo horizontal del objeto.
-	 * @param v	Ventana de referencia y dibujado
-	 * @param miliSgs	Tiempo de cada
-	 * @param dibujar	true si se quiere borrar y dibujar el objeto en la ventana, false si se hace aparte
-	 */
-	public void mueveUnPocoX( VentanaGrafica v, double miliSgs, boolean dibujar ) {
-		if (isFijo()) return; // Si el objeto es fijo no se mueve
-		// 1. Clculos previos
-		velXInicial = velocidadX;
-		antX = x;
-		antY = y;
-		// 2. Borrado si procede
-		if (dibujar) borra( v );
-		// 3. Cambio de posicin (x)
-		setX( Fisica.calcEspacio( getX(), miliSgs, velocidadX ) );
-		// 4. Dibujado si procede
-		if (dibujar) dibuja( v );
-		// 5. Actualizacin de velocidad final
-		// Sin aceleracin sigue siendo la misma)
-	}
-	
-	/** Provoca el movimiento del objeto (el mtodo lo dibuja movindose en la ventana)
-	 * La cada se producir en funcin de la velocidad e ir incrementndose con la gravedad,
-	 * y se invertir en el rebote (si lo hay)
-	 * @param v	Ventana de referencia y dibujado
-	 * @param miliSgs	Tiempo de cada
-	 * @param dibujar	true si se quiere borrar y dibujar el objeto en la ventana, false si se hace aparte
-	 * @param aceleracion	Aceleracin adicional a la gravedad a aplicar al objeto (si procede). Si es null, no se considera
-	 */
-	public void mueveUnPoco( VentanaGrafica v, double miliSgs, boolean dibujar, Point2D aceleracion ) {
-		if (isFijo()) return; // Si el objeto es fijo no se mueve
-		// 1. Clculos previos
-		Point2D miAceleracion = (aceleracion==null) 
-			? new Point2D.Double( 0.0, Fisica.getGravedad() ) 
-			: new Point2D.Double( aceleracion.getX(), aceleracion.getY() + Fisica.getGravedad() );
-		velYInicial = velocidadY;  // Guardamos datos para posibles correcciones
-		velXInicial = velocidadX;
-		antY = y;
-		antX = x;
-		// 2. Borrado si procede
-		if (dibujar) borra( v );
-		// 3. Cambio de posicin (x e y)
-		setX( Fisica.calcEspacio( getX(), miliSgs, velocidadX, miAceleracion.getX() ) );
-			// setX( Fisica.calcEspacio( getX(), miliSgs, velocidadX ) );  si sabemos que no hay fuerzas horizontales
-		setY( Fisica.calcEspacio( getY(), miliSgs, velocidadY, miAceleracion.getY() ) );
-			// setY( Fisica.calcEspacio( getY(), miliSgs, velocidadY, Fisica.GRAVEDAD ) );  si solo hay gravedad como fuerza vertical
-		// 4. Dibujado si procede
-		if (dibujar) dibuja( v );
-		// 5. Actualizacin de velocidad final
-		// Actualizamos la velocidad final con la gravedad     
-		setVelocidadX( Fisica.calcVelocidad( getVelocidadX(), miliSgs, miAceleracion.getX() ));
-			// no hace falta si no hay aceleracin horizontal (cambio de velocidad=0)
-		setVelocidadY( Fisica.calcVelocidad( getVelocidadY(), miliSgs, miAceleracion.getY() ));
-			// setVelocidadY( Fisica.calcVelocidad( getVelocidadY(), miliSgs, Fisica.GRAVEDAD ));   si solo hay gravedad como fuerza vertical
-	}
-	
-	/** Deshace el ltimo movimiento realizado en el mtodo de movimiento mueveUnPoco
-	 */
-	public void deshazUltimoMovimiento( VentanaGrafica v ) {
-		setX( antX );
-		setY( antY );
-	}
-		
-	/** Devuelve los pxels horizontales avanzados en el ltimo movimiento del objeto
-	 * @return	N de pixels avanzados en X en la ltima llamada a {@link #mueveUnPoco(VentanaGrafica, long, boolean)}
-	 */
-	public double getAvanceX() {
-		return x - antX;
-	}
-	
-	/** Devuelve los pxels verticales avanzados en el ltimo movimiento del objeto
-	 * @return	N de pixels avanzados en Y en la ltima llamada a {@link #mueveUnPoco(VentanaGrafica, long, boolean)}
-	 */
-	public double getAvanceY() {
-		return y - antY;
-	}
-	
-	/** Devuelve los pxels totales avanzados en el ltimo movimiento del objeto
-	 * @return	N de pixels avanzados en la ltima llamada a {@link #mueveUnPoco(VentanaGrafica, long, boolean)}
-	 */
-	public double getAvance() {
-		return Math.sqrt( (x-antX)*(x-antX) + (y-antY)*(y-antY));
-	}
-	
-	
-	/** Aplicamos un rebote vertical al objeto donde est (si no bota, se queda parado)
-	 * @param coefRestitucion	Coeficiente de restitucin de la velocidad (entre 0.0 y 1.0)
-	 */
-	public void rebotaArriba( double coefRestitucion ) {
-		// Invertimos la velocidad vertical (rebote)
-		setVelocidadY( Math.abs(velocidadY * coefRestitucion) );
-	}
-	
-	/** Aplicamos un rebote vertical al objeto donde est (si no bota, se queda parado)
-	 * @param coefRestitucion	Coeficiente de restitucin de la velocidad (entre 0.0 y 1.0)
-	 */
-	public void rebotaAbajo( double coefRestitucion ) {
-		// Invertimos la velocidad vertical (rebote)
-		setVelocidadY( - Math.abs(velocidadY * coefRestitucion) );
-	}
-	
-	/** Aplicamos un rebote horizontal al objeto donde est (si no bota, se queda parado)
-	 * @param coefRestitucion	Coeficiente de restitucin de la velocidad (entre 0.0 y 1.0)
-	 */
-	public void rebotaIzquierda( double coefRestitucion ) {
-		// Invertimos la velocidad vertical (rebote)
-		setVelocidadX( Math.abs(velocidadX * coefRestitucion) );
-	}
-	
-	/** Aplicamos un rebote horizontal al objeto donde est (si no bota, se queda parado)
-	 * @param coefRestitucion	Coeficiente de restitucin de la velocidad (entre 0.0 y 1.0)
-	 */
-	public void rebotaDerecha( double coefRestitucion ) {
-		// Invertimos la velocidad vertical (rebote)
-		setVelocidadX( - Math.abs(velocidadX * coefRestitucion) );
-	}
-	
-	/** Ajusta el objeto al suelo, si se ha "pasado" del suelo. Ajusta la velocidad a la que tena cuando lo toc.
-	 * @param v	Ventana de la que ajustar al suelo
-	 * @param dibujar	true si se quiere dibujar, false en caso contrario
-	 */
-	public abstract void corrigeChoqueVertical( VentanaGrafica v, boolean dibujar );
-	
-	/** Ajusta el objeto al lateral
-	 * @param v	Ventana de la que ajustar al lateral
-	 * @param dibujar	true si se quiere dibujar, false en caso contrario
-	 */
-	public abstract void corrigeChoqueLateral( VentanaGrafica v, boolean dibujar );
-	
-	/** Detecta el choque del objeto con los bordes de la ventana
-	 * @param v	Ventana con la que probar el choque
-	 * @return	Devuelve un nmero formado por la suma de: 0 si no choca, 1 si choca con la izquierda, 2 con la derecha, 4 arriba, 8 abajo.
-	 */
-	public abstract int chocaConBorde( VentanaGrafica v );
-	
-	/** Detecta el choque del objeto con otro
-	 * @param objeto2	Objeto con el que probar el choque
-	 * @return	Devuelve null si no chocan, un vector con forma de punto indicando el ngulo y amplitud del choque sobre el objeto en curso
-	 */
-	public abstract Point2D chocaConObjeto( ObjetoMovil objeto2 );
-	
-	/** Indica si el objeto esFijo
-	 * @return	true si el objeto es fijo, false si no
-	 */
-	public abstract boolean isFijo();
-	
-	/** Indica si el objeto rebota
-	 * @return	true si el objeto rebota, false si no
-	 */
-	public abstract boolean isBota();
-	
-	/** Comprueba si el objeto incluye a un punto dado
-	 * @param punto	Punto a chequear
-	 * @return	true si el punto est dentro del objeto, false en caso contrario
-	 */
-	public abstract boolean contieneA( Point2D punto );
-
-}
+package utils.juego2d.pruebas;
+
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.nio.ByteBuffer;
+import utils.juego2d.utils.Entidades;
+import utils.juego2d.utils.Fisica;
+import utils.juego2d.utils.InstantaneaMundo;
+import utils.juego2d.utils.Limites;
+import utils.juego2d.utils.PolarPoint;
+import utils.juego2d.utils.ReservaObjetos;
+import utils.juego2d.utils.Vector2D;
+import utils.ventanas.ventanaBitmap.VentanaGrafica;
+
+public abstract class ObjetoMovil {
+	protected double x;      // Coordenada x del objeto
+	protected double y;      // Coordenada y del objeto
+	protected Color color;
+	protected String nombre;
+	protected int id = -1;   // Identificador en el mundo (ver Entidades), -1 si no está en ninguno
+	protected double velocidadX; // Velocidad horizontal del objeto - se inicia a 0
+	protected double velocidadY; // Velocidad vertical del objeto - se inicia a 0
+	
+	protected double velXInicial = 0;   // Velocidad anterior al último movimiento
+	protected double velYInicial = 0;
+	protected double antX = 0;  // Posición anterior al último movimiento
+	protected double antY = 0;
+	
+	protected boolean dormido = false;       // Objeto en reposo: no se mueve ni se prueban sus choques con otros objetos en reposo o fijos
+	protected boolean puedeDormir = true;    // false si el objeto nunca debe pasar a reposo (por ejemplo el personaje controlado por el jugador)
+	protected int fotogramasEnReposo = 0;    // Fotogramas seguidos que lleva casi quieto
+	
+	public static boolean DIBUJAR_VELOCIDAD = false;
+	
+	/** Constructor de objeto físico con datos
+	 * @param x	Coordenada x del centro del objeto
+	 * @param y	Coordenada y del centro del objeto
+	 * @param color	Color del objeto
+	 */
+	public ObjetoMovil(double x, double y, Color color) {
+		super();
+		this.x = x;
+		this.y = y;
+		this.color = color;
+		this.nombre = "";
+		antX = x;
+		antY = y;
+	}
+	
+	public double getX() {
+		return x;
+	}
+
+	public void setX(double x) {
+		this.x = x;
+	}
+
+	public double getY() {
+		return y;
+	}
+
+	public void setY(double y) {
+		this.y = y;
+	}
+
+	public void setPosicion(double x, double y) {
+		setX( x );
+		setY( y );
+	}
+
+	public Color getColor() {
+		return color;
+	}
+
+	public void setColor(Color color) {
+		this.color = color;
+	}
+
+	public void setNombre( String nombre ) {
+		this.nombre = nombre;
+	}
+
+	/** Devuelve el nombre del objeto
+	 * @return	Nombre asignado, o si no lo tiene y está en un mundo, su número de ranura en el mundo (ver {@link Entidades#getRanura(int)})
+	 */
+	public String getNombre() {
+		if ((nombre==null || nombre.isEmpty()) && id>=0) return "" + Entidades.getRanura( id );
+		return nombre;
+	}
+	
+	/** Devuelve el identificador del objeto en su mundo
+	 * @return	Identificador estable mientras el objeto siga en el mundo, -1 si no está en ninguno
+	 */
+	public int getId() {
+		return id;
+	}
+	
+	/** Cambia el identificador del objeto (lo asigna {@link Entidades} al añadirlo a un mundo)
+	 * @param id	Nuevo identificador, -1 si no está en ningún mundo
+	 */
+	public void setId( int id ) {
+		this.id = id;
+	}
+	
+	/** Devuelve el objeto al estado de recién creado en una posición dada, para reutilizarlo (ver {@link ReservaObjetos}).
+	 * Las subclases reinicializan además sus propios datos
+	 * @param x	Coordenada x del centro del objeto
+	 * @param y	Coordenada y del centro del objeto
+	 * @param color	Color del objeto
+	 */
+	protected void reinicia( double x, double y, Color color ) {
+		this.x = x;
+		this.y = y;
+		this.color = color;
+		nombre = "";
+		velocidadX = 0; velocidadY = 0;
+		velXInicial = 0; velYInicial = 0;
+		antX = x; antY = y;
+		dormido = false;
+		puedeDormir = true;
+		fotogramasEnReposo = 0;
+	}
+	
+	/** Escribe el estado del objeto en datos primitivos, para guardarlo en una instantánea del mundo (ver {@link InstantaneaMundo}).
+	 * Las subclases con datos propios deben redefinirlo llamando primero a este método y leerlos en el mismo orden en {@link #leeEstado(ByteBuffer)}.
+	 * Entre todos los datos no se pueden superar los {@link InstantaneaMundo#MAX_BYTES_OBJETO} bytes
+	 * @param buffer	Buffer en el que se escribe (a partir de su posición actual)
+	 */
+	public void escribeEstado( ByteBuffer buffer ) {
+		buffer.putDouble( x ).putDouble( y );
+		buffer.putDouble( velocidadX ).putDouble( velocidadY );
+		buffer.putDouble( velXInicial ).putDouble( velYInicial );
+		buffer.putDouble( antX ).putDouble( antY );
+		buffer.putInt( color==null ? 0 : color.getRGB() );
+		buffer.put( (byte) ((dormido ? 1 : 0) | (puedeDormir ? 2 : 0)) );
+		buffer.putInt( fotogramasEnReposo );
+		int longNombre = (nombre==null) ? 0 : Math.min( nombre.length(), InstantaneaMundo.MAX_CARACTERES_NOMBRE );
+		buffer.putShort( (short) longNombre );
+		for (int i=0; i<longNombre; i++) buffer.putChar( nombre.charAt(i) );
+	}
+	
+	/** Lee el estado del objeto escrito con {@link #escribeEstado(ByteBuffer)}, sustituyendo todo el que tuviera
+	 * (el identificador no se lee: lo asigna el mundo al añadir el objeto)
+	 * @param buffer	Buffer del que se lee (a partir de su posición actual)
+	 */
+	public void leeEstado( ByteBuffer buffer ) {
+		x = buffer.getDouble(); y = buffer.getDouble();
+		velocidadX = buffer.getDouble(); velocidadY = buffer.getDouble();
+		velXInicial = buffer.getDouble(); velYInicial = buffer.getDouble();
+		antX = buffer.getDouble(); antY = buffer.getDouble();
+		int rgb = buffer.getInt();
+		if (color==null || color.getRGB()!=rgb) color = new Color( rgb, true );
+		byte marcas = buffer.get();
+		dormido = (marcas & 1) != 0;
+		puedeDormir = (marcas & 2) != 0;
+		fotogramasEnReposo = buffer.getInt();
+		int longNombre = buffer.getShort();
+		if (longNombre==0) {
+			nombre = "";
+		} else {
+			char[] letras = new char[longNombre];
+			for (int i=0; i<longNombre; i++) letras[i] = buffer.getChar();
+			nombre = new String( letras );
+		}
+	}
+	
+	public double getVelocidadX() {
+		return velocidadX;
+	}
+	
+	public double getVelocidadY() {
+		return velocidadY;
+	}
+
+	public void setVelocidadX( double vel ) {
+		if (dormido && vel!=velocidadX) despierta();
+		velocidadX = vel;
+	}
+
+	public void setVelocidadY( double vel ) {
+		if (dormido && vel!=velocidadY) despierta();
+		velocidadY = vel;
+	}
+	
+	/** Define la velocidad actual del objeto
+	 * @param vectorVel	Vector de velocidad (x,y)
+	 */
+	public void setVelocidad( Point2D vectorVel ) {
+		setVelocidad( vectorVel.getX(), vectorVel.getY() );
+	}
+
+	/** Define la velocidad actual del objeto
+	 * @param vx	Componente de velocidad x
+	 * @param vy	Componente de velocidad y
+	 */
+	public void setVelocidad( double vx, double vy ) {
+		if (dormido && (vx!=velocidadX || vy!=velocidadY)) despierta();
+		velocidadX = vx;
+		velocidadY = vy;
+	}
+
+	/** Añade una velocidad X a la actual del objeto
+	 * @param vel	Velocidad a añadir a la velocidad X
+	 */
+	public void addVelocidadX( double vel ) {
+		setVelocidadX( velocidadX + vel );
+	}
+
+	/** Añade una velocidad Y a la actual del objeto
+	 * @param vel	Velocidad a añadir a la velocidad Y
+	 */
+	public void addVelocidadY( double vel ) {
+		setVelocidadY( velocidadY + vel );
+	}
+
+	/** Añade una velocidad a la actual del objeto
+	 * @param vectorVel	Vector añadido de velocidad (x,y)
+	 */
+	public void addVelocidad( Point2D vectorVel ) {
+		setVelocidadX( velocidadX + vectorVel.getX() );
+		setVelocidadY( velocidadY + vectorVel.getY() );
+	}
+
+	/** Añade una velocidad a la actual del objeto
+	 * @param velX	Velocidad a añadir a la velocidad X
+	 * @param velY	Velocidad a añadir a la velocidad Y
+	 */
+	public void addVelocidad( double velX, double velY) {
+		setVelocidad( velocidadX + velX, velocidadY + velY );
+	}
+	
+	/** Indica si el objeto está en reposo (dormido). Un objeto dormido no se mueve y sus choques solo se prueban con objetos despiertos
+	 * @return	true si está dormido
+	 */
+	public boolean isDormido() {
+		return dormido;
+	}
+	
+	/** Pasa el objeto a reposo: se para y deja de moverse hasta que se despierte
+	 * (con {@link #despierta()}, o al cambiarle la velocidad desde fuera)
+	 */
+	public void duerme() {
+		setVelocidad( 0.0, 0.0 );
+		antX = x;
+		antY = y;
+		dormido = true;
+	}
+	
+	/** Saca al objeto del reposo
+	 */
+	public void despierta() {
+		dormido = false;
+		fotogramasEnReposo = 0;
+	}
+	
+	public boolean isPuedeDormir() {
+		return puedeDormir;
+	}
+	
+	/** Indica si el objeto puede pasar a reposo
+	 * @param puedeDormir	false para que no se duerma nunca (si está dormido se despierta)
+	 */
+	public void setPuedeDormir( boolean puedeDormir ) {
+		this.puedeDormir = puedeDormir;
+		if (!puedeDormir) despierta();
+	}
+	
+	/** Actualiza la cuenta de fotogramas seguidos que el objeto lleva casi quieto
+	 * @param quieto	true si en el último fotograma ha estado casi quieto, false si no (la cuenta vuelve a cero)
+	 * @return	Fotogramas seguidos casi quieto
+	 */
+	public int actualizaReposo( boolean quieto ) {
+		if (quieto) fotogramasEnReposo++; else fotogramasEnReposo = 0;
+		return fotogramasEnReposo;
+	}
+	
+	/** Gira el objeto en el ángulo indicado (en radianes)
+	 * @param angulo	Ángulo de giro en radianes
+	 */
+	public void gira( double angulo ) {
+		PolarPoint pp = PolarPoint.pointToPolar( new Point2D.Double( velocidadX, velocidadY ) );
+		pp.setArgumento( pp.getArgumento() + angulo );
+		Point2D pXY = pp.toPoint();
+		setVelocidad( pXY.getX(), pXY.getY() );
+	}
+
+	/** Acelera el objeto en la velocidad indicada (en pixels/segundo)
+	 * @param vel	Velocidad de avance a acelerar (negativa para decelerar: si se hace negativa se queda a cero)
+	 */
+	public void acelera( double vel ) {
+		PolarPoint pp = PolarPoint.pointToPolar( new Point2D.Double( velocidadX, velocidadY ) );
+		pp.setModulo( pp.getModulo() + vel );
+		if (pp.getModulo()<0) pp.setModulo( 0 );
+		Point2D pXY = pp.toPoint();
+		setVelocidad( pXY.getX(), pXY.getY() );
+	}
+	
+	/** Calcula el volumen del objeto
+	 * @return	Volumen del objeto
+	 */
+	public abstract double getVolumen();
+	
+	/** Calcula el área del objeto
+	 * @return	Area del objeto
+	 */
+	public abstract double getArea();
+
+	/** Devuelve la x mínima de la caja envolvente del objeto
+	 * @return	Coordenada x más a la izquierda que ocupa el objeto
+	 */
+	public abstract double getXMin();
+
+	/** Devuelve la x máxima de la caja envolvente del objeto
+	 * @return	Coordenada x más a la derecha que ocupa el objeto
+	 */
+	public abstract double getXMax();
+
+	/** Devuelve la y mínima de la caja envolvente del objeto
+	 * @return	Coordenada y más arriba que ocupa el objeto
+	 */
+	public abstract double getYMin();
+
+	/** Devuelve la y máxima de la caja envolvente del objeto
+	 * @return	Coordenada y más abajo que ocupa el objeto
+	 */
+	public abstract double getYMax();
+
+	/** Dibuja el objeto en una ventana, en el color correspondiente (por defecto, negro)
+	 * Si está activado el dibujado de velocidad, dibuja una flecha correspondiente a la
+	 * velocidad de la nave en píxels por décima de segundo
+	 * @param v	Ventana en la que dibujar el objeto
+	 */
+	public void dibuja( VentanaGrafica v ) {
+		dibuja( v, x, y );
+	}
+	
+	/** Dibuja el objeto en una ventana con su centro en la posición indicada, sin cambiar la posición del objeto
+	 * (las clases hijas redefinen este método para dibujar su forma).
+	 * Si está activado el dibujado de velocidad, dibuja una flecha correspondiente a la
+	 * velocidad de la nave en píxels por décima de segundo
+	 * @param v	Ventana en la que dibujar el objeto
+	 * @param xDibujo	Coordenada x en la que dibujar el centro (normalmente x; otra para dibujar interpolado)
+	 * @param yDibujo	Coordenada y en la que dibujar el centro (normalmente y; otra para dibujar interpolado)
+	 */
+	public void dibuja( VentanaGrafica v, double xDibujo, double yDibujo ) {
+		// No se sabe cómo dibujar el objeto... pero sí la velocidad
+		if (DIBUJAR_VELOCIDAD) {
+			v.dibujaFlecha( xDibujo, yDibujo, xDibujo+velocidadX/10, yDibujo+velocidadY/10, 1.5f, Color.orange );
+		}
+	}
+	
+	/** Dibuja el objeto en una posición intermedia entre la anterior al último movimiento y la actual
+	 * (para dibujar con una cadencia distinta a la de los pasos de movimiento). No modifica el estado del objeto
+	 * @param v	Ventana en la que dibujar el objeto
+	 * @param alfa	Factor de interpolación: 0.0 dibuja en la posición anterior, 1.0 en la actual
+	 */
+	public void dibujaInterpolado( VentanaGrafica v, double alfa ) {
+		if (alfa>=1.0 || isFijo()) {
+			dibuja( v, x, y );
+		} else {
+			dibuja( v, antX + (x-antX)*alfa, antY + (y-antY)*alfa );
+		}
+	}
+	
+	/** Borra el objeto en una ventana
+	 * @param v	Ventana en la que borrar el objeto
+	 */
+	public abstract void borra( VentanaGrafica v );
+
+	/** Borra el objeto si los límites son una ventana (sin ventana no hace nada)
+	 * @param v	Límites del mundo
+	 */
+	protected void borraEn( Limites v ) {
+		if (v instanceof VentanaGrafica) borra( (VentanaGrafica) v );
+	}
+	
+	/** Dibuja el objeto si los límites son una ventana (sin ventana no hace nada)
+	 * @param v	Límites del mundo
+	 */
+	protected void dibujaEn( Limites v ) {
+		if (v instanceof VentanaGrafica) dibuja( (VentanaGrafica) v );
+	}
+
+	/** Provoca el movimiento del objeto.
+	 * La caída se producirá en función de la velocidad e irá incrementándose con la gravedad (si existe).
+	 * @param v	Límites de referencia (si son una ventana, también se usa para el dibujado)
+	 * @param miliSgs	Tiempo de caída
+	 * @param dibujar	true si se quiere borrar y dibujar el objeto en la ventana, false si se hace aparte
+	 */
+	public void mueveUnPoco( Limites v, double miliSgs, boolean dibujar ) {
+		mueveUnPoco( v, miliSgs, dibujar, 0.0, 0.0 );
+	}
+	
+	/** Provoca el movimiento solo horizontal del objeto.
+	 * @param v	Límites de referencia (si son una ventana, también se usa para el dibujado)
+	 * @param miliSgs	Tiempo de caída
+	 * @param dibujar	true si se quiere borrar y dibujar el objeto en la ventana, false si se hace aparte
+	 */
+	public void mueveUnPocoX( Limites v, double miliSgs, boolean dibujar ) {
+		if (isFijo() || dormido) return; // Si el objeto es fijo o está en reposo no se mueve
+		// 1. Cálculos previos
+		velXInicial = velocidadX;
+		antX = x;
+		antY = y;
+		// 2. Borrado si procede
+		if (dibujar) borraEn( v );
+		// 3. Cambio de posición (x)
+		setX( Fisica.calcEspacio( getX(), miliSgs, velocidadX ) );
+		// 4. Dibujado si procede
+		if (dibujar) dibujaEn( v );
+		// 5. Actualización de velocidad final
+		// Sin aceleración sigue siendo la misma)
+	}
+	
+	/** Provoca el movimiento del objeto (el método lo dibuja moviéndose en la ventana)
+	 * La caída se producirá en función de la velocidad e irá incrementándose con la gravedad,
+	 * y se invertirá en el rebote (si lo hay)
+	 * @param v	Límites de referencia (si son una ventana, también se usa para el dibujado)
+	 * @param miliSgs	Tiempo de caída
+	 * @param dibujar	true si se quiere borrar y dibujar el objeto en la ventana, false si se hace aparte
+	 * @param aceleracion	Aceleración adicional a la gravedad a aplicar al objeto (si procede). Si es null, no se considera
+	 */
+	public void mueveUnPoco( Limites v, double miliSgs, boolean dibujar, Point2D aceleracion ) {
+		if (aceleracion==null)
+			mueveUnPoco( v, miliSgs, dibujar, 0.0, 0.0 );
+		else
+			mueveUnPoco( v, miliSgs, dibujar, aceleracion.getX(), aceleracion.getY() );
+	}
+	
+	/** Provoca el movimiento del objeto con una aceleración adicional a la gravedad (sin reservar memoria)
+	 * @param v	Límites de referencia (si son una ventana, también se usa para el dibujado)
+	 * @param miliSgs	Tiempo de caída
+	 * @param dibujar	true si se quiere borrar y dibujar el objeto en la ventana, false si se hace aparte
+	 * @param aceleracionX	Aceleración x adicional (píxels/sg2)
+	 * @param aceleracionY	Aceleración y adicional a la gravedad (píxels/sg2)
+	 */
+	public void mueveUnPoco( Limites v, double miliSgs, boolean dibujar, double aceleracionX, double aceleracionY ) {
+		if (isFijo() || dormido) return; // Si el objeto es fijo o está en reposo no se mueve
+		// 1. Cálculos previos
+		double miAceleracionX = aceleracionX;
+		double miAceleracionY = aceleracionY + Fisica.getGravedad();
+		velYInicial = velocidadY;  // Guardamos datos para posibles correcciones
+		velXInicial = velocidadX;
+		antY = y;
+		antX = x;
+		// 2. Borrado si procede
+		if (dibujar) borraEn( v );
+		// 3. Cambio de posición (x e y)
+		setX( Fisica.calcEspacio( getX(), miliSgs, velocidadX, miAceleracionX ) );
+			// setX( Fisica.calcEspacio( getX(), miliSgs, velocidadX ) );  si sabemos que no hay fuerzas horizontales
+		setY( Fisica.calcEspacio( getY(), miliSgs, velocidadY, miAceleracionY ) );
+			// setY( Fisica.calcEspacio( getY(), miliSgs, velocidadY, Fisica.GRAVEDAD ) );  si solo hay gravedad como fuerza vertical
+		// 4. Dibujado si procede
+		if (dibujar) dibujaEn( v );
+		// 5. Actualización de velocidad final
+		// Actualizamos la velocidad final con la gravedad     
+		setVelocidadX( Fisica.calcVelocidad( getVelocidadX(), miliSgs, miAceleracionX ));
+			// no hace falta si no hay aceleración horizontal (cambio de velocidad=0)
+		setVelocidadY( Fisica.calcVelocidad( getVelocidadY(), miliSgs, miAceleracionY ));
+			// setVelocidadY( Fisica.calcVelocidad( getVelocidadY(), miliSgs, Fisica.GRAVEDAD ));   si solo hay gravedad como fuerza vertical
+	}
+	
+	/** Deshace el último movimiento realizado en el método de movimiento mueveUnPoco
+	 */
+	public void deshazUltimoMovimiento( Limites v ) {
+		setX( antX );
+		setY( antY );
+	}
+		
+	/** Retrocede el objeto a un punto intermedio de su último movimiento (en línea recta entre la posición anterior y la actual).
+	 * La velocidad no se modifica
+	 * @param fraccion	Fracción del último movimiento en la que dejar el objeto (0.0 en la posición anterior, 1.0 en la actual)
+	 */
+	public void retrocedeMovimiento( double fraccion ) {
+		setPosicion( antX + (x-antX)*fraccion, antY + (y-antY)*fraccion );
+	}
+	
+	/** Devuelve la coordenada x anterior al último movimiento
+	 * @return	Coordenada x antes de la última llamada a {@link #mueveUnPoco(Limites, double, boolean)}
+	 */
+	public double getAntX() {
+		return antX;
+	}
+	
+	/** Devuelve la coordenada y anterior al último movimiento
+	 * @return	Coordenada y antes de la última llamada a {@link #mueveUnPoco(Limites, double, boolean)}
+	 */
+	public double getAntY() {
+		return antY;
+	}
+	
+	/** Define el estado anterior al último movimiento, cuando el movimiento se calcula fuera del objeto
+	 * (por ejemplo en un {@link utils.juego2d.utils.MundoFisico}), para que las correcciones de choque sigan funcionando
+	 * @param antX	Coordenada x anterior al movimiento
+	 * @param antY	Coordenada y anterior al movimiento
+	 * @param velXInicial	Velocidad x anterior al movimiento
+	 * @param velYInicial	Velocidad y anterior al movimiento
+	 */
+	public void setMovimientoAnterior( double antX, double antY, double velXInicial, double velYInicial ) {
+		this.antX = antX;
+		this.antY = antY;
+		this.velXInicial = velXInicial;
+		this.velYInicial = velYInicial;
+	}
+	
+	/** Devuelve los píxels horizontales avanzados en el último movimiento del objeto
+	 * @return	Nº de pixels avanzados en X en la última llamada a {@link #mueveUnPoco(Limites, double, boolean)}
+	 */
+	public double getAvanceX() {
+		return x - antX;
+	}
+	
+	/** Devuelve los píxels verticales avanzados en el último movimiento del objeto
+	 * @return	Nº de pixels avanzados en Y en la última llamada a {@link #mueveUnPoco(Limites, double, boolean)}
+	 */
+	public double getAvanceY() {
+		return y - antY;
+	}
+	
+	/** Devuelve los píxels totales avanzados en el último movimiento del objeto
+	 * @return	Nº de pixels avanzados en la última llamada a {@link #mueveUnPoco(Limites, double, boolean)}
+	 */
+	public double getAvance() {
+		return Math.sqrt( (x-antX)*(x-antX) + (y-antY)*(y-antY));
+	}
+	
+	
+	/** Aplicamos un rebote vertical al objeto donde esté (si no bota, se queda parado)
+	 * @param coefRestitucion	Coeficiente de restitución de la velocidad (entre 0.0 y 1.0)
+	 */
+	public void rebotaArriba( double coefRestitucion ) {
+		// Invertimos la velocidad vertical (rebote)
+		setVelocidadY( Math.abs(velocidadY * coefRestitucion) );
+	}
+	
+	/** Aplicamos un rebote vertical al objeto donde esté (si no bota, se queda parado)
+	 * @param coefRestitucion	Coeficiente de restitución de la velocidad (entre 0.0 y 1.0)
+	 */
+	public void rebotaAbajo( double coefRestitucion ) {
+		// Invertimos la velocidad vertical (rebote)
+		setVelocidadY( - Math.abs(velocidadY * coefRestitucion) );
+	}
+	
+	/** Aplicamos un rebote horizontal al objeto donde esté (si no bota, se queda parado)
+	 * @param coefRestitucion	Coeficiente de restitución de la velocidad (entre 0.0 y 1.0)
+	 */
+	public void rebotaIzquierda( double coefRestitucion ) {
+		// Invertimos la velocidad vertical (rebote)
+		setVelocidadX( Math.abs(velocidadX * coefRestitucion) );
+	}
+	
+	/** Aplicamos un rebote horizontal al objeto donde esté (si no bota, se queda parado)
+	 * @param coefRestitucion	Coeficiente de restitución de la velocidad (entre 0.0 y 1.0)
+	 */
+	public void rebotaDerecha( double coefRestitucion ) {
+		// Invertimos la velocidad vertical (rebote)
+		setVelocidadX( - Math.abs(velocidadX * coefRestitucion) );
+	}
+	
+	/** Ajusta el objeto al suelo, si se ha "pasado" del suelo. Ajusta la velocidad a la que tenía cuando lo tocó.
+	 * @param v	Límites (ventana o mundo) a cuyo suelo ajustar
+	 * @param dibujar	true si se quiere dibujar, false en caso contrario
+	 */
+	public abstract void corrigeChoqueVertical( Limites v, boolean dibujar );
+	
+	/** Ajusta el objeto al lateral
+	 * @param v	Límites (ventana o mundo) a cuyo lateral ajustar
+	 * @param dibujar	true si se quiere dibujar, false en caso contrario
+	 */
+	public abstract void corrigeChoqueLateral( Limites v, boolean dibujar );
+	
+	/** Detecta el choque del objeto con los bordes de la ventana
+	 * @param v	Límites (ventana o mundo) con los que probar el choque
+	 * @return	Devuelve un número formado por la suma de: 0 si no choca, 1 si choca con la izquierda, 2 con la derecha, 4 arriba, 8 abajo.
+	 */
+	public abstract int chocaConBorde( Limites v );
+	
+	/** Detecta el choque del objeto con otro
+	 * @param objeto2	Objeto con el que probar el choque
+	 * @return	Devuelve null si no chocan, un vector con forma de punto indicando el ángulo y amplitud del choque sobre el objeto en curso
+	 */
+	public abstract Point2D chocaConObjeto( ObjetoMovil objeto2 );
+	
+	/** Detecta el choque del objeto con otro sin reservar memoria, dejando el vector de choque en un vector dado.
+	 * Por defecto usa {@link #chocaConObjeto(ObjetoMovil)}: los objetos que intervienen en choques frecuentes lo redefinen
+	 * @param objeto2	Objeto con el que probar el choque
+	 * @param choque	Vector en el que se devuelve el choque (el mismo que devolvería {@link #chocaConObjeto(ObjetoMovil)}). No se modifica si no chocan
+	 * @return	true si chocan, false en caso contrario
+	 */
+	public boolean chocaConObjeto( ObjetoMovil objeto2, Vector2D choque ) {
+		Point2D p = chocaConObjeto( objeto2 );
+		if (p==null) return false;
+		choque.set( p.getX(), p.getY() );
+		return true;
+	}
+	
+	/** Indica si el objeto esFijo
+	 * @return	true si el objeto es fijo, false si no
+	 */
+	public abstract boolean isFijo();
+	
+	/** Indica si el objeto rebota
+	 * @return	true si el objeto rebota, false si no
+	 */
+	public abstract boolean isBota();
+	
+	/** Comprueba si el objeto incluye a un punto dado
+	 * @param punto	Punto a chequear
+	 * @return	true si el punto está dentro del objeto, false en caso contrario
+	 */
+	public abstract boolean contieneA( Point2D punto );
+
+}
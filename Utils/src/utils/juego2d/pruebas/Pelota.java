@@ -1,213 +1,288 @@
-package utils.juego2d.pruebas;
-import java.awt.Color;
-import java.awt.geom.Point2D;
-
-import utils.juego2d.utils.Fisica;
-import utils.ventanas.ventanaBitmap.VentanaGrafica;
-
-// Con (*) las novedades
-
-/** Clase que permite crear y gestionar pelotas
- */
-public class Pelota extends ObjetoMovil {
-	private double radio;  // Radio de pelota
-	private boolean bota;
-	
-	/** Constructor de pelota por defecto: nombre vaco, centro (0,0), radio 10, color azul, bota true
-	 */
-	public Pelota() {
-		this( 0, 0, 10, Color.blue, true );
-	}
-	
-	/** Constructor de pelota con datos
-	 * @param x	Coordenada x del centro de la pelota
-	 * @param y	Coordenada y del centro de la pelota
-	 * @param radio	Radio de la pelota
-	 * @param color	Color de la pelota
-	 * @param bota	Informacin de si la pelota bota (true) o no (false)
-	 */
-	public Pelota(double x, double y, double radio, Color color, boolean bota) {
-		super( x, y, color );
-		this.radio = radio;
-		this.bota = bota;
-	}
-	
-	/** Constructor de pelota con datos mnimos, suponiendo color azul y bota = true
-	 * @param x	Coordenada x del centro de la pelota
-	 * @param y	Coordenada y del centro de la pelota
-	 * @param radio	Radio de la pelota
-	 */
-	public Pelota(double x, double y, double radio) {
-		this( x, y, radio, Color.blue, true );
-	}
-	
-	public double getRadio() {
-		return radio;
-	}
-
-	public void setRadio(double radio) {
-		this.radio = radio;
-	}
-
-	/** Calcula el volumen de la pelota partiendo de su informacin de radio
-	 * @return	Volumen de la pelota suponiendo una esfera perfecta
-	 */
-	@Override
-	public double getVolumen() {
-		return 4.0/3*Math.PI*radio*radio*radio;
-	}
-	
-	/** Calcula el rea de la pelota partiendo de su informacin de radio
-	 * @return	Area de la pelota suponiendo una circunferencia perfecta
-	 */
-	@Override
-	public double getArea() {
-		return Math.PI*radio*radio;
-	}
-	
-	/** Dibuja la pelota en una ventana, en el color correspondiente de la pelota (por defecto, negro)
-	 * @param v	Ventana en la que dibujar la pelota
-	 */
-	@Override
-	public void dibuja( VentanaGrafica v ) {
-		v.dibujaCirculo( x, y, radio, 1.5f, color );
-		super.dibuja( v );  // Para dibujar la velocidad si procede
-	}
-	
-	/** Borra la pelota en una ventana
-	 * @param v	Ventana en la que borrar la pelota
-	 */
-	@Override
-	public void borra( VentanaGrafica v ) {
-		v.borraCirculo( x, y, radio, 1.5f );
-	}
-
-	/** Ajusta la pelota al suelo, si se ha "pasado" del suelo. Ajusta la velocidad a la que tena cuando lo toc.
-	 * @param v	Ventana de la que ajustar al suelo
-	 * @param dibujar	true si se quiere dibujar la pelota, false en caso contrario
-	 */
-	public void corrigeChoqueInferior( VentanaGrafica v, boolean dibujar ) {
-		double dondeToca = v.getAltura() - radio;  // Coordenada y en la que se toca el suelo, a la que hay que ajustar
-		if (dondeToca >= y) return;  // Si no est pasando el suelo, no se hace nada 
-		setY( dondeToca );
-		// Si estaba cayendo con una velocidad positiva (hacia abajo), entonces la velocidad real que tena cuando
-		// "toc" el suelo era algo menor. Corregimos posicin y velocidad (aproximadamente)
-		if (velYInicial>0 && velocidadY>0) {
-			double tiempoChoque = Fisica.calcTiempoHastaEspacio( velYInicial, antY, Fisica.getGravedad(), dondeToca);
-			if (tiempoChoque > 0) {  // Si hay un error en el clculo no se aplica correccin
-				if (dibujar) borra( v );
-				long tiempoMsgs = Math.round(tiempoChoque*1000.0);
-				setX( Fisica.calcEspacio( antX, tiempoMsgs, velXInicial ) );  // Corrige la posicin
-				setVelocidadY( Fisica.calcVelocidad( velYInicial, tiempoMsgs, Fisica.getGravedad() )); // Corrige la velocidad
-				if (dibujar) dibuja( v );
-			}
-			// System.out.println( "Datos: " + tiempoChoque + " " + velYInicial + " " + antY + " " + radio + " " + (velYInicial*velYInicial - 2.0*Fisica.GRAVEDAD*(antY-(v.getAltura()-radio))) );
-		}
-	}
-	
-	@Override
-	public void corrigeChoqueLateral(VentanaGrafica v, boolean dibujar) {
-		if (dibujar) borra( v );
-		if (x<radio) {
-			setX( radio );
-		} else if (x>v.getAnchura()-radio){
-			setX( v.getAnchura() - radio );
-		}
-		if (dibujar) dibuja( v );
-	}
-	
-	/** Ajusta la pelota al lateral
-	 * @param v	Ventana de la que ajustar al lateral
-	 * @param izquierda	true para izquierda, false para derecha
-	 * @param dibujar	true si se quiere dibujar la pelota, false en caso contrario
-	 */
-	public void corrigeChoqueLateral( VentanaGrafica v, boolean izquierda, boolean dibujar ) {
-		// Corregimos al lateral sin tocar la velocidad
-		if (dibujar) borra( v );
-		if (izquierda) {
-			setX( radio );
-		} else {
-			setX( v.getAnchura() - radio );
-		}
-		if (dibujar) dibuja( v );
-	}
-	
-	@Override
-	public void corrigeChoqueVertical(VentanaGrafica v, boolean dibujar) {
-		if (dibujar) borra( v );
-		if (y > v.getAltura()-radio) {
-			setY( v.getAltura()-radio );
-		}
-		if (dibujar) dibuja( v );
-	}
-
-	/** Detecta el choque de la pelota con los bordes de la ventana
-	 * @param v	Ventana con la que probar el choque
-	 * @return	Devuelve un nmero formado por la suma de: 0 si no choca, 1 si choca con la izquierda, 2 con la derecha, 4 arriba, 8 abajo.
-	 */
-	@Override
-	public int chocaConBorde( VentanaGrafica v ) {
-		int ret = 0;
-		if (x-radio<=0) ret += 1;
-		if (x+radio>=v.getAnchura()) ret += 2;
-		if (y-radio<=0) ret += 4;
-		if (y+radio>=v.getAltura()) ret += 8;
-		return ret;
-	}
-	
-	/** Detecta el choque de la pelota con otro objeto
-	 * @param pelota2	Pelota con la que probar el choque
-	 * @return	Devuelve null si no chocan, un vector con forma de punto indicando el ngulo y amplitud del choque sobre la pelota en curso
-	 */
-	@Override
-	public Point2D chocaConObjeto( ObjetoMovil objeto2 ) {
-		if (objeto2 instanceof Pelota) {
-			Pelota pelota2 = (Pelota) objeto2;
-			Point2D p = new Point2D.Double( pelota2.x - x, pelota2.y - y );
-			double dist = p.distance(0,0);
-			double moduloChoque = radio + pelota2.radio - dist;
-			if (moduloChoque < 0) return null;
-			p.setLocation( p.getX() * moduloChoque / dist, p.getY() * moduloChoque / dist );
-			return p;
-		} else if (objeto2 instanceof Bloque) {  // El clculo de choque con bloque lo gestiona el bloque
-			Point2D choca = objeto2.chocaConObjeto( this );
-			if (choca!=null)
-				choca.setLocation( -choca.getX(), -choca.getY() );
-			return choca;
-		} else if (objeto2 instanceof UDcito) {  // Todo el clculo de choque con UDcito lo gestiona l
-			Point2D choca = objeto2.chocaConObjeto( this );
-			if (choca!=null)
-				choca.setLocation( -choca.getX(), -choca.getY() );
-			return choca;
-		} else {
-			return null;
-		}
-	}
-	
-	/** Comprueba si la pelota incluye a un punto dado
-	 * @param punto	Punto a chequear
-	 * @return	true si el punto est dentro de la pelota, false en caso contrario
-	 */
-	@Override
-	public boolean contieneA( Point2D punto ) {
-		double dist = punto.distance( x, y );
-		return dist <= radio;
-	}
-
-	@Override
-	public boolean isBota() {
-		return bota;
-	}
-	
-	@Override
-	public boolean isFijo() {
-		return false;
-	}
-	
-	@Override
-	public String toString() {
-		return String.format( "Pelota %1s (%2$7.2f,%3$7.2f) R=%4$5.1f Vel.=(%5$6.3f,%6$6.3f)", nombre, x, y, radio, velocidadX, velocidadY );
-	}
-
-}
-
+package utils.juego2d.pruebas;
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.nio.ByteBuffer;
+
+import utils.juego2d.utils.Fisica;
+import utils.juego2d.utils.Limites;
+import utils.juego2d.utils.MascaraBits;
+import utils.juego2d.utils.Vector2D;
+import utils.ventanas.ventanaBitmap.VentanaGrafica;
+
+// Con (*) las novedades
+
+/** Clase que permite crear y gestionar pelotas
+ */
+public class Pelota extends ObjetoMovil {
+	private double radio;  // Radio de pelota
+	private boolean bota;
+	private MascaraBits mascara;  // Máscara de choque de la pelota (se pide la primera vez y se olvida al cambiar el radio)
+	
+	/** Constructor de pelota por defecto: nombre vacío, centro (0,0), radio 10, color azul, bota true
+	 */
+	public Pelota() {
+		this( 0, 0, 10, Color.blue, true );
+	}
+	
+	/** Constructor de pelota con datos
+	 * @param x	Coordenada x del centro de la pelota
+	 * @param y	Coordenada y del centro de la pelota
+	 * @param radio	Radio de la pelota
+	 * @param color	Color de la pelota
+	 * @param bota	Información de si la pelota bota (true) o no (false)
+	 */
+	public Pelota(double x, double y, double radio, Color color, boolean bota) {
+		super( x, y, color );
+		this.radio = radio;
+		this.bota = bota;
+	}
+	
+	/** Constructor de pelota con datos mínimos, suponiendo color azul y bota = true
+	 * @param x	Coordenada x del centro de la pelota
+	 * @param y	Coordenada y del centro de la pelota
+	 * @param radio	Radio de la pelota
+	 */
+	public Pelota(double x, double y, double radio) {
+		this( x, y, radio, Color.blue, true );
+	}
+	
+	/** Reinicializa la pelota con datos nuevos, como si se acabara de crear (para reutilizarla desde una reserva de objetos)
+	 * @param x	Coordenada x del centro de la pelota
+	 * @param y	Coordenada y del centro de la pelota
+	 * @param radio	Radio de la pelota
+	 * @param color	Color de la pelota
+	 * @param bota	Información de si la pelota bota (true) o no (false)
+	 */
+	public void inicia(double x, double y, double radio, Color color, boolean bota) {
+		reinicia( x, y, color );
+		this.radio = radio;
+		this.bota = bota;
+		mascara = null;
+	}
+	
+	public double getRadio() {
+		return radio;
+	}
+
+	public void setRadio(double radio) {
+		this.radio = radio;
+		mascara = null;
+	}
+
+	/** Devuelve la máscara de bits de choque de la pelota (un círculo de su radio), guardada en la propia pelota
+	 * @return	Máscara circular de la pelota
+	 */
+	public MascaraBits getMascara() {
+		if (mascara==null) mascara = MascaraBits.getCirculo( radio );
+		return mascara;
+	}
+
+	/** Calcula el volumen de la pelota partiendo de su información de radio
+	 * @return	Volumen de la pelota suponiendo una esfera perfecta
+	 */
+	@Override
+	public double getVolumen() {
+		return 4.0/3*Math.PI*radio*radio*radio;
+	}
+	
+	/** Calcula el área de la pelota partiendo de su información de radio
+	 * @return	Area de la pelota suponiendo una circunferencia perfecta
+	 */
+	@Override
+	public double getArea() {
+		return Math.PI*radio*radio;
+	}
+
+	@Override
+	public double getXMin() {
+		return x - radio;
+	}
+
+	@Override
+	public double getXMax() {
+		return x + radio;
+	}
+
+	@Override
+	public double getYMin() {
+		return y - radio;
+	}
+
+	@Override
+	public double getYMax() {
+		return y + radio;
+	}
+	
+	/** Dibuja la pelota en una ventana, en el color correspondiente de la pelota (por defecto, negro)
+	 * @param v	Ventana en la que dibujar la pelota
+	 * @param xDibujo	Coordenada x en la que dibujar el centro (normalmente x; otra para dibujar interpolado)
+	 * @param yDibujo	Coordenada y en la que dibujar el centro (normalmente y; otra para dibujar interpolado)
+	 */
+	@Override
+	public void dibuja( VentanaGrafica v, double xDibujo, double yDibujo ) {
+		v.dibujaCirculo( xDibujo, yDibujo, radio, 1.5f, color );
+		super.dibuja( v, xDibujo, yDibujo );  // Para dibujar la velocidad si procede
+	}
+	
+	/** Borra la pelota en una ventana
+	 * @param v	Ventana en la que borrar la pelota
+	 */
+	@Override
+	public void borra( VentanaGrafica v ) {
+		v.borraCirculo( x, y, radio, 1.5f );
+	}
+
+	/** Ajusta la pelota al suelo, si se ha "pasado" del suelo. Ajusta la velocidad a la que tenía cuando lo tocó.
+	 * @param v	Límites (ventana o mundo) a cuyo suelo ajustar
+	 * @param dibujar	true si se quiere dibujar la pelota, false en caso contrario
+	 */
+	public void corrigeChoqueInferior( Limites v, boolean dibujar ) {
+		double dondeToca = v.getAltura() - radio;  // Coordenada y en la que se toca el suelo, a la que hay que ajustar
+		if (dondeToca >= y) return;  // Si no está pasando el suelo, no se hace nada 
+		setY( dondeToca );
+		// Si estaba cayendo con una velocidad positiva (hacia abajo), entonces la velocidad real que tenía cuando
+		// "tocó" el suelo era algo menor. Corregimos posición y velocidad (aproximadamente)
+		if (velYInicial>0 && velocidadY>0) {
+			double tiempoChoque = Fisica.calcTiempoHastaEspacio( velYInicial, antY, Fisica.getGravedad(), dondeToca);
+			if (tiempoChoque > 0) {  // Si hay un error en el cálculo no se aplica corrección
+				if (dibujar) borraEn( v );
+				long tiempoMsgs = Math.round(tiempoChoque*1000.0);
+				setX( Fisica.calcEspacio( antX, tiempoMsgs, velXInicial ) );  // Corrige la posición
+				setVelocidadY( Fisica.calcVelocidad( velYInicial, tiempoMsgs, Fisica.getGravedad() )); // Corrige la velocidad
+				if (dibujar) dibujaEn( v );
+			}
+			// System.out.println( "Datos: " + tiempoChoque + " " + velYInicial + " " + antY + " " + radio + " " + (velYInicial*velYInicial - 2.0*Fisica.GRAVEDAD*(antY-(v.getAltura()-radio))) );
+		}
+	}
+	
+	@Override
+	public void corrigeChoqueLateral(Limites v, boolean dibujar) {
+		if (dibujar) borraEn( v );
+		if (x<radio) {
+			setX( radio );
+		} else if (x>v.getAnchura()-radio){
+			setX( v.getAnchura() - radio );
+		}
+		if (dibujar) dibujaEn( v );
+	}
+	
+	/** Ajusta la pelota al lateral
+	 * @param v	Límites (ventana o mundo) a cuyo lateral ajustar
+	 * @param izquierda	true para izquierda, false para derecha
+	 * @param dibujar	true si se quiere dibujar la pelota, false en caso contrario
+	 */
+	public void corrigeChoqueLateral( Limites v, boolean izquierda, boolean dibujar ) {
+		// Corregimos al lateral sin tocar la velocidad
+		if (dibujar) borraEn( v );
+		if (izquierda) {
+			setX( radio );
+		} else {
+			setX( v.getAnchura() - radio );
+		}
+		if (dibujar) dibujaEn( v );
+	}
+	
+	@Override
+	public void corrigeChoqueVertical(Limites v, boolean dibujar) {
+		if (dibujar) borraEn( v );
+		if (y > v.getAltura()-radio) {
+			setY( v.getAltura()-radio );
+		}
+		if (dibujar) dibujaEn( v );
+	}
+
+	/** Detecta el choque de la pelota con los bordes de la ventana
+	 * @param v	Límites (ventana o mundo) con los que probar el choque
+	 * @return	Devuelve un número formado por la suma de: 0 si no choca, 1 si choca con la izquierda, 2 con la derecha, 4 arriba, 8 abajo.
+	 */
+	@Override
+	public int chocaConBorde( Limites v ) {
+		int ret = 0;
+		if (x-radio<=0) ret += 1;
+		if (x+radio>=v.getAnchura()) ret += 2;
+		if (y-radio<=0) ret += 4;
+		if (y+radio>=v.getAltura()) ret += 8;
+		return ret;
+	}
+	
+	/** Detecta el choque de la pelota con otro objeto
+	 * @param pelota2	Pelota con la que probar el choque
+	 * @return	Devuelve null si no chocan, un vector con forma de punto indicando el ángulo y amplitud del choque sobre la pelota en curso
+	 */
+	@Override
+	public Point2D chocaConObjeto( ObjetoMovil objeto2 ) {
+		Vector2D choque = new Vector2D();
+		return chocaConObjeto( objeto2, choque ) ? choque.toPoint() : null;
+	}
+	
+	/** Detecta el choque de la pelota con otro objeto sin reservar memoria (salvo con UDcito)
+	 * @param objeto2	Objeto con el que probar el choque
+	 * @param choque	Vector en el que se devuelve el choque (ángulo y amplitud del choque sobre la pelota en curso)
+	 * @return	true si chocan, false en caso contrario
+	 */
+	@Override
+	public boolean chocaConObjeto( ObjetoMovil objeto2, Vector2D choque ) {
+		if (objeto2 instanceof Pelota) {
+			Pelota pelota2 = (Pelota) objeto2;
+			double difX = pelota2.x - x;
+			double difY = pelota2.y - y;
+			double dist = Math.sqrt( difX*difX + difY*difY );
+			double moduloChoque = radio + pelota2.radio - dist;
+			if (moduloChoque < 0) return false;
+			choque.set( difX * moduloChoque / dist, difY * moduloChoque / dist );
+			return true;
+		} else if (objeto2 instanceof Bloque) {  // El cálculo de choque con bloque lo gestiona el bloque
+			if (!objeto2.chocaConObjeto( this, choque )) return false;
+			choque.invierte();
+			return true;
+		} else if (objeto2 instanceof UDcito) {  // Todo el cálculo de choque con UDcito lo gestiona él
+			if (!objeto2.chocaConObjeto( this, choque )) return false;
+			choque.invierte();
+			return true;
+		} else {
+			return false;
+		}
+	}
+	
+	/** Comprueba si la pelota incluye a un punto dado
+	 * @param punto	Punto a chequear
+	 * @return	true si el punto está dentro de la pelota, false en caso contrario
+	 */
+	@Override
+	public boolean contieneA( Point2D punto ) {
+		double dist = punto.distance( x, y );
+		return dist <= radio;
+	}
+
+	@Override
+	public boolean isBota() {
+		return bota;
+	}
+	
+	@Override
+	public boolean isFijo() {
+		return false;
+	}
+	
+	@Override
+	public void escribeEstado( ByteBuffer buffer ) {
+		super.escribeEstado( buffer );
+		buffer.putDouble( radio );
+		buffer.put( (byte) (bota ? 1 : 0) );
+	}
+	
+	@Override
+	public void leeEstado( ByteBuffer buffer ) {
+		super.leeEstado( buffer );
+		radio = buffer.getDouble();
+		bota = buffer.get() != 0;
+		mascara = null;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format( "Pelota %1s (%2$7.2f,%3$7.2f) R=%4$5.1f Vel.=(%5$6.3f,%6$6.3f)", getNombre(), x, y, radio, velocidadX, velocidadY );
+	}
+
+}
+
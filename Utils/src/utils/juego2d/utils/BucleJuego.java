@@ -0,0 +1,250 @@
+package utils.juego2d.utils;
+
+import java.util.Arrays;
+
+/** Bucle de juego con paso fijo de física y dibujado independiente.<br/>
+ * Los pasos de física se ejecutan siempre con el mismo periodo real (acumulando el tiempo transcurrido),
+ * de modo que la simulación no se ralentiza aunque el dibujado sea lento. El dibujado se hace con su propia cadencia
+ * y recibe un factor de interpolación (0 a 1) entre el estado anterior y el actual de la física,
+ * para que el movimiento se vea suave aunque los periodos de paso y de dibujado no coincidan.<br/>
+ * Mide los fotogramas y pasos por segundo conseguidos y los percentiles del tiempo de fotograma.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class BucleJuego {
+
+	/** Juego a ejecutar en el bucle
+	 */
+	public static interface Juego {
+		/** Indica si el bucle debe seguir
+		 * @return	true para seguir, false para terminar el bucle (por ejemplo si la ventana se ha cerrado)
+		 */
+		boolean sigue();
+		/** Procesa la entrada de usuario (teclado, ratón). Se llama una vez por fotograma
+		 */
+		void entrada();
+		/** Realiza un paso fijo de física. Se llama cero, una o varias veces por fotograma
+		 */
+		void actualiza();
+		/** Dibuja el estado del juego
+		 * @param alfa	Factor de interpolación entre el estado anterior al último paso (0.0) y el actual (1.0)
+		 */
+		void dibuja( double alfa );
+	}
+
+	private static int NUM_FOTOGRAMAS_MEDIDOS = 240;  // Número de fotogramas de los que se guarda el tiempo para los percentiles
+
+	private double milisEntrePasos;        // Periodo real de cada paso de física
+	private double milisEntreFotogramas;   // Periodo mínimo real entre fotogramas (0 para dibujar tan rápido como se pueda)
+	private int maxPasosPorFotograma;      // Máximo de pasos seguidos antes de dibujar (si se supera se descarta el tiempo pendiente)
+	private volatile boolean parar;        // Se puede pedir parar desde otro hilo ({@link #para()})
+
+	// Estadísticas
+	private long[] nanosFotograma;         // Últimos tiempos entre fotogramas (circular)
+	private long[] nanosOrdenados;         // Copia para calcular percentiles
+	private int numFotogramasMedidos;
+	private int posFotograma;
+	private double fps;
+	private double ups;
+	private long pasosPerdidos;
+
+	/** Crea un bucle de juego
+	 * @param milisEntrePasos	Periodo real de cada paso de física (milisegundos)
+	 * @param milisEntreFotogramas	Periodo mínimo entre fotogramas dibujados (milisegundos), 0 para no limitarlo
+	 * @throws IllegalArgumentException	Si el periodo entre pasos no es positivo (de al menos un nanosegundo)
+	 */
+	public BucleJuego( double milisEntrePasos, double milisEntreFotogramas ) {
+		compruebaPeriodoPasos( milisEntrePasos );
+		this.milisEntrePasos = milisEntrePasos;
+		this.milisEntreFotogramas = milisEntreFotogramas;
+		maxPasosPorFotograma = 5;
+		nanosFotograma = new long[NUM_FOTOGRAMAS_MEDIDOS];
+		nanosOrdenados = new long[NUM_FOTOGRAMAS_MEDIDOS];
+	}
+
+	public double getMilisEntrePasos() {
+		return milisEntrePasos;
+	}
+
+	/** Cambia el periodo real de cada paso de física
+	 * @param milisEntrePasos	Periodo en milisegundos
+	 * @throws IllegalArgumentException	Si el periodo no es positivo (de al menos un nanosegundo)
+	 */
+	public void setMilisEntrePasos( double milisEntrePasos ) {
+		compruebaPeriodoPasos( milisEntrePasos );
+		this.milisEntrePasos = milisEntrePasos;
+	}
+
+		// El bucle divide por el periodo en nanosegundos: no puede ser 0 ni negativo (ni NaN)
+		private static void compruebaPeriodoPasos( double milisEntrePasos ) {
+			if (!(milisEntrePasos * 1000000 >= 1)) throw new IllegalArgumentException( "El periodo entre pasos debe ser positivo: " + milisEntrePasos );
+		}
+
+	public double getMilisEntreFotogramas() {
+		return milisEntreFotogramas;
+	}
+
+	public void setMilisEntreFotogramas( double milisEntreFotogramas ) {
+		this.milisEntreFotogramas = milisEntreFotogramas;
+	}
+
+	public int getMaxPasosPorFotograma() {
+		return maxPasosPorFotograma;
+	}
+
+	public void setMaxPasosPorFotograma( int maxPasosPorFotograma ) {
+		this.maxPasosPorFotograma = maxPasosPorFotograma;
+	}
+
+	/** Pide al bucle que termine al acabar el fotograma en curso
+	 */
+	public void para() {
+		parar = true;
+	}
+
+	/** Ejecuta el bucle de juego hasta que el juego indique que no sigue o se llame a {@link #para()}
+	 * @param juego	Juego a ejecutar
+	 */
+	public void ejecuta( Juego juego ) {
+		parar = false;
+		numFotogramasMedidos = 0;
+		posFotograma = 0;
+		pasosPerdidos = 0;
+		long nanosEntrePasos = (long) (milisEntrePasos * 1000000);
+		long acumulado = 0;
+		long anterior = System.nanoTime();
+		long inicioSegundo = anterior;
+		int fotogramasSegundo = 0;
+		int pasosSegundo = 0;
+		while (!parar && juego.sigue()) {
+			long ahora = System.nanoTime();
+			long transcurrido = ahora - anterior;
+			anterior = ahora;
+			registraFotograma( transcurrido );
+			// 1. Entrada
+			juego.entrada();
+			// 2. Pasos de física pendientes
+			nanosEntrePasos = (long) (milisEntrePasos * 1000000);
+			acumulado += transcurrido;
+			int pasos = 0;
+			while (acumulado >= nanosEntrePasos) {
+				if (pasos == maxPasosPorFotograma) {  // No se recupera más: se pierde el tiempo pendiente
+					pasosPerdidos += acumulado / nanosEntrePasos;
+					acumulado = acumulado % nanosEntrePasos;
+					break;
+				}
+				juego.actualiza();
+				acumulado -= nanosEntrePasos;
+				pasos++;
+			}
+			pasosSegundo += pasos;
+			// 3. Dibujado interpolado
+			juego.dibuja( 1.0 * acumulado / nanosEntrePasos );
+			fotogramasSegundo++;
+			// 4. Estadísticas por segundo
+			if (ahora - inicioSegundo >= 1000000000L) {
+				double segs = (ahora - inicioSegundo) / 1E9;
+				fps = fotogramasSegundo / segs;
+				ups = pasosSegundo / segs;
+				fotogramasSegundo = 0;
+				pasosSegundo = 0;
+				inicioSegundo = ahora;
+			}
+			// 5. Espera hasta el siguiente fotograma (o hasta el siguiente paso si se dibuja más despacio que la física)
+			long nanosEspera = (long) (milisEntreFotogramas * 1000000) - (System.nanoTime() - ahora);
+			if (milisEntreFotogramas <= 0) nanosEspera = 0;
+			if (nanosEspera > 0) {
+				try {
+					Thread.sleep( nanosEspera / 1000000, (int) (nanosEspera % 1000000) );
+				} catch (InterruptedException e) {
+					parar = true;
+				}
+			} else {
+				Thread.yield();
+			}
+		}
+	}
+
+		// Guarda el tiempo de un fotograma en el buffer circular
+		private void registraFotograma( long nanos ) {
+			nanosFotograma[posFotograma] = nanos;
+			posFotograma = (posFotograma+1) % nanosFotograma.length;
+			if (numFotogramasMedidos < nanosFotograma.length) numFotogramasMedidos++;
+		}
+
+	/** Devuelve los fotogramas por segundo conseguidos en el último segundo
+	 * @return	Fotogramas por segundo
+	 */
+	public double getFPS() {
+		return fps;
+	}
+
+	/** Devuelve los pasos de física por segundo conseguidos en el último segundo
+	 * @return	Pasos por segundo
+	 */
+	public double getUPS() {
+		return ups;
+	}
+
+	/** Devuelve el número de pasos de física descartados por no poder seguir el ritmo
+	 * @return	Pasos perdidos desde el inicio del bucle
+	 */
+	public long getPasosPerdidos() {
+		return pasosPerdidos;
+	}
+
+	/** Devuelve un percentil del tiempo entre fotogramas, sobre los últimos fotogramas
+	 * @param percentil	Percentil a calcular (0 a 100)
+	 * @return	Tiempo de fotograma en milisegundos (0 si aún no hay fotogramas)
+	 */
+	public double getPercentilFotograma( double percentil ) {
+		if (numFotogramasMedidos==0) return 0.0;
+		System.arraycopy( nanosFotograma, 0, nanosOrdenados, 0, numFotogramasMedidos );
+		Arrays.sort( nanosOrdenados, 0, numFotogramasMedidos );
+		int pos = (int) Math.ceil( percentil / 100.0 * numFotogramasMedidos ) - 1;
+		if (pos<0) pos = 0;
+		if (pos>=numFotogramasMedidos) pos = numFotogramasMedidos-1;
+		return nanosOrdenados[pos] / 1000000.0;
+	}
+
+	/** Devuelve un texto con las estadísticas del bucle
+	 * @return	FPS, UPS y percentiles 50, 95 y 99 del tiempo de fotograma
+	 */
+	public String getEstadisticas() {
+		return String.format( "FPS %1$.1f - UPS %2$.1f - Fotograma p50 %3$.1f ms, p95 %4$.1f ms, p99 %5$.1f ms",
+			fps, ups, getPercentilFotograma(50), getPercentilFotograma(95), getPercentilFotograma(99) );
+	}
+
+	@Override
+	public String toString() {
+		return "BucleJuego[" + getEstadisticas() + "]";
+	}
+
+	/** Método de prueba: bucle de 3 segundos con un dibujado lento y variable
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) {
+		final long fin = System.currentTimeMillis() + 3000;
+		final int[] pasos = new int[1];
+		BucleJuego bucle = new BucleJuego( 10, 16 );
+		bucle.ejecuta( new Juego() {
+			@Override
+			public boolean sigue() {
+				return System.currentTimeMillis() < fin;
+			}
+			@Override
+			public void entrada() {
+			}
+			@Override
+			public void actualiza() {
+				pasos[0]++;
+			}
+			@Override
+			public void dibuja( double alfa ) {
+				try { Thread.sleep( (long) (Math.random()*30) ); } catch (InterruptedException e) {}
+			}
+		} );
+		System.out.println( bucle.getEstadisticas() );
+		System.out.println( "Pasos: " + pasos[0] + " (esperados 300) - perdidos: " + bucle.getPasosPerdidos() );
+	}
+
+}
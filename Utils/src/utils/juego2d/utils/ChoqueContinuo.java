@@ -0,0 +1,410 @@
+package utils.juego2d.utils;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.List;
+
+import utils.juego2d.pruebas.Asteroide;
+import utils.juego2d.pruebas.Bloque;
+import utils.juego2d.pruebas.Nave;
+import utils.juego2d.pruebas.ObjetoMovil;
+import utils.juego2d.pruebas.Pelota;
+import utils.juego2d.pruebas.UDcito;
+
+/** Detección continua de choques (por barrido) para objetos rápidos.<br/>
+ * Los choques normales se detectan solo en las posiciones finales de cada movimiento, así que un objeto que avanza
+ * en un paso más que su propio tamaño puede atravesar a otro sin que se detecte (efecto túnel).
+ * Esta clase calcula el instante de impacto dentro del último movimiento (como fracción entre 0 y 1
+ * del avance entre la posición anterior y la actual de cada objeto, suponiendo avance en línea recta):
+ * <ul>
+ * <li>Círculo con círculo ({@link Pelota}, {@link Asteroide}, {@link UDcito}): cálculo exacto.</li>
+ * <li>Círculo con caja ({@link Bloque}): cálculo exacto con la suma de Minkowski (dos rectángulos y cuatro círculos).</li>
+ * <li>Caja con caja: cálculo exacto por ejes.</li>
+ * <li>Triángulos ({@link Nave}) y el resto de formas: primero con sus circunferencias envolventes y a partir de ese instante
+ * se avanza en subpasos menores que el tamaño del objeto (solo para esa pareja), probando el choque real.</li>
+ * </ul>
+ * Una instancia puede corregir todas las parejas candidatas de una {@link RejillaEspacial} (calculadas con cajas barridas),
+ * retrocediendo cada objeto rápido al instante de su primer impacto para que la corrección normal de choques lo resuelva.
+ * Así solo se subdivide el paso de los objetos que lo necesitan, sin reducir el tiempo de paso de todo el mundo.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class ChoqueContinuo {
+
+	/** Un objeto se considera rápido si en un movimiento avanza más que esta fracción de su menor dimensión
+	 * (con 1.0, si avanza más que su propio tamaño: solo entonces puede saltarse por completo a otro objeto) */
+	public static double FRACCION_AVANCE_RAPIDO = 1.0;
+	/** Penetración (píxels) con la que se deja a los objetos tras retrocederlos, para que la corrección normal detecte el choque */
+	public static double PENETRACION_CONTACTO = 1.0;
+	private static int MAX_SUBPASOS = 64;       // Máximo de subpasos al buscar el impacto de formas no exactas
+	private static int NUM_BISECCIONES = 6;     // Refinamiento del instante de impacto tras el primer subpaso con choque
+
+	private double[] fraccionImpacto;  // Fracción de movimiento a la que se retrocede cada objeto de la rejilla
+	private int numRapidos;
+	private int numCorregidos;
+	private long nanosUltimaCorreccion;
+
+	/** Crea un corrector de choques continuos
+	 */
+	public ChoqueContinuo() {
+		fraccionImpacto = new double[64];
+	}
+
+	/** Indica si un objeto es rápido (si en su último movimiento ha avanzado más que {@link #FRACCION_AVANCE_RAPIDO} de su menor dimensión)
+	 * @param o	Objeto a comprobar
+	 * @return	true si puede atravesar objetos en un paso, false en caso contrario
+	 */
+	public static boolean esRapido( ObjetoMovil o ) {
+		if (o.isFijo()) return false;
+		double dx = o.getX() - o.getAntX();
+		double dy = o.getY() - o.getAntY();
+		double tam = Math.min( o.getXMax() - o.getXMin(), o.getYMax() - o.getYMin() ) * FRACCION_AVANCE_RAPIDO;
+		return dx*dx + dy*dy > tam*tam;
+	}
+
+	/** Indica si hay algún objeto rápido en una lista
+	 * @param objetos	Lista de objetos (puede contener nulls)
+	 * @return	true si algún objeto es rápido
+	 */
+	public boolean hayObjetosRapidos( List<ObjetoMovil> objetos ) {
+		for (ObjetoMovil o : objetos) {
+			if (o!=null && esRapido( o )) return true;
+		}
+		return false;
+	}
+
+	/** Corrige el efecto túnel de las parejas candidatas: para cada pareja en la que algún objeto es rápido calcula el
+	 * instante de impacto y retrocede ambos objetos a ese instante (con {@link #PENETRACION_CONTACTO} píxels de penetración).
+	 * Si un objeto tiene varios impactos se retrocede al primero. Las velocidades no se modifican.
+	 * @param rejilla	Rejilla con los objetos registrados
+	 * @param parejas	Parejas candidatas, calculadas preferiblemente con {@link RejillaEspacial#setCajasBarridas(boolean)} activo
+	 * @return	Número de objetos retrocedidos
+	 */
+	public int corrige( RejillaEspacial rejilla, ListaParejas parejas ) {
+		long inicio = System.nanoTime();
+		int n = rejilla.getNumObjetos();
+		if (fraccionImpacto.length < n) fraccionImpacto = new double[Math.max( n, fraccionImpacto.length*2 )];
+		Arrays.fill( fraccionImpacto, 0, n, 1.0 );
+		numRapidos = 0;
+		for (int i=0; i<n; i++) if (esRapido( rejilla.getObjeto(i) )) numRapidos++;
+		numCorregidos = 0;
+		if (numRapidos>0) {
+			for (int k=0; k<parejas.size(); k++) {
+				int i = parejas.getPrimero(k);
+				int j = parejas.getSegundo(k);
+				ObjetoMovil o1 = rejilla.getObjeto( i );
+				ObjetoMovil o2 = rejilla.getObjeto( j );
+				if (!esRapido( o1 ) && !esRapido( o2 )) continue;
+				double t = tiempoImpacto( o1, o2 );
+				if (t>0 && t<1) {  // Con t==0 ya se tocaban al principio: lo resuelve la corrección normal
+					if (t < fraccionImpacto[i]) fraccionImpacto[i] = t;
+					if (t < fraccionImpacto[j]) fraccionImpacto[j] = t;
+				}
+			}
+			for (int i=0; i<n; i++) {
+				if (fraccionImpacto[i] < 1.0) {
+					rejilla.getObjeto(i).retrocedeMovimiento( fraccionImpacto[i] );
+					numCorregidos++;
+				}
+			}
+		}
+		nanosUltimaCorreccion = System.nanoTime() - inicio;
+		return numCorregidos;
+	}
+
+	/** Devuelve el número de objetos rápidos de la última corrección
+	 * @return	Número de objetos rápidos
+	 */
+	public int getNumRapidos() {
+		return numRapidos;
+	}
+
+	/** Devuelve el número de objetos retrocedidos en la última corrección
+	 * @return	Número de objetos corregidos
+	 */
+	public int getNumCorregidos() {
+		return numCorregidos;
+	}
+
+	/** Devuelve un texto con las estadísticas de la última corrección
+	 * @return	Objetos rápidos, corregidos y tiempo de cálculo
+	 */
+	public String getEstadisticas() {
+		return String.format( "Choque continuo: %1$d rápidos, %2$d retrocedidos - %3$.3f ms", numRapidos, numCorregidos, nanosUltimaCorreccion/1000000.0 );
+	}
+
+	/** Calcula el instante de impacto de dos objetos durante su último movimiento (de su posición anterior a la actual).
+	 * El instante devuelto ya incluye {@link #PENETRACION_CONTACTO} y se comprueba que en él los objetos chocan
+	 * (con {@link ObjetoMovil#chocaConObjeto(ObjetoMovil)}), así que las parejas de objetos que no chocan entre sí no dan impacto.
+	 * @param o1	Objeto 1
+	 * @param o2	Objeto 2
+	 * @return	Fracción del movimiento (0 a 1) en la que chocan, 0 si ya chocaban al principio, -1 si no chocan durante el movimiento
+	 */
+	public static double tiempoImpacto( ObjetoMovil o1, ObjetoMovil o2 ) {
+		double dx1 = o1.getX() - o1.getAntX(), dy1 = o1.getY() - o1.getAntY();
+		double dx2 = o2.getX() - o2.getAntX(), dy2 = o2.getY() - o2.getAntY();
+		double dRelX = dx1 - dx2, dRelY = dy1 - dy2;
+		double longRel = Math.sqrt( dRelX*dRelX + dRelY*dRelY );
+		if (longRel==0) return -1;  // Sin movimiento relativo: no hay impacto nuevo
+		double t;
+		boolean exacto = esFormaExacta( o1 ) && esFormaExacta( o2 );
+		if (o1 instanceof Bloque && o2 instanceof Bloque) {
+			Bloque b1 = (Bloque) o1, b2 = (Bloque) o2;
+			t = tiempoImpactoCajas( b1.getAntX(), b1.getAntY(), b1.getAnchura(), b1.getAltura(), dx1, dy1,
+					b2.getAntX(), b2.getAntY(), b2.getAnchura(), b2.getAltura(), dx2, dy2 );
+		} else if (o1 instanceof Bloque || o2 instanceof Bloque) {
+			Bloque b = (Bloque) ((o1 instanceof Bloque) ? o1 : o2);
+			ObjetoMovil c = (o1 instanceof Bloque) ? o2 : o1;
+			t = tiempoImpactoCirculoCaja( c.getAntX(), c.getAntY(), c.getX() - c.getAntX(), c.getY() - c.getAntY(), radioEnvolvente( c ),
+					b.getAntX(), b.getAntY(), b.getAntX() + b.getAnchura(), b.getAntY() + b.getAltura(), b.getX() - b.getAntX(), b.getY() - b.getAntY() );
+		} else {
+			t = tiempoImpactoCirculos( o1.getAntX(), o1.getAntY(), dx1, dy1, radioEnvolvente( o1 ),
+					o2.getAntX(), o2.getAntY(), dx2, dy2, radioEnvolvente( o2 ) );
+		}
+		if (t<0) return -1;
+		if (t==0 && chocanEn( o1, o2, 0.0 )) return 0;  // Ya chocaban al principio del movimiento
+		if (exacto) {
+			t = Math.min( 1.0, t + PENETRACION_CONTACTO / longRel );
+			return chocanEn( o1, o2, t ) ? t : -1;
+		}
+		return buscaImpactoPorSubpasos( o1, o2, t, longRel );
+	}
+
+		// Indica si el objeto tiene forma de círculo o caja (su envolvente es exacta)
+		private static boolean esFormaExacta( ObjetoMovil o ) {
+			return o instanceof Pelota || o instanceof Asteroide || o instanceof UDcito || o instanceof Bloque;
+		}
+
+		// Radio de la circunferencia centrada en (x,y) que envuelve al objeto
+		private static double radioEnvolvente( ObjetoMovil o ) {
+			if (o instanceof Pelota) return ((Pelota)o).getRadio();
+			if (o instanceof Asteroide) return ((Asteroide)o).getRadio();
+			if (o instanceof UDcito) return ((UDcito)o).getRadio();
+			if (o instanceof Nave) return ((Nave)o).getTamanyo() * 2.0 / 3.0;  // Radio de la circunferencia circunscrita
+			double rx = Math.max( o.getX() - o.getXMin(), o.getXMax() - o.getX() );  // Resto de objetos: esquina más lejana de la caja
+			double ry = Math.max( o.getY() - o.getYMin(), o.getYMax() - o.getY() );
+			return Math.sqrt( rx*rx + ry*ry );
+		}
+
+		// Busca el primer choque real desde el instante tInicio, en subpasos de avance relativo menor que el tamaño de los objetos,
+		// y lo ajusta por bisección. Deja los objetos donde estaban
+		private static double buscaImpactoPorSubpasos( ObjetoMovil o1, ObjetoMovil o2, double tInicio, double longRel ) {
+			double tam = Math.min( Math.min( o1.getXMax() - o1.getXMin(), o1.getYMax() - o1.getYMin() ),
+					Math.min( o2.getXMax() - o2.getXMin(), o2.getYMax() - o2.getYMin() ) );
+			double paso = Math.max( tam * 0.5 / longRel, (1.0 - tInicio) / MAX_SUBPASOS );
+			double tSinChoque = tInicio;
+			for (double t=tInicio; t<1.0+paso; t+=paso) {
+				double tPrueba = Math.min( t, 1.0 );
+				if (chocanEn( o1, o2, tPrueba )) {
+					if (tPrueba==tInicio) return tPrueba;
+					double tChoque = tPrueba;
+					for (int b=0; b<NUM_BISECCIONES; b++) {
+						double medio = (tSinChoque + tChoque) / 2;
+						if (chocanEn( o1, o2, medio )) tChoque = medio; else tSinChoque = medio;
+					}
+					return tChoque;
+				}
+				tSinChoque = tPrueba;
+			}
+			return -1;
+		}
+
+		// Comprueba si los objetos chocan en una fracción de su último movimiento (dejándolos donde estaban)
+		private static boolean chocanEn( ObjetoMovil o1, ObjetoMovil o2, double t ) {
+			double x1 = o1.getX(), y1 = o1.getY(), x2 = o2.getX(), y2 = o2.getY();
+			if (t<1.0) {
+				o1.retrocedeMovimiento( t );
+				o2.retrocedeMovimiento( t );
+			}
+			boolean chocan = o1.chocaConObjeto( o2 ) != null;
+			if (t<1.0) {
+				o1.setPosicion( x1, y1 );
+				o2.setPosicion( x2, y2 );
+			}
+			return chocan;
+		}
+
+	/** Calcula el primer instante en el que un punto que avanza en línea recta entra en un círculo
+	 * @param px	Coordenada x inicial del punto
+	 * @param py	Coordenada y inicial del punto
+	 * @param dx	Avance x del punto
+	 * @param dy	Avance y del punto
+	 * @param cx	Coordenada x del centro del círculo
+	 * @param cy	Coordenada y del centro del círculo
+	 * @param r	Radio del círculo
+	 * @return	Fracción del avance (0 a 1) en la que el punto entra en el círculo, 0 si ya está dentro, -1 si no entra
+	 */
+	public static double tiempoPuntoCirculo( double px, double py, double dx, double dy, double cx, double cy, double r ) {
+		double mx = px - cx, my = py - cy;
+		double c = mx*mx + my*my - r*r;
+		if (c <= 0) return 0.0;
+		double a = dx*dx + dy*dy;
+		double b = mx*dx + my*dy;
+		if (b >= 0 || a==0) return -1;  // Se aleja o no se mueve
+		double disc = b*b - a*c;
+		if (disc < 0) return -1;
+		double t = (-b - Math.sqrt( disc )) / a;
+		return (t <= 1.0) ? t : -1;
+	}
+
+	/** Calcula el primer instante en el que un punto que avanza en línea recta entra en un rectángulo
+	 * @param px	Coordenada x inicial del punto
+	 * @param py	Coordenada y inicial del punto
+	 * @param dx	Avance x del punto
+	 * @param dy	Avance y del punto
+	 * @param xMin	x mínima del rectángulo
+	 * @param yMin	y mínima del rectángulo
+	 * @param xMax	x máxima del rectángulo
+	 * @param yMax	y máxima del rectángulo
+	 * @return	Fracción del avance (0 a 1) en la que el punto entra en el rectángulo, 0 si ya está dentro, -1 si no entra
+	 */
+	public static double tiempoPuntoRectangulo( double px, double py, double dx, double dy, double xMin, double yMin, double xMax, double yMax ) {
+		double tEntrada = 0.0, tSalida = 1.0;
+		if (dx==0) {
+			if (px < xMin || px > xMax) return -1;
+		} else {
+			double t1 = (xMin - px) / dx, t2 = (xMax - px) / dx;
+			if (t1 > t2) { double t = t1; t1 = t2; t2 = t; }
+			if (t1 > tEntrada) tEntrada = t1;
+			if (t2 < tSalida) tSalida = t2;
+			if (tEntrada > tSalida) return -1;
+		}
+		if (dy==0) {
+			if (py < yMin || py > yMax) return -1;
+		} else {
+			double t1 = (yMin - py) / dy, t2 = (yMax - py) / dy;
+			if (t1 > t2) { double t = t1; t1 = t2; t2 = t; }
+			if (t1 > tEntrada) tEntrada = t1;
+			if (t2 < tSalida) tSalida = t2;
+			if (tEntrada > tSalida) return -1;
+		}
+		return tEntrada;
+	}
+
+	/** Calcula el instante de impacto de dos círculos que avanzan en línea recta
+	 * @param x1	Coordenada x inicial del centro del círculo 1
+	 * @param y1	Coordenada y inicial del centro del círculo 1
+	 * @param dx1	Avance x del círculo 1
+	 * @param dy1	Avance y del círculo 1
+	 * @param r1	Radio del círculo 1
+	 * @param x2	Coordenada x inicial del centro del círculo 2
+	 * @param y2	Coordenada y inicial del centro del círculo 2
+	 * @param dx2	Avance x del círculo 2
+	 * @param dy2	Avance y del círculo 2
+	 * @param r2	Radio del círculo 2
+	 * @return	Fracción del avance (0 a 1) en la que se tocan, 0 si ya se tocaban, -1 si no se tocan
+	 */
+	public static double tiempoImpactoCirculos( double x1, double y1, double dx1, double dy1, double r1,
+			double x2, double y2, double dx2, double dy2, double r2 ) {
+		return tiempoPuntoCirculo( x1, y1, dx1-dx2, dy1-dy2, x2, y2, r1+r2 );
+	}
+
+	/** Calcula el instante de impacto de un círculo y una caja (rectángulo de lados horizontales y verticales) que avanzan en línea recta
+	 * @param cx	Coordenada x inicial del centro del círculo
+	 * @param cy	Coordenada y inicial del centro del círculo
+	 * @param dxC	Avance x del círculo
+	 * @param dyC	Avance y del círculo
+	 * @param r	Radio del círculo
+	 * @param xMin	x mínima inicial de la caja
+	 * @param yMin	y mínima inicial de la caja
+	 * @param xMax	x máxima inicial de la caja
+	 * @param yMax	y máxima inicial de la caja
+	 * @param dxB	Avance x de la caja
+	 * @param dyB	Avance y de la caja
+	 * @return	Fracción del avance (0 a 1) en la que se tocan, 0 si ya se tocaban, -1 si no se tocan
+	 */
+	public static double tiempoImpactoCirculoCaja( double cx, double cy, double dxC, double dyC, double r,
+			double xMin, double yMin, double xMax, double yMax, double dxB, double dyB ) {
+		// El centro del círculo (con movimiento relativo a la caja) contra la suma de Minkowski de caja y círculo:
+		// la caja ensanchada en x, la caja ensanchada en y y los círculos de las cuatro esquinas
+		double dx = dxC - dxB, dy = dyC - dyB;
+		double t = menorTiempo( -1, tiempoPuntoRectangulo( cx, cy, dx, dy, xMin-r, yMin, xMax+r, yMax ) );
+		t = menorTiempo( t, tiempoPuntoRectangulo( cx, cy, dx, dy, xMin, yMin-r, xMax, yMax+r ) );
+		t = menorTiempo( t, tiempoPuntoCirculo( cx, cy, dx, dy, xMin, yMin, r ) );
+		t = menorTiempo( t, tiempoPuntoCirculo( cx, cy, dx, dy, xMax, yMin, r ) );
+		t = menorTiempo( t, tiempoPuntoCirculo( cx, cy, dx, dy, xMin, yMax, r ) );
+		t = menorTiempo( t, tiempoPuntoCirculo( cx, cy, dx, dy, xMax, yMax, r ) );
+		return t;
+	}
+
+		// Menor de dos tiempos de impacto, teniendo en cuenta que -1 es "sin impacto"
+		private static double menorTiempo( double t1, double t2 ) {
+			if (t1<0) return t2;
+			if (t2<0) return t1;
+			return Math.min( t1, t2 );
+		}
+
+	/** Calcula el instante de impacto de dos cajas (rectángulos de lados horizontales y verticales) que avanzan en línea recta
+	 * @param x1	x mínima inicial de la caja 1
+	 * @param y1	y mínima inicial de la caja 1
+	 * @param anch1	Anchura de la caja 1
+	 * @param alt1	Altura de la caja 1
+	 * @param dx1	Avance x de la caja 1
+	 * @param dy1	Avance y de la caja 1
+	 * @param x2	x mínima inicial de la caja 2
+	 * @param y2	y mínima inicial de la caja 2
+	 * @param anch2	Anchura de la caja 2
+	 * @param alt2	Altura de la caja 2
+	 * @param dx2	Avance x de la caja 2
+	 * @param dy2	Avance y de la caja 2
+	 * @return	Fracción del avance (0 a 1) en la que se tocan, 0 si ya se tocaban, -1 si no se tocan
+	 */
+	public static double tiempoImpactoCajas( double x1, double y1, double anch1, double alt1, double dx1, double dy1,
+			double x2, double y2, double anch2, double alt2, double dx2, double dy2 ) {
+		// La esquina mínima de la caja 1 contra la caja 2 ampliada con el tamaño de la caja 1
+		return tiempoPuntoRectangulo( x1, y1, dx1-dx2, dy1-dy2, x2-anch1, y2-alt1, x2+anch2, y2+alt2 );
+	}
+
+	@Override
+	public String toString() {
+		return "ChoqueContinuo[" + getEstadisticas() + "]";
+	}
+
+	/** Método de prueba: objetos muy rápidos contra objetos finos, comparando la detección discreta y la continua
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) {
+		Fisica.setGravedad( false );
+		// 1. Pelota rápida contra bloque fino (en un paso de 16 ms avanza 80 píxels y el bloque mide 10)
+		Bloque bloque = new Bloque( 500, 300, 10, 200, Color.green, false );
+		Pelota pelota = new Pelota( 450, 400, 10, Color.red, true );
+		pelota.setVelocidad( 5000, 0 );
+		prueba( "Pelota contra bloque", pelota, bloque );
+		// 2. Dos pelotas rápidas que se cruzan
+		Pelota p1 = new Pelota( 100, 100, 5, Color.red, true );
+		Pelota p2 = new Pelota( 160, 100, 5, Color.blue, true );
+		p1.setVelocidad( 3000, 0 );
+		p2.setVelocidad( -3000, 0 );
+		prueba( "Pelota contra pelota", p1, p2 );
+		// 3. Nave rápida contra nave
+		Nave n1 = new Nave( 100, 500, 20, 100, 500, Color.red );
+		Nave n2 = new Nave( 170, 505, 20, 170, 505, Color.blue );
+		n1.setVelocidad( 8000, 0 );
+		n2.setVelocidad( 0, 10 );
+		prueba( "Nave contra nave", n1, n2 );
+		// 4. Coste del cálculo
+		long inicio = System.nanoTime();
+		int impactos = 0;
+		for (int i=0; i<100000; i++) {
+			if (tiempoImpactoCirculoCaja( 0, i%100, 200, 0, 10, 100, 0, 110, 100, 0, 0 ) >= 0) impactos++;
+		}
+		System.out.println( String.format( "100.000 cálculos círculo-caja: %1$.3f ms (%2$d impactos)", (System.nanoTime()-inicio)/1E6, impactos ) );
+	}
+
+		// Mueve un paso los dos objetos y compara la detección discreta con la continua
+		private static void prueba( String nombre, ObjetoMovil o1, ObjetoMovil o2 ) {
+			o1.mueveUnPoco( null, 16, false );
+			o2.mueveUnPoco( null, 16, false );
+			boolean rapido = esRapido( o1 ) || esRapido( o2 );
+			boolean discreto = o1.chocaConObjeto( o2 ) != null;
+			double t = tiempoImpacto( o1, o2 );
+			String continuo = "no detectado";
+			if (t>=0) {
+				o1.retrocedeMovimiento( t );
+				o2.retrocedeMovimiento( t );
+				continuo = String.format( "impacto en %1$.3f del paso, retrocedidos a (%2$.1f,%3$.1f) y (%4$.1f,%5$.1f) - chocan: %6$s",
+						t, o1.getX(), o1.getY(), o2.getX(), o2.getY(), o1.chocaConObjeto( o2 )!=null );
+			}
+			System.out.println( nombre + " (rápido: " + rapido + "). Discreto: " + (discreto ? "choque" : "sin choque") + " - Continuo: " + continuo );
+		}
+
+}
@@ -0,0 +1,123 @@
+package utils.juego2d.utils;
+
+/** Cálculos de choque entre triángulos con primitivos, sin crear objetos (ni Path2D ni Area)
+ * Los triángulos se indican con dos arrays de 3 coordenadas x y 3 coordenadas y.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class ChoqueTriangulos {
+
+	/** Comprueba si dos triángulos se solapan, por el teorema de los ejes separadores
+	 * (se prueban como ejes las normales de los 6 lados). Si solo se tocan en un borde o un vértice no se considera solape.
+	 * @param x1	Coordenadas x de los vértices del triángulo 1
+	 * @param y1	Coordenadas y de los vértices del triángulo 1
+	 * @param x2	Coordenadas x de los vértices del triángulo 2
+	 * @param y2	Coordenadas y de los vértices del triángulo 2
+	 * @return	true si los triángulos tienen área en común, false en caso contrario
+	 */
+	public static boolean seSolapan( double[] x1, double[] y1, double[] x2, double[] y2 ) {
+		return !hayEjeSeparador( x1, y1, x1, y1, x2, y2 ) && !hayEjeSeparador( x2, y2, x1, y1, x2, y2 );
+	}
+
+		// Prueba como ejes separadores las normales de los lados del triángulo (xl,yl)
+		private static boolean hayEjeSeparador( double[] xl, double[] yl, double[] x1, double[] y1, double[] x2, double[] y2 ) {
+			for (int i=0; i<3; i++) {
+				int sig = (i+1) % 3;
+				double ejeX = yl[i] - yl[sig];  // Normal del lado (no hace falta normalizarla)
+				double ejeY = xl[sig] - xl[i];
+				double min1 = x1[0]*ejeX + y1[0]*ejeY, max1 = min1;
+				double min2 = x2[0]*ejeX + y2[0]*ejeY, max2 = min2;
+				for (int j=1; j<3; j++) {
+					double p1 = x1[j]*ejeX + y1[j]*ejeY;
+					if (p1<min1) min1 = p1; else if (p1>max1) max1 = p1;
+					double p2 = x2[j]*ejeX + y2[j]*ejeY;
+					if (p2<min2) min2 = p2; else if (p2>max2) max2 = p2;
+				}
+				if (max1<=min2 || max2<=min1) return true;
+			}
+			return false;
+		}
+
+	/** Calcula el solape entre dos triángulos, con la misma semántica que el rectángulo envolvente entero
+	 * de la intersección de sus áreas ({@link java.awt.geom.Area#intersect(java.awt.geom.Area)} + {@link java.awt.geom.Area#getBounds()}).
+	 * @param x1	Coordenadas x de los vértices del triángulo 1
+	 * @param y1	Coordenadas y de los vértices del triángulo 1
+	 * @param x2	Coordenadas x de los vértices del triángulo 2
+	 * @param y2	Coordenadas y de los vértices del triángulo 2
+	 * @return	Anchura (32 bits altos) y altura (32 bits bajos) en píxels del rectángulo envolvente de la intersección,
+	 * 			-1 si los triángulos no se solapan. Se pueden extraer con {@link #getAnchura(long)} y {@link #getAltura(long)}
+	 */
+	public static long solape( double[] x1, double[] y1, double[] x2, double[] y2 ) {
+		if (!seSolapan( x1, y1, x2, y2 )) return -1;
+		// Los vértices del polígono intersección son los vértices de cada triángulo dentro del otro
+		// y los puntos de corte de los lados. Basta con ir acumulando su rectángulo envolvente
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (int i=0; i<3; i++) {
+			if (contiene( x2, y2, x1[i], y1[i] )) {
+				minX = Math.min( minX, x1[i] ); maxX = Math.max( maxX, x1[i] );
+				minY = Math.min( minY, y1[i] ); maxY = Math.max( maxY, y1[i] );
+			}
+			if (contiene( x1, y1, x2[i], y2[i] )) {
+				minX = Math.min( minX, x2[i] ); maxX = Math.max( maxX, x2[i] );
+				minY = Math.min( minY, y2[i] ); maxY = Math.max( maxY, y2[i] );
+			}
+		}
+		for (int i=0; i<3; i++) {
+			int sigI = (i+1) % 3;
+			double ax = x1[i], ay = y1[i];
+			double rx = x1[sigI]-ax, ry = y1[sigI]-ay;
+			for (int j=0; j<3; j++) {
+				int sigJ = (j+1) % 3;
+				double bx = x2[j], by = y2[j];
+				double sx = x2[sigJ]-bx, sy = y2[sigJ]-by;
+				double denom = rx*sy - ry*sx;
+				if (denom==0.0) continue;  // Lados paralelos: sus extremos ya se han considerado como vértices
+				double t = ((bx-ax)*sy - (by-ay)*sx) / denom;
+				double u = ((bx-ax)*ry - (by-ay)*rx) / denom;
+				if (t>=0 && t<=1 && u>=0 && u<=1) {
+					double cx = ax + t*rx, cy = ay + t*ry;
+					minX = Math.min( minX, cx ); maxX = Math.max( maxX, cx );
+					minY = Math.min( minY, cy ); maxY = Math.max( maxY, cy );
+				}
+			}
+		}
+		if (minX>maxX) return -1;  // No debería ocurrir (solo por errores de redondeo)
+		// Mismo redondeo que Rectangle2D.getBounds()
+		long anchura = (long) (Math.ceil( maxX ) - Math.floor( minX ));
+		long altura = (long) (Math.ceil( maxY ) - Math.floor( minY ));
+		return (anchura << 32) | altura;
+	}
+
+	/** Devuelve la anchura de un solape calculado con {@link #solape(double[], double[], double[], double[])}
+	 * @param solape	Valor de solape (no negativo)
+	 * @return	Anchura del solape
+	 */
+	public static int getAnchura( long solape ) {
+		return (int) (solape >>> 32);
+	}
+
+	/** Devuelve la altura de un solape calculado con {@link #solape(double[], double[], double[], double[])}
+	 * @param solape	Valor de solape (no negativo)
+	 * @return	Altura del solape
+	 */
+	public static int getAltura( long solape ) {
+		return (int) solape;
+	}
+
+	/** Comprueba si un punto está dentro de un triángulo (incluyendo el borde)
+	 * @param x	Coordenadas x de los vértices del triángulo
+	 * @param y	Coordenadas y de los vértices del triángulo
+	 * @param px	Coordenada x del punto
+	 * @param py	Coordenada y del punto
+	 * @return	true si el punto está dentro o en el borde, false en caso contrario
+	 */
+	public static boolean contiene( double[] x, double[] y, double px, double py ) {
+		double d1 = (px-x[1])*(y[0]-y[1]) - (x[0]-x[1])*(py-y[1]);
+		double d2 = (px-x[2])*(y[1]-y[2]) - (x[1]-x[2])*(py-y[2]);
+		double d3 = (px-x[0])*(y[2]-y[0]) - (x[2]-x[0])*(py-y[0]);
+		boolean hayNeg = (d1<0) || (d2<0) || (d3<0);
+		boolean hayPos = (d1>0) || (d2>0) || (d3>0);
+		return !(hayNeg && hayPos);
+	}
+
+}
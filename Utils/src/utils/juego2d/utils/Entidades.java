@@ -0,0 +1,287 @@
+package utils.juego2d.utils;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import utils.juego2d.pruebas.Nave;
+import utils.juego2d.pruebas.ObjetoMovil;
+
+/** Conjunto de los objetos de un mundo con altas y bajas en tiempo constante e identificadores enteros estables.<br/>
+ * Los objetos activos se guardan en una lista ({@link #getObjetos()}) que se recorre como siempre, pero sin orden
+ * fijo: al quitar un objeto su hueco lo ocupa el último de la lista (intercambio con el último, sin desplazar el resto).<br/>
+ * Cada objeto añadido recibe un identificador ({@link ObjetoMovil#getId()}) formado por una ranura y una generación:
+ * la ranura se reutiliza cuando el objeto se quita, pero la generación cambia, así que un identificador guardado de un
+ * objeto ya quitado no encuentra al objeto nuevo que ocupe la misma ranura ({@link #getObjeto(int)} devuelve null).
+ * Así se puede referenciar a otro objeto (un objetivo, el dueño de un disparo...) sin guardar el objeto.<br/>
+ * Los objetos se pueden quitar en el momento ({@link #quita(ObjetoMovil)}) o al final del fotograma
+ * ({@link #quitaAlFinal(ObjetoMovil)} y {@link #aplicaQuitados()}), para no modificar la lista mientras se recorre
+ * (por ejemplo al morir en un choque). Si hay una {@link ReservaObjetos} registrada para su clase, el objeto quitado se devuelve a ella.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class Entidades {
+
+	/** Bits del identificador usados para la ranura (el resto son la generación) */
+	public static final int BITS_RANURA = 20;
+	/** Número máximo de objetos a la vez */
+	public static final int MAX_OBJETOS = 1 << BITS_RANURA;
+	private static final int MASCARA_RANURA = MAX_OBJETOS - 1;
+	private static final int MASCARA_GENERACION = (1 << (31 - BITS_RANURA)) - 1;  // Identificadores siempre positivos
+
+	private final ArrayList<ObjetoMovil> objetos;  // Objetos activos (el orden cambia al quitar)
+	private ObjetoMovil[] porRanura;   // Objeto de cada ranura (null si está libre)
+	private int[] posicion;            // Posición en la lista de objetos del objeto de cada ranura
+	private int[] generacion;          // Generación actual de cada ranura
+	private boolean[] pendiente;       // true si el objeto de la ranura está pendiente de quitar al final del fotograma
+	private int numRanuras;            // Ranuras usadas alguna vez
+	private int[] ranurasLibres;       // Pila de ranuras libres para reutilizar
+	private int numRanurasLibres;
+	private ObjetoMovil[] quitados;    // Objetos pendientes de quitar al final del fotograma
+	private int numQuitados;
+	private ReservaObjetos<?>[] reservas = new ReservaObjetos<?>[0];  // Reservas a las que devolver los objetos quitados
+	private EventosChoque eventos;     // Eventos a los que avisar al quitar un objeto (null si no hay)
+
+	/** Crea un conjunto vacío de objetos
+	 */
+	public Entidades() {
+		this( new ArrayList<ObjetoMovil>() );
+	}
+
+	/** Crea un conjunto de objetos que gestiona una lista ya existente (debe estar vacía: a partir de ahora
+	 * solo debe modificarse a través del conjunto)
+	 * @param objetos	Lista de objetos activos
+	 */
+	public Entidades( ArrayList<ObjetoMovil> objetos ) {
+		this.objetos = objetos;
+		objetos.clear();
+		int cap = 64;
+		porRanura = new ObjetoMovil[cap];
+		posicion = new int[cap];
+		generacion = new int[cap];
+		pendiente = new boolean[cap];
+		ranurasLibres = new int[cap];
+		quitados = new ObjetoMovil[16];
+	}
+
+	/** Devuelve la lista de objetos activos. No debe modificarse directamente
+	 * @return	Lista de objetos (el orden cambia al quitar objetos)
+	 */
+	public ArrayList<ObjetoMovil> getObjetos() {
+		return objetos;
+	}
+
+	/** Registra una reserva a la que devolver los objetos de su clase cuando se quiten
+	 * @param reserva	Reserva de objetos
+	 */
+	public void registraReserva( ReservaObjetos<?> reserva ) {
+		reservas = Arrays.copyOf( reservas, reservas.length + 1 );
+		reservas[reservas.length-1] = reserva;
+	}
+
+	/** Asocia los eventos de choque del mundo: al quitar un objeto se entrega en el momento el fin de sus contactos
+	 * ({@link EventosChoque#quitaObjeto(ObjetoMovil)}), antes de devolverlo a su reserva
+	 * @param eventos	Eventos de choque, null para no avisar
+	 */
+	public void setEventos( EventosChoque eventos ) {
+		this.eventos = eventos;
+	}
+
+	/** Añade un objeto y le asigna su identificador
+	 * @param objeto	Objeto a añadir (no debe estar ya en el conjunto)
+	 * @return	Identificador asignado (también accesible con {@link ObjetoMovil#getId()})
+	 * @throws IllegalStateException	Si se supera el máximo de objetos ({@link #MAX_OBJETOS})
+	 */
+	public int anyade( ObjetoMovil objeto ) {
+		int ranura;
+		if (numRanurasLibres>0) {
+			ranura = ranurasLibres[--numRanurasLibres];
+		} else {
+			if (numRanuras==MAX_OBJETOS) throw new IllegalStateException( "Superado el máximo de " + MAX_OBJETOS + " objetos" );
+			if (numRanuras==porRanura.length) crece();
+			ranura = numRanuras++;
+		}
+		porRanura[ranura] = objeto;
+		posicion[ranura] = objetos.size();
+		pendiente[ranura] = false;
+		int id = (generacion[ranura] << BITS_RANURA) | ranura;
+		objeto.setId( id );
+		objetos.add( objeto );
+		return id;
+	}
+
+		// Duplica la capacidad de los arrays por ranura
+		private void crece() {
+			int cap = Math.min( MAX_OBJETOS, porRanura.length * 2 );
+			porRanura = Arrays.copyOf( porRanura, cap );
+			posicion = Arrays.copyOf( posicion, cap );
+			generacion = Arrays.copyOf( generacion, cap );
+			pendiente = Arrays.copyOf( pendiente, cap );
+			ranurasLibres = Arrays.copyOf( ranurasLibres, cap );
+		}
+
+	/** Devuelve el objeto con un identificador dado
+	 * @param id	Identificador del objeto
+	 * @return	Objeto, o null si ya no está en el conjunto (aunque su ranura la ocupe otro objeto)
+	 */
+	public ObjetoMovil getObjeto( int id ) {
+		if (id<0) return null;
+		int ranura = id & MASCARA_RANURA;
+		if (ranura>=numRanuras) return null;
+		ObjetoMovil o = porRanura[ranura];
+		if (o==null || o.getId()!=id) return null;
+		return o;
+	}
+
+	/** Indica si un objeto está en el conjunto
+	 * @param objeto	Objeto a comprobar
+	 * @return	true si está (aunque esté pendiente de quitar al final del fotograma)
+	 */
+	public boolean contiene( ObjetoMovil objeto ) {
+		return objeto!=null && getObjeto( objeto.getId() )==objeto;
+	}
+
+	/** Devuelve la ranura de un identificador (número pequeño, reutilizado cuando se quitan objetos)
+	 * @param id	Identificador de objeto
+	 * @return	Ranura (entre 0 y {@link #MAX_OBJETOS}-1)
+	 */
+	public static int getRanura( int id ) {
+		return id & MASCARA_RANURA;
+	}
+
+	/** Quita un objeto en el momento, poniendo en su lugar el último de la lista. No debe llamarse mientras se recorre la lista
+	 * @param objeto	Objeto a quitar
+	 * @return	true si se ha quitado, false si no estaba en el conjunto
+	 */
+	public boolean quita( ObjetoMovil objeto ) {
+		if (!contiene( objeto )) return false;
+		if (eventos!=null) eventos.quitaObjeto( objeto );  // Con el objeto aún en el mundo y con su identificador
+		int ranura = objeto.getId() & MASCARA_RANURA;
+		int pos = posicion[ranura];
+		int ultima = objetos.size() - 1;
+		if (pos!=ultima) {  // El último pasa al hueco
+			ObjetoMovil ultimo = objetos.get( ultima );
+			objetos.set( pos, ultimo );
+			posicion[ ultimo.getId() & MASCARA_RANURA ] = pos;
+		}
+		objetos.remove( ultima );
+		porRanura[ranura] = null;
+		pendiente[ranura] = false;
+		generacion[ranura] = (generacion[ranura] + 1) & MASCARA_GENERACION;
+		ranurasLibres[numRanurasLibres++] = ranura;
+		objeto.setId( -1 );
+		for (ReservaObjetos<?> reserva : reservas) {
+			if (reserva.devuelve( objeto )) break;
+		}
+		return true;
+	}
+
+	/** Marca un objeto para quitarlo al llamar a {@link #aplicaQuitados()} (normalmente al final del fotograma).
+	 * Se puede llamar mientras se recorre la lista, y varias veces con el mismo objeto
+	 * @param objeto	Objeto a quitar
+	 */
+	public void quitaAlFinal( ObjetoMovil objeto ) {
+		if (!contiene( objeto )) return;
+		int ranura = objeto.getId() & MASCARA_RANURA;
+		if (pendiente[ranura]) return;
+		pendiente[ranura] = true;
+		if (numQuitados==quitados.length) quitados = Arrays.copyOf( quitados, quitados.length*2 );
+		quitados[numQuitados++] = objeto;
+	}
+
+	/** Indica si un objeto está marcado para quitarlo al final del fotograma
+	 * @param objeto	Objeto a comprobar
+	 * @return	true si está en el conjunto y pendiente de quitar
+	 */
+	public boolean isPendienteDeQuitar( ObjetoMovil objeto ) {
+		return contiene( objeto ) && pendiente[ objeto.getId() & MASCARA_RANURA ];
+	}
+
+	/** Quita todos los objetos marcados con {@link #quitaAlFinal(ObjetoMovil)}
+	 * @return	Número de objetos quitados
+	 */
+	public int aplicaQuitados() {
+		int n = numQuitados;
+		for (int i=0; i<n; i++) {
+			if (isPendienteDeQuitar( quitados[i] )) quita( quitados[i] );  // Puede haberse quitado ya (y hasta reutilizado)
+			quitados[i] = null;
+		}
+		numQuitados = 0;
+		return n;
+	}
+
+	/** Quita todos los objetos (devolviéndolos a sus reservas si las hay)
+	 */
+	public void limpia() {
+		for (int i=objetos.size()-1; i>=0; i--) quita( objetos.get(i) );
+		for (int i=0; i<numQuitados; i++) quitados[i] = null;
+		numQuitados = 0;
+	}
+
+	/** Devuelve el número de objetos activos
+	 * @return	Número de objetos
+	 */
+	public int size() {
+		return objetos.size();
+	}
+
+	/** Devuelve las estadísticas del conjunto y sus reservas
+	 * @return	Texto con objetos activos, ranuras usadas y el estado de las reservas
+	 */
+	public String getEstadisticas() {
+		StringBuilder sb = new StringBuilder();
+		sb.append( "Entidades: " ).append( objetos.size() ).append( " de " ).append( numRanuras ).append( " ranuras" );
+		for (ReservaObjetos<?> reserva : reservas) sb.append( " - " ).append( reserva.getEstadisticas() );
+		return sb.toString();
+	}
+
+	/** Método de prueba: compara altas y bajas continuas (como disparos) con lista y objetos nuevos frente a conjunto con reserva
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) {
+		int vivos = 2000;        // Objetos a la vez
+		int ciclos = 2000000;    // Bajas y altas
+		java.util.Random r = new java.util.Random( 1 );
+		int[] aQuitar = new int[ciclos];
+		for (int i=0; i<ciclos; i++) aQuitar[i] = r.nextInt( vivos );
+		for (int prueba=0; prueba<3; prueba++) {
+			// Lista y objetos nuevos (quitar desplaza todos los posteriores)
+			ArrayList<ObjetoMovil> lista = new ArrayList<ObjetoMovil>();
+			for (int i=0; i<vivos; i++) lista.add( new Nave( i, i, 5, i+1, i, Color.red ) );
+			long t0 = System.nanoTime();
+			for (int i=0; i<ciclos; i++) {
+				lista.remove( lista.get( aQuitar[i] ) );
+				Nave nueva = new Nave( i, i, 5, i+1, i, Color.red );
+				nueva.setNombre( "" + lista.size() );
+				lista.add( nueva );
+			}
+			long t1 = System.nanoTime();
+			// Conjunto con reserva (quitar intercambia con el último, las naves se reutilizan)
+			Entidades entidades = new Entidades();
+			ReservaObjetos<Nave> reserva = new ReservaObjetos<Nave>( Nave.class, new ReservaObjetos.Fabrica<Nave>() {
+				@Override
+				public Nave crea() {
+					return new Nave( 0, 0, 5 );
+				}
+			});
+			entidades.registraReserva( reserva );
+			for (int i=0; i<vivos; i++) {
+				Nave n = reserva.obtiene();
+				n.inicia( i, i, 5, i+1, i, Color.red );
+				entidades.anyade( n );
+			}
+			long t2 = System.nanoTime();
+			for (int i=0; i<ciclos; i++) {
+				entidades.quitaAlFinal( entidades.getObjetos().get( aQuitar[i] ) );
+				entidades.aplicaQuitados();
+				Nave n = reserva.obtiene();
+				n.inicia( i, i, 5, i+1, i, Color.red );
+				entidades.anyade( n );
+			}
+			long t3 = System.nanoTime();
+			System.out.println( String.format( "%1$d bajas y altas con %2$d objetos. Lista y new: %3$.1f ns/ciclo - Entidades y reserva: %4$.1f ns/ciclo",
+					ciclos, vivos, (t1-t0)*1.0/ciclos, (t3-t2)*1.0/ciclos ) );
+			System.out.println( "  " + entidades.getEstadisticas() );
+		}
+	}
+
+}
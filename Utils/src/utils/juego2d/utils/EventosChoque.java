@@ -0,0 +1,256 @@
+package utils.juego2d.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import utils.juego2d.pruebas.ObjetoMovil;
+
+/** Buffer de eventos de choque de un paso de simulación, para separar la lógica de juego de la física.<br/>
+ * Durante el paso el motor solo anota los choques entre objetos ({@link #anyadeChoque(ObjetoMovil, ObjetoMovil)}) y los
+ * rebotes en los bordes ({@link #anyadeBorde(ObjetoMovil, int)}) en arrays reutilizados, sin llamar a nada. Al terminar el
+ * paso, ya resueltos todos los choques, {@link #despacha()} calcula qué parejas empiezan y dejan de estar en contacto
+ * respecto al paso anterior y entrega todos los eventos de una vez a los oyentes registrados: primero los choques y rebotes
+ * en el orden en que se anotaron, después los inicios de contacto y por último los fines de contacto.
+ * Cada oyente puede filtrar los tipos de evento que le interesan y las clases de los objetos de la pareja.<br/>
+ * Los tipos de evento son:<ul>
+ * <li>{@link #CHOQUE}: cada choque detectado entre dos objetos (una pareja puede chocar varias veces en un paso)</li>
+ * <li>{@link #INICIO}: la pareja ha chocado en este paso y no en el anterior</li>
+ * <li>{@link #FIN}: la pareja chocó en el paso anterior y no en este. Si uno de los objetos se quita del mundo, el fin de sus
+ * contactos se entrega en el momento de quitarlo (ver {@link Entidades#setEventos(EventosChoque)}), antes de que el objeto
+ * vuelva a su reserva y se pueda reutilizar</li>
+ * <li>{@link #BORDE}: un objeto ha rebotado en un borde del mundo (sin segundo objeto)</li>
+ * </ul>
+ * Las parejas se identifican por los objetos y sus identificadores, en cualquier orden ({@link ParejasObjetos}): un objeto
+ * reutilizado desde una reserva es una pareja nueva aunque vuelva a chocar con el mismo objeto.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class EventosChoque {
+
+	/** Tipo de evento: choque entre dos objetos */
+	public static final int CHOQUE = 1;
+	/** Tipo de evento: empieza el contacto entre dos objetos */
+	public static final int INICIO = 2;
+	/** Tipo de evento: termina el contacto entre dos objetos */
+	public static final int FIN = 4;
+	/** Tipo de evento: rebote de un objeto en un borde */
+	public static final int BORDE = 8;
+	/** Todos los tipos de evento (los tipos son bits y se pueden combinar con |) */
+	public static final int TODOS = CHOQUE | INICIO | FIN | BORDE;
+
+	private static final int TAMANYO_INICIAL = 64;
+
+	/** Receptor de los eventos de choque
+	 */
+	public interface Oyente {
+		/** Se llama con cada evento del paso que cumpla el filtro del oyente, al despachar los eventos
+		 * @param tipo	Tipo de evento ({@link #CHOQUE}, {@link #INICIO}, {@link #FIN} o {@link #BORDE})
+		 * @param objeto1	Primer objeto (de la primera clase del filtro, si la tiene)
+		 * @param objeto2	Segundo objeto (de la segunda clase del filtro, si la tiene), null en los eventos de borde
+		 * @param borde	Código del borde en los eventos de borde (lo decide el mundo), 0 en el resto
+		 */
+		void evento( int tipo, ObjetoMovil objeto1, ObjetoMovil objeto2, int borde );
+	}
+
+		// Oyente registrado con su filtro
+		private static class Suscripcion {
+			Oyente oyente;
+			int tipos;
+			Class<?> clase1;  // null = cualquier clase
+			Class<?> clase2;
+		}
+
+	private ArrayList<Suscripcion> suscripciones = new ArrayList<>();
+
+	// Eventos del paso
+	private int numEventos;
+	private int[] tipo;
+	private ObjetoMovil[] objeto1;
+	private ObjetoMovil[] objeto2;
+	private int[] borde;
+
+	// Parejas en contacto en este paso y en el anterior
+	private ParejasObjetos actuales = new ParejasObjetos();
+	private ParejasObjetos anteriores = new ParejasObjetos();
+
+	// Métricas del último despacho
+	private int[] numPorTipo = new int[BORDE+1];
+	private int numFinesQuitados;  // Fines entregados al quitar objetos desde el último despacho
+	private long nanosDespacho;
+
+	/** Crea un buffer de eventos vacío, sin oyentes
+	 */
+	public EventosChoque() {
+		tipo = new int[TAMANYO_INICIAL];
+		objeto1 = new ObjetoMovil[TAMANYO_INICIAL];
+		objeto2 = new ObjetoMovil[TAMANYO_INICIAL];
+		borde = new int[TAMANYO_INICIAL];
+	}
+
+	/** Registra un oyente de todos los eventos
+	 * @param oyente	Oyente a añadir
+	 */
+	public void anyadeOyente( Oyente oyente ) {
+		anyadeOyente( oyente, TODOS, null, null );
+	}
+
+	/** Registra un oyente con filtro. Los oyentes reciben los eventos en el orden en que se registran
+	 * @param oyente	Oyente a añadir
+	 * @param tipos	Tipos de evento que recibe (combinación con | de {@link #CHOQUE}, {@link #INICIO}, {@link #FIN} y {@link #BORDE})
+	 * @param clase1	Clase de uno de los objetos de la pareja (o del objeto que rebota en los eventos de borde), null para cualquiera
+	 * @param clase2	Clase del otro objeto de la pareja, null para cualquiera. Si la pareja cumple el filtro en orden inverso,
+	 * 					el oyente recibe los objetos intercambiados (primero el de clase1)
+	 */
+	public void anyadeOyente( Oyente oyente, int tipos, Class<?> clase1, Class<?> clase2 ) {
+		Suscripcion s = new Suscripcion();
+		s.oyente = oyente;
+		s.tipos = tipos;
+		s.clase1 = clase1;
+		s.clase2 = clase2;
+		suscripciones.add( s );
+	}
+
+	/** Quita un oyente (con todos sus filtros)
+	 * @param oyente	Oyente a quitar
+	 */
+	public void quitaOyente( Oyente oyente ) {
+		for (int i=suscripciones.size()-1; i>=0; i--) {
+			if (suscripciones.get(i).oyente==oyente) suscripciones.remove(i);
+		}
+	}
+
+	/** Anota un choque entre dos objetos (se entregará al despachar)
+	 * @param o1	Primer objeto
+	 * @param o2	Segundo objeto
+	 */
+	public void anyadeChoque( ObjetoMovil o1, ObjetoMovil o2 ) {
+		anyade( CHOQUE, o1, o2, 0 );
+	}
+
+	/** Anota el rebote de un objeto en un borde (se entregará al despachar)
+	 * @param o	Objeto que rebota
+	 * @param codigoBorde	Código del borde
+	 */
+	public void anyadeBorde( ObjetoMovil o, int codigoBorde ) {
+		anyade( BORDE, o, null, codigoBorde );
+	}
+
+		private void anyade( int t, ObjetoMovil o1, ObjetoMovil o2, int b ) {
+			if (numEventos==tipo.length) {
+				int tam = tipo.length * 2;
+				tipo = Arrays.copyOf( tipo, tam );
+				objeto1 = Arrays.copyOf( objeto1, tam );
+				objeto2 = Arrays.copyOf( objeto2, tam );
+				borde = Arrays.copyOf( borde, tam );
+			}
+			tipo[numEventos] = t;
+			objeto1[numEventos] = o1;
+			objeto2[numEventos] = o2;
+			borde[numEventos] = b;
+			numEventos++;
+		}
+
+	/** Termina el paso: añade los eventos de inicio y fin de contacto y entrega todos los eventos a los oyentes.
+	 * Después vacía el buffer para el paso siguiente. Los oyentes no deben anotar eventos nuevos mientras reciben estos
+	 */
+	public void despacha() {
+		long inicio = System.nanoTime();
+		// Parejas en contacto en este paso (sin repetir) y sus inicios
+		int numAnotados = numEventos;
+		actuales.limpia();
+		for (int e=0; e<numAnotados; e++) {
+			if (tipo[e]==CHOQUE && actuales.anyade( objeto1[e], objeto2[e] ) && !anteriores.contiene( objeto1[e], objeto2[e] )) {
+				anyade( INICIO, objeto1[e], objeto2[e], 0 );
+			}
+		}
+		// Parejas que estaban en contacto y ya no lo están (las de objetos quitados ya tuvieron su fin al quitarlos)
+		for (int a=0; a<anteriores.getNum(); a++) {
+			ObjetoMovil o1 = anteriores.getObjeto1(a), o2 = anteriores.getObjeto2(a);
+			if (anteriores.isVigente(a) && !actuales.contiene( o1, o2 )) {
+				anyade( FIN, o1, o2, 0 );
+			}
+		}
+		ParejasObjetos t = anteriores; anteriores = actuales; actuales = t;
+		// Entrega a los oyentes, evento a evento en orden
+		Arrays.fill( numPorTipo, 0 );
+		numPorTipo[FIN] = numFinesQuitados;
+		numFinesQuitados = 0;
+		for (int e=0; e<numEventos; e++) {
+			numPorTipo[tipo[e]]++;
+			entrega( tipo[e], objeto1[e], objeto2[e], borde[e] );
+		}
+		vaciaEventos();
+		nanosDespacho = System.nanoTime() - inicio;
+	}
+
+		// Entrega un evento a los oyentes cuyo filtro cumple
+		private void entrega( int t, ObjetoMovil o1, ObjetoMovil o2, int b ) {
+			for (int s=0; s<suscripciones.size(); s++) {
+				Suscripcion sus = suscripciones.get(s);
+				if ((sus.tipos & t)==0) continue;
+				if (t==BORDE) {
+					if (sus.clase1==null || sus.clase1.isInstance( o1 )) sus.oyente.evento( BORDE, o1, null, b );
+				} else if (cumple( sus.clase1, o1 ) && cumple( sus.clase2, o2 )) {
+					sus.oyente.evento( t, o1, o2, 0 );
+				} else if (cumple( sus.clase1, o2 ) && cumple( sus.clase2, o1 )) {
+					sus.oyente.evento( t, o2, o1, 0 );
+				}
+			}
+		}
+
+	/** Entrega en el momento el fin de los contactos del último paso de un objeto que se va a quitar del mundo
+	 * (lo llama {@link Entidades#quita(ObjetoMovil)} antes de cambiar su identificador y devolverlo a su reserva, para que
+	 * ningún oyente reciba el objeto ya reutilizado). Esas parejas ya no tendrán evento de fin al despachar
+	 * @param o	Objeto que se va a quitar (aún con su identificador)
+	 */
+	public void quitaObjeto( ObjetoMovil o ) {
+		for (int a=0; a<anteriores.getNum(); a++) {
+			if (anteriores.esDePareja( a, o ) && anteriores.isVigente( a )) {
+				numFinesQuitados++;
+				entrega( FIN, anteriores.getObjeto1(a), anteriores.getObjeto2(a), 0 );
+			}
+		}
+	}
+
+		private static boolean cumple( Class<?> clase, ObjetoMovil o ) {
+			return clase==null || clase.isInstance( o );
+		}
+
+		// Quita los eventos del buffer (sin retener objetos ya quitados del mundo)
+		private void vaciaEventos() {
+			Arrays.fill( objeto1, 0, numEventos, null );
+			Arrays.fill( objeto2, 0, numEventos, null );
+			numEventos = 0;
+		}
+
+	/** Olvida los eventos anotados y las parejas en contacto, sin entregar nada (por ejemplo al cargar un mundo guardado,
+	 * cuyos objetos ya no son los del paso anterior: no habrá eventos de fin de sus contactos)
+	 */
+	public void olvidaContactos() {
+		vaciaEventos();
+		actuales.limpia();
+		anteriores.limpia();
+	}
+
+	/** Devuelve el número de eventos anotados en el paso en curso (aún sin despachar)
+	 * @return	Número de eventos
+	 */
+	public int getNumEventos() {
+		return numEventos;
+	}
+
+	/** Devuelve el número de parejas que estaban en contacto en el último paso despachado
+	 * @return	Número de parejas
+	 */
+	public int getNumContactos() {
+		return anteriores.getNum();
+	}
+
+	/** Devuelve las estadísticas del último despacho de eventos (los fines incluyen los entregados al quitar objetos antes del despacho)
+	 * @return	Texto con los eventos de cada tipo y el tiempo de entrega
+	 */
+	public String getEstadisticas() {
+		return String.format( "Eventos: %1$d choques, %2$d inicios, %3$d fines, %4$d bordes (%5$.3f ms)",
+				numPorTipo[CHOQUE], numPorTipo[INICIO], numPorTipo[FIN], numPorTipo[BORDE], nanosDespacho/1E6 );
+	}
+
+}
@@ -0,0 +1,186 @@
+package utils.juego2d.utils;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+import utils.juego2d.pruebas.ObjetoMovil;
+import utils.juego2d.pruebas.Pelota;
+
+/** Gestor de reposo de objetos (objetos "dormidos").<br/>
+ * Tras cada paso de física comprueba la velocidad efectiva de cada objeto (lo que ha avanzado realmente en el paso,
+ * ya con las correcciones de choque, dividido por el tiempo del paso). Si un objeto se mantiene por debajo del umbral
+ * un número de fotogramas seguidos, se duerme: se para, deja de moverse ({@link ObjetoMovil#mueveUnPoco(Limites, double, boolean)}
+ * no hace nada) y la {@link RejillaEspacial} deja de devolver sus parejas con otros objetos dormidos o fijos.
+ * Los objetos dormidos se despiertan cuando los toca un objeto despierto ({@link #despiertaPorChoque(ObjetoMovil, ObjetoMovil)})
+ * o cuando se les cambia la velocidad desde fuera.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class GestorReposo {
+
+	/** Velocidad efectiva (píxels/segundo) por debajo de la cual se considera que un objeto está casi quieto */
+	public static double VEL_REPOSO_POR_DEFECTO = 20.0;
+	/** Fotogramas seguidos casi quieto tras los que un objeto se duerme */
+	public static int FOTOGRAMAS_REPOSO_POR_DEFECTO = 30;
+
+	private double velReposo;
+	private int fotogramasReposo;
+	private boolean activo;
+	private int numDespiertos;
+	private int numDormidos;
+
+	/** Crea un gestor de reposo con los valores por defecto
+	 */
+	public GestorReposo() {
+		this( VEL_REPOSO_POR_DEFECTO, FOTOGRAMAS_REPOSO_POR_DEFECTO );
+	}
+
+	/** Crea un gestor de reposo
+	 * @param velReposo	Velocidad efectiva (píxels/segundo) por debajo de la cual un objeto está casi quieto
+	 * @param fotogramasReposo	Fotogramas seguidos casi quieto tras los que se duerme
+	 */
+	public GestorReposo( double velReposo, int fotogramasReposo ) {
+		this.velReposo = velReposo;
+		this.fotogramasReposo = fotogramasReposo;
+		activo = true;
+	}
+
+	public boolean isActivo() {
+		return activo;
+	}
+
+	/** Activa o desactiva el reposo de objetos
+	 * @param activo	true para activarlo, false para desactivarlo
+	 * @param objetos	Objetos del mundo (al desactivarlo se despiertan todos). Puede contener nulls
+	 */
+	public void setActivo( boolean activo, List<ObjetoMovil> objetos ) {
+		this.activo = activo;
+		if (!activo) {
+			for (ObjetoMovil o : objetos) {
+				if (o!=null) o.despierta();
+			}
+		}
+	}
+
+	public double getVelReposo() {
+		return velReposo;
+	}
+
+	public void setVelReposo( double velReposo ) {
+		this.velReposo = velReposo;
+	}
+
+	public int getFotogramasReposo() {
+		return fotogramasReposo;
+	}
+
+	public void setFotogramasReposo( int fotogramasReposo ) {
+		this.fotogramasReposo = fotogramasReposo;
+	}
+
+	/** Actualiza el reposo de los objetos tras un paso de física completo (movimiento y corrección de choques):
+	 * duerme a los que llevan los fotogramas indicados casi quietos y cuenta los despiertos y dormidos
+	 * @param objetos	Objetos del mundo (puede contener nulls)
+	 * @param miliSgs	Tiempo del paso (milisegundos)
+	 */
+	public void actualiza( List<ObjetoMovil> objetos, double miliSgs ) {
+		numDespiertos = 0;
+		numDormidos = 0;
+		double avanceReposo = velReposo * miliSgs / 1000.0;
+		double avanceReposo2 = avanceReposo * avanceReposo;
+		for (ObjetoMovil o : objetos) {
+			if (o==null || o.isFijo()) continue;
+			if (o.isDormido()) {
+				numDormidos++;
+			} else {
+				if (activo && o.isPuedeDormir()) {
+					double avX = o.getAvanceX(), avY = o.getAvanceY();
+					if (o.actualizaReposo( avX*avX + avY*avY < avanceReposo2 ) >= fotogramasReposo) {
+						o.duerme();
+						numDormidos++;
+						continue;
+					}
+				}
+				numDespiertos++;
+			}
+		}
+	}
+
+	/** Despierta a los objetos de un choque si uno de ellos está dormido y el otro despierto (y no es fijo).
+	 * Se debe llamar en cada choque detectado entre objetos
+	 * @param o1	Objeto 1 del choque
+	 * @param o2	Objeto 2 del choque
+	 */
+	public static void despiertaPorChoque( ObjetoMovil o1, ObjetoMovil o2 ) {
+		if (o1.isDormido() && !o2.isDormido() && !o2.isFijo()) o1.despierta();
+		else if (o2.isDormido() && !o1.isDormido() && !o1.isFijo()) o2.despierta();
+	}
+
+	/** Devuelve el número de objetos móviles despiertos en la última actualización
+	 * @return	Número de objetos despiertos (sin contar los fijos)
+	 */
+	public int getNumDespiertos() {
+		return numDespiertos;
+	}
+
+	/** Devuelve el número de objetos dormidos en la última actualización
+	 * @return	Número de objetos dormidos
+	 */
+	public int getNumDormidos() {
+		return numDormidos;
+	}
+
+	/** Devuelve un texto con las estadísticas de la última actualización
+	 * @return	Objetos despiertos y dormidos
+	 */
+	public String getEstadisticas() {
+		return "Reposo: " + numDespiertos + " despiertos, " + numDormidos + " dormidos";
+	}
+
+	@Override
+	public String toString() {
+		return "GestorReposo[" + getEstadisticas() + "]";
+	}
+
+	/** Método de prueba: pelotas que ruedan por el suelo con rozamiento hasta pararse (como en MundoBola), sin ventana.
+	 * Muestra cómo se van durmiendo, cuántos movimientos se ahorran y cómo se despierta una pelota al chocar con ella
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) {
+		Fisica.setGravedad( true );
+		LimitesEnMemoria limites = new LimitesEnMemoria( 1000, 800 );
+		List<ObjetoMovil> pelotas = new ArrayList<>();
+		for (int i=0; i<20; i++) {
+			Pelota p = new Pelota( 25 + i*50, 780, 20, Color.blue, true );
+			p.setVelocidadX( i*10 - 100 );
+			pelotas.add( p );
+		}
+		GestorReposo reposo = new GestorReposo();
+		int movimientos = 0;
+		for (int paso=1; paso<=600; paso++) {
+			if (paso==400) pelotas.get(0).setVelocidadX( 2000 );  // Un cambio de velocidad desde fuera la despierta, y ella despierta a las que toque
+			for (ObjetoMovil p : pelotas) {
+				if (p.isDormido()) continue;
+				movimientos++;
+				p.mueveUnPocoX( limites, 16, false );  // Rodando por el suelo, con rozamiento
+				p.setVelocidadX( Fisica.igualACero( p.getVelocidadX() ) ? 0.0 : p.getVelocidadX() * 0.95 );
+				if ((p.chocaConBorde( limites ) & 0b0011) != 0) {
+					p.setVelocidadX( -p.getVelocidadX() );
+					p.corrigeChoqueLateral( limites, false );
+				}
+			}
+			for (int i=0; i<pelotas.size(); i++) {
+				for (int j=i+1; j<pelotas.size(); j++) {
+					if (pelotas.get(i).chocaConObjeto( pelotas.get(j) )!=null) {
+						despiertaPorChoque( pelotas.get(i), pelotas.get(j) );
+						Fisica.calcChoqueEntreObjetos( null, pelotas.get(i), pelotas.get(j), 16, false );
+					}
+				}
+			}
+			reposo.actualiza( pelotas, 16 );
+			if (paso % 50 == 0) System.out.println( "Paso " + paso + " - " + reposo.getEstadisticas() );
+		}
+		System.out.println( "Movimientos calculados: " + movimientos + " de " + (600*pelotas.size()) );
+	}
+
+}
@@ -0,0 +1,183 @@
+package utils.juego2d.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/** Grabación de las entradas de cada fotograma de un juego (teclas, ratón, número de pasos de simulación...) para repetirlo
+ * de forma determinista a partir de una {@link InstantaneaMundo}, con ventana o sin ella a toda velocidad.<br/>
+ * Cada fotograma es un número fijo de campos enteros cuyo significado decide el juego. Junto con las entradas se guardan
+ * la semilla de los números aleatorios del juego y su configuración al empezar a grabar (también enteros), y al terminar
+ * la huella del estado final, para comprobar que la repetición llega exactamente al mismo sitio.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class GrabacionEntradas {
+
+	private static final int MARCA = 0x4A324445;  // "J2DE"
+	private static final int VERSION = 1;
+
+	private final int numCampos;
+	private final long semilla;
+	private final long[] configuracion;
+	private int[] datos;
+	private int numFotogramas;
+	private int actual;            // Fotograma en curso al repetir (-1 antes del primero)
+	private long huellaFinal = 0;  // 0 si no se conoce
+
+	/** Crea una grabación vacía
+	 * @param numCampos	Número de enteros de entrada de cada fotograma
+	 * @param semilla	Semilla de los números aleatorios del juego al empezar la grabación
+	 * @param configuracion	Configuración del juego al empezar la grabación (la que influya en la simulación)
+	 */
+	public GrabacionEntradas( int numCampos, long semilla, long... configuracion ) {
+		this.numCampos = numCampos;
+		this.semilla = semilla;
+		this.configuracion = configuracion.clone();
+		datos = new int[ numCampos * 1024 ];
+		numFotogramas = 0;
+		actual = -1;
+	}
+
+	public int getNumCampos() {
+		return numCampos;
+	}
+
+	public long getSemilla() {
+		return semilla;
+	}
+
+	/** Devuelve la configuración del juego al empezar la grabación
+	 * @param indice	Índice del dato de configuración
+	 * @return	Valor del dato
+	 */
+	public long getConfiguracion( int indice ) {
+		return configuracion[indice];
+	}
+
+	public int getNumFotogramas() {
+		return numFotogramas;
+	}
+
+	public long getHuellaFinal() {
+		return huellaFinal;
+	}
+
+	/** Cambia la huella del estado del juego al terminar la grabación (ver {@link InstantaneaMundo#huella(java.util.List)})
+	 * @param huellaFinal	Huella del estado final
+	 */
+	public void setHuellaFinal( long huellaFinal ) {
+		this.huellaFinal = huellaFinal;
+	}
+
+	/** Añade un fotograma al final de la grabación, con todos sus campos a 0
+	 */
+	public void anyadeFotograma() {
+		if ((numFotogramas+1)*numCampos > datos.length) {
+			int[] nuevo = new int[ datos.length*2 ];
+			System.arraycopy( datos, 0, nuevo, 0, numFotogramas*numCampos );
+			datos = nuevo;
+		}
+		for (int c=0; c<numCampos; c++) datos[numFotogramas*numCampos + c] = 0;
+		numFotogramas++;
+	}
+
+	/** Cambia un campo del último fotograma añadido
+	 * @param campo	Índice del campo (0 a numCampos-1)
+	 * @param valor	Valor de la entrada
+	 */
+	public void setValor( int campo, int valor ) {
+		datos[(numFotogramas-1)*numCampos + campo] = valor;
+	}
+
+	/** Vuelve al principio de la grabación para repetirla
+	 */
+	public void reinicia() {
+		actual = -1;
+	}
+
+	/** Pasa al siguiente fotograma de la repetición
+	 * @return	true si lo hay, false si la grabación ya se ha terminado de repetir
+	 */
+	public boolean siguienteFotograma() {
+		if (actual+1 >= numFotogramas) return false;
+		actual++;
+		return true;
+	}
+
+	/** Devuelve un campo del fotograma en curso de la repetición
+	 * @param campo	Índice del campo (0 a numCampos-1)
+	 * @return	Valor grabado
+	 */
+	public int getValor( int campo ) {
+		return datos[actual*numCampos + campo];
+	}
+
+	/** Devuelve el número del fotograma en curso de la repetición
+	 * @return	Fotograma (0 el primero, -1 si aún no se ha empezado)
+	 */
+	public int getFotogramaActual() {
+		return actual;
+	}
+
+	/** Guarda la grabación en un fichero (sustituyéndolo si existe)
+	 * @param fichero	Nombre del fichero
+	 * @throws IOException	Error de escritura
+	 */
+	public void guarda( String fichero ) throws IOException {
+		ByteBuffer cabecera = ByteBuffer.allocate( 40 + 8*configuracion.length );
+		cabecera.putInt( MARCA ).putInt( VERSION ).putLong( semilla ).putLong( huellaFinal );
+		cabecera.putInt( configuracion.length );
+		for (long dato : configuracion) cabecera.putLong( dato );
+		cabecera.putInt( numCampos ).putInt( numFotogramas );
+		cabecera.flip();
+		ByteBuffer cuerpo = ByteBuffer.allocate( 4*numFotogramas*numCampos );
+		cuerpo.asIntBuffer().put( datos, 0, numFotogramas*numCampos );
+		try (FileChannel canal = FileChannel.open( new File( fichero ).toPath(),
+				StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING )) {
+			while (cabecera.hasRemaining()) canal.write( cabecera );
+			while (cuerpo.hasRemaining()) canal.write( cuerpo );
+		}
+	}
+
+	/** Carga una grabación de un fichero, preparada para repetirse desde el principio
+	 * @param fichero	Nombre del fichero
+	 * @return	Grabación leída
+	 * @throws IOException	Error de lectura o fichero que no es una grabación válida
+	 */
+	public static GrabacionEntradas carga( String fichero ) throws IOException {
+		try (FileChannel canal = FileChannel.open( new File( fichero ).toPath(), StandardOpenOption.READ )) {
+			if (canal.size() > Integer.MAX_VALUE) throw new IOException( fichero + " es demasiado grande" );
+			ByteBuffer buffer = ByteBuffer.allocate( (int) canal.size() );
+			while (buffer.hasRemaining() && canal.read( buffer ) >= 0) {}
+			buffer.flip();
+			if (buffer.remaining() < 8 || buffer.getInt()!=MARCA) throw new IOException( fichero + " no es una grabación de entradas" );
+			int version = buffer.getInt();
+			if (version!=VERSION) throw new IOException( "Versión de grabación no soportada: " + version );
+			long semilla = buffer.getLong();
+			long huellaFinal = buffer.getLong();
+			long[] configuracion = new long[ buffer.getInt() ];
+			for (int i=0; i<configuracion.length; i++) configuracion[i] = buffer.getLong();
+			int numCampos = buffer.getInt();
+			int numFotogramas = buffer.getInt();
+			if (buffer.remaining() < 4L*numCampos*numFotogramas) throw new IOException( fichero + " está incompleto" );
+			GrabacionEntradas grabacion = new GrabacionEntradas( numCampos, semilla, configuracion );
+			grabacion.huellaFinal = huellaFinal;
+			grabacion.datos = new int[ Math.max( numCampos, numCampos*numFotogramas ) ];
+			buffer.asIntBuffer().get( grabacion.datos, 0, numCampos*numFotogramas );
+			grabacion.numFotogramas = numFotogramas;
+			return grabacion;
+		} catch (BufferUnderflowException e) {
+			throw new IOException( fichero + " está incompleto" );
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Grabación de " + numFotogramas + " fotogramas (" + numCampos + " entradas por fotograma)"
+				+ (actual>=0 ? ", repitiendo el " + actual : "");
+	}
+
+}
@@ -0,0 +1,414 @@
+package utils.juego2d.utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+import utils.juego2d.pruebas.Asteroide;
+import utils.juego2d.pruebas.Nave;
+import utils.juego2d.pruebas.ObjetoMovil;
+
+/** Gravitación mutua entre objetos (cada masa atrae a todas las demás), calculada con un árbol cuaternario de Barnes-Hut.<br/>
+ * En lugar de sumar la atracción de todas las masas para cada objeto (coste O(n²)), las masas se organizan en un árbol
+ * cuaternario y cada grupo de masas lo bastante lejano se sustituye por una sola masa en su centro de masas.
+ * Un nodo del árbol se considera lejano si su lado dividido por la distancia a su centro de masas es menor que el
+ * ángulo de apertura (theta): con theta=0 el cálculo es exacto (y tan lento como el directo), y con valores mayores
+ * es más rápido y menos preciso (con 0.5 el error suele estar en torno al 1%). El coste queda en O(n log n).<br/>
+ * La masa de cada objeto es su volumen ({@link ObjetoMovil#getVolumen()}), así que los {@link Asteroide}s atraen
+ * mucho más que las {@link Nave}s. Para que los objetos no salgan disparados al pasar muy cerca de otra masa, la
+ * distancia se suaviza (se calcula como sqrt(d² + suavizado²)).<br/>
+ * Uso en cada paso: {@link #limpia()}, {@link #anyade(ObjetoMovil)} de cada objeto, {@link #construye()} y
+ * {@link #calculaAceleracion(double, double, Vector2D)} para cada objeto, que se pasa a
+ * {@link ObjetoMovil#mueveUnPoco(Limites, double, boolean, double, double)}. El cálculo de aceleraciones solo lee
+ * el árbol, así que se puede hacer desde varios hilos a la vez (por ejemplo con {@link PasoParalelo}).<br/>
+ * Todos los datos internos se guardan en arrays de primitivos que se reutilizan entre pasos.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class GravedadMutua {
+
+	/** Ángulo de apertura por defecto (lado del nodo / distancia por debajo del que un nodo se toma como una sola masa) */
+	public static final double THETA_POR_DEFECTO = 0.5;
+	/** Constante de gravitación por defecto (en píxels³ / (unidad de volumen · sg²)) */
+	public static final double CONSTANTE_POR_DEFECTO = 0.5;
+	/** Distancia de suavizado por defecto (píxels) */
+	public static final double SUAVIZADO_POR_DEFECTO = 10.0;
+	private static final int MAX_PROFUNDIDAD = 48;  // Por debajo no se subdivide (masas en el mismo punto se suman en la hoja)
+
+	private double theta;
+	private double constante;
+	private double suavizado;
+
+	// Masas registradas
+	private double[] masaX;
+	private double[] masaY;
+	private double[] masa;
+	private int numMasas;
+
+	// Nodos del árbol (el 0 es la raíz). Los cuatro hijos de un nodo ocupan posiciones consecutivas
+	private double[] nodoX;        // Esquina superior izquierda del nodo
+	private double[] nodoY;
+	private double[] nodoLado;     // Lado del nodo (los nodos son cuadrados)
+	private double[] nodoMasa;     // Masa total del nodo
+	private double[] nodoCX;       // Centro de masas (durante la construcción, suma de masa·x)
+	private double[] nodoCY;
+	private int[] nodoHijo;        // Primer hijo (-1 si es hoja)
+	private int[] nodoCuerpo;      // Masa de la hoja (-1 si está vacía)
+	private int numNodos;
+
+	// Pila de recorrido de cada hilo (el cálculo de aceleraciones puede hacerse en paralelo)
+	private static final ThreadLocal<int[]> pilas = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[ 3 * MAX_PROFUNDIDAD + 4 ];
+		}
+	};
+
+	// Estadísticas
+	private long nanosConstruccion;
+	private final LongAdder interacciones = new LongAdder();  // Contador repartido por hilos (sin perder sumas ni escribir todos en la misma línea de caché)
+
+	/** Crea un cálculo de gravitación mutua con los valores por defecto
+	 */
+	public GravedadMutua() {
+		this( THETA_POR_DEFECTO, CONSTANTE_POR_DEFECTO, SUAVIZADO_POR_DEFECTO );
+	}
+
+	/** Crea un cálculo de gravitación mutua
+	 * @param theta	Ángulo de apertura (0 = exacto; 0.5 habitual; más de 1 poco preciso)
+	 * @param constante	Constante de gravitación
+	 * @param suavizado	Distancia de suavizado en píxels (debe ser mayor que 0)
+	 */
+	public GravedadMutua( double theta, double constante, double suavizado ) {
+		this.theta = theta;
+		this.constante = constante;
+		this.suavizado = suavizado;
+		masaX = new double[64];
+		masaY = new double[64];
+		masa = new double[64];
+		reservaNodos( 256 );
+	}
+
+		private void reservaNodos( int tam ) {
+			nodoX = Arrays.copyOf( nodoX==null ? new double[0] : nodoX, tam );
+			nodoY = Arrays.copyOf( nodoY==null ? new double[0] : nodoY, tam );
+			nodoLado = Arrays.copyOf( nodoLado==null ? new double[0] : nodoLado, tam );
+			nodoMasa = Arrays.copyOf( nodoMasa==null ? new double[0] : nodoMasa, tam );
+			nodoCX = Arrays.copyOf( nodoCX==null ? new double[0] : nodoCX, tam );
+			nodoCY = Arrays.copyOf( nodoCY==null ? new double[0] : nodoCY, tam );
+			nodoHijo = Arrays.copyOf( nodoHijo==null ? new int[0] : nodoHijo, tam );
+			nodoCuerpo = Arrays.copyOf( nodoCuerpo==null ? new int[0] : nodoCuerpo, tam );
+		}
+
+	public double getTheta() {
+		return theta;
+	}
+
+	/** Cambia el ángulo de apertura (se aplica en los siguientes cálculos de aceleración)
+	 * @param theta	Ángulo de apertura (0 = exacto; 0.5 habitual; más de 1 poco preciso)
+	 */
+	public void setTheta( double theta ) {
+		this.theta = theta;
+	}
+
+	public double getConstante() {
+		return constante;
+	}
+
+	public void setConstante( double constante ) {
+		this.constante = constante;
+	}
+
+	public double getSuavizado() {
+		return suavizado;
+	}
+
+	public void setSuavizado( double suavizado ) {
+		this.suavizado = suavizado;
+	}
+
+	/** Quita todas las masas registradas
+	 */
+	public void limpia() {
+		numMasas = 0;
+		numNodos = 0;
+	}
+
+	/** Registra una masa puntual
+	 * @param x	Coordenada x
+	 * @param y	Coordenada y
+	 * @param m	Masa (si es 0 o negativa no se registra)
+	 */
+	public void anyadeMasa( double x, double y, double m ) {
+		if (m <= 0.0) return;
+		if (numMasas == masa.length) {
+			masaX = Arrays.copyOf( masaX, numMasas*2 );
+			masaY = Arrays.copyOf( masaY, numMasas*2 );
+			masa = Arrays.copyOf( masa, numMasas*2 );
+		}
+		masaX[numMasas] = x;
+		masaY[numMasas] = y;
+		masa[numMasas] = m;
+		numMasas++;
+	}
+
+	/** Registra un objeto como masa, en su posición y con su volumen como masa
+	 * @param o	Objeto a registrar
+	 */
+	public void anyade( ObjetoMovil o ) {
+		anyadeMasa( o.getX(), o.getY(), o.getVolumen() );
+	}
+
+	/** Registra todos los objetos de una lista
+	 * @param objetos	Lista de objetos (puede contener nulls)
+	 */
+	public void anyade( List<ObjetoMovil> objetos ) {
+		for (ObjetoMovil o : objetos) {
+			if (o!=null) anyade( o );
+		}
+	}
+
+	public int getNumMasas() {
+		return numMasas;
+	}
+
+	public int getNumNodos() {
+		return numNodos;
+	}
+
+	/** Construye el árbol con las masas registradas. Hay que llamarlo después de registrarlas y antes de calcular aceleraciones
+	 */
+	public void construye() {
+		long inicio = System.nanoTime();
+		numNodos = 0;
+		interacciones.reset();
+		if (numMasas == 0) { nanosConstruccion = System.nanoTime() - inicio; return; }
+		// Raíz: cuadrado que envuelve todas las masas
+		double xMin = masaX[0], xMax = masaX[0], yMin = masaY[0], yMax = masaY[0];
+		for (int i=1; i<numMasas; i++) {
+			if (masaX[i] < xMin) xMin = masaX[i]; else if (masaX[i] > xMax) xMax = masaX[i];
+			if (masaY[i] < yMin) yMin = masaY[i]; else if (masaY[i] > yMax) yMax = masaY[i];
+		}
+		double lado = Math.max( xMax - xMin, yMax - yMin ) * 1.0001 + 1.0;  // Un poco mayor para que las masas del borde queden dentro
+		nuevoNodo( xMin, yMin, lado );
+		for (int i=0; i<numMasas; i++) inserta( i );
+		// Sumas de masa·posición a centros de masas
+		for (int n=0; n<numNodos; n++) {
+			if (nodoMasa[n] > 0.0) {
+				nodoCX[n] /= nodoMasa[n];
+				nodoCY[n] /= nodoMasa[n];
+			}
+		}
+		nanosConstruccion = System.nanoTime() - inicio;
+	}
+
+		private int nuevoNodo( double x, double y, double lado ) {
+			if (numNodos == nodoX.length) reservaNodos( numNodos*2 );
+			nodoX[numNodos] = x;
+			nodoY[numNodos] = y;
+			nodoLado[numNodos] = lado;
+			nodoMasa[numNodos] = 0.0;
+			nodoCX[numNodos] = 0.0;
+			nodoCY[numNodos] = 0.0;
+			nodoHijo[numNodos] = -1;
+			nodoCuerpo[numNodos] = -1;
+			return numNodos++;
+		}
+
+		// Inserta la masa i bajando desde la raíz y sumándola a todos los nodos del camino
+		private void inserta( int i ) {
+			double x = masaX[i], y = masaY[i], m = masa[i];
+			int nodo = 0;
+			for (int prof=0; ; prof++) {
+				if (nodoHijo[nodo] < 0) {  // Hoja
+					if (nodoCuerpo[nodo] < 0 || prof >= MAX_PROFUNDIDAD) {  // Vacía (o sin más subdivisión posible): se queda aquí
+						if (nodoCuerpo[nodo] < 0) nodoCuerpo[nodo] = i;
+						sumaMasa( nodo, x, y, m );
+						return;
+					}
+					// Ocupada: se subdivide y se baja la masa que tenía a su hijo
+					int otro = nodoCuerpo[nodo];
+					nodoCuerpo[nodo] = -1;
+					double mitad = nodoLado[nodo] / 2.0;
+					int primero = nuevoNodo( nodoX[nodo], nodoY[nodo], mitad );
+					nuevoNodo( nodoX[nodo] + mitad, nodoY[nodo], mitad );
+					nuevoNodo( nodoX[nodo], nodoY[nodo] + mitad, mitad );
+					nuevoNodo( nodoX[nodo] + mitad, nodoY[nodo] + mitad, mitad );
+					nodoHijo[nodo] = primero;
+					int hijoOtro = primero + cuadrante( nodo, masaX[otro], masaY[otro] );
+					nodoCuerpo[hijoOtro] = otro;
+					sumaMasa( hijoOtro, masaX[otro], masaY[otro], masa[otro] );
+				}
+				sumaMasa( nodo, x, y, m );
+				nodo = nodoHijo[nodo] + cuadrante( nodo, x, y );
+			}
+		}
+
+		private void sumaMasa( int nodo, double x, double y, double m ) {
+			nodoMasa[nodo] += m;
+			nodoCX[nodo] += m * x;
+			nodoCY[nodo] += m * y;
+		}
+
+		// Cuadrante del punto en el nodo: 0 arriba izquierda, 1 arriba derecha, 2 abajo izquierda, 3 abajo derecha
+		private int cuadrante( int nodo, double x, double y ) {
+			double mitad = nodoLado[nodo] / 2.0;
+			return (x >= nodoX[nodo] + mitad ? 1 : 0) + (y >= nodoY[nodo] + mitad ? 2 : 0);
+		}
+
+	/** Calcula la aceleración gravitatoria en un punto con la aproximación de Barnes-Hut (hay que haber llamado antes a {@link #construye()}).
+	 * La masa de un objeto situado exactamente en el punto no le atrae a sí mismo (su distancia es 0).
+	 * @param x	Coordenada x del punto
+	 * @param y	Coordenada y del punto
+	 * @param aceleracion	Vector en el que se devuelve la aceleración (píxels/sg2)
+	 * @return	El propio vector de aceleración
+	 */
+	public Vector2D calculaAceleracion( double x, double y, Vector2D aceleracion ) {
+		double ax = 0.0, ay = 0.0;
+		long numInteracciones = 0;
+		if (numNodos > 0) {
+			double suav2 = suavizado * suavizado;
+			double theta2 = theta * theta;
+			int[] pila = pilas.get();
+			int tope = 0;
+			pila[tope++] = 0;
+			while (tope > 0) {
+				int nodo = pila[--tope];
+				double m = nodoMasa[nodo];
+				if (m == 0.0) continue;
+				double dx = nodoCX[nodo] - x;
+				double dy = nodoCY[nodo] - y;
+				double d2 = dx*dx + dy*dy;
+				double lado = nodoLado[nodo];
+				if (nodoHijo[nodo] < 0 || (lado*lado < theta2*d2 && !contiene( nodo, x, y ))) {  // Hoja o nodo lejano: una sola masa
+					double dist2 = d2 + suav2;
+					double f = constante * m / (dist2 * Math.sqrt( dist2 ));
+					ax += f * dx;
+					ay += f * dy;
+					numInteracciones++;
+				} else {  // Nodo cercano: se abren sus hijos
+					int hijo = nodoHijo[nodo];
+					pila[tope++] = hijo;
+					pila[tope++] = hijo + 1;
+					pila[tope++] = hijo + 2;
+					pila[tope++] = hijo + 3;
+				}
+			}
+		}
+		interacciones.add( numInteracciones );
+		return aceleracion.set( ax, ay );
+	}
+
+		private boolean contiene( int nodo, double x, double y ) {
+			return x >= nodoX[nodo] && x < nodoX[nodo] + nodoLado[nodo] && y >= nodoY[nodo] && y < nodoY[nodo] + nodoLado[nodo];
+		}
+
+	/** Calcula la aceleración gravitatoria en un punto sumando la atracción de todas las masas registradas (cálculo exacto, O(n) por punto).
+	 * No necesita el árbol. Sirve de referencia para medir la precisión y el rendimiento de {@link #calculaAceleracion(double, double, Vector2D)}
+	 * @param x	Coordenada x del punto
+	 * @param y	Coordenada y del punto
+	 * @param aceleracion	Vector en el que se devuelve la aceleración (píxels/sg2)
+	 * @return	El propio vector de aceleración
+	 */
+	public Vector2D calculaAceleracionDirecta( double x, double y, Vector2D aceleracion ) {
+		double ax = 0.0, ay = 0.0;
+		double suav2 = suavizado * suavizado;
+		for (int i=0; i<numMasas; i++) {
+			double dx = masaX[i] - x;
+			double dy = masaY[i] - y;
+			double dist2 = dx*dx + dy*dy + suav2;
+			double f = constante * masa[i] / (dist2 * Math.sqrt( dist2 ));
+			ax += f * dx;
+			ay += f * dy;
+		}
+		interacciones.add( numMasas );
+		return aceleracion.set( ax, ay );
+	}
+
+	/** Calcula la aceleración gravitatoria sobre un objeto (en su posición)
+	 * @param o	Objeto
+	 * @param aceleracion	Vector en el que se devuelve la aceleración (píxels/sg2)
+	 * @return	El propio vector de aceleración
+	 */
+	public Vector2D calculaAceleracion( ObjetoMovil o, Vector2D aceleracion ) {
+		return calculaAceleracion( o.getX(), o.getY(), aceleracion );
+	}
+
+	/** Devuelve las interacciones masa-punto calculadas desde la última construcción del árbol
+	 * @return	Número de interacciones (con el cálculo directo serían masas x puntos)
+	 */
+	public long getInteracciones() {
+		return interacciones.sum();
+	}
+
+	/** Devuelve las estadísticas del último paso
+	 * @return	Masas, nodos, interacciones y tiempo de construcción del árbol
+	 */
+	public String getEstadisticas() {
+		return String.format( "Gravedad: %1$d masas, %2$d nodos, %3$d interacciones (theta %4$.2f) - árbol %5$.3f ms",
+			numMasas, numNodos, interacciones.sum(), theta, nanosConstruccion/1000000.0 );
+	}
+
+	@Override
+	public String toString() {
+		return "GravedadMutua[" + getEstadisticas() + "]";
+	}
+
+	/** Método de prueba: compara el cálculo directo O(n²) con Barnes-Hut en nubes de masas de distintos tamaños
+	 * (tiempo de un paso completo: aceleración de todas las masas), y el error de Barnes-Hut con distintos ángulos de apertura
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) {
+		int[] tamanyos = { 1000, 2000, 4000, 8000, 16000 };
+		GravedadMutua gravedad = new GravedadMutua();
+		Vector2D acel = new Vector2D();
+		Vector2D acelDirecta = new Vector2D();
+		System.out.println( "Paso completo (aceleración de las n masas), theta=" + THETA_POR_DEFECTO );
+		System.out.println( String.format( "%1$8s %2$14s %3$14s %4$10s %5$16s", "n", "directo (ms)", "B-H (ms)", "mejora", "interacc/masa" ) );
+		double sumidero = 0.0;  // Para que el JIT no elimine los cálculos
+		for (int n : tamanyos) {
+			llenaNube( gravedad, n );
+			// Calentamiento y medida (se repite para que el JIT compile y la medida sea estable)
+			long nanosDirecto = Long.MAX_VALUE, nanosBH = Long.MAX_VALUE;
+			for (int rep=0; rep<3; rep++) {
+				long inicio = System.nanoTime();
+				for (int i=0; i<n; i++) sumidero += gravedad.calculaAceleracionDirecta( gravedad.masaX[i], gravedad.masaY[i], acel ).getX();
+				nanosDirecto = Math.min( nanosDirecto, System.nanoTime() - inicio );
+				inicio = System.nanoTime();
+				gravedad.construye();
+				for (int i=0; i<n; i++) sumidero += gravedad.calculaAceleracion( gravedad.masaX[i], gravedad.masaY[i], acel ).getX();
+				nanosBH = Math.min( nanosBH, System.nanoTime() - inicio );
+			}
+			System.out.println( String.format( "%1$8d %2$14.2f %3$14.2f %4$9.1fx %5$16.1f", n, nanosDirecto/1E6, nanosBH/1E6,
+				1.0*nanosDirecto/nanosBH, 1.0*gravedad.getInteracciones()/n ) );
+		}
+		System.out.println( "(sumidero " + sumidero + ")" );
+		System.out.println();
+		System.out.println( "Error relativo medio frente al cálculo directo (n=4000)" );
+		llenaNube( gravedad, 4000 );
+		for (double theta : new double[] { 0.0, 0.3, 0.5, 0.7, 1.0 }) {
+			gravedad.setTheta( theta );
+			gravedad.construye();
+			double error = 0.0;
+			for (int i=0; i<gravedad.numMasas; i+=10) {
+				gravedad.calculaAceleracion( gravedad.masaX[i], gravedad.masaY[i], acel );
+				gravedad.calculaAceleracionDirecta( gravedad.masaX[i], gravedad.masaY[i], acelDirecta );
+				double dx = acel.getX() - acelDirecta.getX(), dy = acel.getY() - acelDirecta.getY();
+				error += Math.sqrt( dx*dx + dy*dy ) / acelDirecta.getModulo();
+			}
+			System.out.println( String.format( "  theta %1$.1f: %2$.4f%%", theta, error / (gravedad.numMasas/10) * 100 ) );
+		}
+	}
+
+		// Nube de n masas al azar (pocas grandes -asteroides- y muchas pequeñas -naves-) en un campo de tamaño proporcional a n
+		private static void llenaNube( GravedadMutua gravedad, int n ) {
+			Random r = new Random( 1 );
+			double lado = 40.0 * Math.sqrt( n );
+			gravedad.limpia();
+			for (int i=0; i<n; i++) {
+				double radio = (i % 50 == 0) ? 50 + r.nextDouble()*100 : 10 + r.nextDouble()*10;
+				gravedad.anyadeMasa( r.nextDouble()*lado, r.nextDouble()*lado, 4.0/3.0*Math.PI*radio*radio*radio );
+			}
+		}
+
+}
@@ -0,0 +1,259 @@
+package utils.juego2d.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import utils.juego2d.pruebas.Asteroide;
+import utils.juego2d.pruebas.Bloque;
+import utils.juego2d.pruebas.Nave;
+import utils.juego2d.pruebas.NaveTripulada;
+import utils.juego2d.pruebas.ObjetoMovil;
+import utils.juego2d.pruebas.Pelota;
+import utils.juego2d.pruebas.UDcito;
+
+/** Instantánea binaria de un mundo: los objetos y unos pocos datos del propio mundo, en un formato compacto
+ * que se escribe y se lee por bloques a través de un {@link FileChannel} (sin serialización de Java ni un objeto de flujo por dato).<br/>
+ * Formato: cabecera (marca, versión, número de datos del mundo, datos del mundo, número de objetos) y después cada objeto
+ * como un byte de tipo seguido de su estado primitivo, tal y como lo escribe {@link ObjetoMovil#escribeEstado(ByteBuffer)}.<br/>
+ * Los tipos de objeto de utils.juego2d.pruebas están registrados de serie; otras clases se registran con
+ * {@link #registraTipo(byte, Class, ReservaObjetos.Fabrica)} antes de guardar o cargar.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class InstantaneaMundo {
+
+	/** Número máximo de caracteres del nombre de un objeto que se guardan */
+	public static final int MAX_CARACTERES_NOMBRE = 255;
+	/** Número máximo de bytes que puede ocupar el estado de un objeto (incluido su nombre) */
+	public static final int MAX_BYTES_OBJETO = 1024;
+	/** Tamaño del bloque de lectura y escritura */
+	public static final int TAMANYO_BLOQUE = 1 << 20;
+
+	private static final int MARCA = 0x4A32444D;  // "J2DM"
+	private static final int VERSION = 1;
+
+	private static final HashMap<Class<? extends ObjetoMovil>,Byte> tipos = new HashMap<>();
+	private static final ReservaObjetos.Fabrica<?>[] fabricas = new ReservaObjetos.Fabrica<?>[256];
+	private static final ThreadLocal<ByteBuffer> bloques = new ThreadLocal<ByteBuffer>() {
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect( TAMANYO_BLOQUE );
+		}
+	};
+
+	static {
+		registraTipo( (byte) 1, Nave.class, new ReservaObjetos.Fabrica<Nave>() {
+			@Override
+			public Nave crea() {
+				return new Nave( 0, 0, 1 );
+			}
+		});
+		registraTipo( (byte) 2, NaveTripulada.class, new ReservaObjetos.Fabrica<NaveTripulada>() {
+			@Override
+			public NaveTripulada crea() {
+				return new NaveTripulada( 0, 0, 1 );
+			}
+		});
+		registraTipo( (byte) 3, Asteroide.class, new ReservaObjetos.Fabrica<Asteroide>() {
+			@Override
+			public Asteroide crea() {
+				return new Asteroide( 0, 0, 1 );
+			}
+		});
+		registraTipo( (byte) 4, Pelota.class, new ReservaObjetos.Fabrica<Pelota>() {
+			@Override
+			public Pelota crea() {
+				return new Pelota();
+			}
+		});
+		registraTipo( (byte) 5, Bloque.class, new ReservaObjetos.Fabrica<Bloque>() {
+			@Override
+			public Bloque crea() {
+				return new Bloque( 0, 0, 1, 1 );
+			}
+		});
+		registraTipo( (byte) 6, UDcito.class, new ReservaObjetos.Fabrica<UDcito>() {
+			@Override
+			public UDcito crea() {
+				return new UDcito();
+			}
+		});
+	}
+
+	/** Registra una clase de objeto para poder guardarla y cargarla en instantáneas
+	 * @param tipo	Código de tipo que se guarda en el fichero (distinto de 0 y de los ya registrados, y siempre el mismo para la misma clase)
+	 * @param clase	Clase exacta de los objetos
+	 * @param fabrica	Creador de objetos de la clase al cargar (con cualquier estado: se sustituye por el leído)
+	 * @throws IllegalArgumentException	Si el código es 0 o ya está registrado con otra clase
+	 */
+	public static <T extends ObjetoMovil> void registraTipo( byte tipo, Class<T> clase, ReservaObjetos.Fabrica<T> fabrica ) {
+		int indice = tipo & 0xFF;
+		if (indice==0) throw new IllegalArgumentException( "El tipo 0 no se puede registrar" );
+		Byte anterior = tipos.get( clase );
+		if (fabricas[indice]!=null && (anterior==null || anterior.byteValue()!=tipo))
+			throw new IllegalArgumentException( "Tipo " + indice + " ya registrado para otra clase" );
+		tipos.put( clase, tipo );
+		fabricas[indice] = fabrica;
+	}
+
+	/** Guarda una instantánea de objetos en un fichero (sustituyéndolo si existe). Los nulos de la lista no se guardan
+	 * @param fichero	Nombre del fichero
+	 * @param objetos	Objetos a guardar
+	 * @param datosMundo	Datos del propio mundo que se guardan con los objetos (por ejemplo el índice del personaje o el tiempo de juego)
+	 * @return	Número de bytes escritos
+	 * @throws IOException	Error de escritura
+	 * @throws IllegalArgumentException	Si algún objeto no es de una clase registrada
+	 */
+	public static long guarda( String fichero, List<? extends ObjetoMovil> objetos, long... datosMundo ) throws IOException {
+		ByteBuffer bloque = bloques.get();
+		bloque.clear();
+		long escritos = 0;
+		try (FileChannel canal = FileChannel.open( new File( fichero ).toPath(),
+				StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING )) {
+			int numObjetos = 0;
+			for (ObjetoMovil objeto : objetos) if (objeto!=null) numObjetos++;
+			bloque.putInt( MARCA ).putInt( VERSION );
+			bloque.putInt( datosMundo.length );
+			for (long dato : datosMundo) {
+				if (bloque.remaining() < 8) escritos += vuelca( bloque, canal );
+				bloque.putLong( dato );
+			}
+			if (bloque.remaining() < 4) escritos += vuelca( bloque, canal );
+			bloque.putInt( numObjetos );
+			for (ObjetoMovil objeto : objetos) {
+				if (objeto==null) continue;
+				if (bloque.remaining() < MAX_BYTES_OBJETO) escritos += vuelca( bloque, canal );
+				bloque.put( getTipo( objeto ) );
+				objeto.escribeEstado( bloque );
+			}
+			escritos += vuelca( bloque, canal );
+		}
+		return escritos;
+	}
+
+	/** Carga una instantánea de objetos de un fichero
+	 * @param fichero	Nombre del fichero
+	 * @param objetos	Lista a la que se añaden los objetos cargados, en el mismo orden en que se guardaron
+	 * @return	Datos del mundo guardados con los objetos
+	 * @throws IOException	Error de lectura o fichero que no es una instantánea válida
+	 */
+	public static long[] carga( String fichero, List<ObjetoMovil> objetos ) throws IOException {
+		ByteBuffer bloque = bloques.get();
+		bloque.clear();
+		bloque.flip();  // Vacío: se llena al leer
+		try (FileChannel canal = FileChannel.open( new File( fichero ).toPath(), StandardOpenOption.READ )) {
+			rellena( bloque, canal );
+			if (bloque.remaining() < 12 || bloque.getInt()!=MARCA) throw new IOException( fichero + " no es una instantánea de mundo" );
+			int version = bloque.getInt();
+			if (version!=VERSION) throw new IOException( "Versión de instantánea no soportada: " + version );
+			long[] datosMundo = new long[ bloque.getInt() ];
+			for (int i=0; i<datosMundo.length; i++) {
+				if (bloque.remaining() < 8) rellena( bloque, canal );
+				datosMundo[i] = bloque.getLong();
+			}
+			if (bloque.remaining() < 4) rellena( bloque, canal );
+			int numObjetos = bloque.getInt();
+			if (objetos instanceof ArrayList) ((ArrayList<ObjetoMovil>) objetos).ensureCapacity( objetos.size() + numObjetos );
+			for (int i=0; i<numObjetos; i++) {
+				if (bloque.remaining() < MAX_BYTES_OBJETO) rellena( bloque, canal );
+				ObjetoMovil objeto = creaObjeto( bloque.get() );
+				objeto.leeEstado( bloque );
+				objetos.add( objeto );
+			}
+			return datosMundo;
+		} catch (BufferUnderflowException e) {
+			throw new IOException( fichero + " está incompleto" );
+		}
+	}
+
+	/** Calcula una huella del estado de unos objetos (la misma si y solo si, salvo colisiones, se guardaría la misma instantánea),
+	 * para comprobar si dos simulaciones han llegado exactamente al mismo estado
+	 * @param objetos	Objetos
+	 * @return	Huella de 64 bits
+	 */
+	public static long huella( List<? extends ObjetoMovil> objetos ) {
+		ByteBuffer bloque = bloques.get();
+		long huella = 1125899906842597L;
+		for (ObjetoMovil objeto : objetos) {
+			if (objeto==null) continue;
+			bloque.clear();
+			bloque.put( getTipo( objeto ) );
+			objeto.escribeEstado( bloque );
+			bloque.flip();
+			while (bloque.remaining() >= 8) huella = 31*huella + bloque.getLong();
+			while (bloque.hasRemaining()) huella = 31*huella + bloque.get();
+		}
+		return huella;
+	}
+
+		// Devuelve el código de tipo de la clase del objeto
+		private static byte getTipo( ObjetoMovil objeto ) {
+			Byte tipo = tipos.get( objeto.getClass() );
+			if (tipo==null) throw new IllegalArgumentException( "Clase no registrada en las instantáneas: " + objeto.getClass().getName() );
+			return tipo;
+		}
+
+		// Crea un objeto del tipo indicado
+		private static ObjetoMovil creaObjeto( byte tipo ) throws IOException {
+			ReservaObjetos.Fabrica<?> fabrica = fabricas[tipo & 0xFF];
+			if (fabrica==null) throw new IOException( "Tipo de objeto desconocido en la instantánea: " + (tipo & 0xFF) );
+			return (ObjetoMovil) fabrica.crea();
+		}
+
+		// Escribe en el canal todo el contenido del bloque y lo deja vacío para seguir escribiendo
+		private static long vuelca( ByteBuffer bloque, FileChannel canal ) throws IOException {
+			bloque.flip();
+			long escritos = 0;
+			while (bloque.hasRemaining()) escritos += canal.write( bloque );
+			bloque.clear();
+			return escritos;
+		}
+
+		// Conserva lo que queda por leer del bloque y lo completa con los siguientes bytes del canal (hasta llenarlo o acabar el fichero)
+		private static void rellena( ByteBuffer bloque, FileChannel canal ) throws IOException {
+			bloque.compact();
+			while (bloque.hasRemaining() && canal.read( bloque ) >= 0) {}
+			bloque.flip();
+		}
+
+	/** Prueba de rendimiento: guarda y carga un mundo de un millón de objetos y comprueba que se recupera el mismo estado
+	 * @param args	No utilizado
+	 * @throws IOException	Error en el fichero temporal
+	 */
+	public static void main(String[] args) throws IOException {
+		final int NUM_OBJETOS = 1000000;
+		Random r = new Random( 1 );
+		ArrayList<ObjetoMovil> objetos = new ArrayList<>( NUM_OBJETOS );
+		for (int i=0; i<NUM_OBJETOS; i++) {
+			double x = r.nextDouble()*1000, y = r.nextDouble()*800;
+			switch (i % 3) {
+				case 0: objetos.add( new Nave( x, y, 10 + r.nextInt(20), x + r.nextGaussian()*100, y + r.nextGaussian()*100, java.awt.Color.blue ) ); break;
+				case 1: objetos.add( new Asteroide( x, y, 5 + r.nextInt(50) ) ); break;
+				default: objetos.add( new Pelota( x, y, 5 + r.nextInt(20) ) ); break;
+			}
+		}
+		File fichero = File.createTempFile( "instantanea", ".dat" );
+		fichero.deleteOnExit();
+		long huellaInicial = huella( objetos );
+		for (int prueba=0; prueba<3; prueba++) {  // Varias vueltas para ver el tiempo ya compilado
+			long inicio = System.nanoTime();
+			long bytes = guarda( fichero.getPath(), objetos, 1, 2, 3 );
+			long nanosGuardar = System.nanoTime() - inicio;
+			ArrayList<ObjetoMovil> cargados = new ArrayList<>();
+			inicio = System.nanoTime();
+			long[] datos = carga( fichero.getPath(), cargados );
+			long nanosCargar = System.nanoTime() - inicio;
+			System.out.println( String.format( "%1$d objetos, %2$.1f MB: guardar %3$.1f ms, cargar %4$.1f ms - datos %5$d, huella %6$s",
+				cargados.size(), bytes/1048576.0, nanosGuardar/1E6, nanosCargar/1E6, datos.length,
+				huella( cargados )==huellaInicial ? "igual" : "DISTINTA" ) );
+		}
+	}
+
+}
@@ -0,0 +1,319 @@
+package utils.juego2d.utils;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import utils.juego2d.pruebas.Bloque;
+import utils.juego2d.pruebas.ObjetoMovil;
+import utils.juego2d.pruebas.Pelota;
+
+/** Jerarquía de volúmenes envolventes (BVH) de los objetos fijos de un mundo, para la fase amplia de detección de choques.<br/>
+ * Los objetos fijos ({@link ObjetoMovil#isFijo()}, como los {@link Bloque}s de un nivel de plataformas) no se mueven,
+ * así que no hace falta volver a registrarlos en cada fotograma: el árbol se construye una vez y solo se reconstruye
+ * cuando cambian (tras {@link #marcaModificada()}). Cada objeto móvil consulta el árbol con su caja envolvente,
+ * con coste O(log n) en lugar de O(n), así que el tamaño del nivel apenas influye en el tiempo de cada fotograma.<br/>
+ * El árbol es binario: cada nodo guarda la caja que envuelve a todos sus objetos y se divide por la mediana de los
+ * centros en su eje más largo, hasta que quedan {@link #OBJETOS_POR_HOJA} objetos o menos.
+ * Se usa junto con la {@link RejillaEspacial} (ver {@link RejillaEspacial#calculaParejas(ListaParejas, JerarquiaEstatica)}),
+ * que calcula las parejas entre objetos móviles.<br/>
+ * Todos los datos internos se guardan en arrays de primitivos que se reutilizan entre construcciones.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class JerarquiaEstatica {
+
+	/** Máximo número de objetos en cada hoja del árbol */
+	public static final int OBJETOS_POR_HOJA = 4;
+
+	private boolean modificada;    // Si true hay que reconstruir el árbol antes de consultarlo
+
+	// Objetos fijos, en el orden de las hojas del árbol
+	private ObjetoMovil[] objetos;
+	private double[] objXMin;
+	private double[] objXMax;
+	private double[] objYMin;
+	private double[] objYMax;
+	private int numObjetos;
+
+	// Nodos del árbol (el 0 es la raíz)
+	private double[] nodoXMin;
+	private double[] nodoXMax;
+	private double[] nodoYMin;
+	private double[] nodoYMax;
+	private int[] nodoIzquierdo;   // Hijos del nodo (-1 si es hoja)
+	private int[] nodoDerecho;
+	private int[] nodoDesde;       // Rango de objetos de la hoja [desde,hasta)
+	private int[] nodoHasta;
+	private int numNodos;
+
+	// Resultado de la última consulta (índices de objeto)
+	private int[] resultado;
+	private int numResultado;
+	private int[] pila;
+
+	// Estadísticas
+	private int numConstrucciones;
+	private long nanosUltimaConstruccion;
+
+	/** Crea una jerarquía vacía (marcada como modificada, para que se construya en la primera actualización)
+	 */
+	public JerarquiaEstatica() {
+		objetos = new ObjetoMovil[64];
+		objXMin = new double[64];
+		objXMax = new double[64];
+		objYMin = new double[64];
+		objYMax = new double[64];
+		reservaNodos( 64 );
+		resultado = new int[64];
+		pila = new int[64];
+		modificada = true;
+	}
+
+		private void reservaNodos( int tam ) {
+			nodoXMin = new double[tam];
+			nodoXMax = new double[tam];
+			nodoYMin = new double[tam];
+			nodoYMax = new double[tam];
+			nodoIzquierdo = new int[tam];
+			nodoDerecho = new int[tam];
+			nodoDesde = new int[tam];
+			nodoHasta = new int[tam];
+		}
+
+	/** Indica que los objetos fijos han cambiado (se han añadido, quitado o movido) y hay que reconstruir el árbol
+	 */
+	public void marcaModificada() {
+		modificada = true;
+	}
+
+	/** Informa si hay que reconstruir el árbol
+	 * @return	true si ha habido cambios desde la última construcción
+	 */
+	public boolean isModificada() {
+		return modificada;
+	}
+
+	/** Reconstruye el árbol si se ha marcado como modificado (si no, no hace nada)
+	 * @param lista	Lista de objetos del mundo (puede contener nulls). Solo se guardan los fijos
+	 * @return	true si se ha reconstruido, false si no hacía falta
+	 */
+	public boolean actualiza( List<ObjetoMovil> lista ) {
+		if (!modificada) return false;
+		construye( lista );
+		return true;
+	}
+
+	/** Construye el árbol con los objetos fijos de una lista
+	 * @param lista	Lista de objetos del mundo (puede contener nulls). Solo se guardan los fijos
+	 */
+	public void construye( List<ObjetoMovil> lista ) {
+		long inicio = System.nanoTime();
+		for (int i=0; i<numObjetos; i++) objetos[i] = null;
+		numObjetos = 0;
+		for (ObjetoMovil o : lista) {
+			if (o==null || !o.isFijo()) continue;
+			if (numObjetos==objetos.length) {
+				int nuevoTam = objetos.length*2;
+				objetos = Arrays.copyOf( objetos, nuevoTam );
+				objXMin = Arrays.copyOf( objXMin, nuevoTam );
+				objXMax = Arrays.copyOf( objXMax, nuevoTam );
+				objYMin = Arrays.copyOf( objYMin, nuevoTam );
+				objYMax = Arrays.copyOf( objYMax, nuevoTam );
+			}
+			objetos[numObjetos] = o;
+			objXMin[numObjetos] = o.getXMin();
+			objXMax[numObjetos] = o.getXMax();
+			objYMin[numObjetos] = o.getYMin();
+			objYMax[numObjetos] = o.getYMax();
+			numObjetos++;
+		}
+		int maxNodos = 2 * Math.max( 1, numObjetos );  // Un árbol binario con hojas no vacías tiene menos de 2n nodos
+		if (nodoXMin.length < maxNodos) reservaNodos( maxNodos );
+		numNodos = 0;
+		if (numObjetos > 0) construyeNodo( 0, numObjetos, 0 );
+		modificada = false;
+		numConstrucciones++;
+		nanosUltimaConstruccion = System.nanoTime() - inicio;
+	}
+
+		// Construye el nodo de los objetos [desde,hasta) y devuelve su índice
+		private int construyeNodo( int desde, int hasta, int profundidad ) {
+			int nodo = numNodos++;
+			double xMin = objXMin[desde], xMax = objXMax[desde], yMin = objYMin[desde], yMax = objYMax[desde];
+			for (int i=desde+1; i<hasta; i++) {
+				if (objXMin[i] < xMin) xMin = objXMin[i];
+				if (objXMax[i] > xMax) xMax = objXMax[i];
+				if (objYMin[i] < yMin) yMin = objYMin[i];
+				if (objYMax[i] > yMax) yMax = objYMax[i];
+			}
+			nodoXMin[nodo] = xMin;
+			nodoXMax[nodo] = xMax;
+			nodoYMin[nodo] = yMin;
+			nodoYMax[nodo] = yMax;
+			nodoDesde[nodo] = desde;
+			nodoHasta[nodo] = hasta;
+			if (hasta - desde <= OBJETOS_POR_HOJA) {  // Hoja
+				nodoIzquierdo[nodo] = -1;
+				nodoDerecho[nodo] = -1;
+			} else {  // División por la mediana de los centros en el eje más largo
+				boolean enX = (xMax - xMin) >= (yMax - yMin);
+				int medio = (desde + hasta) >>> 1;
+				seleccionaMediana( desde, hasta - 1, medio, enX );
+				if (pila.length < profundidad*2 + 4) pila = Arrays.copyOf( pila, profundidad*4 + 8 );  // La pila de consulta tiene que poder con la profundidad del árbol
+				nodoIzquierdo[nodo] = construyeNodo( desde, medio, profundidad+1 );
+				nodoDerecho[nodo] = construyeNodo( medio, hasta, profundidad+1 );
+			}
+			return nodo;
+		}
+
+		// Deja en la posición k el objeto que iría ahí si se ordenaran [izq,der] por su centro (y a su izquierda los menores)
+		private void seleccionaMediana( int izq, int der, int k, boolean enX ) {
+			while (der > izq) {
+				double pivote = centro( (izq + der) >>> 1, enX );
+				int i = izq, j = der;
+				while (i <= j) {
+					while (centro( i, enX ) < pivote) i++;
+					while (centro( j, enX ) > pivote) j--;
+					if (i <= j) { intercambia( i, j ); i++; j--; }
+				}
+				if (k <= j) der = j;
+				else if (k >= i) izq = i;
+				else return;
+			}
+		}
+
+		private double centro( int i, boolean enX ) {
+			return enX ? objXMin[i] + objXMax[i] : objYMin[i] + objYMax[i];  // (el doble del centro: solo se compara)
+		}
+
+		private void intercambia( int i, int j ) {
+			ObjetoMovil o = objetos[i]; objetos[i] = objetos[j]; objetos[j] = o;
+			double t = objXMin[i]; objXMin[i] = objXMin[j]; objXMin[j] = t;
+			t = objXMax[i]; objXMax[i] = objXMax[j]; objXMax[j] = t;
+			t = objYMin[i]; objYMin[i] = objYMin[j]; objYMin[j] = t;
+			t = objYMax[i]; objYMax[i] = objYMax[j]; objYMax[j] = t;
+		}
+
+	/** Busca los objetos fijos cuya caja envolvente se toca con una caja dada.
+	 * El resultado se consulta con {@link #getResultado(int)} y solo es válido hasta la siguiente consulta
+	 * @param xMin	x mínima de la caja
+	 * @param yMin	y mínima de la caja
+	 * @param xMax	x máxima de la caja
+	 * @param yMax	y máxima de la caja
+	 * @return	Número de objetos encontrados
+	 */
+	public int consulta( double xMin, double yMin, double xMax, double yMax ) {
+		numResultado = 0;
+		if (numNodos == 0) return 0;
+		int tope = 0;
+		pila[tope++] = 0;
+		while (tope > 0) {
+			int nodo = pila[--tope];
+			if (nodoXMin[nodo] > xMax || nodoXMax[nodo] < xMin || nodoYMin[nodo] > yMax || nodoYMax[nodo] < yMin) continue;
+			if (nodoIzquierdo[nodo] < 0) {  // Hoja: se prueban sus objetos
+				for (int i=nodoDesde[nodo]; i<nodoHasta[nodo]; i++) {
+					if (objXMin[i] <= xMax && xMin <= objXMax[i] && objYMin[i] <= yMax && yMin <= objYMax[i]) {
+						if (numResultado == resultado.length) resultado = Arrays.copyOf( resultado, numResultado*2 );
+						resultado[numResultado++] = i;
+					}
+				}
+			} else {
+				pila[tope++] = nodoDerecho[nodo];
+				pila[tope++] = nodoIzquierdo[nodo];
+			}
+		}
+		return numResultado;
+	}
+
+	/** Devuelve el índice de un objeto encontrado en la última consulta
+	 * @param k	Número de resultado (0 a n-1, siendo n el devuelto por {@link #consulta(double, double, double, double)})
+	 * @return	Índice del objeto en la jerarquía (ver {@link #getObjeto(int)})
+	 */
+	public int getResultado( int k ) {
+		return resultado[k];
+	}
+
+	/** Devuelve un objeto fijo de la jerarquía
+	 * @param indice	Índice del objeto (0 a {@link #getNumObjetos()}-1)
+	 * @return	Objeto con ese índice
+	 */
+	public ObjetoMovil getObjeto( int indice ) {
+		return objetos[indice];
+	}
+
+	public int getNumObjetos() {
+		return numObjetos;
+	}
+
+	public int getNumNodos() {
+		return numNodos;
+	}
+
+	/** Devuelve un texto con las estadísticas de la jerarquía
+	 * @return	Texto con objetos fijos, nodos y construcciones realizadas
+	 */
+	public String getEstadisticas() {
+		return String.format( "BVH fijos: %1$d objetos, %2$d nodos, %3$d construcciones (última %4$.3f ms)",
+				numObjetos, numNodos, numConstrucciones, nanosUltimaConstruccion/1000000.0 );
+	}
+
+	@Override
+	public String toString() {
+		return "JerarquiaEstatica[" + getEstadisticas() + "]";
+	}
+
+	/** Método de prueba de la clase: comprueba que las parejas con la jerarquía son las mismas que con la rejilla sola,
+	 * y compara el tiempo de la fase amplia de un fotograma con niveles de cada vez más bloques fijos y los mismos objetos móviles
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) {
+		RejillaEspacial rejilla = new RejillaEspacial( 100 );
+		ListaParejas parejas = new ListaParejas();
+		ListaParejas parejasRejilla = new ListaParejas();
+		JerarquiaEstatica estaticos = new JerarquiaEstatica();
+		System.out.println( String.format( "%1$8s %2$10s %3$18s %4$18s", "bloques", "parejas", "rejilla (ms)", "rejilla+BVH (ms)" ) );
+		for (int numBloques=100; numBloques<=102400; numBloques*=4) {
+			List<ObjetoMovil> nivel = creaNivel( numBloques, 100 );
+			List<ObjetoMovil> moviles = nivel.subList( 0, 100 );
+			estaticos.marcaModificada();
+			estaticos.actualiza( nivel );
+			long nanosRejilla = Long.MAX_VALUE, nanosBVH = Long.MAX_VALUE;
+			for (int rep=0; rep<20; rep++) {
+				// a) Todos los objetos en la rejilla
+				long inicio = System.nanoTime();
+				rejilla.limpia();
+				for (ObjetoMovil o : nivel) rejilla.anyade( o );
+				rejilla.calculaParejas( parejasRejilla );
+				nanosRejilla = Math.min( nanosRejilla, System.nanoTime() - inicio );
+				// b) Solo los móviles en la rejilla, y los fijos en la jerarquía
+				inicio = System.nanoTime();
+				rejilla.limpia();
+				for (ObjetoMovil o : moviles) rejilla.anyade( o );
+				rejilla.calculaParejas( parejas, estaticos );
+				nanosBVH = Math.min( nanosBVH, System.nanoTime() - inicio );
+			}
+			// Las parejas móvil-móvil y móvil-fijo tienen que ser las mismas (las fijo-fijo la jerarquía no las da: no pueden chocar)
+			int movilesConRejilla = 0;
+			for (int k=0; k<parejasRejilla.size(); k++) {
+				if (!nivel.get( parejasRejilla.getPrimero(k) ).isFijo() || !nivel.get( parejasRejilla.getSegundo(k) ).isFijo()) movilesConRejilla++;
+			}
+			System.out.println( String.format( "%1$8d %2$10s %3$18.3f %4$18.3f", numBloques,
+					(movilesConRejilla==parejas.size() ? "" + parejas.size() : "ERROR " + movilesConRejilla + "/" + parejas.size()),
+					nanosRejilla/1E6, nanosBVH/1E6 ) );
+		}
+		System.out.println( estaticos.getEstadisticas() );
+	}
+
+		// Nivel de plataformas: pelotas móviles al principio de la lista y bloques fijos repartidos en una superficie proporcional a su número
+		private static List<ObjetoMovil> creaNivel( int numBloques, int numMoviles ) {
+			Random r = new Random( 1 );
+			List<ObjetoMovil> nivel = new ArrayList<>();
+			double lado = 100 * Math.sqrt( numBloques );
+			for (int i=0; i<numMoviles; i++) nivel.add( new Pelota( r.nextDouble()*1000, r.nextDouble()*1000, 10+r.nextDouble()*20, Color.blue, true ) );
+			for (int i=0; i<numBloques; i++) nivel.add( new Bloque( r.nextDouble()*lado, r.nextDouble()*lado, 20+r.nextDouble()*100, 15 ) );
+			return nivel;
+		}
+
+}
@@ -0,0 +1,20 @@
+package utils.juego2d.utils;
+
+/** Límites rectangulares de un mundo de juego, con origen en (0,0).
+ * Los implementa {@link utils.ventanas.ventanaBitmap.VentanaGrafica} (los límites son los de la ventana)
+ * y {@link LimitesEnMemoria} (para simular sin ventana).
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public interface Limites {
+
+	/** Devuelve la anchura del mundo
+	 * @return	Anchura en píxels
+	 */
+	int getAnchura();
+
+	/** Devuelve la altura del mundo
+	 * @return	Altura en píxels
+	 */
+	int getAltura();
+
+}
@@ -0,0 +1,42 @@
+package utils.juego2d.utils;
+
+/** Límites de un mundo de juego sin ventana (solo en memoria), para simular sin visualización
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class LimitesEnMemoria implements Limites {
+	private int anchura;
+	private int altura;
+
+	/** Crea unos límites en memoria
+	 * @param anchura	Anchura en píxels
+	 * @param altura	Altura en píxels
+	 */
+	public LimitesEnMemoria( int anchura, int altura ) {
+		this.anchura = anchura;
+		this.altura = altura;
+	}
+
+	@Override
+	public int getAnchura() {
+		return anchura;
+	}
+
+	public void setAnchura( int anchura ) {
+		this.anchura = anchura;
+	}
+
+	@Override
+	public int getAltura() {
+		return altura;
+	}
+
+	public void setAltura( int altura ) {
+		this.altura = altura;
+	}
+
+	@Override
+	public String toString() {
+		return "LimitesEnMemoria[" + anchura + "x" + altura + "]";
+	}
+
+}
@@ -0,0 +1,71 @@
+package utils.juego2d.utils;
+
+import java.util.Arrays;
+
+/** Lista de parejas de índices (i,j) con i&lt;j, guardada en un array de primitivos
+ * para poder reutilizarse fotograma a fotograma sin crear objetos nuevos.
+ * Cada pareja se codifica en un long (i en los 32 bits altos, j en los bajos), de modo que
+ * al ordenar la lista las parejas quedan en el mismo orden que el doble bucle "todos con todos".
+ */
+public class ListaParejas {
+	private long[] parejas;
+	private int numParejas;
+
+	/** Crea una lista de parejas vacía
+	 */
+	public ListaParejas() {
+		parejas = new long[256];
+		numParejas = 0;
+	}
+
+	/** Vacía la lista (sin liberar memoria)
+	 */
+	public void limpia() {
+		numParejas = 0;
+	}
+
+	/** Añade una pareja a la lista
+	 * @param i	Índice del primer elemento de la pareja
+	 * @param j	Índice del segundo elemento de la pareja
+	 */
+	public void anyade( int i, int j ) {
+		if (i>j) { int t = i; i = j; j = t; }
+		if (numParejas==parejas.length) parejas = Arrays.copyOf( parejas, parejas.length*2 );
+		parejas[numParejas++] = (((long)i) << 32) | (j & 0xffffffffL);
+	}
+
+	/** Ordena las parejas de la lista (primero por el primer índice, luego por el segundo)
+	 */
+	public void ordena() {
+		Arrays.sort( parejas, 0, numParejas );
+	}
+
+	/** Devuelve el número de parejas de la lista
+	 * @return	Número de parejas
+	 */
+	public int size() {
+		return numParejas;
+	}
+
+	/** Devuelve el primer índice de una pareja
+	 * @param k	Posición de la pareja en la lista (0 a size()-1)
+	 * @return	Primer índice (el menor) de la pareja
+	 */
+	public int getPrimero( int k ) {
+		return (int) (parejas[k] >>> 32);
+	}
+
+	/** Devuelve el segundo índice de una pareja
+	 * @param k	Posición de la pareja en la lista (0 a size()-1)
+	 * @return	Segundo índice (el mayor) de la pareja
+	 */
+	public int getSegundo( int k ) {
+		return (int) parejas[k];
+	}
+
+	@Override
+	public String toString() {
+		return "ListaParejas[" + numParejas + "]";
+	}
+
+}
@@ -0,0 +1,288 @@
+package utils.juego2d.utils;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/** Máscara de bits de choque de una imagen (o de una forma), para detectar choques exactos a nivel de píxel.<br/>
+ * Cada píxel opaco de la imagen es un bit a 1, y las filas se guardan empaquetadas en un array de longs
+ * (64 píxels por palabra, el píxel x de la fila en el bit x%64 de la palabra x/64). Para probar si dos máscaras
+ * se solapan primero se comprueba si se tocan sus rectángulos, y después solo en las filas y palabras comunes
+ * se hace un AND de palabras (desplazando las de la segunda máscara al alineamiento de la primera): se prueban
+ * 64 píxels en cada operación, sin crear objetos ni usar {@link Area}.<br/>
+ * Las máscaras se calculan una sola vez por recurso gráfico y zoom ({@link #getMascara(Class, String, double)})
+ * y por radio de círculo ({@link #getCirculo(double)}), y se guardan en una caché. Las máscaras no se modifican
+ * después de crearse, así que se pueden probar desde varios hilos a la vez.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class MascaraBits {
+
+	/** Opacidad mínima (canal alfa, 0-255) para que un píxel de una imagen se considere parte de la máscara */
+	public static int UMBRAL_ALFA = 128;
+
+	private static HashMap<String,MascaraBits> cache = new HashMap<>();
+	private static volatile MascaraBits[] circulos = deCirculos( 128 );  // Caché de círculos por diámetro en píxels (se lee sin bloqueo; al crecer se sustituye por otro array)
+
+	private final int anchura;
+	private final int altura;
+	private final int palabrasPorFila;
+	private final long[] bits;
+
+	/** Crea una máscara vacía (todos los píxels a 0)
+	 * @param anchura	Anchura en píxels
+	 * @param altura	Altura en píxels
+	 */
+	public MascaraBits( int anchura, int altura ) {
+		this.anchura = anchura;
+		this.altura = altura;
+		palabrasPorFila = (anchura + 63) >>> 6;
+		bits = new long[ palabrasPorFila * altura ];
+	}
+
+	/** Crea una máscara a partir de los píxels opacos de una imagen, escalada con un zoom
+	 * (la máscara tiene el tamaño con el que se dibuja la imagen con ese zoom)
+	 * @param imagen	Imagen de partida (con canal alfa)
+	 * @param zoom	Zoom (mayor que 0)
+	 * @return	Máscara nueva
+	 */
+	public static MascaraBits deImagen( BufferedImage imagen, double zoom ) {
+		int anchura = Math.max( 1, (int) Math.round( imagen.getWidth() * zoom ) );
+		int altura = Math.max( 1, (int) Math.round( imagen.getHeight() * zoom ) );
+		MascaraBits m = new MascaraBits( anchura, altura );
+		for (int y=0; y<altura; y++) {
+			int yImagen = Math.min( imagen.getHeight()-1, (int) ((y + 0.5) / zoom) );
+			for (int x=0; x<anchura; x++) {
+				int xImagen = Math.min( imagen.getWidth()-1, (int) ((x + 0.5) / zoom) );
+				if ((imagen.getRGB( xImagen, yImagen ) >>> 24) >= UMBRAL_ALFA) m.setPixel( x, y );
+			}
+		}
+		return m;
+	}
+
+	/** Crea una máscara circular
+	 * @param radio	Radio en píxels (la máscara mide 2·radio de lado, redondeado)
+	 * @return	Máscara nueva
+	 */
+	public static MascaraBits deCirculo( double radio ) {
+		int lado = Math.max( 1, (int) Math.round( radio*2 ) );
+		MascaraBits m = new MascaraBits( lado, lado );
+		double centro = lado / 2.0;
+		for (int y=0; y<lado; y++) {
+			for (int x=0; x<lado; x++) {
+				double dx = x + 0.5 - centro, dy = y + 0.5 - centro;
+				if (dx*dx + dy*dy <= radio*radio) m.setPixel( x, y );
+			}
+		}
+		return m;
+	}
+
+	/** Devuelve la máscara de un recurso gráfico con un zoom, calculándola la primera vez y después de la caché
+	 * @param clase	Clase desde la que se busca el recurso (como en {@link Class#getResource(String)})
+	 * @param recurso	Nombre del recurso gráfico (p. ej. "img/UD-normal.png")
+	 * @param zoom	Zoom con el que se dibuja la imagen
+	 * @return	Máscara de la imagen, null si no se ha podido cargar (también se guarda, para no reintentarlo)
+	 */
+	public static synchronized MascaraBits getMascara( Class<?> clase, String recurso, double zoom ) {
+		String clave = clase.getName() + ":" + recurso + "@" + zoom;
+		if (cache.containsKey( clave )) return cache.get( clave );
+		MascaraBits m = null;
+		try {
+			URL url = clase.getResource( recurso );
+			BufferedImage imagen = (url==null) ? null : ImageIO.read( url );
+			if (imagen!=null) m = deImagen( imagen, zoom );
+		} catch (IOException e) {
+			// Imagen no disponible: se devuelve null (sin máscara)
+		}
+		cache.put( clave, m );
+		return m;
+	}
+
+	/** Devuelve la máscara de un círculo de la caché. Los diámetros habituales (hasta 127 píxels) están
+	 * precalculados y se leen sin bloqueo, así que se puede llamar desde varios hilos a la vez sin que se esperen;
+	 * solo un diámetro mayor se calcula la primera vez (con bloqueo)
+	 * @param radio	Radio del círculo (se redondea a medio píxel)
+	 * @return	Máscara del círculo
+	 */
+	public static MascaraBits getCirculo( double radio ) {
+		int diametro = Math.max( 0, (int) Math.round( radio*2 ) );
+		MascaraBits[] tabla = circulos;
+		if (diametro < tabla.length) return tabla[diametro];
+		return creaCirculo( diametro );
+	}
+
+		// Amplía la tabla de círculos hasta incluir el diámetro indicado (copia y sustitución, para que las lecturas sin bloqueo vean siempre una tabla completa)
+		private static synchronized MascaraBits creaCirculo( int diametro ) {
+			MascaraBits[] tabla = circulos;
+			if (diametro >= tabla.length) {
+				tabla = Arrays.copyOf( tabla, Math.max( diametro+1, tabla.length*2 ) );
+				for (int d=circulos.length; d<tabla.length; d++) tabla[d] = deCirculo( d / 2.0 );
+				circulos = tabla;
+			}
+			return tabla[diametro];
+		}
+
+		// Crea la tabla inicial de círculos, de diámetro 0 a tamanyo-1
+		private static MascaraBits[] deCirculos( int tamanyo ) {
+			MascaraBits[] tabla = new MascaraBits[tamanyo];
+			for (int d=0; d<tamanyo; d++) tabla[d] = deCirculo( d / 2.0 );
+			return tabla;
+		}
+
+	public int getAnchura() {
+		return anchura;
+	}
+
+	public int getAltura() {
+		return altura;
+	}
+
+	/** Pone a 1 un píxel de la máscara (solo para construirla: una máscara de la caché no se debe modificar)
+	 * @param x	Coordenada x del píxel (0 a anchura-1)
+	 * @param y	Coordenada y del píxel (0 a altura-1)
+	 */
+	public void setPixel( int x, int y ) {
+		bits[ y*palabrasPorFila + (x >>> 6) ] |= 1L << (x & 63);
+	}
+
+	/** Informa si un píxel de la máscara está a 1
+	 * @param x	Coordenada x del píxel
+	 * @param y	Coordenada y del píxel
+	 * @return	true si el píxel es parte de la máscara, false si no lo es o está fuera de ella
+	 */
+	public boolean getPixel( int x, int y ) {
+		if (x<0 || y<0 || x>=anchura || y>=altura) return false;
+		return (bits[ y*palabrasPorFila + (x >>> 6) ] & (1L << (x & 63))) != 0;
+	}
+
+	/** Devuelve el número de píxels a 1 de la máscara
+	 * @return	Número de píxels
+	 */
+	public int getNumPixels() {
+		int n = 0;
+		for (long palabra : bits) n += Long.bitCount( palabra );
+		return n;
+	}
+
+	/** Comprueba si esta máscara se solapa con otra
+	 * @param otra	Otra máscara
+	 * @param dx	Desplazamiento x de la esquina superior izquierda de la otra máscara respecto a la de esta (píxels)
+	 * @param dy	Desplazamiento y de la esquina superior izquierda de la otra máscara respecto a la de esta (píxels)
+	 * @return	true si algún píxel a 1 de esta máscara coincide con uno a 1 de la otra
+	 */
+	public boolean chocaCon( MascaraBits otra, int dx, int dy ) {
+		// Pre-comprobación de rectángulos e intersección de filas y columnas (en coordenadas de esta máscara)
+		int xIni = Math.max( 0, dx ), xFin = Math.min( anchura, dx + otra.anchura );
+		int yIni = Math.max( 0, dy ), yFin = Math.min( altura, dy + otra.altura );
+		if (xIni >= xFin || yIni >= yFin) return false;
+		int palIni = xIni >>> 6, palFin = (xFin - 1) >>> 6;
+		for (int y=yIni; y<yFin; y++) {
+			int fila = y * palabrasPorFila;
+			int filaOtra = (y - dy) * otra.palabrasPorFila;
+			for (int p=palIni; p<=palFin; p++) {
+				long palabra = bits[fila + p];
+				if (palabra == 0L) continue;
+				if ((palabra & otra.extrae( filaOtra, (p << 6) - dx )) != 0L) return true;
+			}
+		}
+		return false;
+	}
+
+		// Devuelve los 64 píxels de una fila de esta máscara que empiezan en la columna x (los de fuera de la máscara a 0)
+		private long extrae( int fila, int x ) {
+			int p = x >> 6;  // Desplazamiento aritmético: para x negativa da la palabra anterior
+			int desp = x & 63;
+			long bajo = (p >= 0 && p < palabrasPorFila) ? bits[fila + p] : 0L;
+			if (desp == 0) return bajo;
+			long alto = (p+1 >= 0 && p+1 < palabrasPorFila) ? bits[fila + p + 1] : 0L;
+			return (bajo >>> desp) | (alto << (64 - desp));
+		}
+
+	@Override
+	public String toString() {
+		return "MascaraBits[" + anchura + "x" + altura + "," + getNumPixels() + " píxels]";
+	}
+
+	/** Método de prueba: compara la máscara de bits con la comprobación píxel a píxel (resultados) y con {@link Area} (rendimiento),
+	 * probando una imagen de UDcito contra círculos en posiciones al azar cerca de ella
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) {
+		MascaraBits ud = getMascara( utils.juego2d.pruebas.UDcito.class, "img/UD-andando1.png", 0.51 );
+		if (ud==null) { System.out.println( "No se ha podido cargar la imagen de prueba" ); return; }
+		MascaraBits circulo = getCirculo( 25 );
+		System.out.println( ud + " - " + circulo );
+		Random r = new Random( 1 );
+		int numPruebas = 100000;
+		int[] dxs = new int[numPruebas];
+		int[] dys = new int[numPruebas];
+		for (int i=0; i<numPruebas; i++) {
+			dxs[i] = r.nextInt( ud.anchura + 2*circulo.anchura ) - circulo.anchura;
+			dys[i] = r.nextInt( ud.altura + 2*circulo.altura ) - circulo.altura;
+		}
+		// 1. Resultados iguales que píxel a píxel
+		int errores = 0, choques = 0;
+		for (int i=0; i<numPruebas; i+=10) {
+			boolean bits = ud.chocaCon( circulo, dxs[i], dys[i] );
+			if (bits) choques++;
+			if (bits != ud.chocaPixelAPixel( circulo, dxs[i], dys[i] )) errores++;
+			if (bits != circulo.chocaCon( ud, -dxs[i], -dys[i] )) errores++;  // Simétrico
+		}
+		System.out.println( "Comprobación con píxel a píxel: " + choques + " choques en " + numPruebas/10 + " pruebas - " + (errores==0 ? "OK" : errores + " ERRORES") );
+		// 2. Rendimiento
+		for (int rep=0; rep<3; rep++) {
+			long inicio = System.nanoTime();
+			int n = 0;
+			for (int i=0; i<numPruebas; i++) if (ud.chocaCon( circulo, dxs[i], dys[i] )) n++;
+			long nanosBits = System.nanoTime() - inicio;
+			inicio = System.nanoTime();
+			for (int i=0; i<numPruebas; i++) if (ud.chocaPixelAPixel( circulo, dxs[i], dys[i] )) n++;
+			long nanosPixel = System.nanoTime() - inicio;
+			Area areaUD = ud.toArea();
+			Area areaCirculo = circulo.toArea();
+			int numArea = numPruebas / 100;  // Con Area es mucho más lento: se prueban menos
+			inicio = System.nanoTime();
+			for (int i=0; i<numArea; i++) {
+				Area a = areaCirculo.createTransformedArea( AffineTransform.getTranslateInstance( dxs[i], dys[i] ) );
+				a.intersect( areaUD );
+				if (!a.isEmpty()) n++;
+			}
+			long nanosArea = (System.nanoTime() - inicio) * 100;
+			System.out.println( String.format( "Pruebas por segundo - bits: %1$.0f - píxel a píxel: %2$.0f - Area: %3$.0f  (%4$d)",
+					numPruebas/(nanosBits/1E9), numPruebas/(nanosPixel/1E9), numPruebas/(nanosArea/1E9), n ) );
+		}
+	}
+
+		// Comprobación de referencia sin empaquetar (píxel a píxel)
+		private boolean chocaPixelAPixel( MascaraBits otra, int dx, int dy ) {
+			for (int y=0; y<altura; y++) {
+				for (int x=0; x<anchura; x++) {
+					if (getPixel( x, y ) && otra.getPixel( x - dx, y - dy )) return true;
+				}
+			}
+			return false;
+		}
+
+		// Área con los tramos de píxels de cada fila (para comparar con la prueba de solape con Area)
+		private Area toArea() {
+			Area a = new Area();
+			for (int y=0; y<altura; y++) {
+				int x = 0;
+				while (x < anchura) {
+					while (x < anchura && !getPixel( x, y )) x++;
+					int ini = x;
+					while (x < anchura && getPixel( x, y )) x++;
+					if (x > ini) a.add( new Area( new Rectangle2D.Double( ini, y, x-ini, 1 ) ) );
+				}
+			}
+			return a;
+		}
+
+}
@@ -0,0 +1,282 @@
+package utils.juego2d.utils;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.Random;
+
+import utils.juego2d.pruebas.ObjetoMovil;
+import utils.juego2d.pruebas.Pelota;
+
+/** Motor de movimiento alternativo con el estado de los cuerpos en arrays contiguos de primitivos
+ * (estructura de arrays en lugar de un objeto por cuerpo). Las posiciones, velocidades, masas y aceleraciones
+ * se guardan en double[] y el movimiento se integra en bucles simples, sin crear objetos ni llamar a setters.<br/>
+ * Los {@link ObjetoMovil} pueden asociarse a los cuerpos como vistas: {@link #cargaDeObjetos()} copia su estado
+ * a los arrays y {@link #vuelcaAObjetos()} lo devuelve a los objetos (para dibujarlos o calcular sus choques).
+ * Se usan las mismas fórmulas y unidades que {@link ObjetoMovil#mueveUnPoco(Limites, double, boolean)}
+ * (píxels, píxels/seg, píxels/seg^2 y milisegundos).
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class MundoFisico {
+	private int numCuerpos;
+	private double[] x;         // Coordenadas x de los cuerpos
+	private double[] y;         // Coordenadas y de los cuerpos
+	private double[] velX;      // Velocidades horizontales
+	private double[] velY;      // Velocidades verticales
+	private double[] antX;      // Posiciones anteriores al último paso
+	private double[] antY;
+	private double[] velXIni;   // Velocidades anteriores al último paso
+	private double[] velYIni;
+	private double[] acelX;     // Aceleraciones adicionales a la gravedad
+	private double[] acelY;
+	private double[] masa;      // Masas (el volumen del objeto, como en los choques de Fisica)
+	private boolean[] fijo;     // Cuerpos que no se mueven
+	private ObjetoMovil[] objetos;  // Vistas asociadas a cada cuerpo (null si el cuerpo no tiene objeto)
+
+	/** Crea un mundo físico vacío
+	 * @param capacidad	Número de cuerpos previsto (crece automáticamente si se supera)
+	 */
+	public MundoFisico( int capacidad ) {
+		if (capacidad<1) capacidad = 1;
+		x = new double[capacidad];
+		y = new double[capacidad];
+		velX = new double[capacidad];
+		velY = new double[capacidad];
+		antX = new double[capacidad];
+		antY = new double[capacidad];
+		velXIni = new double[capacidad];
+		velYIni = new double[capacidad];
+		acelX = new double[capacidad];
+		acelY = new double[capacidad];
+		masa = new double[capacidad];
+		fijo = new boolean[capacidad];
+		objetos = new ObjetoMovil[capacidad];
+		numCuerpos = 0;
+	}
+
+	/** Quita todos los cuerpos del mundo (sin liberar memoria)
+	 */
+	public void limpia() {
+		Arrays.fill( objetos, 0, numCuerpos, null );
+		numCuerpos = 0;
+	}
+
+	/** Añade un cuerpo al mundo
+	 * @param x	Coordenada x del cuerpo
+	 * @param y	Coordenada y del cuerpo
+	 * @param velX	Velocidad horizontal (píxels/seg)
+	 * @param velY	Velocidad vertical (píxels/seg)
+	 * @param masa	Masa del cuerpo
+	 * @param fijo	true si el cuerpo no se mueve
+	 * @return	Índice del cuerpo añadido
+	 */
+	public int anyade( double x, double y, double velX, double velY, double masa, boolean fijo ) {
+		if (numCuerpos==this.x.length) crece();
+		int i = numCuerpos++;
+		this.x[i] = x; this.y[i] = y;
+		this.velX[i] = velX; this.velY[i] = velY;
+		antX[i] = x; antY[i] = y;
+		velXIni[i] = velX; velYIni[i] = velY;
+		acelX[i] = 0.0; acelY[i] = 0.0;
+		this.masa[i] = masa;
+		this.fijo[i] = fijo;
+		objetos[i] = null;
+		return i;
+	}
+
+	/** Añade un cuerpo al mundo asociado a un objeto, con su posición, velocidad y masa actuales
+	 * @param objeto	Objeto que hará de vista del cuerpo
+	 * @return	Índice del cuerpo añadido
+	 */
+	public int anyade( ObjetoMovil objeto ) {
+		int i = anyade( objeto.getX(), objeto.getY(), objeto.getVelocidadX(), objeto.getVelocidadY(), objeto.getVolumen(), objeto.isFijo() );
+		objetos[i] = objeto;
+		return i;
+	}
+
+		// Duplica la capacidad de todos los arrays
+		private void crece() {
+			int cap = x.length * 2;
+			x = Arrays.copyOf( x, cap );
+			y = Arrays.copyOf( y, cap );
+			velX = Arrays.copyOf( velX, cap );
+			velY = Arrays.copyOf( velY, cap );
+			antX = Arrays.copyOf( antX, cap );
+			antY = Arrays.copyOf( antY, cap );
+			velXIni = Arrays.copyOf( velXIni, cap );
+			velYIni = Arrays.copyOf( velYIni, cap );
+			acelX = Arrays.copyOf( acelX, cap );
+			acelY = Arrays.copyOf( acelY, cap );
+			masa = Arrays.copyOf( masa, cap );
+			fijo = Arrays.copyOf( fijo, cap );
+			objetos = Arrays.copyOf( objetos, cap );
+		}
+
+	/** Mueve todos los cuerpos no fijos un paso de tiempo, con movimiento uniformemente acelerado
+	 * (gravedad de {@link Fisica#getGravedad()} más la aceleración propia de cada cuerpo).
+	 * Guarda la posición y velocidad anteriores para posibles correcciones.
+	 * @param miliSgs	Tiempo del paso (milisegundos)
+	 */
+	public void paso( double miliSgs ) {
+		final double gravedad = Fisica.getGravedad();
+		final double t = miliSgs * 0.001;            // Mismas fórmulas que Fisica.calcEspacio y Fisica.calcVelocidad
+		final double t2 = miliSgs * miliSgs * 0.0000005;
+		final int n = numCuerpos;
+		final double[] x = this.x, y = this.y, velX = this.velX, velY = this.velY;
+		final double[] acelX = this.acelX, acelY = this.acelY;
+		final boolean[] fijo = this.fijo;
+		System.arraycopy( x, 0, antX, 0, n );
+		System.arraycopy( y, 0, antY, 0, n );
+		System.arraycopy( velX, 0, velXIni, 0, n );
+		System.arraycopy( velY, 0, velYIni, 0, n );
+		for (int i=0; i<n; i++) {
+			if (fijo[i]) continue;
+			double ax = acelX[i];
+			double ay = acelY[i] + gravedad;
+			x[i] = ax * t2 + velX[i] * t + x[i];
+			y[i] = ay * t2 + velY[i] * t + y[i];
+			velX[i] = velX[i] + ax * t;
+			velY[i] = velY[i] + ay * t;
+		}
+	}
+
+	/** Copia a los arrays el estado actual (posición y velocidad) de los objetos asociados a los cuerpos
+	 */
+	public void cargaDeObjetos() {
+		for (int i=0; i<numCuerpos; i++) {
+			ObjetoMovil o = objetos[i];
+			if (o==null) continue;
+			x[i] = o.getX(); y[i] = o.getY();
+			velX[i] = o.getVelocidadX(); velY[i] = o.getVelocidadY();
+			fijo[i] = o.isFijo();
+		}
+	}
+
+	/** Copia a los objetos asociados el estado actual de los cuerpos
+	 * (posición, velocidad, y posición y velocidad anteriores al último paso)
+	 */
+	public void vuelcaAObjetos() {
+		for (int i=0; i<numCuerpos; i++) {
+			ObjetoMovil o = objetos[i];
+			if (o==null || fijo[i]) continue;
+			o.setMovimientoAnterior( antX[i], antY[i], velXIni[i], velYIni[i] );
+			o.setPosicion( x[i], y[i] );
+			o.setVelocidad( velX[i], velY[i] );
+		}
+	}
+
+	/** Devuelve el número de cuerpos del mundo
+	 * @return	Número de cuerpos
+	 */
+	public int getNumCuerpos() {
+		return numCuerpos;
+	}
+
+	/** Devuelve el objeto asociado a un cuerpo
+	 * @param i	Índice del cuerpo
+	 * @return	Objeto asociado, null si no lo tiene
+	 */
+	public ObjetoMovil getObjeto( int i ) {
+		return objetos[i];
+	}
+
+	public double getX( int i ) {
+		return x[i];
+	}
+
+	public double getY( int i ) {
+		return y[i];
+	}
+
+	public void setPosicion( int i, double x, double y ) {
+		this.x[i] = x;
+		this.y[i] = y;
+	}
+
+	public double getVelocidadX( int i ) {
+		return velX[i];
+	}
+
+	public double getVelocidadY( int i ) {
+		return velY[i];
+	}
+
+	public void setVelocidad( int i, double velX, double velY ) {
+		this.velX[i] = velX;
+		this.velY[i] = velY;
+	}
+
+	public double getAntX( int i ) {
+		return antX[i];
+	}
+
+	public double getAntY( int i ) {
+		return antY[i];
+	}
+
+	public double getMasa( int i ) {
+		return masa[i];
+	}
+
+	public boolean isFijo( int i ) {
+		return fijo[i];
+	}
+
+	/** Define la aceleración adicional a la gravedad de un cuerpo (se mantiene en los pasos siguientes)
+	 * @param i	Índice del cuerpo
+	 * @param acelX	Aceleración horizontal (píxels/seg^2)
+	 * @param acelY	Aceleración vertical (píxels/seg^2)
+	 */
+	public void setAceleracion( int i, double acelX, double acelY ) {
+		this.acelX[i] = acelX;
+		this.acelY[i] = acelY;
+	}
+
+	@Override
+	public String toString() {
+		return "MundoFisico[" + numCuerpos + " cuerpos]";
+	}
+
+	/** Método de prueba: comprueba que el movimiento coincide con el de {@link ObjetoMovil#mueveUnPoco(Limites, double, boolean)}
+	 * y mide el tiempo de paso con 100.000 cuerpos
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) {
+		Random r = new Random( 1 );
+		// 1. Comparación con el movimiento de los objetos
+		Pelota[] pelotas = new Pelota[100];
+		Pelota[] copias = new Pelota[100];
+		MundoFisico mundo = new MundoFisico( 10 );
+		for (int i=0; i<pelotas.length; i++) {
+			double px = r.nextDouble()*1000, py = r.nextDouble()*1000;
+			pelotas[i] = new Pelota( px, py, 10, Color.blue, true );
+			copias[i] = new Pelota( px, py, 10, Color.blue, true );
+			pelotas[i].setVelocidad( r.nextDouble()*200-100, r.nextDouble()*200-100 );
+			copias[i].setVelocidad( pelotas[i].getVelocidadX(), pelotas[i].getVelocidadY() );
+			mundo.anyade( copias[i] );
+		}
+		for (int paso=0; paso<100; paso++) {
+			for (Pelota p : pelotas) p.mueveUnPoco( null, 16, false );
+			mundo.paso( 16 );
+		}
+		mundo.vuelcaAObjetos();
+		double maxError = 0.0;
+		for (int i=0; i<pelotas.length; i++) {
+			maxError = Math.max( maxError, Math.abs( pelotas[i].getX()-copias[i].getX() ) + Math.abs( pelotas[i].getY()-copias[i].getY() ) );
+			maxError = Math.max( maxError, Math.abs( pelotas[i].getVelocidadY()-copias[i].getVelocidadY() ) );
+		}
+		System.out.println( "Diferencia máxima con mueveUnPoco tras 100 pasos: " + maxError );
+		// 2. Tiempo de paso con muchos cuerpos
+		int numCuerpos = 100000;
+		mundo = new MundoFisico( numCuerpos );
+		for (int i=0; i<numCuerpos; i++) {
+			mundo.anyade( r.nextDouble()*10000, r.nextDouble()*10000, r.nextDouble()*200-100, r.nextDouble()*200-100, 1.0, i%10==0 );
+		}
+		for (int vez=0; vez<5; vez++) {
+			long t0 = System.nanoTime();
+			for (int paso=0; paso<60; paso++) mundo.paso( 1000.0/60 );
+			long t = System.nanoTime() - t0;
+			System.out.println( String.format( "%1$d cuerpos: %2$.3f ms por paso (%3$.1f%% del presupuesto de 60 Hz)", numCuerpos, t/60/1000000.0, t/60/1000000.0*100*60/1000 ) );
+		}
+	}
+
+}
@@ -0,0 +1,162 @@
+package utils.juego2d.utils;
+
+import java.util.Arrays;
+
+import utils.juego2d.pruebas.ObjetoMovil;
+
+/** Conjunto de parejas de objetos sin orden (la pareja a-b es la misma que b-a), para recordar de un paso al siguiente
+ * qué objetos estaban en contacto (por ejemplo en {@link EventosChoque} y en {@link SolverImpulsos}).<br/>
+ * Cada pareja se guarda con los objetos y con sus identificadores ({@link ObjetoMovil#getId()}) en el momento de añadirla,
+ * y solo es la misma pareja si coinciden los dos objetos y los dos identificadores. Como el identificador de un objeto
+ * cambia de generación al quitarlo del mundo, un objeto quitado y reutilizado desde una {@link ReservaObjetos} no
+ * hereda las parejas de su vida anterior (los objetos que no están en unas {@link Entidades} tienen identificador -1
+ * y se distinguen solo por identidad).<br/>
+ * Las parejas se guardan en arrays por índice de llegada (0 a {@link #getNum()}-1, para recorrerlas o guardar datos
+ * asociados en arrays paralelos) y se buscan con una tabla hash abierta de índices, sin crear objetos.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class ParejasObjetos {
+
+	private static final int TAMANYO_INICIAL = 64;
+
+	private int num = 0;
+	private ObjetoMovil[] objeto1 = new ObjetoMovil[TAMANYO_INICIAL];
+	private ObjetoMovil[] objeto2 = new ObjetoMovil[TAMANYO_INICIAL];
+	private int[] id1 = new int[TAMANYO_INICIAL];
+	private int[] id2 = new int[TAMANYO_INICIAL];
+	private int[] tabla = nuevaTabla( TAMANYO_INICIAL*2 );  // Índices de las parejas, -1 = hueco libre
+
+	/** Quita todas las parejas (sin retener los objetos)
+	 */
+	public void limpia() {
+		if (num==0) return;
+		Arrays.fill( tabla, -1 );
+		Arrays.fill( objeto1, 0, num, null );
+		Arrays.fill( objeto2, 0, num, null );
+		num = 0;
+	}
+
+	/** Devuelve el número de parejas
+	 * @return	Número de parejas
+	 */
+	public int getNum() {
+		return num;
+	}
+
+	/** Devuelve la capacidad actual de los arrays de parejas (para dimensionar arrays paralelos de datos asociados)
+	 * @return	Número de parejas que caben sin crecer
+	 */
+	public int getCapacidad() {
+		return objeto1.length;
+	}
+
+	/** Devuelve el primer objeto de una pareja
+	 * @param i	Índice de la pareja (0 a {@link #getNum()}-1)
+	 * @return	Objeto, en el orden en que se añadió
+	 */
+	public ObjetoMovil getObjeto1( int i ) {
+		return objeto1[i];
+	}
+
+	/** Devuelve el segundo objeto de una pareja
+	 * @param i	Índice de la pareja (0 a {@link #getNum()}-1)
+	 * @return	Objeto, en el orden en que se añadió
+	 */
+	public ObjetoMovil getObjeto2( int i ) {
+		return objeto2[i];
+	}
+
+	/** Indica si los dos objetos de una pareja siguen teniendo el identificador que tenían al añadirla
+	 * @param i	Índice de la pareja (0 a {@link #getNum()}-1)
+	 * @return	true si ninguno de los dos se ha quitado del mundo desde entonces (ni se ha reutilizado)
+	 */
+	public boolean isVigente( int i ) {
+		return objeto1[i].getId()==id1[i] && objeto2[i].getId()==id2[i];
+	}
+
+	/** Indica si un objeto es de una pareja (con su identificador actual)
+	 * @param i	Índice de la pareja (0 a {@link #getNum()}-1)
+	 * @param o	Objeto
+	 * @return	true si o es uno de los dos objetos de la pareja y tiene el mismo identificador que al añadirla
+	 */
+	public boolean esDePareja( int i, ObjetoMovil o ) {
+		return (objeto1[i]==o && id1[i]==o.getId()) || (objeto2[i]==o && id2[i]==o.getId());
+	}
+
+	/** Busca una pareja, en cualquier orden
+	 * @param o1	Un objeto
+	 * @param o2	El otro objeto
+	 * @return	Índice de la pareja, -1 si no está
+	 */
+	public int busca( ObjetoMovil o1, ObjetoMovil o2 ) {
+		if (num==0) return -1;
+		int i1 = o1.getId(), i2 = o2.getId();
+		int mascara = tabla.length - 1;
+		int h = hash( o1, i1, o2, i2 ) & mascara;
+		while (tabla[h] != -1) {
+			int p = tabla[h];
+			if ((objeto1[p]==o1 && id1[p]==i1 && objeto2[p]==o2 && id2[p]==i2)
+			 || (objeto1[p]==o2 && id1[p]==i2 && objeto2[p]==o1 && id2[p]==i1)) return p;
+			h = (h+1) & mascara;
+		}
+		return -1;
+	}
+
+	/** Indica si una pareja está, en cualquier orden
+	 * @param o1	Un objeto
+	 * @param o2	El otro objeto
+	 * @return	true si está
+	 */
+	public boolean contiene( ObjetoMovil o1, ObjetoMovil o2 ) {
+		return busca( o1, o2 ) >= 0;
+	}
+
+	/** Añade una pareja si no estaba. Su índice es el último ({@link #getNum()}-1)
+	 * @param o1	Un objeto
+	 * @param o2	El otro objeto
+	 * @return	true si se ha añadido, false si ya estaba
+	 */
+	public boolean anyade( ObjetoMovil o1, ObjetoMovil o2 ) {
+		if (contiene( o1, o2 )) return false;
+		if (num==objeto1.length) {  // Se duplica y se reconstruye la tabla
+			objeto1 = Arrays.copyOf( objeto1, num*2 );
+			objeto2 = Arrays.copyOf( objeto2, num*2 );
+			id1 = Arrays.copyOf( id1, num*2 );
+			id2 = Arrays.copyOf( id2, num*2 );
+			tabla = nuevaTabla( num*4 );
+			for (int p=0; p<num; p++) colocaEnTabla( p );
+		}
+		objeto1[num] = o1;
+		objeto2[num] = o2;
+		id1[num] = o1.getId();
+		id2[num] = o2.getId();
+		colocaEnTabla( num );
+		num++;
+		return true;
+	}
+
+		private void colocaEnTabla( int p ) {
+			int mascara = tabla.length - 1;
+			int h = hash( objeto1[p], id1[p], objeto2[p], id2[p] ) & mascara;
+			while (tabla[h] != -1) h = (h+1) & mascara;
+			tabla[h] = p;
+		}
+
+		private static int[] nuevaTabla( int tam ) {
+			int[] t = new int[tam];
+			Arrays.fill( t, -1 );
+			return t;
+		}
+
+		// Hash simétrico de una pareja (el mismo en los dos órdenes): por identificador, o por identidad si el objeto no tiene
+		private static int hash( ObjetoMovil o1, int id1, ObjetoMovil o2, int id2 ) {
+			int h = mezcla( id1>=0 ? id1 : System.identityHashCode( o1 ) ) + mezcla( id2>=0 ? id2 : System.identityHashCode( o2 ) );
+			return h ^ (h >>> 16);
+		}
+
+		// Reparte los bits de un entero (los identificadores son consecutivos)
+		private static int mezcla( int x ) {
+			return x * 0x9E3779B9;
+		}
+
+}
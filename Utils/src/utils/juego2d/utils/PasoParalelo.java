@@ -0,0 +1,329 @@
+package utils.juego2d.utils;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import utils.juego2d.pruebas.Nave;
+import utils.juego2d.pruebas.ObjetoMovil;
+
+/** Paso de simulación en paralelo sobre un ForkJoinPool con un número de hilos configurable.<br/>
+ * Se paraleliza el movimiento de los objetos, la prueba exacta de choque de las parejas candidatas
+ * (fase estrecha, a partir de las parejas de una {@link RejillaEspacial}) y la aplicación de las respuestas
+ * de {@link Fisica#calcChoqueEntreObjetos(utils.ventanas.ventanaBitmap.VentanaGrafica, ObjetoMovil, ObjetoMovil, double, boolean)}.<br/>
+ * Para que el resultado sea reproducible (e independiente del número de hilos), las parejas que chocan
+ * se reparten en colores: cada pareja recibe un color mayor que el de todas las parejas anteriores
+ * (en el orden de la lista) que comparten alguno de sus objetos no fijos. Los colores se procesan uno detrás de otro
+ * y dentro de un color ninguna pareja comparte objeto, así que cada objeto recibe sus choques
+ * en el mismo orden que en el bucle secuencial.
+ * La lógica de juego asociada a cada choque debe hacerse después, secuencialmente, recorriendo
+ * {@link #getNumChoques()} en orden.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class PasoParalelo {
+
+	/** Número de hilos por defecto (los procesadores disponibles) */
+	public static int NUM_HILOS_POR_DEFECTO = Runtime.getRuntime().availableProcessors();
+
+	/** Tamaño mínimo de cada trozo de trabajo paralelo (por debajo no compensa repartir) */
+	private static int TAMANYO_MINIMO_TAREA = 64;
+
+	/** Movimiento a aplicar a cada objeto en {@link PasoParalelo#mueve(List, Movimiento)}.
+	 * Solo debe modificar el objeto que recibe.
+	 */
+	public static interface Movimiento {
+		void mueve( ObjetoMovil objeto );
+	}
+
+		// Trabajo sobre un rango de índices [desde,hasta)
+		private static interface Tarea {
+			void ejecuta( int desde, int hasta );
+		}
+
+	private int numHilos;
+	private ForkJoinPool pool;  // null si se trabaja con un solo hilo o aún no se ha necesitado
+
+	// Parejas candidatas y resultado de la fase estrecha
+	private RejillaEspacial rejilla;
+	private ListaParejas candidatas;
+	private boolean[] chocaCandidata;
+
+	// Parejas que chocan, su color y el orden de proceso por colores
+	private ListaParejas choques;
+	private Point2D[] vectorChoque;   // Vector de choque en el momento de aplicar la respuesta (null si ya no chocaban)
+	private int[] colorChoque;
+	private int[] ordenPorColor;
+	private int[] inicioColor;
+	private int numColores;
+	private int[] ultimoColorObjeto;  // Por objeto de la rejilla, último color asignado (-1 si ninguno)
+
+	/** Crea un paso paralelo
+	 * @param numHilos	Número de hilos a utilizar (1 para trabajar sin hilos adicionales)
+	 */
+	public PasoParalelo( int numHilos ) {
+		choques = new ListaParejas();
+		chocaCandidata = new boolean[256];
+		vectorChoque = new Point2D[256];
+		colorChoque = new int[256];
+		ordenPorColor = new int[256];
+		inicioColor = new int[16];
+		ultimoColorObjeto = new int[64];
+		setNumHilos( numHilos );
+	}
+
+	/** Crea un paso paralelo con el número de hilos por defecto
+	 */
+	public PasoParalelo() {
+		this( NUM_HILOS_POR_DEFECTO );
+	}
+
+	public int getNumHilos() {
+		return numHilos;
+	}
+
+	/** Cambia el número de hilos (el pool se crea de nuevo al necesitarlo)
+	 * @param numHilos	Número de hilos a utilizar (1 para trabajar sin hilos adicionales)
+	 */
+	public void setNumHilos( int numHilos ) {
+		if (numHilos<1) numHilos = 1;
+		if (numHilos==this.numHilos) return;
+		cierra();
+		this.numHilos = numHilos;
+	}
+
+	/** Libera los hilos del pool. El paso se puede seguir utilizando (se vuelve a crear el pool si hace falta)
+	 */
+	public void cierra() {
+		if (pool!=null) pool.shutdown();
+		pool = null;
+	}
+
+		// Ejecuta la tarea sobre el rango [0,n) repartiéndola entre los hilos
+		private void paraCadaIndice( int n, final Tarea tarea ) {
+			if (n<=0) return;
+			if (numHilos==1 || n<=TAMANYO_MINIMO_TAREA) {
+				tarea.ejecuta( 0, n );
+			} else {
+				if (pool==null) pool = new ForkJoinPool( numHilos );
+				int tamanyo = Math.max( TAMANYO_MINIMO_TAREA, n / (numHilos*4) );
+				pool.invoke( new TrozoTarea( tarea, 0, n, tamanyo ) );
+			}
+		}
+
+		@SuppressWarnings("serial")
+		private static class TrozoTarea extends RecursiveAction {
+			private Tarea tarea;
+			private int desde;
+			private int hasta;
+			private int tamanyo;
+			TrozoTarea( Tarea tarea, int desde, int hasta, int tamanyo ) {
+				this.tarea = tarea; this.desde = desde; this.hasta = hasta; this.tamanyo = tamanyo;
+			}
+			@Override
+			protected void compute() {
+				if (hasta-desde <= tamanyo) {
+					tarea.ejecuta( desde, hasta );
+				} else {
+					int medio = (desde+hasta) >>> 1;
+					invokeAll( new TrozoTarea( tarea, desde, medio, tamanyo ), new TrozoTarea( tarea, medio, hasta, tamanyo ) );
+				}
+			}
+		}
+
+	/** Mueve en paralelo todos los objetos (no nulos) de una lista
+	 * @param objetos	Lista de objetos (no debe cambiar durante el movimiento)
+	 * @param movimiento	Movimiento a aplicar a cada objeto
+	 */
+	public void mueve( final List<? extends ObjetoMovil> objetos, final Movimiento movimiento ) {
+		paraCadaIndice( objetos.size(), new Tarea() {
+			@Override
+			public void ejecuta( int desde, int hasta ) {
+				for (int i=desde; i<hasta; i++) {
+					ObjetoMovil objeto = objetos.get(i);
+					if (objeto!=null) movimiento.mueve( objeto );
+				}
+			}
+		});
+	}
+
+	/** Prueba en paralelo el choque exacto de las parejas candidatas y reparte en colores las que chocan
+	 * @param rejilla	Rejilla en la que están registrados los objetos
+	 * @param candidatas	Parejas candidatas calculadas por la rejilla (ordenadas)
+	 */
+	public void calculaChoques( RejillaEspacial rejilla, ListaParejas candidatas ) {
+		this.rejilla = rejilla;
+		this.candidatas = candidatas;
+		int numCandidatas = candidatas.size();
+		if (chocaCandidata.length < numCandidatas) chocaCandidata = new boolean[Math.max( numCandidatas, chocaCandidata.length*2 )];
+		// 1. Fase estrecha en paralelo (solo lectura de los objetos)
+		paraCadaIndice( numCandidatas, faseEstrecha );
+		// 2. Lista ordenada de parejas que chocan
+		choques.limpia();
+		for (int k=0; k<numCandidatas; k++) {
+			if (chocaCandidata[k]) choques.anyade( candidatas.getPrimero(k), candidatas.getSegundo(k) );
+		}
+		// 3. Colores (secuencial, en el orden de la lista)
+		int numChoques = choques.size();
+		if (colorChoque.length < numChoques) {
+			int tam = Math.max( numChoques, colorChoque.length*2 );
+			colorChoque = new int[tam];
+			ordenPorColor = new int[tam];
+			vectorChoque = new Point2D[tam];
+		}
+		int numObjetos = rejilla.getNumObjetos();
+		if (ultimoColorObjeto.length < numObjetos) ultimoColorObjeto = new int[Math.max( numObjetos, ultimoColorObjeto.length*2 )];
+		Arrays.fill( ultimoColorObjeto, 0, numObjetos, -1 );
+		numColores = 0;
+		for (int c=0; c<numChoques; c++) {
+			int i = choques.getPrimero(c);
+			int j = choques.getSegundo(c);
+			boolean fijoI = rejilla.getObjeto(i).isFijo();  // Los objetos fijos no cambian en los choques y no obligan a separar
+			boolean fijoJ = rejilla.getObjeto(j).isFijo();
+			int color = 1 + Math.max( fijoI ? -1 : ultimoColorObjeto[i], fijoJ ? -1 : ultimoColorObjeto[j] );
+			if (!fijoI) ultimoColorObjeto[i] = color;
+			if (!fijoJ) ultimoColorObjeto[j] = color;
+			colorChoque[c] = color;
+			if (color+1 > numColores) numColores = color+1;
+		}
+		// 4. Orden por colores (estable: dentro de cada color se mantiene el orden de la lista)
+		if (inicioColor.length < numColores+1) inicioColor = new int[Math.max( numColores+1, inicioColor.length*2 )];
+		Arrays.fill( inicioColor, 0, numColores+1, 0 );
+		for (int c=0; c<numChoques; c++) inicioColor[colorChoque[c]+1]++;
+		for (int color=0; color<numColores; color++) inicioColor[color+1] += inicioColor[color];
+		for (int c=0; c<numChoques; c++) ordenPorColor[inicioColor[colorChoque[c]]++] = c;
+		for (int color=numColores; color>0; color--) inicioColor[color] = inicioColor[color-1];
+		inicioColor[0] = 0;
+	}
+
+		private final Tarea faseEstrecha = new Tarea() {
+			@Override
+			public void ejecuta( int desde, int hasta ) {
+				for (int k=desde; k<hasta; k++) {
+					ObjetoMovil objeto = rejilla.getObjeto( candidatas.getPrimero(k) );
+					ObjetoMovil objeto2 = rejilla.getObjeto( candidatas.getSegundo(k) );
+					chocaCandidata[k] = objeto.chocaConObjeto( objeto2 ) != null;
+				}
+			}
+		};
+
+	/** Aplica las respuestas de choque de las parejas calculadas en {@link #calculaChoques(RejillaEspacial, ListaParejas)},
+	 * color a color. Antes de cada respuesta se vuelve a comprobar el choque con el estado actual de los objetos
+	 * (un choque anterior puede haberlos separado).
+	 * @param milis	Milisegundos del paso de movimiento
+	 */
+	public void aplicaChoques( final double milis ) {
+		for (int color=0; color<numColores; color++) {
+			final int inicio = inicioColor[color];
+			int fin = inicioColor[color+1];
+			paraCadaIndice( fin-inicio, new Tarea() {
+				@Override
+				public void ejecuta( int desde, int hasta ) {
+					for (int p=inicio+desde; p<inicio+hasta; p++) {
+						int c = ordenPorColor[p];
+						ObjetoMovil objeto = rejilla.getObjeto( choques.getPrimero(c) );
+						ObjetoMovil objeto2 = rejilla.getObjeto( choques.getSegundo(c) );
+						Point2D choque = objeto.chocaConObjeto( objeto2 );
+						vectorChoque[c] = choque;
+						if (choque!=null) Fisica.calcChoqueEntreObjetos( null, objeto, objeto2, milis, false );
+					}
+				}
+			});
+		}
+	}
+
+	/** Devuelve el número de parejas que chocan en el último cálculo
+	 * @return	Número de choques
+	 */
+	public int getNumChoques() {
+		return choques.size();
+	}
+
+	/** Devuelve el primer objeto de un choque
+	 * @param c	Índice del choque (0 a getNumChoques()-1, en el orden de las parejas candidatas)
+	 * @return	Primer objeto de la pareja
+	 */
+	public ObjetoMovil getObjeto1( int c ) {
+		return rejilla.getObjeto( choques.getPrimero(c) );
+	}
+
+	/** Devuelve el segundo objeto de un choque
+	 * @param c	Índice del choque (0 a getNumChoques()-1, en el orden de las parejas candidatas)
+	 * @return	Segundo objeto de la pareja
+	 */
+	public ObjetoMovil getObjeto2( int c ) {
+		return rejilla.getObjeto( choques.getSegundo(c) );
+	}
+
+	/** Devuelve el vector de choque con el que se aplicó la respuesta
+	 * @param c	Índice del choque (0 a getNumChoques()-1, en el orden de las parejas candidatas)
+	 * @return	Vector devuelto por chocaConObjeto justo antes de la respuesta, null si al llegar su turno ya no chocaban
+	 */
+	public Point2D getVectorChoque( int c ) {
+		return vectorChoque[c];
+	}
+
+	/** Devuelve el número de colores (fases secuenciales) del último cálculo
+	 * @return	Número de colores
+	 */
+	public int getNumColores() {
+		return numColores;
+	}
+
+	@Override
+	public String toString() {
+		return "PasoParalelo[" + numHilos + " hilos, " + choques.size() + " choques en " + numColores + " colores]";
+	}
+
+	/** Método de prueba: simula naves con distintos números de hilos y comprueba que el resultado es el mismo
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) {
+		Fisica.setGravedad( false );
+		int numNaves = 10000;
+		int numPasos = 100;
+		int[] hilos = { 1, 2, 4, NUM_HILOS_POR_DEFECTO };
+		double[] resultado = null;
+		for (int h : hilos) {
+			Random r = new Random( 1 );
+			ArrayList<Nave> naves = new ArrayList<Nave>();
+			for (int i=0; i<numNaves; i++) {
+				naves.add( new Nave( r.nextDouble()*6000, r.nextDouble()*6000, 10+r.nextDouble()*20, r.nextDouble()*6000, r.nextDouble()*6000, Color.blue ) );
+			}
+			PasoParalelo paso = new PasoParalelo( h );
+			RejillaEspacial rejilla = new RejillaEspacial( 50 );
+			ListaParejas parejas = new ListaParejas();
+			Movimiento mov = new Movimiento() {
+				@Override
+				public void mueve( ObjetoMovil objeto ) {
+					objeto.mueveUnPoco( null, 16, false );
+				}
+			};
+			long choquesTotales = 0;
+			int maxColores = 0;
+			long t0 = System.nanoTime();
+			for (int p=0; p<numPasos; p++) {
+				paso.mueve( naves, mov );
+				rejilla.limpia();
+				for (Nave n : naves) rejilla.anyade( n );
+				rejilla.calculaParejas( parejas );
+				paso.calculaChoques( rejilla, parejas );
+				paso.aplicaChoques( 16 );
+				choquesTotales += paso.getNumChoques();
+				maxColores = Math.max( maxColores, paso.getNumColores() );
+			}
+			long t = System.nanoTime() - t0;
+			double[] estado = new double[numNaves*2];
+			for (int i=0; i<numNaves; i++) { estado[i*2] = naves.get(i).getX(); estado[i*2+1] = naves.get(i).getY(); }
+			boolean igual = resultado==null || Arrays.equals( resultado, estado );
+			if (resultado==null) resultado = estado;
+			System.out.println( String.format( "%1$d hilos: %2$.2f ms por paso, %3$d choques (máx. %4$d colores) - %5$s", h, t/numPasos/1000000.0, choquesTotales, maxColores, igual ? "mismo resultado" : "RESULTADO DISTINTO" ) );
+			paso.cierra();
+		}
+	}
+
+}
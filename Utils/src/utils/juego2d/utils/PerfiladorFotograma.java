@@ -0,0 +1,424 @@
+package utils.juego2d.utils;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import utils.ventanas.ventanaBitmap.VentanaGrafica;
+
+/** Perfilador ligero de las fases de cada fotograma de un bucle de juego (teclado, ratón, mover, corregir, dibujado, espera...).<br/>
+ * Se marca el principio de cada fotograma con {@link #iniciaFotograma()} y el paso de una fase a otra con {@link #fase(int)}:
+ * cada fase dura hasta que empieza la siguiente (o el siguiente fotograma), y si una fase se repite en el mismo fotograma
+ * (por ejemplo varios pasos de física) se acumula. Por cada fase se guardan:
+ * <ul>
+ * <li>El tiempo (System.nanoTime) de los últimos fotogramas, para sus percentiles, y un histograma acumulado en potencias de 2 de microsegundo.</li>
+ * <li>Los bytes reservados por el hilo del bucle (com.sun.management.ThreadMXBean, si la máquina virtual lo permite;
+ * no incluye lo que reserven otros hilos como los de {@link PasoParalelo}).</li>
+ * </ul>
+ * Además se cuentan las parejas candidatas a choque de cada fotograma ({@link #anyadeParejas(int)}).<br/>
+ * Los datos se pueden dibujar sobre la ventana ({@link #dibuja(VentanaGrafica, double, double)}), resumir en una línea
+ * ({@link #getEstadisticas()}) o guardar en CSV ({@link #guardaCSV(String)} y {@link #guardaHistogramaCSV(String)}).
+ * Si el perfilador no está activo, las marcas no hacen nada.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class PerfiladorFotograma {
+
+	/** Fases habituales de los bucles de los mundos de juego2d (para el constructor por defecto) */
+	public static final String[] FASES_JUEGO = { "teclado", "raton", "mover", "corregir", "dibujado", "espera" };
+	/** Índice de la fase de teclado en {@link #FASES_JUEGO} */
+	public static final int TECLADO = 0;
+	/** Índice de la fase de ratón en {@link #FASES_JUEGO} */
+	public static final int RATON = 1;
+	/** Índice de la fase de movimiento en {@link #FASES_JUEGO} */
+	public static final int MOVER = 2;
+	/** Índice de la fase de corrección de choques en {@link #FASES_JUEGO} */
+	public static final int CORREGIR = 3;
+	/** Índice de la fase de dibujado en {@link #FASES_JUEGO} */
+	public static final int DIBUJADO = 4;
+	/** Índice de la fase de espera hasta el siguiente fotograma en {@link #FASES_JUEGO} */
+	public static final int ESPERA = 5;
+
+	/** Número de fotogramas de los que se guardan los datos (para percentiles, dibujado y CSV) */
+	public static final int NUM_FOTOGRAMAS_MEDIDOS = 240;
+	/** Número de cubetas del histograma: la cubeta k cuenta las duraciones de [2^(k-1), 2^k) microsegundos (la 0, menos de 1 microsegundo) */
+	public static final int NUM_CUBETAS = 24;
+
+	private static final Font FUENTE = new Font( "Monospaced", Font.PLAIN, 12 );
+	private static final Color COLOR_FONDO = new Color( 255, 255, 255, 200 );
+	private static final Color[] COLORES_FASE = { Color.gray, Color.orange, Color.blue, Color.red, Color.green.darker(), Color.lightGray, Color.magenta, Color.cyan };
+
+	private final String[] nombresFases;
+	private final int numFases;
+	private boolean activo = false;
+	private com.sun.management.ThreadMXBean mxBean;  // null si no se puede medir la memoria reservada
+	private long idHilo;                             // Hilo del bucle (el que marca los fotogramas)
+
+	// Fotograma en curso
+	private int faseActual = -1;      // -1 si no hay fase abierta
+	private long nanosInicioFase;
+	private long bytesInicioFase;
+	private long[] nanosEnCurso;      // Acumulado por fase en el fotograma en curso
+	private long[] bytesEnCurso;
+	private int parejasEnCurso;
+	private boolean fotogramaIniciado = false;
+
+	// Últimos fotogramas completos (circulares)
+	private long[][] nanosFotograma;  // [fase][fotograma]
+	private long[][] bytesFotograma;
+	private int[] parejasFotograma;
+	private long[] numeroFotograma;
+	private int numFotogramasMedidos;
+	private int posFotograma;
+	private long numFotogramas;       // Fotogramas completos desde el inicio
+	private long[] ordenados;         // Copia para calcular percentiles
+
+	// Histograma acumulado [fase][cubeta]
+	private long[][] histograma;
+
+	/** Crea un perfilador (inactivo) con las fases habituales de juego2d ({@link #FASES_JUEGO})
+	 */
+	public PerfiladorFotograma() {
+		this( FASES_JUEGO );
+	}
+
+	/** Crea un perfilador (inactivo) con las fases indicadas
+	 * @param nombresFases	Nombres de las fases, en el orden de sus índices
+	 */
+	public PerfiladorFotograma( String... nombresFases ) {
+		this.nombresFases = nombresFases.clone();
+		numFases = nombresFases.length;
+		nanosEnCurso = new long[numFases];
+		bytesEnCurso = new long[numFases];
+		nanosFotograma = new long[numFases][NUM_FOTOGRAMAS_MEDIDOS];
+		bytesFotograma = new long[numFases][NUM_FOTOGRAMAS_MEDIDOS];
+		parejasFotograma = new int[NUM_FOTOGRAMAS_MEDIDOS];
+		numeroFotograma = new long[NUM_FOTOGRAMAS_MEDIDOS];
+		ordenados = new long[NUM_FOTOGRAMAS_MEDIDOS];
+		histograma = new long[numFases][NUM_CUBETAS];
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				mxBean = (com.sun.management.ThreadMXBean) bean;
+				if (mxBean.isThreadAllocatedMemorySupported()) {
+					mxBean.setThreadAllocatedMemoryEnabled( true );
+				} else {
+					mxBean = null;
+				}
+			}
+		} catch (Throwable e) {  // Máquina virtual sin las extensiones de com.sun.management
+			mxBean = null;
+		}
+	}
+
+	/** Indica si el perfilador está midiendo
+	 * @return	true si está activo
+	 */
+	public boolean isActivo() {
+		return activo;
+	}
+
+	/** Activa o desactiva el perfilador. Al activarlo se empiezan de cero los datos
+	 * @param activo	true para medir, false para que las marcas no hagan nada
+	 */
+	public void setActivo( boolean activo ) {
+		if (activo && !this.activo) reinicia();
+		this.activo = activo;
+	}
+
+	/** Borra todos los datos medidos
+	 */
+	public void reinicia() {
+		faseActual = -1;
+		fotogramaIniciado = false;
+		Arrays.fill( nanosEnCurso, 0 );
+		Arrays.fill( bytesEnCurso, 0 );
+		parejasEnCurso = 0;
+		for (long[] h : histograma) Arrays.fill( h, 0 );
+		numFotogramasMedidos = 0;
+		posFotograma = 0;
+		numFotogramas = 0;
+		idHilo = Thread.currentThread().getId();
+	}
+
+	/** Devuelve el número de fases
+	 * @return	Número de fases
+	 */
+	public int getNumFases() {
+		return numFases;
+	}
+
+	/** Devuelve el nombre de una fase
+	 * @param fase	Índice de la fase
+	 * @return	Nombre
+	 */
+	public String getNombreFase( int fase ) {
+		return nombresFases[fase];
+	}
+
+	/** Marca el principio de un fotograma: termina la fase abierta y guarda los datos del fotograma anterior
+	 */
+	public void iniciaFotograma() {
+		if (!activo) return;
+		cierraFase( System.nanoTime() );
+		if (fotogramaIniciado) {
+			guardaFotograma();
+		} else {  // Lo medido antes del primer fotograma (activado a medias) no es un fotograma completo
+			Arrays.fill( nanosEnCurso, 0 );
+			Arrays.fill( bytesEnCurso, 0 );
+			parejasEnCurso = 0;
+		}
+		fotogramaIniciado = true;
+		idHilo = Thread.currentThread().getId();
+	}
+
+	/** Marca el principio de una fase (que dura hasta la siguiente marca). Si la fase ya se ha medido en este fotograma, se acumula
+	 * @param fase	Índice de la fase
+	 */
+	public void fase( int fase ) {
+		if (!activo) return;
+		long ahora = System.nanoTime();
+		cierraFase( ahora );
+		faseActual = fase;
+		nanosInicioFase = ahora;
+		bytesInicioFase = bytesReservados();
+	}
+
+	/** Suma parejas candidatas a choque al fotograma en curso
+	 * @param numParejas	Parejas a sumar (por ejemplo el tamaño de la {@link ListaParejas} de cada paso)
+	 */
+	public void anyadeParejas( int numParejas ) {
+		if (!activo) return;
+		parejasEnCurso += numParejas;
+	}
+
+		// Acumula la fase abierta en el fotograma en curso
+		private void cierraFase( long ahora ) {
+			if (faseActual<0) return;
+			nanosEnCurso[faseActual] += ahora - nanosInicioFase;
+			if (mxBean!=null) bytesEnCurso[faseActual] += bytesReservados() - bytesInicioFase;
+			faseActual = -1;
+		}
+
+		private long bytesReservados() {
+			return (mxBean==null) ? 0 : mxBean.getThreadAllocatedBytes( idHilo );
+		}
+
+		// Pasa los acumulados del fotograma en curso a los buffers circulares y al histograma
+		private void guardaFotograma() {
+			for (int f=0; f<numFases; f++) {
+				long nanos = nanosEnCurso[f];
+				nanosFotograma[f][posFotograma] = nanos;
+				bytesFotograma[f][posFotograma] = bytesEnCurso[f];
+				histograma[f][cubeta( nanos )]++;
+				nanosEnCurso[f] = 0;
+				bytesEnCurso[f] = 0;
+			}
+			parejasFotograma[posFotograma] = parejasEnCurso;
+			numeroFotograma[posFotograma] = numFotogramas;
+			parejasEnCurso = 0;
+			numFotogramas++;
+			posFotograma = (posFotograma+1) % NUM_FOTOGRAMAS_MEDIDOS;
+			if (numFotogramasMedidos < NUM_FOTOGRAMAS_MEDIDOS) numFotogramasMedidos++;
+		}
+
+		// Cubeta del histograma de una duración: 0 por debajo de 1 microsegundo, k para [2^(k-1), 2^k) microsegundos
+		private static int cubeta( long nanos ) {
+			long micros = nanos / 1000;
+			int k = 64 - Long.numberOfLeadingZeros( micros );
+			return Math.min( k, NUM_CUBETAS-1 );
+		}
+
+	/** Devuelve el número de fotogramas completos medidos desde que se activó el perfilador
+	 * @return	Número de fotogramas
+	 */
+	public long getNumFotogramas() {
+		return numFotogramas;
+	}
+
+	/** Devuelve un percentil del tiempo de una fase sobre los últimos fotogramas
+	 * @param fase	Índice de la fase
+	 * @param percentil	Percentil a calcular (0 a 100)
+	 * @return	Tiempo en milisegundos (0 si aún no hay fotogramas)
+	 */
+	public double getPercentil( int fase, double percentil ) {
+		if (numFotogramasMedidos==0) return 0.0;
+		System.arraycopy( nanosFotograma[fase], 0, ordenados, 0, numFotogramasMedidos );
+		Arrays.sort( ordenados, 0, numFotogramasMedidos );
+		int pos = (int) Math.ceil( percentil / 100.0 * numFotogramasMedidos ) - 1;
+		if (pos<0) pos = 0;
+		if (pos>=numFotogramasMedidos) pos = numFotogramasMedidos-1;
+		return ordenados[pos] / 1000000.0;
+	}
+
+	/** Devuelve la media de bytes reservados por fotograma en una fase, sobre los últimos fotogramas
+	 * @param fase	Índice de la fase
+	 * @return	Bytes por fotograma (0 si no se puede medir)
+	 */
+	public double getBytesMedios( int fase ) {
+		if (numFotogramasMedidos==0) return 0.0;
+		long suma = 0;
+		for (int i=0; i<numFotogramasMedidos; i++) suma += bytesFotograma[fase][i];
+		return 1.0 * suma / numFotogramasMedidos;
+	}
+
+	/** Devuelve la media de parejas candidatas a choque por fotograma, sobre los últimos fotogramas
+	 * @return	Parejas por fotograma
+	 */
+	public double getParejasMedias() {
+		if (numFotogramasMedidos==0) return 0.0;
+		long suma = 0;
+		for (int i=0; i<numFotogramasMedidos; i++) suma += parejasFotograma[i];
+		return 1.0 * suma / numFotogramasMedidos;
+	}
+
+	/** Indica si se están midiendo los bytes reservados
+	 * @return	true si la máquina virtual permite medirlos
+	 */
+	public boolean isMideMemoria() {
+		return mxBean!=null;
+	}
+
+	/** Devuelve un resumen en una línea de los últimos fotogramas
+	 * @return	Mediana y p95 de cada fase en milisegundos, y parejas por fotograma
+	 */
+	public String getEstadisticas() {
+		StringBuilder sb = new StringBuilder( "Perfil" );
+		for (int f=0; f<numFases; f++) {
+			sb.append( String.format( " %1$s %2$.2f/%3$.2f", nombresFases[f], getPercentil(f,50), getPercentil(f,95) ) );
+		}
+		sb.append( String.format( " ms (p50/p95) - %1$.0f parejas", getParejasMedias() ) );
+		return sb.toString();
+	}
+
+	/** Dibuja los datos de los últimos fotogramas sobre una ventana: por cada fase percentiles, bytes reservados y
+	 * una barra con su tiempo en el último fotograma; debajo, un gráfico apilado del tiempo de las fases en los últimos fotogramas
+	 * @param v	Ventana en la que dibujar
+	 * @param x	Coordenada x de la esquina superior izquierda
+	 * @param y	Coordenada y de la esquina superior izquierda
+	 */
+	public void dibuja( VentanaGrafica v, double x, double y ) {
+		int altoLinea = 15;
+		double anchura = 2 * NUM_FOTOGRAMAS_MEDIDOS;
+		double alturaGrafico = 80;
+		double altura = altoLinea * (numFases + 2) + alturaGrafico + 10;
+		v.dibujaRect( x, y, anchura + 10, altura, 1.0f, Color.gray, COLOR_FONDO );
+		double yl = y + altoLinea;
+		v.dibujaTexto( x+5, yl, String.format( "%1$-10s %2$7s %3$7s %4$7s %5$9s", "fase", "p50 ms", "p95 ms", "p99 ms", isMideMemoria() ? "bytes" : "" ), FUENTE, Color.black );
+		for (int f=0; f<numFases; f++) {
+			yl += altoLinea;
+			v.dibujaTexto( x+5, yl, String.format( "%1$-10s %2$7.2f %3$7.2f %4$7.2f %5$9s", nombresFases[f], getPercentil(f,50), getPercentil(f,95), getPercentil(f,99),
+					isMideMemoria() ? String.format( "%1$.0f", getBytesMedios(f) ) : "" ), FUENTE, COLORES_FASE[f % COLORES_FASE.length] );
+		}
+		yl += altoLinea;
+		v.dibujaTexto( x+5, yl, String.format( "%1$d fotogramas - %2$.0f parejas/fotograma", numFotogramas, getParejasMedias() ), FUENTE, Color.black );
+		// Gráfico apilado: 1 columna de 2 píxels por fotograma, escala de 0 a 33 ms
+		double base = yl + 5 + alturaGrafico;
+		double escala = alturaGrafico / 33.0;
+		for (int i=0; i<numFotogramasMedidos; i++) {
+			int pos = (posFotograma - numFotogramasMedidos + i + NUM_FOTOGRAMAS_MEDIDOS) % NUM_FOTOGRAMAS_MEDIDOS;
+			double yBarra = base;
+			for (int f=0; f<numFases; f++) {
+				double h = Math.min( nanosFotograma[f][pos] / 1000000.0 * escala, yBarra - (base - alturaGrafico) );
+				if (h>0) {
+					v.dibujaRect( x + 5 + 2*i, yBarra - h, 2, h, 0.0f, COLORES_FASE[f % COLORES_FASE.length], COLORES_FASE[f % COLORES_FASE.length] );
+					yBarra -= h;
+				}
+			}
+		}
+		v.dibujaLinea( x+5, base - 16.7*escala, x+5+anchura, base - 16.7*escala, 0.5f, Color.black );  // Referencia de 60 fps
+	}
+
+	/** Guarda en CSV los datos de los últimos fotogramas: una fila por fotograma con el tiempo (ms) y los bytes de cada fase y las parejas
+	 * @param fichero	Nombre del fichero a escribir
+	 * @throws FileNotFoundException	Si no se puede crear el fichero
+	 */
+	public void guardaCSV( String fichero ) throws FileNotFoundException {
+		PrintStream ps = new PrintStream( fichero );
+		try {
+			ps.print( "fotograma" );
+			for (int f=0; f<numFases; f++) ps.print( ";" + nombresFases[f] + "_ms" );
+			for (int f=0; f<numFases; f++) ps.print( ";" + nombresFases[f] + "_bytes" );
+			ps.println( ";parejas" );
+			for (int i=0; i<numFotogramasMedidos; i++) {
+				int pos = (posFotograma - numFotogramasMedidos + i + NUM_FOTOGRAMAS_MEDIDOS) % NUM_FOTOGRAMAS_MEDIDOS;
+				ps.print( numeroFotograma[pos] );
+				for (int f=0; f<numFases; f++) ps.print( ";" + String.format( "%1$.4f", nanosFotograma[f][pos] / 1000000.0 ) );
+				for (int f=0; f<numFases; f++) ps.print( ";" + bytesFotograma[f][pos] );
+				ps.println( ";" + parejasFotograma[pos] );
+			}
+		} finally {
+			ps.close();
+		}
+	}
+
+	/** Guarda en CSV el histograma acumulado de tiempos: una fila por cubeta (límite superior en microsegundos) y una columna por fase
+	 * @param fichero	Nombre del fichero a escribir
+	 * @throws FileNotFoundException	Si no se puede crear el fichero
+	 */
+	public void guardaHistogramaCSV( String fichero ) throws FileNotFoundException {
+		PrintStream ps = new PrintStream( fichero );
+		try {
+			ps.print( "hasta_us" );
+			for (int f=0; f<numFases; f++) ps.print( ";" + nombresFases[f] );
+			ps.println();
+			for (int k=0; k<NUM_CUBETAS; k++) {
+				ps.print( k==NUM_CUBETAS-1 ? "mas" : "" + (1L << k) );
+				for (int f=0; f<numFases; f++) ps.print( ";" + histograma[f][k] );
+				ps.println();
+			}
+		} finally {
+			ps.close();
+		}
+	}
+
+	/** Guarda los dos CSV (últimos fotogramas e histograma) con un prefijo de nombre común
+	 * @param prefijo	Prefijo de los ficheros (se añade ".csv" y "-histograma.csv")
+	 * @return	Mensaje con los ficheros guardados o con el error producido (para mostrarlo en la ventana)
+	 */
+	public String guarda( String prefijo ) {
+		try {
+			guardaCSV( prefijo + ".csv" );
+			guardaHistogramaCSV( prefijo + "-histograma.csv" );
+			return "Perfil guardado en " + prefijo + ".csv y " + prefijo + "-histograma.csv (" + numFotogramasMedidos + " fotogramas)";
+		} catch (FileNotFoundException e) {
+			return "No se ha podido guardar el perfil: " + e.getMessage();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "PerfiladorFotograma[" + getEstadisticas() + "]";
+	}
+
+	/** Método de prueba: perfila un bucle simulado de 300 fotogramas con fases de duración conocida y guarda los CSV
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) throws Exception {
+		PerfiladorFotograma perfil = new PerfiladorFotograma( "calculo", "reserva", "espera" );
+		perfil.setActivo( true );
+		double sumidero = 0;
+		double[][] guardados = new double[100][];
+		for (int i=0; i<300; i++) {
+			perfil.iniciaFotograma();
+			perfil.fase( 0 );
+			for (int j=0; j<200000; j++) sumidero += Math.sqrt( j );
+			perfil.anyadeParejas( 10 + i%5 );
+			perfil.fase( 1 );
+			for (int j=0; j<100; j++) guardados[j] = new double[100];  // Unos 80 KB por fotograma
+			perfil.fase( 2 );
+			Thread.sleep( 2 );
+		}
+		perfil.iniciaFotograma();  // Cierra el último
+		System.out.println( perfil.getEstadisticas() + " (sumidero " + sumidero + ")" );
+		for (int f=0; f<perfil.getNumFases(); f++)
+			System.out.println( String.format( "  %1$-8s %2$10.0f bytes/fotograma", perfil.getNombreFase(f), perfil.getBytesMedios(f) ) );
+		String tmp = System.getProperty( "java.io.tmpdir" );
+		perfil.guardaCSV( tmp + "/perfil.csv" );
+		perfil.guardaHistogramaCSV( tmp + "/perfil_histograma.csv" );
+		System.out.println( "CSV en " + tmp );
+	}
+
+}
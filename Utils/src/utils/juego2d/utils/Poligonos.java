@@ -0,0 +1,318 @@
+package utils.juego2d.utils;
+
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.Random;
+
+/** Propiedades de masa de polígonos (área, centro de masas y momento de inercia) calculadas con primitivos.<br/>
+ * Los polígonos se dan como arrays de coordenadas x e y (un tramo de los arrays por polígono, cerrado implícitamente
+ * del último vértice al primero), pueden ser convexos o cóncavos y estar en cualquier sentido de giro. Todas las
+ * propiedades se calculan en una sola pasada por los vértices y sin reservar memoria, descomponiendo el polígono en
+ * triángulos con signo desde el primer vértice (que también se usa como origen local para no perder precisión con
+ * coordenadas grandes).<br/>
+ * Las propiedades se devuelven en un array de {@link #NUM_PROPIEDADES} valores, en las posiciones {@link #AREA},
+ * {@link #CENTRO_X}, {@link #CENTRO_Y} e {@link #INERCIA}. La inercia es el momento polar de área respecto al centro
+ * de masas (densidad 1): para un objeto de masa m, su momento de inercia es m * INERCIA / AREA.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class Poligonos {
+
+	/** Posición del área (siempre positiva) en el array de propiedades */
+	public static final int AREA = 0;
+	/** Posición de la x del centro de masas en el array de propiedades */
+	public static final int CENTRO_X = 1;
+	/** Posición de la y del centro de masas en el array de propiedades */
+	public static final int CENTRO_Y = 2;
+	/** Posición del momento polar de área respecto al centro de masas en el array de propiedades */
+	public static final int INERCIA = 3;
+	/** Número de propiedades que se calculan de cada polígono */
+	public static final int NUM_PROPIEDADES = 4;
+
+	// Array de coordenadas para recorrer formas (uno por hilo, para no reservarlo en cada llamada)
+	private static final ThreadLocal<double[]> coordsRecorrido = new ThreadLocal<double[]>() {
+		@Override
+		protected double[] initialValue() {
+			return new double[6];
+		}
+	};
+
+	private Poligonos() {}  // Solo métodos estáticos
+
+	/** Calcula el área con signo de un polígono
+	 * @param xs	Coordenadas x de los vértices
+	 * @param ys	Coordenadas y de los vértices
+	 * @param desde	Posición del primer vértice del polígono en los arrays
+	 * @param n	Número de vértices del polígono
+	 * @return	Área, positiva si los vértices van de x hacia y (antihorario en ejes matemáticos, horario en pantalla), negativa en caso contrario. 0 si hay menos de 3 vértices
+	 */
+	public static double areaConSigno( double[] xs, double[] ys, int desde, int n ) {
+		if (n<3) return 0.0;
+		double x0 = xs[desde], y0 = ys[desde];
+		double ax = xs[desde+1] - x0, ay = ys[desde+1] - y0;
+		double suma = 0.0;
+		for (int i=desde+2; i<desde+n; i++) {
+			double bx = xs[i] - x0, by = ys[i] - y0;
+			suma += ax*by - bx*ay;
+			ax = bx; ay = by;
+		}
+		return 0.5 * suma;
+	}
+
+	/** Calcula el área de un polígono
+	 * @param xs	Coordenadas x de los vértices
+	 * @param ys	Coordenadas y de los vértices
+	 * @param desde	Posición del primer vértice del polígono en los arrays
+	 * @param n	Número de vértices del polígono
+	 * @return	Área (positiva)
+	 */
+	public static double area( double[] xs, double[] ys, int desde, int n ) {
+		return Math.abs( areaConSigno( xs, ys, desde, n ) );
+	}
+
+	/** Calcula área, centro de masas y momento de inercia de un polígono
+	 * @param xs	Coordenadas x de los vértices
+	 * @param ys	Coordenadas y de los vértices
+	 * @param desde	Posición del primer vértice del polígono en los arrays
+	 * @param n	Número de vértices del polígono
+	 * @param propiedades	Array en el que se devuelven las propiedades (al menos {@link #NUM_PROPIEDADES} posiciones)
+	 * @return	El mismo array de propiedades
+	 */
+	public static double[] calcula( double[] xs, double[] ys, int desde, int n, double[] propiedades ) {
+		calculaEn( xs, ys, desde, n, propiedades, 0 );
+		return propiedades;
+	}
+
+	/** Calcula área, centro de masas y momento de inercia de varios polígonos guardados de forma consecutiva en los mismos arrays
+	 * @param xs	Coordenadas x de los vértices de todos los polígonos
+	 * @param ys	Coordenadas y de los vértices de todos los polígonos
+	 * @param inicios	Posición del primer vértice de cada polígono, más una posición final: el polígono k va de inicios[k] a inicios[k+1]-1
+	 * @param numPoligonos	Número de polígonos (inicios debe tener al menos numPoligonos+1 posiciones)
+	 * @param propiedades	Array en el que se devuelven las propiedades, {@link #NUM_PROPIEDADES} consecutivas por polígono (las del polígono k empiezan en k*NUM_PROPIEDADES)
+	 */
+	public static void calculaVarios( double[] xs, double[] ys, int[] inicios, int numPoligonos, double[] propiedades ) {
+		for (int k=0; k<numPoligonos; k++) {
+			calculaEn( xs, ys, inicios[k], inicios[k+1] - inicios[k], propiedades, k*NUM_PROPIEDADES );
+		}
+	}
+
+	/** Calcula el área de varios polígonos guardados de forma consecutiva en los mismos arrays
+	 * @param xs	Coordenadas x de los vértices de todos los polígonos
+	 * @param ys	Coordenadas y de los vértices de todos los polígonos
+	 * @param inicios	Posición del primer vértice de cada polígono, más una posición final: el polígono k va de inicios[k] a inicios[k+1]-1
+	 * @param numPoligonos	Número de polígonos (inicios debe tener al menos numPoligonos+1 posiciones)
+	 * @param areas	Array en el que se devuelve el área (positiva) de cada polígono
+	 */
+	public static void areas( double[] xs, double[] ys, int[] inicios, int numPoligonos, double[] areas ) {
+		for (int k=0; k<numPoligonos; k++) {
+			areas[k] = area( xs, ys, inicios[k], inicios[k+1] - inicios[k] );
+		}
+	}
+
+	/** Calcula área, centro de masas y momento de inercia de una forma poligonal (sin curvas) a partir de su recorrido.
+	 * Cada subtrayecto se toma como un polígono cerrado; los subtrayectos en sentido contrario al exterior (agujeros) restan
+	 * @param i	Recorrido de la forma (por ejemplo de un {@link Area} con {@link Area#getPathIterator(java.awt.geom.AffineTransform)})
+	 * @param propiedades	Array en el que se devuelven las propiedades (al menos {@link #NUM_PROPIEDADES} posiciones)
+	 * @return	El mismo array de propiedades
+	 * @throws IllegalArgumentException	Si el recorrido tiene curvas o segmentos sin punto de inicio
+	 */
+	public static double[] calcula( PathIterator i, double[] propiedades ) {
+		double[] coords = coordsRecorrido.get();
+		double sumaA = 0.0, sumaX = 0.0, sumaY = 0.0, sumaI = 0.0;
+		double x0 = Double.NaN, y0 = Double.NaN;   // Origen local (primer punto del recorrido)
+		double inicioX = 0.0, inicioY = 0.0;       // Primer punto del subtrayecto en curso (relativo al origen)
+		double ax = 0.0, ay = 0.0;                 // Último punto (relativo al origen)
+		boolean abierto = false;                   // true si hay un subtrayecto empezado
+		while (!i.isDone()) {
+			int tipo = i.currentSegment( coords );
+			switch (tipo) {
+			case PathIterator.SEG_MOVETO:
+			case PathIterator.SEG_CLOSE:
+				if (abierto) {  // Cierre del subtrayecto anterior (si ya estaba cerrado, la arista es nula)
+					double c = ax*inicioY - inicioX*ay;
+					sumaA += c;
+					sumaX += (ax+inicioX) * c;
+					sumaY += (ay+inicioY) * c;
+					sumaI += c * (ax*ax + ax*inicioX + inicioX*inicioX + ay*ay + ay*inicioY + inicioY*inicioY);
+					abierto = false;
+				}
+				if (tipo==PathIterator.SEG_MOVETO) {
+					if (Double.isNaN(x0)) { x0 = coords[0]; y0 = coords[1]; }
+					inicioX = ax = coords[0] - x0;
+					inicioY = ay = coords[1] - y0;
+					abierto = true;
+				}
+				break;
+			case PathIterator.SEG_LINETO:
+				if (!abierto) throw new IllegalArgumentException( "PathIterator contains an open path" );
+				double bx = coords[0] - x0, by = coords[1] - y0;
+				double c = ax*by - bx*ay;
+				sumaA += c;
+				sumaX += (ax+bx) * c;
+				sumaY += (ay+by) * c;
+				sumaI += c * (ax*ax + ax*bx + bx*bx + ay*ay + ay*by + by*by);
+				ax = bx; ay = by;
+				break;
+			default:
+				throw new IllegalArgumentException( "PathIterator contains curved segments" );
+			}
+			i.next();
+		}
+		if (abierto) {  // Cierre implícito del último subtrayecto
+			double c = ax*inicioY - inicioX*ay;
+			sumaA += c;
+			sumaX += (ax+inicioX) * c;
+			sumaY += (ay+inicioY) * c;
+			sumaI += c * (ax*ax + ax*inicioX + inicioX*inicioX + ay*ay + ay*inicioY + inicioY*inicioY);
+		}
+		if (Double.isNaN(x0)) { x0 = 0.0; y0 = 0.0; }  // Recorrido vacío
+		guardaPropiedades( sumaA, sumaX, sumaY, sumaI, x0, y0, propiedades, 0 );
+		return propiedades;
+	}
+
+	/** Calcula el área de una forma poligonal (sin curvas) a partir de su recorrido
+	 * @param i	Recorrido de la forma
+	 * @return	Área (positiva)
+	 * @throws IllegalArgumentException	Si el recorrido tiene curvas o segmentos sin punto de inicio
+	 */
+	public static double area( PathIterator i ) {
+		double[] coords = coordsRecorrido.get();
+		double suma = 0.0;
+		double inicioX = 0.0, inicioY = 0.0, ax = 0.0, ay = 0.0;
+		boolean abierto = false;
+		while (!i.isDone()) {
+			int tipo = i.currentSegment( coords );
+			switch (tipo) {
+			case PathIterator.SEG_MOVETO:
+			case PathIterator.SEG_CLOSE:
+				if (abierto) {
+					suma += ax*inicioY - inicioX*ay;
+					abierto = false;
+				}
+				if (tipo==PathIterator.SEG_MOVETO) {
+					inicioX = ax = coords[0];
+					inicioY = ay = coords[1];
+					abierto = true;
+				}
+				break;
+			case PathIterator.SEG_LINETO:
+				if (!abierto) throw new IllegalArgumentException( "PathIterator contains an open path" );
+				suma += ax*coords[1] - coords[0]*ay;
+				ax = coords[0]; ay = coords[1];
+				break;
+			default:
+				throw new IllegalArgumentException( "PathIterator contains curved segments" );
+			}
+			i.next();
+		}
+		if (abierto) suma += ax*inicioY - inicioX*ay;
+		return 0.5 * Math.abs( suma );
+	}
+
+		// Calcula las propiedades del polígono de n vértices que empieza en desde, y las guarda a partir de pos
+		private static void calculaEn( double[] xs, double[] ys, int desde, int n, double[] propiedades, int pos ) {
+			if (n<=0) {
+				propiedades[pos+AREA] = 0.0; propiedades[pos+CENTRO_X] = 0.0; propiedades[pos+CENTRO_Y] = 0.0; propiedades[pos+INERCIA] = 0.0;
+				return;
+			}
+			double x0 = xs[desde], y0 = ys[desde];
+			double sumaA = 0.0, sumaX = 0.0, sumaY = 0.0, sumaI = 0.0;
+			if (n>=3) {
+				// Las aristas que tocan al primer vértice (origen local) no aportan: se recorren solo las demás
+				double ax = xs[desde+1] - x0, ay = ys[desde+1] - y0;
+				for (int i=desde+2; i<desde+n; i++) {
+					double bx = xs[i] - x0, by = ys[i] - y0;
+					double c = ax*by - bx*ay;
+					sumaA += c;
+					sumaX += (ax+bx) * c;
+					sumaY += (ay+by) * c;
+					sumaI += c * (ax*ax + ax*bx + bx*bx + ay*ay + ay*by + by*by);
+					ax = bx; ay = by;
+				}
+			}
+			if (sumaA==0.0) {  // Polígono degenerado: el centro es la media de los vértices
+				double mx = 0.0, my = 0.0;
+				for (int i=desde; i<desde+n; i++) { mx += xs[i]; my += ys[i]; }
+				propiedades[pos+AREA] = 0.0; propiedades[pos+CENTRO_X] = mx / n; propiedades[pos+CENTRO_Y] = my / n; propiedades[pos+INERCIA] = 0.0;
+				return;
+			}
+			guardaPropiedades( sumaA, sumaX, sumaY, sumaI, x0, y0, propiedades, pos );
+		}
+
+		// Convierte las sumas de productos cruzados (relativas al origen local x0,y0) en área, centro e inercia respecto al centro
+		private static void guardaPropiedades( double sumaA, double sumaX, double sumaY, double sumaI, double x0, double y0, double[] propiedades, int pos ) {
+			if (sumaA==0.0) {
+				propiedades[pos+AREA] = 0.0; propiedades[pos+CENTRO_X] = x0; propiedades[pos+CENTRO_Y] = y0; propiedades[pos+INERCIA] = 0.0;
+				return;
+			}
+			double area = 0.5 * sumaA;
+			double cx = sumaX / (6.0 * area);
+			double cy = sumaY / (6.0 * area);
+			double inercia = sumaI / 12.0 - area * (cx*cx + cy*cy);  // Steiner: del origen local al centro de masas
+			if (area<0) { area = -area; inercia = -inercia; }  // Sentido de giro contrario: mismas propiedades
+			propiedades[pos+AREA] = area;
+			propiedades[pos+CENTRO_X] = cx + x0;
+			propiedades[pos+CENTRO_Y] = cy + y0;
+			propiedades[pos+INERCIA] = inercia;
+		}
+
+	/** Método de prueba: comprueba las propiedades con figuras conocidas y compara tiempos con el cálculo por áreas
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) {
+		double[] p = new double[NUM_PROPIEDADES];
+		// Rectángulo 40x10 en (100,200): área 400, centro (120,205), inercia 400*(40²+10²)/12
+		calcula( new double[] { 100, 140, 140, 100 }, new double[] { 200, 200, 210, 210 }, 0, 4, p );
+		System.out.printf( "Rectángulo: área %.3f centro (%.3f,%.3f) inercia %.3f (esperado 400, (120,205), %.3f)%n", p[AREA], p[CENTRO_X], p[CENTRO_Y], p[INERCIA], 400*(40*40+10*10)/12.0 );
+		// L cóncava (en sentido horario) formada por dos rectángulos 20x10 y 10x10: área 300, centro ((200*10+100*5)/300, (200*5+100*15)/300)
+		calcula( new double[] { 0, 0, 10, 10, 20, 20 }, new double[] { 0, 20, 20, 10, 10, 0 }, 0, 6, p );
+		System.out.printf( "L cóncava: área %.3f centro (%.3f,%.3f) (esperado 300, (%.3f,%.3f))%n", p[AREA], p[CENTRO_X], p[CENTRO_Y], 2500/300.0, 2500/300.0 );
+		// Cuadrado con agujero a partir de un Area: 100x100 menos 50x50 centrado
+		Area conAgujero = new Area( new java.awt.Rectangle( 0, 0, 100, 100 ) );
+		conAgujero.subtract( new Area( new java.awt.Rectangle( 25, 25, 50, 50 ) ) );
+		calcula( conAgujero.getPathIterator( null ), p );
+		System.out.printf( "Con agujero: área %.3f centro (%.3f,%.3f) inercia %.1f (esperado 7500, (50,50), %.1f)%n", p[AREA], p[CENTRO_X], p[CENTRO_Y], p[INERCIA],
+				10000*(100*100*2)/12.0 - 2500*(50*50*2)/12.0 );
+		// Estrellas aleatorias (cóncavas): área por vértices frente a área por Area
+		Random r = new Random( 1 );
+		int numPoligonos = 10000;
+		int verticesPorPoligono = 16;
+		double[] xs = new double[numPoligonos*verticesPorPoligono];
+		double[] ys = new double[numPoligonos*verticesPorPoligono];
+		int[] inicios = new int[numPoligonos+1];
+		Area[] areas = new Area[numPoligonos];
+		double errorMax = 0.0;
+		for (int k=0; k<numPoligonos; k++) {
+			inicios[k] = k*verticesPorPoligono;
+			double cx = r.nextDouble()*1000, cy = r.nextDouble()*1000;
+			Path2D.Double path = new Path2D.Double();
+			for (int i=0; i<verticesPorPoligono; i++) {
+				double ang = 2*Math.PI*i/verticesPorPoligono;
+				double radio = (i%2==0 ? 20 : 8) + r.nextDouble()*10;
+				xs[inicios[k]+i] = cx + radio*Math.cos(ang);
+				ys[inicios[k]+i] = cy + radio*Math.sin(ang);
+				if (i==0) path.moveTo( xs[inicios[k]+i], ys[inicios[k]+i] ); else path.lineTo( xs[inicios[k]+i], ys[inicios[k]+i] );
+			}
+			path.closePath();
+			areas[k] = new Area( path );
+		}
+		inicios[numPoligonos] = numPoligonos*verticesPorPoligono;
+		double[] propiedades = new double[numPoligonos*NUM_PROPIEDADES];
+		double sumidero = 0.0;
+		for (int prueba=0; prueba<3; prueba++) {
+			long t0 = System.nanoTime();
+			calculaVarios( xs, ys, inicios, numPoligonos, propiedades );
+			long t1 = System.nanoTime();
+			for (int k=0; k<numPoligonos; k++) {
+				double a = Fisica.approxAreaSinCurvas( areas[k] );
+				sumidero += a;
+				errorMax = Math.max( errorMax, Math.abs( a - propiedades[k*NUM_PROPIEDADES+AREA] ) / a );
+			}
+			long t2 = System.nanoTime();
+			System.out.printf( "%d polígonos de %d vértices - Poligonos.calculaVarios: %.1f ns/polígono - approxAreaSinCurvas: %.1f ns/polígono%n",
+					numPoligonos, verticesPorPoligono, (t1-t0)*1.0/numPoligonos, (t2-t1)*1.0/numPoligonos );
+		}
+		System.out.printf( "Error relativo máximo de área: %.2e (sumidero %.1f)%n", errorMax, sumidero );
+	}
+
+}
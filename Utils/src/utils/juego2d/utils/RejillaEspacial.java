@@ -0,0 +1,387 @@
+package utils.juego2d.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import utils.juego2d.pruebas.ObjetoMovil;
+import utils.juego2d.pruebas.Pelota;
+
+/** Rejilla espacial uniforme (spatial hash) para la fase amplia de detección de choques.
+ * Los objetos se registran en la rejilla en cada cálculo y la rejilla devuelve solo las parejas
+ * de objetos cuyas cajas envolventes comparten alguna celda, en lugar de probar todos con todos.
+ * No se devuelven las parejas de objetos en reposo (dormidos entre sí o dormidos con fijos), que no pueden chocar.
+ * El coste es aproximadamente lineal con el número de objetos (si su densidad es parecida).
+ * Todos los datos internos se guardan en arrays de primitivos que se reutilizan entre llamadas.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class RejillaEspacial {
+	private double tamanyoCelda;   // Tamaño del lado de cada celda (píxels)
+	private boolean cajasBarridas; // Si true se usa la caja que cubre todo el último movimiento de cada objeto
+
+	// Objetos registrados y celdas que ocupa cada uno (rango de celdas de su caja envolvente)
+	private ObjetoMovil[] objetos;
+	private int numObjetos;
+	private int[] celdaXMin;
+	private int[] celdaXMax;
+	private int[] celdaYMin;
+	private int[] celdaYMax;
+	private double[] cajaXMin;     // Caja envolvente de cada objeto en el cálculo (la del objeto o la barrida)
+	private double[] cajaXMax;
+	private double[] cajaYMin;
+	private double[] cajaYMax;
+
+	// Tabla hash de celdas: cada cubo es una lista enlazada de entradas (objeto + celda)
+	private int[] cabeza;          // Primera entrada de cada cubo (-1 si está vacío)
+	private int[] siguiente;       // Siguiente entrada del mismo cubo (-1 si no hay)
+	private int[] entradaObjeto;   // Índice de objeto de cada entrada
+	private int[] entradaCX;       // Celda x de cada entrada
+	private int[] entradaCY;       // Celda y de cada entrada
+	private int numEntradas;
+
+	// Objetos fijos de la jerarquía registrados en el cálculo actual (marca de cálculo e índice de registro de cada uno)
+	private int[] marcaEstatico;
+	private int[] registroEstatico;
+	private int marcaActual;
+
+	// Estadísticas
+	private int parejasUltimoCalculo;
+	private long nanosUltimoCalculo;
+	private int parejasFotograma;
+	private long nanosFotograma;
+	private int calculosFotograma;
+
+	/** Crea una rejilla espacial vacía
+	 * @param tamanyoCelda	Tamaño de celda en píxels. Lo más eficiente suele ser un tamaño parecido al de los objetos más habituales.
+	 */
+	public RejillaEspacial( double tamanyoCelda ) {
+		this.tamanyoCelda = tamanyoCelda;
+		objetos = new ObjetoMovil[64];
+		celdaXMin = new int[64];
+		celdaXMax = new int[64];
+		celdaYMin = new int[64];
+		celdaYMax = new int[64];
+		cajaXMin = new double[64];
+		cajaXMax = new double[64];
+		cajaYMin = new double[64];
+		cajaYMax = new double[64];
+		cabeza = new int[256];
+		siguiente = new int[256];
+		entradaObjeto = new int[256];
+		entradaCX = new int[256];
+		entradaCY = new int[256];
+		marcaEstatico = new int[64];
+		registroEstatico = new int[64];
+	}
+
+	public double getTamanyoCelda() {
+		return tamanyoCelda;
+	}
+
+	public void setTamanyoCelda( double tamanyoCelda ) {
+		this.tamanyoCelda = tamanyoCelda;
+	}
+
+	public boolean isCajasBarridas() {
+		return cajasBarridas;
+	}
+
+	/** Activa o desactiva el uso de cajas barridas: la caja de cada objeto pasa a cubrir todo su último movimiento
+	 * (la unión de su caja en la posición anterior y en la actual), para encontrar también las parejas
+	 * que se han cruzado durante el movimiento (ver {@link ChoqueContinuo})
+	 * @param cajasBarridas	true para usar cajas barridas, false para usar las cajas en la posición actual
+	 */
+	public void setCajasBarridas( boolean cajasBarridas ) {
+		this.cajasBarridas = cajasBarridas;
+	}
+
+	/** Quita todos los objetos registrados en la rejilla
+	 */
+	public void limpia() {
+		for (int i=0; i<numObjetos; i++) objetos[i] = null;
+		numObjetos = 0;
+	}
+
+	/** Registra un objeto en la rejilla
+	 * @param objeto	Objeto a registrar (no null)
+	 * @return	Índice del objeto en la rejilla (los índices se asignan consecutivos desde 0 en orden de registro)
+	 */
+	public int anyade( ObjetoMovil objeto ) {
+		if (numObjetos==objetos.length) {
+			int nuevoTam = objetos.length*2;
+			objetos = Arrays.copyOf( objetos, nuevoTam );
+			celdaXMin = Arrays.copyOf( celdaXMin, nuevoTam );
+			celdaXMax = Arrays.copyOf( celdaXMax, nuevoTam );
+			celdaYMin = Arrays.copyOf( celdaYMin, nuevoTam );
+			celdaYMax = Arrays.copyOf( celdaYMax, nuevoTam );
+			cajaXMin = Arrays.copyOf( cajaXMin, nuevoTam );
+			cajaXMax = Arrays.copyOf( cajaXMax, nuevoTam );
+			cajaYMin = Arrays.copyOf( cajaYMin, nuevoTam );
+			cajaYMax = Arrays.copyOf( cajaYMax, nuevoTam );
+		}
+		objetos[numObjetos] = objeto;
+		return numObjetos++;
+	}
+
+	/** Devuelve el número de objetos registrados
+	 * @return	Número de objetos
+	 */
+	public int getNumObjetos() {
+		return numObjetos;
+	}
+
+	/** Devuelve un objeto registrado
+	 * @param indice	Índice del objeto (el devuelto por {@link #anyade(ObjetoMovil)})
+	 * @return	Objeto registrado con ese índice
+	 */
+	public ObjetoMovil getObjeto( int indice ) {
+		return objetos[indice];
+	}
+
+	/** Calcula las parejas candidatas a chocar de los objetos registrados, con sus posiciones actuales.
+	 * Una pareja es candidata si las cajas envolventes de sus objetos (o las barridas, ver {@link #setCajasBarridas(boolean)}) se tocan. Cada pareja se devuelve
+	 * una sola vez, con índices de registro (i,j) siendo i&lt;j, ordenadas como las recorrería un doble bucle i,j.
+	 * @param parejas	Lista en la que se devuelven las parejas (se vacía al principio)
+	 */
+	public void calculaParejas( ListaParejas parejas ) {
+		long inicio = System.nanoTime();
+		parejas.limpia();
+		calculaParejasRejilla( parejas );
+		parejas.ordena();
+		actualizaEstadisticas( parejas, inicio );
+	}
+
+	/** Calcula las parejas candidatas a chocar de los objetos registrados y de estos con los objetos fijos de una jerarquía.
+	 * Los objetos fijos no se registran en la rejilla (no se recorren en cada cálculo): cada objeto registrado que no esté dormido
+	 * consulta la jerarquía con su caja, y los fijos que toca se registran al final de la rejilla (con índices a partir de los
+	 * de los objetos registrados, así que las parejas con fijos tienen siempre el fijo en segundo lugar).
+	 * Después del cálculo, {@link #getObjeto(int)} y {@link #getNumObjetos()} incluyen también esos fijos.
+	 * @param parejas	Lista en la que se devuelven las parejas (se vacía al principio)
+	 * @param estaticos	Jerarquía de los objetos fijos (ya construida). Los objetos fijos no deben estar además registrados en la rejilla
+	 */
+	public void calculaParejas( ListaParejas parejas, JerarquiaEstatica estaticos ) {
+		long inicio = System.nanoTime();
+		parejas.limpia();
+		calculaParejasRejilla( parejas );
+		int numMoviles = numObjetos;
+		if (marcaEstatico.length < estaticos.getNumObjetos()) {
+			marcaEstatico = new int[Math.max( estaticos.getNumObjetos(), marcaEstatico.length*2 )];
+			registroEstatico = new int[marcaEstatico.length];
+			marcaActual = 0;
+		}
+		marcaActual++;
+		for (int i=0; i<numMoviles; i++) {
+			if (objetos[i].isDormido() || objetos[i].isFijo()) continue;  // Dormido con fijo no puede chocar
+			int n = estaticos.consulta( cajaXMin[i], cajaYMin[i], cajaXMax[i], cajaYMax[i] );
+			for (int k=0; k<n; k++) {
+				int e = estaticos.getResultado( k );
+				if (marcaEstatico[e] != marcaActual) {  // Primera vez que se toca en este cálculo: se registra
+					marcaEstatico[e] = marcaActual;
+					ObjetoMovil fijo = estaticos.getObjeto( e );
+					int j = anyade( fijo );
+					cajaXMin[j] = fijo.getXMin();
+					cajaXMax[j] = fijo.getXMax();
+					cajaYMin[j] = fijo.getYMin();
+					cajaYMax[j] = fijo.getYMax();
+					registroEstatico[e] = j;
+				}
+				parejas.anyade( i, registroEstatico[e] );
+			}
+		}
+		parejas.ordena();
+		actualizaEstadisticas( parejas, inicio );
+	}
+
+		// Parejas entre los objetos registrados (sin ordenar)
+		private void calculaParejasRejilla( ListaParejas parejas ) {
+			double inv = 1.0 / tamanyoCelda;
+			// 1.- Cálculo de celdas de cada objeto y número de entradas
+			int totalEntradas = 0;
+			for (int i=0; i<numObjetos; i++) {
+				ObjetoMovil o = objetos[i];
+				cajaXMin[i] = o.getXMin();
+				cajaXMax[i] = o.getXMax();
+				cajaYMin[i] = o.getYMin();
+				cajaYMax[i] = o.getYMax();
+				if (cajasBarridas) {  // La caja en la posición anterior es la actual desplazada
+					double dx = o.getAntX() - o.getX();
+					double dy = o.getAntY() - o.getY();
+					if (dx<0) cajaXMin[i] += dx; else cajaXMax[i] += dx;
+					if (dy<0) cajaYMin[i] += dy; else cajaYMax[i] += dy;
+				}
+				celdaXMin[i] = (int) Math.floor( cajaXMin[i] * inv );
+				celdaXMax[i] = (int) Math.floor( cajaXMax[i] * inv );
+				celdaYMin[i] = (int) Math.floor( cajaYMin[i] * inv );
+				celdaYMax[i] = (int) Math.floor( cajaYMax[i] * inv );
+				totalEntradas += (celdaXMax[i]-celdaXMin[i]+1) * (celdaYMax[i]-celdaYMin[i]+1);
+			}
+			preparaTabla( totalEntradas );
+			// 2.- Inserción de cada objeto en todas las celdas que ocupa
+			int mascara = cabeza.length - 1;
+			for (int i=0; i<numObjetos; i++) {
+				for (int cx=celdaXMin[i]; cx<=celdaXMax[i]; cx++) {
+					for (int cy=celdaYMin[i]; cy<=celdaYMax[i]; cy++) {
+						int cubo = hash( cx, cy ) & mascara;
+						entradaObjeto[numEntradas] = i;
+						entradaCX[numEntradas] = cx;
+						entradaCY[numEntradas] = cy;
+						siguiente[numEntradas] = cabeza[cubo];
+						cabeza[cubo] = numEntradas;
+						numEntradas++;
+					}
+				}
+			}
+			// 3.- Parejas dentro de cada cubo. Para no repetir parejas que comparten varias celdas,
+			// cada pareja solo se informa en la primera celda común (la de menor x e y de la intersección)
+			for (int cubo=0; cubo<cabeza.length; cubo++) {
+				for (int e1=cabeza[cubo]; e1!=-1; e1=siguiente[e1]) {
+					int i = entradaObjeto[e1];
+					int cx = entradaCX[e1];
+					int cy = entradaCY[e1];
+					for (int e2=siguiente[e1]; e2!=-1; e2=siguiente[e2]) {
+						if (entradaCX[e2]!=cx || entradaCY[e2]!=cy) continue;  // Otra celda en el mismo cubo
+						int j = entradaObjeto[e2];
+						if (cx != Math.max( celdaXMin[i], celdaXMin[j] ) || cy != Math.max( celdaYMin[i], celdaYMin[j] )) continue;
+						if (seTocanCajas( i, j ) && !enReposoAmbos( objetos[i], objetos[j] )) parejas.anyade( i, j );
+					}
+				}
+			}
+		}
+
+		private void actualizaEstadisticas( ListaParejas parejas, long inicio ) {
+			nanosUltimoCalculo = System.nanoTime() - inicio;
+			parejasUltimoCalculo = parejas.size();
+			nanosFotograma += nanosUltimoCalculo;
+			parejasFotograma += parejasUltimoCalculo;
+			calculosFotograma++;
+		}
+
+		// Prepara la tabla hash para el número de entradas indicado
+		private void preparaTabla( int totalEntradas ) {
+			if (siguiente.length < totalEntradas) {
+				int nuevoTam = Math.max( totalEntradas, siguiente.length*2 );
+				siguiente = new int[nuevoTam];
+				entradaObjeto = new int[nuevoTam];
+				entradaCX = new int[nuevoTam];
+				entradaCY = new int[nuevoTam];
+			}
+			int numCubos = cabeza.length;
+			while (numCubos < totalEntradas*2) numCubos *= 2;  // Siempre potencia de 2
+			if (numCubos != cabeza.length) cabeza = new int[numCubos];
+			Arrays.fill( cabeza, -1 );
+			numEntradas = 0;
+		}
+
+		private static int hash( int cx, int cy ) {
+			int h = cx * 73856093 ^ cy * 19349663;
+			return h ^ (h >>> 16);
+		}
+
+		private boolean seTocanCajas( int i, int j ) {
+			return cajaXMin[i] <= cajaXMax[j] && cajaXMin[j] <= cajaXMax[i]
+				&& cajaYMin[i] <= cajaYMax[j] && cajaYMin[j] <= cajaYMax[i];
+		}
+
+		// Pareja que no puede chocar porque ninguno se mueve y al menos uno está dormido (dormido con dormido o con fijo)
+		private static boolean enReposoAmbos( ObjetoMovil o1, ObjetoMovil o2 ) {
+			return (o1.isDormido() || o2.isDormido()) && (o1.isDormido() || o1.isFijo()) && (o2.isDormido() || o2.isFijo());
+		}
+
+		private static boolean seTocanCajas( ObjetoMovil o1, ObjetoMovil o2 ) {
+			return o1.getXMin() <= o2.getXMax() && o2.getXMin() <= o1.getXMax()
+				&& o1.getYMin() <= o2.getYMax() && o2.getYMin() <= o1.getYMax();
+		}
+
+	/** Pone a cero las estadísticas acumuladas de fotograma. Se debe llamar al principio de cada fotograma
+	 * si se quieren consultar las estadísticas por fotograma (un fotograma puede hacer varios cálculos de parejas)
+	 */
+	public void iniciaFotograma() {
+		parejasFotograma = 0;
+		nanosFotograma = 0;
+		calculosFotograma = 0;
+	}
+
+	/** Devuelve el número de parejas candidatas del último cálculo
+	 * @return	Número de parejas
+	 */
+	public int getParejasUltimoCalculo() {
+		return parejasUltimoCalculo;
+	}
+
+	/** Devuelve el tiempo del último cálculo de parejas
+	 * @return	Tiempo en nanosegundos
+	 */
+	public long getNanosUltimoCalculo() {
+		return nanosUltimoCalculo;
+	}
+
+	/** Devuelve el número de parejas candidatas acumuladas en el fotograma actual
+	 * @return	Suma de parejas de todos los cálculos desde {@link #iniciaFotograma()}
+	 */
+	public int getParejasFotograma() {
+		return parejasFotograma;
+	}
+
+	/** Devuelve el tiempo acumulado de cálculo de parejas en el fotograma actual
+	 * @return	Suma de nanosegundos de todos los cálculos desde {@link #iniciaFotograma()}
+	 */
+	public long getNanosFotograma() {
+		return nanosFotograma;
+	}
+
+	/** Devuelve el número de cálculos de parejas hechos en el fotograma actual
+	 * @return	Número de llamadas a {@link #calculaParejas(ListaParejas)} desde {@link #iniciaFotograma()}
+	 */
+	public int getCalculosFotograma() {
+		return calculosFotograma;
+	}
+
+	/** Devuelve un texto con las estadísticas del fotograma actual
+	 * @return	Texto con objetos, parejas candidatas (frente a todas con todas) y tiempo de cálculo
+	 */
+	public String getEstadisticasFotograma() {
+		long todas = ((long)numObjetos) * (numObjetos-1) / 2;
+		return String.format( "Objetos: %1$d - Parejas candidatas: %2$d en %3$d cálculos (todos con todos: %4$d por cálculo) - %5$.3f ms",
+				numObjetos, parejasFotograma, calculosFotograma, todas, nanosFotograma/1000000.0 );
+	}
+
+	@Override
+	public String toString() {
+		return "RejillaEspacial[celda=" + tamanyoCelda + ",objetos=" + numObjetos + "]";
+	}
+
+	/** Método de prueba de la clase: compara con el cálculo todos con todos y muestra
+	 * cómo crece el coste con el número de objetos (con densidad constante)
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) {
+		Random r = new Random( 1 );
+		RejillaEspacial rejilla = new RejillaEspacial( 50 );
+		ListaParejas parejas = new ListaParejas();
+		// Comprobación de que devuelve las mismas parejas que la comparación de todos con todos
+		for (int i=0; i<500; i++) rejilla.anyade( new Pelota( r.nextDouble()*1000, r.nextDouble()*1000, 5+r.nextDouble()*20 ) );
+		rejilla.calculaParejas( parejas );
+		int numTodos = 0;
+		boolean correcto = true;
+		for (int i=0; i<rejilla.getNumObjetos(); i++) {
+			for (int j=i+1; j<rejilla.getNumObjetos(); j++) {
+				if (seTocanCajas( rejilla.getObjeto(i), rejilla.getObjeto(j) )) {
+					if (numTodos>=parejas.size() || parejas.getPrimero(numTodos)!=i || parejas.getSegundo(numTodos)!=j) correcto = false;
+					numTodos++;
+				}
+			}
+		}
+		System.out.println( "Parejas rejilla: " + parejas.size() + " - todos con todos: " + numTodos + (correcto && numTodos==parejas.size() ? " - OK" : " - ERROR") );
+		// Escalabilidad: se duplica el número de objetos y el área para mantener la densidad
+		for (int n=1000; n<=64000; n*=2) {
+			double lado = 1000 * Math.sqrt( n / 1000.0 );
+			rejilla.limpia();
+			for (int i=0; i<n; i++) rejilla.anyade( new Pelota( r.nextDouble()*lado, r.nextDouble()*lado, 5+r.nextDouble()*10 ) );
+			for (int i=0; i<20; i++) rejilla.calculaParejas( parejas );  // Calentamiento
+			rejilla.iniciaFotograma();
+			for (int i=0; i<20; i++) rejilla.calculaParejas( parejas );
+			System.out.println( String.format( "n=%1$6d - parejas candidatas: %2$7d - todos con todos: %3$11d - %4$8.3f ms/cálculo",
+					n, parejas.size(), ((long)n)*(n-1)/2, rejilla.getNanosFotograma()/20/1000000.0 ) );
+		}
+	}
+
+}
@@ -0,0 +1,123 @@
+package utils.juego2d.utils;
+
+import utils.juego2d.pruebas.ObjetoMovil;
+
+/** Reserva (pool) de objetos de una clase para reutilizarlos en lugar de crear uno nuevo en cada aparición
+ * y dejar el viejo al recolector de basura (por ejemplo con muchos disparos que aparecen y desaparecen).<br/>
+ * La reserva solo guarda y entrega instancias: quien obtiene un objeto debe reinicializarlo (por ejemplo con
+ * {@link utils.juego2d.pruebas.Nave#inicia(double, double, double, double, double, java.awt.Color)}), y un objeto
+ * devuelto no debe seguir usándose ni referenciándose, porque puede entregarse de nuevo en cualquier momento.
+ * Los objetos se devuelven normalmente de forma automática al quitarlos de un {@link Entidades} en el que esté registrada la reserva.
+ * @param <T>	Clase de los objetos de la reserva (solo se admiten objetos de esa clase exacta, no de sus subclases)
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class ReservaObjetos<T extends ObjetoMovil> {
+
+	/** Número máximo de objetos libres que se guardan por defecto */
+	public static final int MAX_LIBRES_POR_DEFECTO = 4096;
+
+	/** Creador de objetos nuevos cuando la reserva está vacía
+	 * @param <T>	Clase de los objetos
+	 */
+	public interface Fabrica<T> {
+		/** Crea un objeto nuevo (con cualquier estado: se reinicializará antes de usarlo)
+		 * @return	Objeto nuevo
+		 */
+		T crea();
+	}
+
+	private final Class<T> clase;
+	private final Fabrica<T> fabrica;
+	private ObjetoMovil[] libres;  // Pila de objetos libres
+	private int numLibres;
+	private int maxLibres;
+	private long creados = 0;      // Objetos creados por la fábrica
+	private long reutilizados = 0; // Objetos entregados desde la pila de libres
+	private long descartados = 0;  // Objetos devueltos con la reserva llena (se dejan al recolector)
+
+	/** Crea una reserva vacía con el máximo de objetos libres por defecto
+	 * @param clase	Clase exacta de los objetos de la reserva
+	 * @param fabrica	Creador de objetos nuevos cuando no hay libres
+	 */
+	public ReservaObjetos( Class<T> clase, Fabrica<T> fabrica ) {
+		this( clase, fabrica, MAX_LIBRES_POR_DEFECTO );
+	}
+
+	/** Crea una reserva vacía
+	 * @param clase	Clase exacta de los objetos de la reserva
+	 * @param fabrica	Creador de objetos nuevos cuando no hay libres
+	 * @param maxLibres	Número máximo de objetos libres que se guardan (los que se devuelvan de más se descartan)
+	 */
+	public ReservaObjetos( Class<T> clase, Fabrica<T> fabrica, int maxLibres ) {
+		this.clase = clase;
+		this.fabrica = fabrica;
+		this.maxLibres = maxLibres;
+		libres = new ObjetoMovil[ Math.max( 1, Math.min( 64, maxLibres ) ) ];
+		numLibres = 0;
+	}
+
+	/** Devuelve un objeto de la reserva (uno libre si lo hay, o uno nuevo creado con la fábrica)
+	 * @return	Objeto a reinicializar antes de usarlo
+	 */
+	@SuppressWarnings("unchecked")
+	public T obtiene() {
+		if (numLibres>0) {
+			numLibres--;
+			ObjetoMovil o = libres[numLibres];
+			libres[numLibres] = null;
+			reutilizados++;
+			return (T) o;
+		}
+		creados++;
+		return fabrica.crea();
+	}
+
+	/** Devuelve un objeto a la reserva para reutilizarlo más adelante
+	 * @param objeto	Objeto que ya no se va a usar
+	 * @return	true si se ha guardado, false si no es de la clase de la reserva o la reserva está llena
+	 */
+	public boolean devuelve( ObjetoMovil objeto ) {
+		if (objeto==null || objeto.getClass()!=clase) return false;
+		if (numLibres>=maxLibres) {
+			descartados++;
+			return false;
+		}
+		if (numLibres==libres.length) {
+			ObjetoMovil[] nuevo = new ObjetoMovil[ Math.min( maxLibres, libres.length*2 ) ];
+			System.arraycopy( libres, 0, nuevo, 0, numLibres );
+			libres = nuevo;
+		}
+		libres[numLibres++] = objeto;
+		return true;
+	}
+
+	/** Descarta todos los objetos libres (los deja al recolector de basura)
+	 */
+	public void vacia() {
+		for (int i=0; i<numLibres; i++) libres[i] = null;
+		numLibres = 0;
+	}
+
+	/** Devuelve la clase de los objetos de la reserva
+	 * @return	Clase exacta admitida
+	 */
+	public Class<T> getClase() {
+		return clase;
+	}
+
+	/** Devuelve el número de objetos libres guardados
+	 * @return	Objetos disponibles sin crear
+	 */
+	public int getNumLibres() {
+		return numLibres;
+	}
+
+	/** Devuelve las estadísticas de uso de la reserva
+	 * @return	Texto con objetos libres, creados, reutilizados y descartados
+	 */
+	public String getEstadisticas() {
+		return clase.getSimpleName() + " " + numLibres + " libres (" + creados + " creados, " + reutilizados + " reutilizados"
+				+ (descartados>0 ? ", " + descartados + " descartados" : "") + ")";
+	}
+
+}
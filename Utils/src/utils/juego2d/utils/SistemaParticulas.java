@@ -0,0 +1,311 @@
+package utils.juego2d.utils;
+
+import java.awt.GraphicsEnvironment;
+import java.util.Random;
+
+import utils.ventanas.ventanaBitmap.VentanaGrafica;
+
+/** Sistema de partículas para efectos visuales de muchos elementos de vida corta (restos de explosiones, estelas...).<br/>
+ * Las partículas no son {@link utils.juego2d.pruebas.ObjetoMovil}: se guardan en arrays de tipos primitivos (posición,
+ * velocidad, vida y color) usados como buffer circular, así que emitir y mover partículas no reserva memoria.
+ * Cada partícula nueva ocupa la ranura siguiente a la última emitida, y si el buffer está lleno sustituye a la más antigua.
+ * Las ranuras se liberan en orden de emisión, así que la capacidad debe ser al menos las partículas emitidas durante
+ * la vida más larga (si todas viven lo mismo, el número máximo de vivas).
+ * Las partículas no chocan ni influyen en la simulación: solo se mueven con una aceleración y un rozamiento comunes
+ * y se van haciendo transparentes hasta desaparecer al terminar su vida.<br/>
+ * Todas se dibujan de una vez escribiendo directamente en los píxels de la ventana
+ * ({@link VentanaGrafica#dibujaPuntos(float[], float[], int[], int, int, int)}).
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class SistemaParticulas {
+
+	/** Capacidad por defecto (partículas vivas a la vez) */
+	public static final int CAPACIDAD_POR_DEFECTO = 1 << 17;  // 131072
+
+	private final int capacidad;   // Potencia de 2
+	private final int mascara;     // capacidad-1, para dar la vuelta al buffer circular
+	private final float[] x;
+	private final float[] y;
+	private final float[] vx;      // Píxels por segundo
+	private final float[] vy;
+	private final float[] vida;    // Milisegundos que le quedan (<= 0 si está muerta)
+	private final float[] inversoVidaInicial;  // 1 / milisegundos de vida al emitirla (para calcular la transparencia)
+	private final int[] color;     // RGB
+	private final int[] colorDibujo;  // ARGB de cada partícula en el último dibujado
+	private int primera = 0;       // Ranura de la partícula más antigua
+	private int numOcupadas = 0;   // Ranuras desde la más antigua hasta la última emitida (puede haber muertas entre medias)
+	private int numVivas = 0;      // Partículas vivas tras el último movimiento (más las emitidas después)
+	private float aceleracionX = 0.0f;  // Píxels por segundo al cuadrado
+	private float aceleracionY = 0.0f;
+	private float rozamiento = 0.0f;    // Fracción de velocidad que se pierde por segundo
+	private long emitidas = 0;
+	private long sustituidas = 0;  // Partículas vivas sustituidas por otras nuevas con el buffer lleno
+	private Random random = new Random();
+
+	/** Crea un sistema de partículas vacío con la capacidad por defecto
+	 */
+	public SistemaParticulas() {
+		this( CAPACIDAD_POR_DEFECTO );
+	}
+
+	/** Crea un sistema de partículas vacío
+	 * @param capacidad	Número máximo de partículas vivas a la vez (se redondea a la siguiente potencia de 2)
+	 */
+	public SistemaParticulas( int capacidad ) {
+		int cap = Integer.highestOneBit( Math.max( 2, capacidad ) );
+		if (cap < capacidad) cap <<= 1;
+		this.capacidad = cap;
+		mascara = cap - 1;
+		x = new float[cap];
+		y = new float[cap];
+		vx = new float[cap];
+		vy = new float[cap];
+		vida = new float[cap];
+		inversoVidaInicial = new float[cap];
+		color = new int[cap];
+		colorDibujo = new int[cap];
+	}
+
+	/** Cambia la aceleración común de todas las partículas (por defecto ninguna)
+	 * @param aceleracionX	Aceleración horizontal en píxels/sg²
+	 * @param aceleracionY	Aceleración vertical en píxels/sg² (positiva hacia abajo)
+	 */
+	public void setAceleracion( double aceleracionX, double aceleracionY ) {
+		this.aceleracionX = (float) aceleracionX;
+		this.aceleracionY = (float) aceleracionY;
+	}
+
+	/** Cambia el rozamiento de todas las partículas (por defecto ninguno)
+	 * @param rozamiento	Fracción de la velocidad que se pierde en cada segundo (0.0 a 1.0)
+	 */
+	public void setRozamiento( double rozamiento ) {
+		this.rozamiento = (float) Math.max( 0.0, Math.min( 1.0, rozamiento ) );
+	}
+
+	/** Cambia la semilla de los números aleatorios de las explosiones
+	 * @param semilla	Semilla
+	 */
+	public void setSemilla( long semilla ) {
+		random = new Random( semilla );
+	}
+
+	public int getCapacidad() {
+		return capacidad;
+	}
+
+	/** Devuelve el número de partículas vivas
+	 * @return	Partículas vivas tras el último movimiento, más las emitidas después
+	 */
+	public int getNumVivas() {
+		return numVivas;
+	}
+
+	/** Emite una partícula (si el buffer está lleno sustituye a la más antigua)
+	 * @param x	Coordenada x de partida en píxels
+	 * @param y	Coordenada y de partida en píxels
+	 * @param vx	Velocidad horizontal en píxels/sg
+	 * @param vy	Velocidad vertical en píxels/sg
+	 * @param vidaMilis	Duración de la partícula en milisegundos
+	 * @param rgb	Color de la partícula (RGB, sin transparencia)
+	 */
+	public void emite( double x, double y, double vx, double vy, double vidaMilis, int rgb ) {
+		if (vidaMilis <= 0) return;
+		int i = (primera + numOcupadas) & mascara;
+		if (numOcupadas==capacidad) {  // Buffer lleno: se sustituye la más antigua
+			primera = (primera + 1) & mascara;
+			if (vida[i] > 0) { sustituidas++; numVivas--; }
+		} else {
+			numOcupadas++;
+		}
+		this.x[i] = (float) x;
+		this.y[i] = (float) y;
+		this.vx[i] = (float) vx;
+		this.vy[i] = (float) vy;
+		vida[i] = (float) vidaMilis;
+		inversoVidaInicial[i] = (float) (1.0 / vidaMilis);
+		color[i] = rgb & 0xFFFFFF;
+		numVivas++;
+		emitidas++;
+	}
+
+	/** Emite una explosión de partículas desde un punto, en todas las direcciones
+	 * @param x	Coordenada x del centro en píxels
+	 * @param y	Coordenada y del centro en píxels
+	 * @param num	Número de partículas
+	 * @param velMaxima	Velocidad máxima de las partículas en píxels/sg (cada una sale con una velocidad aleatoria hasta esa)
+	 * @param vidaMilis	Duración máxima de las partículas en milisegundos (cada una dura entre la mitad y esa)
+	 * @param rgb	Color de las partículas (RGB, sin transparencia)
+	 */
+	public void explosion( double x, double y, int num, double velMaxima, double vidaMilis, int rgb ) {
+		explosion( x, y, 0.0, 0.0, num, velMaxima, vidaMilis, rgb );
+	}
+
+	/** Emite una explosión de partículas desde un punto en movimiento (las partículas heredan su velocidad)
+	 * @param x	Coordenada x del centro en píxels
+	 * @param y	Coordenada y del centro en píxels
+	 * @param vx	Velocidad horizontal del centro en píxels/sg
+	 * @param vy	Velocidad vertical del centro en píxels/sg
+	 * @param num	Número de partículas
+	 * @param velMaxima	Velocidad máxima de las partículas respecto al centro en píxels/sg
+	 * @param vidaMilis	Duración máxima de las partículas en milisegundos (cada una dura entre la mitad y esa)
+	 * @param rgb	Color de las partículas (RGB, sin transparencia)
+	 */
+	public void explosion( double x, double y, double vx, double vy, int num, double velMaxima, double vidaMilis, int rgb ) {
+		for (int p=0; p<num; p++) {
+			double angulo = random.nextDouble() * 2 * Math.PI;
+			double vel = velMaxima * Math.sqrt( random.nextDouble() );  // Reparto uniforme en el círculo de velocidades
+			emite( x, y, vx + vel*Math.cos(angulo), vy + vel*Math.sin(angulo), vidaMilis * (0.5 + 0.5*random.nextDouble()), rgb );
+		}
+	}
+
+	/** Mueve todas las partículas vivas y les resta vida
+	 * @param milis	Milisegundos transcurridos
+	 */
+	public void mueve( double milis ) {
+		if (numOcupadas==0) return;
+		float dt = (float) (milis / 1000.0);
+		float ax = aceleracionX * dt;
+		float ay = aceleracionY * dt;
+		float factor = (rozamiento==0.0f) ? 1.0f : (float) Math.pow( 1.0 - rozamiento, dt );
+		float resta = (float) milis;
+		int fin = primera + numOcupadas;
+		numVivas = 0;
+		if (fin <= capacidad) {
+			mueveTramo( primera, fin, dt, ax, ay, factor, resta );
+		} else {  // El buffer circular da la vuelta: dos tramos seguidos
+			mueveTramo( primera, capacidad, dt, ax, ay, factor, resta );
+			mueveTramo( 0, fin & mascara, dt, ax, ay, factor, resta );
+		}
+		// Se liberan las ranuras de las más antiguas que ya han muerto
+		while (numOcupadas>0 && vida[primera]<=0) {
+			primera = (primera + 1) & mascara;
+			numOcupadas--;
+		}
+		if (numOcupadas==0) primera = 0;
+	}
+
+		// Bucle simple sobre ranuras consecutivas (el compilador JIT lo optimiza mejor que con el índice circular)
+		private void mueveTramo( int desde, int hasta, float dt, float ax, float ay, float factor, float resta ) {
+			int vivas = 0;
+			for (int i=desde; i<hasta; i++) {
+				if (vida[i] > 0) {
+					float nvx = (vx[i] + ax) * factor;
+					float nvy = (vy[i] + ay) * factor;
+					vx[i] = nvx;
+					vy[i] = nvy;
+					x[i] += nvx * dt;
+					y[i] += nvy * dt;
+					vida[i] -= resta;
+					if (vida[i] > 0) vivas++;
+				}
+			}
+			numVivas += vivas;
+		}
+
+	/** Dibuja todas las partículas vivas en la ventana, más transparentes cuanto menos vida les queda
+	 * @param v	Ventana en la que dibujar
+	 * @param lado	Tamaño de cada partícula en píxels (cuadrados de lado x lado)
+	 */
+	public void dibuja( VentanaGrafica v, int lado ) {
+		if (numOcupadas==0) return;
+		int fin = primera + numOcupadas;
+		if (fin <= capacidad) {
+			preparaColores( primera, fin );
+			v.dibujaPuntos( x, y, colorDibujo, primera, fin, lado );
+		} else {
+			preparaColores( primera, capacidad );
+			preparaColores( 0, fin & mascara );
+			v.dibujaPuntos( x, y, colorDibujo, primera, capacidad, lado );
+			v.dibujaPuntos( x, y, colorDibujo, 0, fin & mascara, lado );
+		}
+	}
+
+		// Color con transparencia de cada partícula según la vida que le queda (transparente del todo si está muerta)
+		private void preparaColores( int desde, int hasta ) {
+			for (int i=desde; i<hasta; i++) {
+				float fraccion = vida[i] * inversoVidaInicial[i];
+				if (fraccion <= 0) {
+					colorDibujo[i] = 0;
+				} else {
+					int alfa = (fraccion >= 1.0f) ? 255 : (int) (fraccion * 255);
+					colorDibujo[i] = (alfa << 24) | color[i];
+				}
+			}
+		}
+
+	/** Quita todas las partículas
+	 */
+	public void vacia() {
+		for (int i=0; i<capacidad; i++) vida[i] = 0;
+		primera = 0;
+		numOcupadas = 0;
+		numVivas = 0;
+	}
+
+	/** Devuelve las estadísticas del sistema de partículas
+	 * @return	Texto con partículas vivas, capacidad, emitidas y sustituidas con el buffer lleno
+	 */
+	public String getEstadisticas() {
+		return "Partículas " + numVivas + "/" + capacidad + " (" + emitidas + " emitidas"
+				+ (sustituidas>0 ? ", " + sustituidas + " sustituidas" : "") + ")";
+	}
+
+	/** Prueba de rendimiento: mantiene 100.000 partículas vivas con explosiones continuas, sin ventana (solo movimiento
+	 * y cálculo de colores) y, si hay pantalla, dibujándolas en una ventana a 60 fotogramas por segundo
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) {
+		final int NUM_PARTICULAS = 100000;
+		final int MILIS_FOTOGRAMA = 16;
+		final int VIDA = 2000;
+		final int FOTOGRAMAS = 600;
+		// Cada fotograma se emiten las que mueren para mantener el número de vivas (vida media 3/4 de VIDA)
+		final int POR_FOTOGRAMA = NUM_PARTICULAS * MILIS_FOTOGRAMA / (VIDA*3/4);
+		SistemaParticulas particulas = new SistemaParticulas( 2*NUM_PARTICULAS );  // Con vidas de VIDA/2 a VIDA se ocupan 4/3 ranuras por viva
+		particulas.setSemilla( 1 );
+		particulas.setAceleracion( 0, 50 );
+		particulas.setRozamiento( 0.5 );
+		Random r = new Random( 1 );
+		while (particulas.getNumVivas() < NUM_PARTICULAS)
+			particulas.explosion( r.nextInt(1000), r.nextInt(800), 1000, 300, VIDA, r.nextInt() );
+		long nanosMover = 0, nanosColores = 0;
+		for (int f=0; f<FOTOGRAMAS; f++) {
+			long t0 = System.nanoTime();
+			particulas.explosion( r.nextInt(1000), r.nextInt(800), POR_FOTOGRAMA, 300, VIDA, r.nextInt() );
+			particulas.mueve( MILIS_FOTOGRAMA );
+			long t1 = System.nanoTime();
+			int fin = particulas.primera + particulas.numOcupadas;
+			particulas.preparaColores( particulas.primera, Math.min( fin, particulas.capacidad ) );
+			if (fin > particulas.capacidad) particulas.preparaColores( 0, fin & particulas.mascara );
+			nanosMover += t1 - t0;
+			nanosColores += System.nanoTime() - t1;
+		}
+		System.out.println( String.format( "Sin ventana: %1$d fotogramas, %2$.3f ms de movimiento y %3$.3f ms de colores por fotograma",
+				FOTOGRAMAS, nanosMover/1E6/FOTOGRAMAS, nanosColores/1E6/FOTOGRAMAS ) );
+		System.out.println( particulas.getEstadisticas() );
+		if (GraphicsEnvironment.isHeadless()) return;
+		VentanaGrafica v = new VentanaGrafica( 1000, 800, "Sistema de partículas" );
+		v.setDibujadoInmediato( false );
+		long inicio = System.currentTimeMillis();
+		long nanosDibujo = 0;
+		int fotogramas = 0;
+		while (!v.estaCerrada() && fotogramas<FOTOGRAMAS) {
+			long t0 = System.nanoTime();
+			particulas.explosion( r.nextInt(1000), r.nextInt(800), POR_FOTOGRAMA, 300, VIDA, r.nextInt() );
+			particulas.mueve( MILIS_FOTOGRAMA );
+			v.borra();
+			particulas.dibuja( v, 2 );
+			v.repaint();
+			nanosDibujo += System.nanoTime() - t0;
+			fotogramas++;
+			long espera = inicio + fotogramas*MILIS_FOTOGRAMA - System.currentTimeMillis();
+			if (espera>0) v.espera( espera );
+		}
+		long milis = System.currentTimeMillis() - inicio;
+		String resultado = String.format( "%1$d fotogramas en %2$.1f s (%3$.1f fps), %4$.2f ms de cálculo y dibujado por fotograma",
+				fotogramas, milis/1000.0, fotogramas*1000.0/milis, nanosDibujo/1E6/fotogramas );
+		v.setMensaje( resultado );
+		System.out.println( resultado );
+	}
+
+}
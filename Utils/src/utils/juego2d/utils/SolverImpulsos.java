@@ -0,0 +1,423 @@
+package utils.juego2d.utils;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import utils.juego2d.pruebas.Bloque;
+import utils.juego2d.pruebas.Nave;
+import utils.juego2d.pruebas.ObjetoMovil;
+import utils.juego2d.pruebas.Pelota;
+
+/** Resolución de choques por impulsos secuenciales (alternativa a {@link Fisica#calcChoqueEntreObjetos(utils.ventanas.ventanaBitmap.VentanaGrafica, ObjetoMovil, ObjetoMovil, double, boolean)}).<br/>
+ * En lugar de resolver cada pareja por separado (y de una vez) con coordenadas polares, se recogen todos los contactos
+ * del paso en arrays (normal, penetración, masas inversas) y se resuelven juntos iterando: en cada iteración se aplica a cada
+ * contacto el impulso normal que anula su velocidad relativa de acercamiento (o la convierte en rebote), acumulando
+ * el impulso total del contacto y sin dejar que sea negativo (los contactos solo empujan). Así los contactos que comparten
+ * objeto (una pila de pelotas, varias naves juntas) se reparten el impulso y convergen a una solución común.<br/>
+ * Los contactos que se mantienen de un paso al siguiente empiezan con el impulso del paso anterior (calentamiento),
+ * con lo que los contactos en reposo convergen en muy pocas iteraciones. Las parejas del paso anterior se buscan por objetos
+ * e identificadores ({@link ParejasObjetos}), así que un objeto reutilizado desde una reserva no hereda el impulso de otra vida.<br/>
+ * Después de las velocidades se corrige la posición: se separa cada pareja una fracción de su penetración (dejando una holgura),
+ * repartida según las masas inversas, en lugar del 110% que usa el cálculo pareja a pareja (que provoca temblor en las pilas).<br/>
+ * Soporta parejas pelota-pelota, nave-nave y pelota-bloque (los objetos fijos tienen masa infinita). El resto de parejas
+ * (por ejemplo las del UDcito, que tienen su propia lógica) se siguen calculando con {@link Fisica}.
+ * Uso en cada paso: {@link #iniciaPaso()}, {@link #anyadeContacto(ObjetoMovil, ObjetoMovil, Point2D)} por cada choque y {@link #resuelve()}.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class SolverImpulsos {
+
+	/** Número máximo de iteraciones de velocidad por paso */
+	public static int ITERACIONES_POR_DEFECTO = 10;
+	/** Cambio de velocidad máximo (píxels/segundo) en una iteración por debajo del cual se considera que ya se ha convergido */
+	public static double TOLERANCIA_CONVERGENCIA = 0.5;
+	/** Coeficiente de restitución de los choques entre objetos (1.0 = elástico, como en {@link Fisica#calcChoque(double, double, double, double)}) */
+	public static double RESTITUCION = 1.0;
+	/** Velocidad de acercamiento (píxels/segundo) por debajo de la cual no hay rebote (los contactos lentos se quedan apoyados).
+	 * Tiene que superar lo que acelera la gravedad en un paso (9800 px/s2 * 16 ms = 157 px/s), o los objetos apoyados rebotan en cada paso */
+	public static double VEL_MINIMA_REBOTE = 200.0;
+	/** Penetración (píxels) que se permite sin corregir posición, para que los contactos apoyados no tiemblen */
+	public static double HOLGURA_PENETRACION = 0.5;
+	/** Fracción de la penetración (por encima de la holgura) que se corrige en cada iteración de posición */
+	public static double FACTOR_CORRECCION = 0.8;
+	/** Número de iteraciones de corrección de posición por paso (en una pila cada corrección desplaza a los contactos vecinos) */
+	public static int ITERACIONES_POSICION = 4;
+
+	private static final int TAMANYO_INICIAL = 64;
+
+	// Contactos del paso en curso (estructura de arrays)
+	private int numContactos;
+	private ObjetoMovil[] objeto1;
+	private ObjetoMovil[] objeto2;
+	private double[] normalX;        // Normal unitaria de objeto1 a objeto2
+	private double[] normalY;
+	private double[] penetracion;    // Penetración al detectar el choque
+	private double[] relX;           // Posición de objeto2 respecto a objeto1 al detectar el choque (para recalcular la penetración)
+	private double[] relY;
+	private double[] masaInv1;       // 0 si el objeto es fijo
+	private double[] masaInv2;
+	private double[] masaNormal;     // Masa efectiva en la dirección normal: 1 / (masaInv1 + masaInv2)
+	private double[] velObjetivo;    // Velocidad relativa normal buscada (rebote o 0)
+	private double[] impulso;        // Impulso normal acumulado (siempre >= 0)
+
+	// Contactos del paso anterior para el calentamiento, con su impulso (por índice de pareja)
+	private ParejasObjetos anteriores;
+	private double[] impulsoAnterior;
+
+	private int iteracionesMax;
+	private boolean calentamiento;
+
+	// Métricas del último paso
+	private int iteraciones;
+	private double residuo;
+	private int numCalentados;
+	private long nanosIteraciones;
+
+	// Normal calculada en anyadeContacto
+	private double nX, nY, pen;
+
+	/** Crea un solver con el número de iteraciones por defecto y calentamiento activo
+	 */
+	public SolverImpulsos() {
+		this( ITERACIONES_POR_DEFECTO );
+	}
+
+	/** Crea un solver con calentamiento activo
+	 * @param iteracionesMax	Número máximo de iteraciones de velocidad por paso
+	 */
+	public SolverImpulsos( int iteracionesMax ) {
+		this.iteracionesMax = iteracionesMax;
+		calentamiento = true;
+		redimensiona( TAMANYO_INICIAL );
+		anteriores = new ParejasObjetos();
+		impulsoAnterior = new double[anteriores.getCapacidad()];
+	}
+
+	public int getIteracionesMax() {
+		return iteracionesMax;
+	}
+
+	public void setIteracionesMax( int iteracionesMax ) {
+		this.iteracionesMax = iteracionesMax;
+	}
+
+	public boolean isCalentamiento() {
+		return calentamiento;
+	}
+
+	/** Activa o desactiva el calentamiento (empezar cada contacto con el impulso que tuvo en el paso anterior)
+	 * @param calentamiento	true para activarlo, false para empezar siempre de cero
+	 */
+	public void setCalentamiento( boolean calentamiento ) {
+		this.calentamiento = calentamiento;
+	}
+
+	/** Indica si el solver sabe resolver el choque entre dos objetos (si no, se debe calcular con {@link Fisica})
+	 * @param o1	Objeto 1
+	 * @param o2	Objeto 2
+	 * @return	true si la pareja es pelota-pelota, nave-nave o pelota-bloque (en cualquier orden)
+	 */
+	public static boolean soportaPareja( ObjetoMovil o1, ObjetoMovil o2 ) {
+		if (o1 instanceof Pelota) return (o2 instanceof Pelota || o2 instanceof Bloque);
+		if (o1 instanceof Nave) return (o2 instanceof Nave);
+		if (o1 instanceof Bloque) return (o2 instanceof Pelota);
+		return false;
+	}
+
+	/** Empieza un paso nuevo: guarda los impulsos de los contactos actuales para el calentamiento y vacía la lista de contactos
+	 */
+	public void iniciaPaso() {
+		guardaImpulsos();
+		numContactos = 0;
+	}
+
+	/** Olvida los contactos del último paso, para que el siguiente empiece sin calentamiento
+	 * (por ejemplo al cargar un mundo guardado, cuyos objetos ya no son los del paso anterior)
+	 */
+	public void olvidaContactos() {
+		Arrays.fill( objeto1, 0, numContactos, null );
+		Arrays.fill( objeto2, 0, numContactos, null );
+		numContactos = 0;
+		guardaImpulsos();
+	}
+
+	/** Añade un contacto entre dos objetos que chocan
+	 * @param o1	Objeto 1
+	 * @param o2	Objeto 2
+	 * @param choque	Vector de choque devuelto por o1.chocaConObjeto(o2) (no null)
+	 * @return	true si se ha añadido, false si la pareja no la soporta el solver (o ambos son fijos) y se debe calcular de otra forma
+	 */
+	public boolean anyadeContacto( ObjetoMovil o1, ObjetoMovil o2, Point2D choque ) {
+		if (!soportaPareja( o1, o2 )) return false;
+		double mi1 = o1.isFijo() ? 0.0 : 1.0 / o1.getVolumen();
+		double mi2 = o2.isFijo() ? 0.0 : 1.0 / o2.getVolumen();
+		if (mi1 + mi2 == 0.0) return false;
+		calculaNormal( o1, o2, choque );
+		if (numContactos == objeto1.length) redimensiona( objeto1.length * 2 );
+		int c = numContactos++;
+		objeto1[c] = o1;
+		objeto2[c] = o2;
+		normalX[c] = nX;
+		normalY[c] = nY;
+		penetracion[c] = pen;
+		relX[c] = o2.getX() - o1.getX();
+		relY[c] = o2.getY() - o1.getY();
+		masaInv1[c] = mi1;
+		masaInv2[c] = mi2;
+		masaNormal[c] = 1.0 / (mi1 + mi2);
+		// Rebote: se busca la velocidad de acercamiento invertida (solo si el acercamiento es suficientemente rápido)
+		double velNormal = (o2.getVelocidadX() - o1.getVelocidadX()) * nX + (o2.getVelocidadY() - o1.getVelocidadY()) * nY;
+		velObjetivo[c] = (velNormal < -VEL_MINIMA_REBOTE) ? -RESTITUCION * velNormal : 0.0;
+		impulso[c] = calentamiento ? buscaImpulsoAnterior( o1, o2 ) : 0.0;
+		return true;
+	}
+
+		// Calcula en nX, nY la normal unitaria de o1 a o2 y en pen la penetración
+		private void calculaNormal( ObjetoMovil o1, ObjetoMovil o2, Point2D choque ) {
+			double cX = choque.getX(), cY = choque.getY();
+			if (o1 instanceof Bloque || o2 instanceof Bloque) {
+				// El vector de choque con bloque va de la pelota al bloque si o1 es el bloque y del bloque a la pelota si es o2: la normal es el opuesto en ambos casos
+				cX = -cX; cY = -cY;
+				pen = Math.sqrt( cX*cX + cY*cY );
+			} else if (o1 instanceof Pelota) {
+				pen = Math.sqrt( cX*cX + cY*cY );
+			} else {
+				// Naves: el vector de choque es el rectángulo de solape. La normal es la línea entre centros y la penetración el lado menor
+				pen = Math.min( cX, cY );
+				cX = o2.getX() - o1.getX(); cY = o2.getY() - o1.getY();
+			}
+			double modulo = Math.sqrt( cX*cX + cY*cY );
+			if (modulo < 1E-9) {  // Centros coincidentes: se separan en horizontal
+				cX = o2.getX() - o1.getX(); cY = o2.getY() - o1.getY();
+				modulo = Math.sqrt( cX*cX + cY*cY );
+				if (modulo < 1E-9) { nX = 1.0; nY = 0.0; return; }
+			}
+			nX = cX / modulo;
+			nY = cY / modulo;
+		}
+
+	/** Resuelve todos los contactos añadidos en el paso: velocidades (iterando hasta converger o hasta el máximo de iteraciones) y posiciones
+	 */
+	public void resuelve() {
+		// 1.- Calentamiento: se aplica de entrada el impulso del paso anterior
+		numCalentados = 0;
+		for (int c=0; c<numContactos; c++) {
+			if (impulso[c] > 0.0) {
+				aplicaImpulso( c, impulso[c] );
+				numCalentados++;
+			}
+		}
+		// 2.- Iteraciones de velocidad
+		long inicio = System.nanoTime();
+		iteraciones = 0;
+		residuo = 0.0;
+		while (iteraciones < iteracionesMax && numContactos > 0) {
+			iteraciones++;
+			residuo = 0.0;
+			for (int c=0; c<numContactos; c++) {
+				ObjetoMovil o1 = objeto1[c], o2 = objeto2[c];
+				double velNormal = (o2.getVelocidadX() - o1.getVelocidadX()) * normalX[c] + (o2.getVelocidadY() - o1.getVelocidadY()) * normalY[c];
+				double lambda = masaNormal[c] * (velObjetivo[c] - velNormal);
+				double nuevo = impulso[c] + lambda;
+				if (nuevo < 0.0) nuevo = 0.0;  // El contacto solo empuja
+				lambda = nuevo - impulso[c];
+				impulso[c] = nuevo;
+				if (lambda != 0.0) {
+					aplicaImpulso( c, lambda );
+					double cambioVel = Math.abs( lambda ) / masaNormal[c];
+					if (cambioVel > residuo) residuo = cambioVel;
+				}
+			}
+			if (residuo < TOLERANCIA_CONVERGENCIA) break;
+		}
+		nanosIteraciones = System.nanoTime() - inicio;
+		// 3.- Corrección de posición (solo la penetración que supera la holgura)
+		for (int it=0; it<ITERACIONES_POSICION; it++) {
+			for (int c=0; c<numContactos; c++) {
+				ObjetoMovil o1 = objeto1[c], o2 = objeto2[c];
+				// Penetración actual: la inicial menos lo que se han separado los objetos en la normal desde entonces
+				double separacion = (o2.getX() - o1.getX() - relX[c]) * normalX[c] + (o2.getY() - o1.getY() - relY[c]) * normalY[c];
+				double corr = penetracion[c] - separacion - HOLGURA_PENETRACION;
+				if (corr <= 0.0) continue;
+				corr = corr * FACTOR_CORRECCION * masaNormal[c];
+				if (masaInv1[c] > 0.0) o1.setPosicion( o1.getX() - normalX[c]*corr*masaInv1[c], o1.getY() - normalY[c]*corr*masaInv1[c] );
+				if (masaInv2[c] > 0.0) o2.setPosicion( o2.getX() + normalX[c]*corr*masaInv2[c], o2.getY() + normalY[c]*corr*masaInv2[c] );
+			}
+		}
+	}
+
+		// Aplica un impulso normal al contacto c (negativo a objeto1, positivo a objeto2)
+		private void aplicaImpulso( int c, double lambda ) {
+			ObjetoMovil o1 = objeto1[c], o2 = objeto2[c];
+			double iX = normalX[c] * lambda, iY = normalY[c] * lambda;
+			if (masaInv1[c] > 0.0) o1.setVelocidad( o1.getVelocidadX() - iX*masaInv1[c], o1.getVelocidadY() - iY*masaInv1[c] );
+			if (masaInv2[c] > 0.0) o2.setVelocidad( o2.getVelocidadX() + iX*masaInv2[c], o2.getVelocidadY() + iY*masaInv2[c] );
+		}
+
+		// Copia los contactos actuales con impulso a las parejas anteriores (para buscarlos por pareja en el paso siguiente)
+		private void guardaImpulsos() {
+			anteriores.limpia();  // Para no retener objetos ya quitados del mundo
+			for (int c=0; c<numContactos; c++) {
+				if (impulso[c] <= 0.0 || !anteriores.anyade( objeto1[c], objeto2[c] )) continue;
+				int a = anteriores.getNum() - 1;
+				if (a >= impulsoAnterior.length) impulsoAnterior = Arrays.copyOf( impulsoAnterior, anteriores.getCapacidad() );
+				impulsoAnterior[a] = impulso[c];
+			}
+			Arrays.fill( objeto1, 0, numContactos, null );
+			Arrays.fill( objeto2, 0, numContactos, null );
+		}
+
+		// Devuelve el impulso del paso anterior de la pareja (en cualquier orden), 0 si no estaba en contacto
+		private double buscaImpulsoAnterior( ObjetoMovil o1, ObjetoMovil o2 ) {
+			int a = anteriores.busca( o1, o2 );
+			return (a < 0) ? 0.0 : impulsoAnterior[a];
+		}
+
+		// Redimensiona los arrays de contactos conservando los actuales
+		private void redimensiona( int tam ) {
+			objeto1 = copia( objeto1, tam );
+			objeto2 = copia( objeto2, tam );
+			normalX = copia( normalX, tam );
+			normalY = copia( normalY, tam );
+			penetracion = copia( penetracion, tam );
+			relX = copia( relX, tam );
+			relY = copia( relY, tam );
+			masaInv1 = copia( masaInv1, tam );
+			masaInv2 = copia( masaInv2, tam );
+			masaNormal = copia( masaNormal, tam );
+			velObjetivo = copia( velObjetivo, tam );
+			impulso = copia( impulso, tam );
+		}
+		private static double[] copia( double[] array, int tam ) {
+			return (array==null) ? new double[tam] : Arrays.copyOf( array, tam );
+		}
+		private static ObjetoMovil[] copia( ObjetoMovil[] array, int tam ) {
+			return (array==null) ? new ObjetoMovil[tam] : Arrays.copyOf( array, tam );
+		}
+
+	/** Devuelve el número de contactos del último paso
+	 * @return	Número de contactos resueltos por el solver
+	 */
+	public int getNumContactos() {
+		return numContactos;
+	}
+
+	/** Devuelve el objeto 1 de un contacto del último paso (para procesar la lógica de juego de los choques)
+	 * @param contacto	Índice del contacto (0 a {@link #getNumContactos()}-1)
+	 * @return	Objeto 1 del contacto
+	 */
+	public ObjetoMovil getObjeto1( int contacto ) {
+		return objeto1[contacto];
+	}
+
+	/** Devuelve el objeto 2 de un contacto del último paso
+	 * @param contacto	Índice del contacto (0 a {@link #getNumContactos()}-1)
+	 * @return	Objeto 2 del contacto
+	 */
+	public ObjetoMovil getObjeto2( int contacto ) {
+		return objeto2[contacto];
+	}
+
+	/** Devuelve el número de iteraciones de velocidad del último paso
+	 * @return	Iteraciones hechas (menor que el máximo si se ha convergido antes)
+	 */
+	public int getIteraciones() {
+		return iteraciones;
+	}
+
+	/** Devuelve el residuo de la última iteración del último paso: el mayor cambio de velocidad relativa que ha producido un contacto.
+	 * Si es menor que {@link #TOLERANCIA_CONVERGENCIA} el solver ha convergido
+	 * @return	Residuo en píxels/segundo
+	 */
+	public double getResiduo() {
+		return residuo;
+	}
+
+	/** Devuelve el número de contactos que empezaron el último paso con el impulso del paso anterior
+	 * @return	Número de contactos calentados
+	 */
+	public int getNumCalentados() {
+		return numCalentados;
+	}
+
+	/** Devuelve el tiempo medio de cada iteración de velocidad en el último paso
+	 * @return	Tiempo por iteración en milisegundos (0 si no hubo iteraciones)
+	 */
+	public double getMilisPorIteracion() {
+		return (iteraciones==0) ? 0.0 : nanosIteraciones / 1000000.0 / iteraciones;
+	}
+
+	/** Devuelve un texto con las estadísticas del último paso
+	 * @return	Contactos, calentados, iteraciones, residuo y tiempo por iteración
+	 */
+	public String getEstadisticas() {
+		return String.format( "Impulsos: %d contactos (%d calentados), %d iter, residuo %.2f, %.4f ms/iter",
+				numContactos, numCalentados, iteraciones, residuo, getMilisPorIteracion() );
+	}
+
+	@Override
+	public String toString() {
+		return "SolverImpulsos[" + getEstadisticas() + "]";
+	}
+
+	/** Método de prueba: pila de pelotas sobre un bloque con gravedad, sin ventana. Compara el cálculo pareja a pareja
+	 * de {@link Fisica} con el solver (con y sin calentamiento): temblor de la pila (velocidad media de las pelotas
+	 * cuando ya debería estar quieta), penetración media y coste por paso
+	 * @param args	No utilizado
+	 */
+	public static void main(String[] args) {
+		Fisica.setGravedad( true );
+		System.out.println( "Pila de 6 pelotas sobre un bloque, 600 pasos de 16 ms (se mide desde el paso 300)" );
+		pruebaPila( "Fisica pareja a pareja", null );
+		SolverImpulsos solver = new SolverImpulsos();
+		solver.setCalentamiento( false );
+		pruebaPila( "Impulsos sin calentamiento", solver );
+		pruebaPila( "Impulsos con calentamiento", new SolverImpulsos() );
+	}
+
+		private static void pruebaPila( String nombre, SolverImpulsos solver ) {
+			LimitesEnMemoria limites = new LimitesEnMemoria( 1000, 800 );
+			List<ObjetoMovil> objetos = new ArrayList<>();
+			objetos.add( new Bloque( 300, 700, 400, 50, Color.black, false ) );
+			for (int i=0; i<6; i++) objetos.add( new Pelota( 500, 680 - i*40, 20, Color.blue, true ) );
+			double temblor = 0.0, penetracion = 0.0, iteraciones = 0.0;
+			int medidas = 0;
+			long inicio = System.nanoTime();
+			for (int paso=1; paso<=600; paso++) {
+				for (ObjetoMovil o : objetos) o.mueveUnPoco( limites, 16, false );
+				if (solver!=null) solver.iniciaPaso();
+				for (int i=0; i<objetos.size(); i++) {
+					for (int j=i+1; j<objetos.size(); j++) {
+						ObjetoMovil o1 = objetos.get(i), o2 = objetos.get(j);
+						Point2D choque = o1.chocaConObjeto( o2 );
+						if (choque==null) continue;
+						if (solver==null || !solver.anyadeContacto( o1, o2, choque ))
+							Fisica.calcChoqueEntreObjetos( null, o1, o2, 16, false );
+					}
+				}
+				if (solver!=null) {
+					solver.resuelve();
+					iteraciones += solver.getIteraciones();
+				}
+				if (paso>300) {
+					for (int i=1; i<objetos.size(); i++) {
+						ObjetoMovil o = objetos.get(i);
+						temblor += Math.sqrt( o.getVelocidadX()*o.getVelocidadX() + o.getVelocidadY()*o.getVelocidadY() );
+						for (int j=i+1; j<objetos.size(); j++) {
+							Point2D choque = o.chocaConObjeto( objetos.get(j) );
+							if (choque!=null) penetracion += choque.distance( 0, 0 );
+						}
+					}
+					medidas++;
+				}
+			}
+			double msPorPaso = (System.nanoTime() - inicio) / 1000000.0 / 600;
+			ObjetoMovil cima = objetos.get( objetos.size()-1 );
+			System.out.println( String.format( "  %-28s temblor %8.2f px/s - penetración %6.2f px - cima en y=%7.1f - %5.3f ms/paso%s",
+					nombre, temblor / medidas / (objetos.size()-1), penetracion / medidas, cima.getY(), msPorPaso,
+					(solver==null) ? "" : String.format( " - %.1f iter/paso - %s", iteraciones / 600, solver.getEstadisticas() ) ) );
+		}
+
+}
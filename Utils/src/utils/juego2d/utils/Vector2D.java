@@ -0,0 +1,240 @@
+package utils.juego2d.utils;
+
+import java.awt.geom.Point2D;
+
+/** Vector 2D mutable para cálculos de física sin reservar memoria.<br/>
+ * A diferencia de {@link PolarPoint} y de {@link Point2D}, las operaciones modifican el propio vector (y lo devuelven
+ * para poder encadenarlas), y los giros, proyecciones y reflexiones se hacen con productos escalares sobre ejes
+ * unitarios en lugar de con ángulos (sin atan2, sin ni cos).<br/>
+ * Para los cálculos intermedios de los métodos muy llamados se pueden usar los vectores temporales de cada hilo
+ * ({@link #temporal(int)}), que no se deben guardar: solo son válidos hasta que se vuelva a llamar a otro método que use el mismo temporal.
+ * @author andoni.eguiluz @ ingenieria.deusto.es
+ */
+public class Vector2D {
+
+	/** Número de vectores temporales por hilo */
+	public static final int NUM_TEMPORALES = 4;
+
+	private static final ThreadLocal<Vector2D[]> temporales = new ThreadLocal<Vector2D[]>() {
+		@Override
+		protected Vector2D[] initialValue() {
+			Vector2D[] vs = new Vector2D[NUM_TEMPORALES];
+			for (int i=0; i<NUM_TEMPORALES; i++) vs[i] = new Vector2D();
+			return vs;
+		}
+	};
+
+	/** Devuelve un vector temporal del hilo actual (siempre el mismo objeto para el mismo hilo e índice)
+	 * @param indice	Índice del temporal (0 a {@link #NUM_TEMPORALES}-1)
+	 * @return	Vector temporal, con el valor que tuviera de su último uso
+	 */
+	public static Vector2D temporal( int indice ) {
+		return temporales.get()[indice];
+	}
+
+	private double x;
+	private double y;
+
+	/** Crea un vector (0,0)
+	 */
+	public Vector2D() {
+	}
+
+	/** Crea un vector
+	 * @param x	Componente x
+	 * @param y	Componente y
+	 */
+	public Vector2D( double x, double y ) {
+		this.x = x;
+		this.y = y;
+	}
+
+	public double getX() {
+		return x;
+	}
+
+	public double getY() {
+		return y;
+	}
+
+	/** Cambia las componentes del vector
+	 * @param x	Componente x
+	 * @param y	Componente y
+	 * @return	El propio vector
+	 */
+	public Vector2D set( double x, double y ) {
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+
+	/** Copia las componentes de otro vector
+	 * @param v	Vector a copiar
+	 * @return	El propio vector
+	 */
+	public Vector2D set( Vector2D v ) {
+		this.x = v.x;
+		this.y = v.y;
+		return this;
+	}
+
+	/** Suma un vector a este
+	 * @param sx	Componente x a sumar
+	 * @param sy	Componente y a sumar
+	 * @return	El propio vector
+	 */
+	public Vector2D suma( double sx, double sy ) {
+		x += sx;
+		y += sy;
+		return this;
+	}
+
+	/** Resta un vector a este
+	 * @param rx	Componente x a restar
+	 * @param ry	Componente y a restar
+	 * @return	El propio vector
+	 */
+	public Vector2D resta( double rx, double ry ) {
+		x -= rx;
+		y -= ry;
+		return this;
+	}
+
+	/** Multiplica el vector por un escalar
+	 * @param k	Escalar
+	 * @return	El propio vector
+	 */
+	public Vector2D multiplica( double k ) {
+		x *= k;
+		y *= k;
+		return this;
+	}
+
+	/** Invierte el sentido del vector
+	 * @return	El propio vector
+	 */
+	public Vector2D invierte() {
+		x = -x;
+		y = -y;
+		return this;
+	}
+
+	/** Devuelve el producto escalar de este vector con otro
+	 * @param vx	Componente x del otro vector
+	 * @param vy	Componente y del otro vector
+	 * @return	Producto escalar
+	 */
+	public double escalar( double vx, double vy ) {
+		return x*vx + y*vy;
+	}
+
+	/** Devuelve el producto escalar de dos vectores dados por sus componentes
+	 * @param ax	Componente x del vector a
+	 * @param ay	Componente y del vector a
+	 * @param bx	Componente x del vector b
+	 * @param by	Componente y del vector b
+	 * @return	Producto escalar a·b
+	 */
+	public static double escalar( double ax, double ay, double bx, double by ) {
+		return ax*bx + ay*by;
+	}
+
+	/** Devuelve el módulo del vector
+	 * @return	Módulo (longitud)
+	 */
+	public double getModulo() {
+		return Math.sqrt( x*x + y*y );
+	}
+
+	/** Devuelve el cuadrado del módulo del vector (sin raíz cuadrada, para comparar distancias)
+	 * @return	Módulo al cuadrado
+	 */
+	public double getModulo2() {
+		return x*x + y*y;
+	}
+
+	/** Convierte el vector en unitario con el mismo sentido. Si es (0,0) no se modifica
+	 * @return	Módulo que tenía el vector antes de normalizarlo
+	 */
+	public double normaliza() {
+		double modulo = Math.sqrt( x*x + y*y );
+		if (modulo > 0.0) {
+			x /= modulo;
+			y /= modulo;
+		}
+		return modulo;
+	}
+
+	/** Gira el vector 90 grados (de x hacia y)
+	 * @return	El propio vector
+	 */
+	public Vector2D perpendicular() {
+		double t = x;
+		x = -y;
+		y = t;
+		return this;
+	}
+
+	/** Gira el vector un ángulo dado por su coseno y su seno (precalculados, para no llamar a sin y cos en cada giro)
+	 * @param cos	Coseno del ángulo de giro
+	 * @param sin	Seno del ángulo de giro
+	 * @return	El propio vector
+	 */
+	public Vector2D rota( double cos, double sin ) {
+		double t = x*cos - y*sin;
+		y = x*sin + y*cos;
+		x = t;
+		return this;
+	}
+
+	/** Proyecta el vector sobre un eje (se queda solo con la componente en ese eje)
+	 * @param nx	Componente x del eje (unitario)
+	 * @param ny	Componente y del eje (unitario)
+	 * @return	El propio vector
+	 */
+	public Vector2D proyecta( double nx, double ny ) {
+		double d = x*nx + y*ny;
+		x = d*nx;
+		y = d*ny;
+		return this;
+	}
+
+	/** Refleja el vector respecto a una normal (rebote): se invierte la componente normal y se mantiene la tangencial
+	 * @param nx	Componente x de la normal (unitaria)
+	 * @param ny	Componente y de la normal (unitaria)
+	 * @param coefRestitucion	Fracción de la componente normal que se conserva en el rebote (1.0 = rebote perfecto)
+	 * @return	El propio vector
+	 */
+	public Vector2D refleja( double nx, double ny, double coefRestitucion ) {
+		double d = (1.0 + coefRestitucion) * (x*nx + y*ny);
+		x -= d*nx;
+		y -= d*ny;
+		return this;
+	}
+
+	/** Cambia la componente del vector en un eje, manteniendo la perpendicular
+	 * @param nx	Componente x del eje (unitario)
+	 * @param ny	Componente y del eje (unitario)
+	 * @param componente	Nuevo valor de la componente en ese eje
+	 * @return	El propio vector
+	 */
+	public Vector2D setComponente( double nx, double ny, double componente ) {
+		double d = componente - (x*nx + y*ny);
+		x += d*nx;
+		y += d*ny;
+		return this;
+	}
+
+	/** Devuelve un punto nuevo con las componentes del vector (reserva memoria: solo para fuera de los cálculos frecuentes)
+	 * @return	Punto (x,y)
+	 */
+	public Point2D toPoint() {
+		return new Point2D.Double( x, y );
+	}
+
+	@Override
+	public String toString() {
+		return "Vector2D[" + x + "," + y + "]";
+	}
+
+}
@@ -1,703 +1,996 @@
-package utils.ventanas.ventanaBitmap;
-import java.awt.*;
-import javax.swing.*;
-import java.awt.event.*;
-import java.awt.geom.*;
-import java.awt.image.BufferedImage;
-import java.lang.reflect.InvocationTargetException;
-import java.net.URL;
-import java.util.*;
-
-/** Clase ventana sencilla para dibujado
- */
-public class VentanaGrafica {
-	private JFrame ventana;       // Ventana que se visualiza
-	private boolean cerrada;      // Lgica de cierre (false al inicio)
-	private JPanel panel;         // Panel principal
-	private JLabel lMens;         // Etiqueta de texto de mensajes en la parte inferior
-	private BufferedImage buffer; // Buffer grfico de la ventana
-	private Graphics2D graphics;  // Objeto grfico sobre el que dibujar (del buffer)
-	private Point pointPressed;   // Coordenada pulsada de ratn (si existe)
-	private Point pointMoved;     // Coordenada pasada de ratn (si existe)
-	private Point pointMovedPrev; // Coordenada pasada anterior de ratn (si existe)
-	private boolean dibujadoInmediato = true; // Refresco de dibujado en cada orden de dibujado
-
-		private Object lock = new Object();  // Tema de sincronizacin de hilos para el acceso como si no los hubiera
-	
-	/** Construye una nueva ventana grfica con fondo blanco y la visualiza en el centro de la pantalla
-	 * @param anchura	Anchura en pxels (valor positivo)
-	 * @param altura	Altura en pxels (valor positivo)
-	 * @param titulo	Ttulo de la ventana
-	 */
-	@SuppressWarnings("serial")
-	public VentanaGrafica( int anchura, int altura, String titulo ) {
-		cerrada = false;
-		ventana = new JFrame( titulo );
-		ventana.setDefaultCloseOperation( JFrame.DISPOSE_ON_CLOSE );
-		ventana.setSize( anchura, altura );
-		ventana.setLocationRelativeTo( null );
-		buffer = new BufferedImage( 2000, 1500, BufferedImage.TYPE_INT_ARGB );
-		graphics = buffer.createGraphics();
-		graphics.setPaint ( Color.white );
-		graphics.fillRect ( 0, 0, 2000, 1500 );
-		panel = new JPanel() {
-			{
-				setLayout( new BorderLayout() );
-			}
-			@Override
-			protected void paintComponent(Graphics g) {
-				super.paintComponent(g);
-				((Graphics2D)g).drawImage( buffer, null, 0, 0 );
-			}
-		};
-		lMens = new JLabel( " " );
-		ventana.getContentPane().add( panel, BorderLayout.CENTER );
-		ventana.getContentPane().add( lMens, BorderLayout.SOUTH );
-		ventana.addWindowListener( new WindowAdapter() {
-			@Override
-			public void windowClosing(WindowEvent e) {
-				cerrada = true;
-			}
-		});
-		panel.addMouseListener( new MouseAdapter() {
-			@Override
-			public void mouseReleased(MouseEvent e) {
-				synchronized (lock) {
-					pointPressed = null;
-				}
-			}
-			@Override
-			public void mousePressed(MouseEvent e) {
-				synchronized (lock) {
-					pointPressed = e.getPoint();
-				}
-			}
-		});
-		panel.addMouseMotionListener( new MouseMotionListener() {
-			@Override
-			public void mouseMoved(MouseEvent e) {
-				synchronized (lock) {
-					pointMoved = e.getPoint();
-				}
-			}
-			@Override
-			public void mouseDragged(MouseEvent e) {
-				synchronized (lock) {
-					pointPressed = e.getPoint();
-				}
-			}
-		});
-		try {
-			SwingUtilities.invokeAndWait( new Runnable() {
-				@Override
-				public void run() {
-					ventana.setVisible( true );
-				}
-			});
-		} catch (InvocationTargetException | InterruptedException e1) {
-			e1.printStackTrace();
-		}
-	}
-	/** Espera un tiempo y sigue
-	 * @param milis	Milisegundos a esperar
-	 */
-	public void espera( long milis ) {
-		try {
-			Thread.sleep( milis );
-		} catch (InterruptedException e) {
-		}
-	}
-	/** Espera hasta que ocurra un click completo de ratn
-	 */
-	public void esperaAClick() {
-		while (getRatonPulsado()==null && !estaCerrada()) {}  // Espera a pulsacin...
-		while (getRatonPulsado()!=null && !estaCerrada()) {}  // ...y espera a suelta
-	}
-	/** Cierra la ventana (tambin ocurre cuando se pulsa el icono de cierre)
-	 */
-	public void acaba() {
-		ventana.dispose();
-		cerrada = true;
-	}
-	
-	/** Consultor de estado de visibilidad de la ventana
-	 * @return	false si sigue activa, true si ya se ha cerrado
-	 */
-	public boolean estaCerrada() {
-		return cerrada;
-	}
-	
-	/** Devuelve el punto donde est el ratn pulsado en este momento
-	 * @return	Punto relativo a la ventana, null si el ratn no est siendo pulsado
-	 */
-	public Point getRatonPulsado() {
-		synchronized (lock) {
-			return pointPressed;
-		}
-	}
-	
-	/** Devuelve el punto donde est el ratn en este momento
-	 * @return	Punto relativo a la ventana, null si el ratn no se ha movido nunca
-	 */
-	public Point getRatonMovido() {
-		synchronized (lock) {
-			return pointMoved;
-		}
-	}
-	
-	/** Devuelve el ltimo vector de movimiento del ratn (desde la ltima vez que se llam a este mismo mtodo)
-	 * @return	Punto relativo a la ventana, null si el ratn no se ha movido nunca
-	 */
-	public Point getVectorRatonMovido() {
-		synchronized (lock) {
-			Point ret = new Point( 0, 0 );
-			if (pointMovedPrev!=null) {
-				ret.setLocation( pointMoved.getX()-pointMovedPrev.getX(), pointMoved.getY()- pointMovedPrev.getY() );
-			}
-			pointMovedPrev = pointMoved;
-			return ret;
-		}
-	}	
-	
-	/** Cambia el mensaje de la ventana (lnea inferior de mensajes)
-	 * @param mensaje	Texto de mensaje
-	 */
-	public void setMensaje( String mensaje ) {
-		if (mensaje==null || mensaje.isEmpty())
-			lMens.setText( " " );
-		else
-			lMens.setText( mensaje );
-	}
-	
-	/** Devuelve la altura del panel de dibujo de la ventana
-	 * @return	Altura del panel principal (ltima coordenada y) en pxels
-	 */
-	public int getAltura() {
-		return panel.getHeight()-1;
-	}
-	
-	/** Devuelve la anchura del panel de dibujo de la ventana
-	 * @return	Anchura del panel principal (ltima coordenada x) en pxels
-	 */
-	public int getAnchura() {
-		return panel.getWidth()-1;
-	}
-	
-	/** Borra toda la ventana (pinta de color blanco)
-	 */
-	public void borra() {
-		graphics.setColor( Color.white );
-		graphics.fillRect( 0, 0, panel.getWidth()+2, panel.getHeight()+2 );
-		if (dibujadoInmediato) panel.repaint();
-	}
-	
-	/** Dibuja un rectngulo en la ventana
-	 * @param rectangulo	Rectngulo a dibujar
-	 * @param grosor	Grueso de la lnea del rectngulo (en pxels)
-	 * @param color  	Color del rectngulo
-	 */
-	public void dibujaRect( Rectangle rectangulo, float grosor, Color color ) {
-		dibujaRect( rectangulo.getX(), rectangulo.getY(), rectangulo.getX()+rectangulo.getWidth(), rectangulo.getY()+rectangulo.getHeight(), grosor, color );
-	}
-	
-	/** Dibuja un rectngulo en la ventana
-	 * @param x	Coordenada x de la esquina superior izquierda del rectngulo
-	 * @param y	Coordenada y de la esquina superior izquierda del rectngulo
-	 * @param anchura	Anchura del rectngulo (en pxels) 
-	 * @param altura	Altura del rectngulo (en pxels)
-	 * @param grosor	Grueso del rectngulo (en pxels)
-	 * @param color  	Color del rectngulo
-	 */
-	public void dibujaRect( double x, double y, double anchura, double altura, float grosor, Color color ) {
-		graphics.setColor( color );
-		graphics.setStroke( new BasicStroke( grosor ));
-		graphics.drawRect( (int)Math.round(x), (int)Math.round(y), (int)Math.round(anchura), (int)Math.round(altura) );
-		if (dibujadoInmediato) panel.repaint();
-	}
-	
-	/** Dibuja un rectngulo relleno en la ventana
-	 * @param x	Coordenada x de la esquina superior izquierda del rectngulo
-	 * @param y	Coordenada y de la esquina superior izquierda del rectngulo
-	 * @param anchura	Anchura del rectngulo (en pxels) 
-	 * @param altura	Altura del rectngulo (en pxels)
-	 * @param grosor	Grueso del rectngulo (en pxels)
-	 * @param color  	Color de la lnea del rectngulo
-	 * @param colorRell	Color del relleno del rectngulo
-	 */
-	public void dibujaRect( double x, double y, double anchura, double altura, float grosor, Color color, Color colorRell ) {
-		graphics.setColor( colorRell );
-		graphics.setStroke( new BasicStroke( grosor ));
-		graphics.fillRect( (int)Math.round(x), (int)Math.round(y), (int)Math.round(anchura), (int)Math.round(altura) );
-		graphics.setColor( color );
-		graphics.drawRect( (int)Math.round(x), (int)Math.round(y), (int)Math.round(anchura), (int)Math.round(altura) );
-		if (dibujadoInmediato) panel.repaint();
-	}
-	
-	/** Dibuja un rectngulo azul en la ventana
-	 * @param x	Coordenada x de la esquina superior izquierda del rectngulo
-	 * @param y	Coordenada y de la esquina superior izquierda del rectngulo
-	 * @param anchura	Anchura del rectngulo (en pxels) 
-	 * @param altura	Altura del rectngulo (en pxels)
-	 * @param grosor	Grueso del rectngulo (en pxels)
-	 */
-	public void dibujaRect( double x, double y, double anchura, double altura, float grosor ) {
-		dibujaRect( x, y, anchura, altura, grosor, Color.blue );
-	}
-	
-	/** Borra un rectngulo en la ventana
-	 * @param x	Coordenada x de la esquina superior izquierda del rectngulo
-	 * @param y	Coordenada y de la esquina superior izquierda del rectngulo
-	 * @param anchura	Anchura del rectngulo (en pxels) 
-	 * @param altura	Altura del rectngulo (en pxels)
-	 * @param grosor	Grueso del rectngulo (en pxels)
-	 */
-	public void borraRect( double x, double y, double anchura, double altura, float grosor ) {
-		dibujaRect( x, y, anchura, altura, grosor, Color.white );
-	}
-	
-	/** Dibuja un crculo en la ventana
-	 * @param x	Coordenada x del centro del crculo
-	 * @param y	Coordenada y del centro del crculo
-	 * @param radio	Radio del crculo (en pxels) 
-	 * @param grosor	Grueso del crculo (en pxels)
-	 * @param color  	Color del crculo
-	 */
-	public void dibujaCirculo( double x, double y, double radio, float grosor, Color color ) {
-		graphics.setColor( color );
-		graphics.setStroke( new BasicStroke( grosor ));
-		graphics.drawOval( (int)Math.round(x-radio), (int)Math.round(y-radio), (int)Math.round(radio*2), (int)Math.round(radio*2) );
-		if (dibujadoInmediato) panel.repaint();
-	}
-	
-	/** Dibuja un crculo azul en la ventana
-	 * @param x	Coordenada x del centro del crculo
-	 * @param y	Coordenada y del centro del crculo
-	 * @param radio	Radio del crculo (en pxels) 
-	 * @param grosor	Grueso del crculo (en pxels)
-	 */
-	public void dibujaCirculo( double x, double y, double radio, float grosor ) {
-		dibujaCirculo( x, y, radio, grosor, Color.blue );
-	}
-	
-	/** Borra un crculo en la ventana
-	 * @param x	Coordenada x del centro del crculo
-	 * @param y	Coordenada y del centro del crculo
-	 * @param radio	Radio del crculo (en pxels) 
-	 * @param grosor	Grueso del crculo (en pxels)
-	 */
-	public void borraCirculo( double x, double y, double radio, float grosor ) {
-		dibujaCirculo( x, y, radio, grosor, Color.white );
-	}
-	
-	/** Dibuja una lnea en la ventana
-	 * @param linea	a dibujar
-	 * @param grosor	Grueso de la lnea (en pxels)
-	 * @param color  	Color de la lnea
-	 */
-	public void dibujaLinea( Line2D linea, float grosor, Color color ) {
-		dibujaLinea( linea.getX1(), linea.getY1(), linea.getX2(), linea.getY2(), grosor, color );
-	}
-	
-	/** Dibuja una lnea en la ventana
-	 * @param x	Coordenada x de un punto de la lnea 
-	 * @param y	Coordenada y de un punto de la lnea
-	 * @param x2	Coordenada x del segundo punto de la lnea 
-	 * @param y2	Coordenada y del segundo punto de la lnea
-	 * @param grosor	Grueso de la lnea (en pxels)
-	 * @param color  	Color de la lnea
-	 */
-	public void dibujaLinea( double x, double y, double x2, double y2, float grosor, Color color ) {
-		graphics.setColor( color );
-		graphics.setStroke( new BasicStroke( grosor ));
-		graphics.drawLine( (int)Math.round(x), (int)Math.round(y), (int)Math.round(x2), (int)Math.round(y2) );
-		if (dibujadoInmediato) panel.repaint();
-	}
-	
-	/** Dibuja una lnea azul en la ventana
-	 * @param x	Coordenada x de un punto de la lnea 
-	 * @param y	Coordenada y de un punto de la lnea
-	 * @param x2	Coordenada x del segundo punto de la lnea 
-	 * @param y2	Coordenada y del segundo punto de la lnea
-	 * @param grosor	Grueso de la lnea (en pxels)
-	 */
-	public void dibujaLinea( double x, double y, double x2, double y2, float grosor ) {
-		dibujaLinea( x, y, x2, y2, grosor, Color.blue );
-	}
-	
-	/** Borra una lnea en la ventana
-	 * @param x	Coordenada x de un punto de la lnea 
-	 * @param y	Coordenada y de un punto de la lnea
-	 * @param x2	Coordenada x del segundo punto de la lnea 
-	 * @param y2	Coordenada y del segundo punto de la lnea
-	 * @param grosor	Grueso de la lnea (en pxels)
-	 */
-	public void borraLinea( double x, double y, double x2, double y2, float grosor ) {
-		dibujaLinea( x, y, x2, y2, grosor, Color.white );
-	}
-
-	/** Dibuja una flecha en la ventana
-	 * @param linea	a dibujar (el segundo punto es la punta de la flecha)
-	 * @param grosor	Grueso de la lnea (en pxels)
-	 * @param color  	Color de la lnea
-	 */
-	public void dibujaFlecha( Line2D linea, float grosor, Color color ) {
-		dibujaFlecha( linea.getX1(), linea.getY1(), linea.getX2(), linea.getY2(), grosor, color );
-	}
-	
-	/** Dibuja una flecha en la ventana
-	 * @param x	Coordenada x de un punto de la lnea 
-	 * @param y	Coordenada y de un punto de la lnea
-	 * @param x2	Coordenada x del segundo punto de la lnea (el de la flecha)
-	 * @param y2	Coordenada y del segundo punto de la lnea (el de la flecha)
-	 * @param grosor	Grueso de la lnea (en pxels)
-	 * @param color  	Color de la lnea
-	 */
-	public void dibujaFlecha( double x, double y, double x2, double y2, float grosor, Color color ) {
-		dibujaFlecha( x, y, x2, y2, grosor, color, 10 );
-	}
-	
-	/** Dibuja una flecha en la ventana
-	 * @param x	Coordenada x de un punto de la lnea 
-	 * @param y	Coordenada y de un punto de la lnea
-	 * @param x2	Coordenada x del segundo punto de la lnea (el de la flecha)
-	 * @param y2	Coordenada y del segundo punto de la lnea (el de la flecha)
-	 * @param grosor	Grueso de la lnea (en pxels)
-	 * @param color  	Color de la lnea
-	 * @param largoFl	Pixels de largo de la flecha
-	 */
-	public void dibujaFlecha( double x, double y, double x2, double y2, float grosor, Color color, int largoFl ) {
-		graphics.setColor( color );
-		graphics.setStroke( new BasicStroke( grosor ));
-		graphics.drawLine( (int)Math.round(x), (int)Math.round(y), (int)Math.round(x2), (int)Math.round(y2) );
-		double angulo = Math.atan2( y2-y, x2-x ) + Math.PI;
-		double angulo1 = angulo - Math.PI / 10;  // La flecha se forma rotando 1/10 de Pi hacia los dos lados
-		double angulo2 = angulo + Math.PI / 10;
-		graphics.drawLine( (int)Math.round(x2), (int)Math.round(y2), 
-				(int)Math.round(x2+largoFl*Math.cos(angulo1)), (int)Math.round(y2+largoFl*Math.sin(angulo1)) );
-		graphics.drawLine( (int)Math.round(x2), (int)Math.round(y2), 
-				(int)Math.round(x2+largoFl*Math.cos(angulo2)), (int)Math.round(y2+largoFl*Math.sin(angulo2)) );
-		if (dibujadoInmediato) panel.repaint();
-	}
-	
-	/** Dibuja una lnea azul en la ventana
-	 * @param x	Coordenada x de un punto de la lnea 
-	 * @param y	Coordenada y de un punto de la lnea
-	 * @param x2	Coordenada x del segundo punto de la lnea (el de la flecha)
-	 * @param y2	Coordenada y del segundo punto de la lnea (el de la flecha)
-	 * @param grosor	Grueso de la lnea (en pxels)
-	 */
-	public void dibujaFlecha( double x, double y, double x2, double y2, float grosor ) {
-		dibujaFlecha( x, y, x2, y2, grosor, Color.blue );
-	}
-	
-	/** Borra una lnea en la ventana
-	 * @param x	Coordenada x de un punto de la lnea 
-	 * @param y	Coordenada y de un punto de la lnea
-	 * @param x2	Coordenada x del segundo punto de la lnea (el de la flecha)
-	 * @param y2	Coordenada y del segundo punto de la lnea (el de la flecha)
-	 * @param grosor	Grueso de la lnea (en pxels)
-	 */
-	public void borraFlecha( double x, double y, double x2, double y2, float grosor ) {
-		dibujaFlecha( x, y, x2, y2, grosor, Color.white );
-	}
-	
-	/** Dibuja un polgono en la ventana
-	 * @param grosor	Grueso de la lnea (en pxels)
-	 * @param color  	Color de la lnea
-	 * @param cerrado	true si el polgono se cierra (ltimo punto con el primero), false en caso contrario
-	 * @param punto		Puntos a dibujar (cada punto se enlaza con el siguiente)
-	 */
-	public void dibujaPoligono( float grosor, Color color, boolean cerrado, Point2D... punto ) {
-		graphics.setColor( color );
-		graphics.setStroke( new BasicStroke( grosor ));
-		if (punto.length<2) return;
-		Point2D puntoIni = punto[0];
-		Point2D puntoAnt = punto[0];
-		Point2D pto = null;
-		int numPto = 1;
-		do {
-			pto = punto[numPto];
-			graphics.drawLine( (int)Math.round(puntoAnt.getX()), (int)Math.round(puntoAnt.getY()), (int)Math.round(pto.getX()), (int)Math.round(pto.getY()) );
-			puntoAnt = pto;
-			numPto++;
-		} while (numPto<punto.length);
-		if (cerrado) {
-			graphics.drawLine( (int)Math.round(pto.getX()), (int)Math.round(pto.getY()), (int)Math.round(puntoIni.getX()), (int)Math.round(puntoIni.getY()) );
-		}
-		if (dibujadoInmediato) panel.repaint();
-	}
-	
-	/** Borra un polgono en la ventana
-	 * @param grosor	Grueso de la lnea (en pxels)
-	 * @param cerrado	true si el polgono se cierra (ltimo punto con el primero), false en caso contrario
-	 * @param punto		Puntos a borrar (cada punto se enlaza con el siguiente)
-	 */
-	public void borraPoligono( float grosor, boolean cerrado, Point2D... punto ) {
-		dibujaPoligono( grosor, Color.white, cerrado, punto );
-	}
-
-	/** Dibuja un texto en la ventana
-	 * @param x	Coordenada x de la esquina superior izquierda del rectngulo
-	 * @param y	Coordenada y de la esquina superior izquierda del rectngulo
-	 * @param texto	Texto a dibujar 
-	 * @param font	Tipo de letra con el que dibujar el texto
-	 * @param color	Color del texto
-	 */
-	public void dibujaTexto( double x, double y, String texto, Font font, Color color ) {
-		graphics.setColor( color );
-		graphics.setFont( font );
-		graphics.drawString( texto, (int)Math.round(x), (int)Math.round(y) );
-		if (dibujadoInmediato) panel.repaint();
-	}
-	
-	
-	
-	
-	
-	/** Devuelve el objeto de grfico sobre el que pintar, correspondiente al 
-	 * panel principal de la ventana. Despus de actualizar graphics hay que llamar a {@link #repaint()}
-	 * si se quiere que se visualice en pantalla
-	 * @return	Objeto grfico principal de la ventana
-	 */
-	public Graphics2D getGraphics() {
-		return graphics;
-	}
-	
-	/** Repinta la ventana. En caso de que el dibujado inmediato est desactivado,
-	 * es imprescindible llamar a este mtodo para que la ventana grfica se refresque.
-	 */
-	public void repaint() {
-		panel.paintImmediately( 0, 0, panel.getWidth(), panel.getHeight() );
-	}
-	
-
-	// Mtodos estticos
-		private static int codTeclaTecleada = 0;
-		private static int codTeclaActualmentePulsada = 0;
-		private static HashSet<Integer> teclasPulsadas = new HashSet<Integer>();
-		private static boolean controlActivo = false;
-	// Inicializa el control de teclado
-	private static void init() {
-		KeyboardFocusManager manager = KeyboardFocusManager.getCurrentKeyboardFocusManager();
-		manager.addKeyEventDispatcher( new KeyEventDispatcher() {
-			@Override
-			public boolean dispatchKeyEvent(KeyEvent e) {
-				if (e.getID() == KeyEvent.KEY_PRESSED) {
-					teclasPulsadas.add( e.getKeyCode() );
-					codTeclaActualmentePulsada = e.getKeyCode();
-					if (e.getKeyCode() == KeyEvent.VK_CONTROL) controlActivo = true; 
-				} else if (e.getID() == KeyEvent.KEY_RELEASED) {
-					teclasPulsadas.remove( e.getKeyCode() );
-					if (e.getKeyCode() == KeyEvent.VK_CONTROL) controlActivo = false; 
-					codTeclaTecleada = e.getKeyCode();
-					codTeclaActualmentePulsada = 0;
-				} else if (e.getID() == KeyEvent.KEY_TYPED) {
-				}
-				return false;   // false = enviar el evento al comp
-			} } );
-	}
-	static {  // Inicializar en la carta de la clase
-		init();
-	}
-
-	/** Indica si la tecla Ctrl est siendo pulsada en este momento
-	 * @return	true si est pulsada, false en caso contrario
-	 */
-	public boolean isControlPulsado() {
-		return controlActivo;
-	}
-	
-	/** Devuelve el cdigo de la tecla pulsada actualmente
-	 * @return	cdigo de tecla pulsada, 0 si no hay ninguna. Si hay varias, se devuelve la ltima que se puls.<br>
-	 * 			Si se pulsan varias a la vez, tras soltar la primera este mtodo devuelve 0.
-	 */
-	public int getCodTeclaQueEstaPulsada() {
-		return codTeclaActualmentePulsada;
-	}
-	
-	/** Devuelve el cdigo de la ltima tecla tecleada (pulsada y soltada). Tras eso, borra la tecla (solo se devuelve una vez)
-	 * @return	Cdigo de la ltima tecla tecleada. Si no ha sido tecleada ninguna o ya se ha consultado, se devuelve 0.
-	 */
-	public int getCodUltimaTeclaTecleada() {
-		int ret = codTeclaTecleada;
-		codTeclaTecleada = 0;
-		return ret;
-	}
-
-	/** Devuelve la informacin de si una tecla est o no pulsada actualmente
-	 * @param codTecla	Cdigo de tecla a chequear
-	 * @return	true si la tecla est pulsada, false en caso contrario.
-	 */
-	public boolean isTeclaPulsada( int codTecla ) {
-		return teclasPulsadas.contains(codTecla);
-	}
-	
-	/** Pone modo de dibujado (por defecto el modo es de dibujado inmediato = true)
-	 * @param dibujadoInmediato	true si cada orden de dibujado inmediatamente pinta la ventana. false si se
-	 * van acumulando las rdenes y se pinta la ventana solo al hacer un {@link #repaint()}.
-	 */
-	public void setDibujadoInmediato( boolean dibujadoInmediato ) {
-		this.dibujadoInmediato = dibujadoInmediato;
-	}
-
-		// Variable local para guardar las imgenes y no recargarlas cada vez
-		private static volatile HashMap<String,ImageIcon> recursosGraficos = new HashMap<>();
-		
-	/** Carga una imagen de un fichero grfico y la dibuja en la ventana. Si la imagen no puede cargarse, no se dibuja nada.
-	 * El recurso grfico se busca en el paquete de esta clase o en la clase llamadora.
-	 * El recurso grfico se carga en memoria, de modo que al volver a dibujar la misma imagen, no se vuelve a cargar ya de fichero
-	 * @param recursoGrafico	Nombre del fichero (path absoluto desde la carpeta raz de clases del proyecto)  (p. ej. "/img/prueba.png")
-	 * @param centroX	Coordenada x de la ventana donde colocar el centro de la imagen 
-	 * @param centroY	Coordenada y de la ventana donde colocar el centro de la imagen
-	 * @param anchuraDibujo	Pixels de anchura con los que dibujar la imagen (se escala de acuerdo a su tamao)
-	 * @param alturaDibujo	Pixels de altura con los que dibujar la imagen (se escala de acuerdo a su tamao)
-	 * @param zoom	Zoom a aplicar (mayor que 1 aumenta la imagen, menor que 1 y mayor que 0 la disminuye)
-	 * @param radsRotacion	Rotacin en radianes
-	 * @param opacity	Opacidad (0.0f = totalmente transparente, 1.0f = totalmente opaca)
-	 */
-	public void dibujaImagen( String recursoGrafico, double centroX, double centroY, 
-			int anchuraDibujo, int alturaDibujo, double zoom, double radsRotacion, float opacity ) {
-		ImageIcon ii = getRecursoGrafico(recursoGrafico); if (ii==null) return;
-		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,RenderingHints.VALUE_INTERPOLATION_BILINEAR); // Configuracin para mejor calidad del grfico escalado
-		graphics.setRenderingHint(RenderingHints.KEY_RENDERING,RenderingHints.VALUE_RENDER_QUALITY);
-		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,RenderingHints.VALUE_ANTIALIAS_ON);	
-		graphics.translate( centroX-anchuraDibujo/2, centroY-alturaDibujo/2 );
-		graphics.rotate( radsRotacion, anchuraDibujo/2, alturaDibujo/2 );  // Incorporar al grfico la rotacin definida
-		graphics.setComposite(AlphaComposite.getInstance( AlphaComposite.SRC_OVER, opacity ) ); // Incorporar la transparencia definida
-        int anchoDibujado = (int)Math.round(anchuraDibujo*zoom);  // Calcular las coordenadas de dibujado con el zoom, siempre centrado en el label
-        int altoDibujado = (int)Math.round(alturaDibujo*zoom);
-        int difAncho = (anchuraDibujo - anchoDibujado) / 2;  // Offset x para centrar
-        int difAlto = (alturaDibujo - altoDibujado) / 2;     // Offset y para centrar
-        graphics.drawImage( ii.getImage(), difAncho, difAlto, anchoDibujado, altoDibujado, null);  // Dibujar la imagen con el tamao calculado tras aplicar el zoom
-		graphics.setTransform( new AffineTransform() );  // Restaurar graphics  (sin rotacin ni traslacin)
-		graphics.setComposite(AlphaComposite.getInstance( AlphaComposite.SRC_OVER, 1f ));  // Restaurar graphics (pintado sin transparencia)
-		if (dibujadoInmediato) panel.repaint();
-	}
-
-	/** Carga una imagen de un fichero grfico y la dibuja en la ventana. Si la imagen no puede cargarse, no se dibuja nada.
-	 * El recurso grfico se busca en el paquete de esta clase o en la clase llamadora.
-	 * El recurso grfico se carga en memoria, de modo que al volver a dibujar la misma imagen, no se vuelve a cargar ya de fichero
-	 * @param recursoGrafico	Nombre del fichero (path absoluto desde la carpeta raz de clases del proyecto)  (p. ej. "/img/prueba.png")
-	 * @param centroX	Coordenada x de la ventana donde colocar el centro de la imagen 
-	 * @param centroY	Coordenada y de la ventana donde colocar el centro de la imagen
-	 * @param zoom	Zoom a aplicar (mayor que 1 aumenta la imagen, menor que 1 y mayor que 0 la disminuye)
-	 * @param radsRotacion	Rotacin en radianes
-	 * @param opacity	Opacidad (0.0f = totalmente transparente, 1.0f = totalmente opaca)
-	 */
-	public void dibujaImagen( String recursoGrafico, double centroX, double centroY, 
-			double zoom, double radsRotacion, float opacity ) {
-		ImageIcon ii = getRecursoGrafico(recursoGrafico); if (ii==null) return;
-		dibujaImagen( recursoGrafico, centroX, centroY, ii.getIconWidth(), ii.getIconHeight(), zoom, radsRotacion, opacity);
-	}
-		// Intenta cargar el recurso grfico del mapa interno, de la clase actual, o de la clase llamadora. Devuelve null si no se ha podido hacer
-		private ImageIcon getRecursoGrafico( String recursoGrafico ) {
-			ImageIcon ii = recursosGraficos.get( recursoGrafico );
-			if (ii==null) {
-				try {
-					ii = new ImageIcon( VentanaGrafica.class.getResource( recursoGrafico ));
-					recursosGraficos.put( recursoGrafico, ii );
-				} catch (NullPointerException e) {  // Mirar si est en la clase llamadora en lugar de en la ventana grfica
-					StackTraceElement[] stElements = Thread.currentThread().getStackTrace();
-					for (int i=1; i<stElements.length; i++) {
-						StackTraceElement ste = stElements[i];
-						if ( !ste.getClassName().endsWith("VentanaGrafica") ) {  // Busca la clase llamadora a VentanaGrafica y busca ah el recurso
-							try {
-								Class<?> c = Class.forName( ste.getClassName() );
-								URL url = c.getResource( recursoGrafico );
-								if (url==null) return null;
-								ii = new ImageIcon( url );
-								recursosGraficos.put( recursoGrafico, ii );
-								return ii;
-							} catch (ClassNotFoundException e1) {
-								return null;
-							}
-						}
-					}
-					return null;
-				}			
-			}
-			return ii;
-		}
-
-
-	
-	private transient JPanel pBotonera = null;
-/** Aade un botn de accin a la botonera superior
- * @param texto	Texto del botn
- * @param evento	Evento a lanzar en la pulsacin del botn
- */
-public void anyadeBoton( String texto, ActionListener evento ) {
-	JButton b = new JButton( texto );
-	if (pBotonera==null) {
-		pBotonera = new JPanel();
-		pBotonera.add( b );
-		ventana.getContentPane().add( pBotonera, BorderLayout.NORTH );
-		ventana.revalidate();
-	} else {
-		pBotonera.add( b );
-		pBotonera.revalidate();
-	}
-	b.addActionListener( evento );
-}
-
-	
-	/** Mtodo main de prueba de la clase
-	 * @param args	No utilizado
-	 */
-	public static void main(String[] args) {
-		VentanaGrafica v = new VentanaGrafica( 600, 480, "Test Ventana Grfica" );
-		v.anyadeBoton( "Pon dibujado inmediato", new ActionListener() {  // Para ver cmo se ve con flickering si se dibujan cosas una a una
-			@Override
-			public void actionPerformed(ActionEvent e) {
-				v.setDibujadoInmediato( true );
-			}
-		});
-		v.setDibujadoInmediato( false );
-		for (int i=0; i<=200; i++) {
-			v.borra();
-			v.dibujaImagen( "/utils/ventanas/ventanaJuego/img/" + "UD-green.png",
-				100, 100, 0.5+i/200.0, Math.PI / 100 * i, 0.9f );
-			v.dibujaImagen( "/utils/ventanas/ventanaJuego/img/" + "UD-magenta.png",
-					500, 100, 100, 50, 1.2, Math.PI / 100 * i, 0.1f );
-			v.dibujaRect( 20, 20, 160, 160, 0.5f, Color.red );
-			v.dibujaRect( 0, 0, 100, 100, 1.5f, Color.blue );
-			v.dibujaCirculo( 500, 100, 50, 1.5f, Color.orange );
-			v.dibujaPoligono( 2.3f, Color.magenta, true, 
-				new Point(200,250), new Point(300,320), new Point(400,220) );
-			v.repaint();
-			v.espera( 10 );
-		}
-		v.espera( 5000 );
-		v.acaba();
-	}
-	
-	/** Aade un escuchador al cambio de tamao del panel de dibujado de la ventana
-	 * @param l	Escuchador de cambio de tamao a aadir
-	 */
-	public void addComponentListener( ComponentListener l ) {
-		panel.addComponentListener( l );
-	}
-	
-	/** Elimina un escuchador de cambio de tamao del panel de dibujado de la ventana
-	 * @param l	Escuchador de cambio de tamao a eliminar
-	 */
-	public void removeComponentListener( ComponentListener l ) {
-		panel.removeComponentListener( l );
-	}
-
-	/** Aade un escuchador de ventana a la ventana
-	 * @param l	Escuchador a aadir
-	 */
-	public void addWindowListener( WindowListener l ) {
-		ventana.addWindowListener( l );
-	}
-	
-	/** Elimina un escuchador de ventana de la ventana
-	 * @param l	Escuchador a eliminar
-	 */
-	public void removeWindowListener( WindowListener l ) {
-		ventana.removeWindowListener( l );
-	}
-	
-	
-}
+package utils.ventanas.ventanaBitmap;
+import java.awt.*;
+import javax.swing.*;
+import java.awt.event.*;
+import java.awt.geom.*;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.util.*;
+
+import utils.juego2d.utils.Limites;
+
+/** Clase ventana sencilla para dibujado
+ */
+public class VentanaGrafica implements Limites {
+	private JFrame ventana;       // Ventana que se visualiza
+	private volatile boolean cerrada;  // Lógica de cierre (false al inicio)
+	private JPanel panel;         // Panel principal
+	private JLabel lMens;         // Etiqueta de texto de mensajes en la parte inferior
+	private BufferedImage buffer; // Buffer gráfico de la ventana
+	private Graphics2D graphics;  // Objeto gráfico sobre el que dibujar (del buffer)
+	private int[] pixels;         // Píxels del buffer para dibujar puntos directamente (null hasta el primer dibujaPuntos)
+	private Point pointPressed;   // Coordenada pulsada de ratón (si existe)
+	private Point pointMoved;     // Coordenada pasada de ratón (si existe)
+	private Point pointMovedPrev; // Coordenada pasada anterior de ratón (si existe)
+	private Point pointUltimaPulsacion;  // Coordenada de la última pulsación de ratón (aunque ya se haya soltado)
+	private long numPulsaciones = 0;     // Pulsaciones de ratón desde que se creó la ventana (para las esperas)
+	private long numSueltas = 0;         // Sueltas de ratón desde que se creó la ventana
+	private boolean dibujadoInmediato = true; // Refresco de dibujado en cada orden de dibujado
+	private Canvas lienzo;                // Lienzo de pantalla en el modo de renderizado activo (null en el modo normal)
+	private BufferStrategy estrategia;    // Buffers de pantalla (imágenes volátiles) del lienzo en el modo de renderizado activo
+	private long numPresentaciones = 0;   // Veces que se ha copiado el buffer a la pantalla
+	private long inicioMedidaFps = 0;     // Medida de fotogramas por segundo (nanosegundos de inicio de la medida en curso)
+	private int presentacionesMedida = 0;
+	private double fps = 0.0;             // Fotogramas por segundo de la última medida
+
+		private Object lock = new Object();  // Tema de sincronización de hilos para el acceso como si no los hubiera (y aviso de eventos de ratón a las esperas)
+		private Object lockPresentacion = new Object();  // Presentación en pantalla (desde el hilo del juego o el de Swing)
+	
+	/** Construye una nueva ventana gráfica con fondo blanco y la visualiza en el centro de la pantalla
+	 * @param anchura	Anchura en píxels (valor positivo)
+	 * @param altura	Altura en píxels (valor positivo)
+	 * @param titulo	Título de la ventana
+	 */
+	public VentanaGrafica( int anchura, int altura, String titulo ) {
+		this( anchura, altura, titulo, false );
+	}
+	
+	/** Construye una nueva ventana gráfica con fondo blanco y la visualiza en el centro de la pantalla
+	 * @param anchura	Anchura en píxels (valor positivo)
+	 * @param altura	Altura en píxels (valor positivo)
+	 * @param titulo	Título de la ventana
+	 * @param renderizadoActivo	true para presentar en pantalla desde el propio hilo del juego con {@link #repaint()}, a través de un
+	 * 					lienzo con buffers de pantalla acelerados ({@link BufferStrategy}) en lugar de pedir el repintado a Swing.
+	 * 					Conviene usarlo con el dibujado inmediato desactivado y llamar a {@link #repaint()} una vez por fotograma
+	 */
+	@SuppressWarnings("serial")
+	public VentanaGrafica( int anchura, int altura, String titulo, boolean renderizadoActivo ) {
+		cerrada = false;
+		ventana = new JFrame( titulo );
+		ventana.setDefaultCloseOperation( JFrame.DISPOSE_ON_CLOSE );
+		ventana.setSize( anchura, altura );
+		ventana.setLocationRelativeTo( null );
+		buffer = new BufferedImage( 2000, 1500, BufferedImage.TYPE_INT_ARGB );
+		graphics = buffer.createGraphics();
+		graphics.setPaint ( Color.white );
+		graphics.fillRect ( 0, 0, 2000, 1500 );
+		panel = new JPanel() {
+			{
+				setLayout( new BorderLayout() );
+			}
+			@Override
+			protected void paintComponent(Graphics g) {
+				if (lienzo!=null) {  // Modo activo: el panel queda tapado por el lienzo, se presenta en él
+					presenta();
+					return;
+				}
+				super.paintComponent(g);
+				((Graphics2D)g).drawImage( buffer, null, 0, 0 );
+				cuentaPresentacion();
+			}
+		};
+		if (renderizadoActivo) {
+			lienzo = new Canvas();
+			lienzo.setIgnoreRepaint( true );  // Se presenta desde el juego (o desde el panel, si el dibujado es inmediato)
+			lienzo.setBackground( Color.white );
+			panel.add( lienzo, BorderLayout.CENTER );
+		}
+		lMens = new JLabel( " " );
+		ventana.getContentPane().add( panel, BorderLayout.CENTER );
+		ventana.getContentPane().add( lMens, BorderLayout.SOUTH );
+		ventana.addWindowListener( new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				cerrada = true;
+				avisaEsperas();
+			}
+		});
+		MouseAdapter escRaton = new MouseAdapter() {
+			@Override
+			public void mouseReleased(MouseEvent e) {
+				synchronized (lock) {
+					pointPressed = null;
+					numSueltas++;
+					lock.notifyAll();
+				}
+			}
+			@Override
+			public void mousePressed(MouseEvent e) {
+				synchronized (lock) {
+					pointPressed = e.getPoint();
+					pointUltimaPulsacion = pointPressed;
+					numPulsaciones++;
+					lock.notifyAll();
+				}
+			}
+		};
+		MouseMotionListener escMovimiento = new MouseMotionListener() {
+			@Override
+			public void mouseMoved(MouseEvent e) {
+				synchronized (lock) {
+					pointMoved = e.getPoint();
+				}
+			}
+			@Override
+			public void mouseDragged(MouseEvent e) {
+				synchronized (lock) {
+					pointPressed = e.getPoint();
+				}
+			}
+		};
+		panel.addMouseListener( escRaton );
+		panel.addMouseMotionListener( escMovimiento );
+		if (lienzo!=null) {  // El lienzo es un componente pesado: recibe él los eventos de ratón
+			lienzo.addMouseListener( escRaton );
+			lienzo.addMouseMotionListener( escMovimiento );
+		}
+		try {
+			SwingUtilities.invokeAndWait( new Runnable() {
+				@Override
+				public void run() {
+					ventana.setVisible( true );
+					if (lienzo!=null) {
+						lienzo.createBufferStrategy( 2 );
+						estrategia = lienzo.getBufferStrategy();
+					}
+				}
+			});
+		} catch (InvocationTargetException | InterruptedException e1) {
+			e1.printStackTrace();
+		}
+	}
+	/** Espera un tiempo y sigue
+	 * @param milis	Milisegundos a esperar
+	 */
+	public void espera( long milis ) {
+		try {
+			Thread.sleep( milis );
+		} catch (InterruptedException e) {
+		}
+	}
+	/** Espera hasta que ocurra un click completo de ratón (o se cierre la ventana)
+	 */
+	public void esperaAClick() {
+		esperaAClick( 0 );
+	}
+	/** Espera hasta que ocurra un click completo de ratón, sin consumir procesador mientras tanto.
+	 * Si el ratón ya está pulsado solo se espera a que se suelte
+	 * @param milisMax	Tiempo máximo de espera en milisegundos (0 = sin límite)
+	 * @return	true si ha habido click, false si se ha acabado el tiempo o se ha cerrado la ventana
+	 */
+	public boolean esperaAClick( long milisMax ) {
+		long limite = System.currentTimeMillis() + milisMax;
+		if (esperaPulsacionRaton( milisMax )==null) return false;  // Espera a pulsación...
+		if (milisMax>0 && System.currentTimeMillis()>=limite) return false;
+		return esperaSueltaRaton( (milisMax<=0) ? 0 : limite - System.currentTimeMillis() );  // ...y espera a suelta
+	}
+	/** Espera a que se pulse el ratón, sin consumir procesador mientras tanto
+	 * (si ya está pulsado vuelve inmediatamente)
+	 * @param milisMax	Tiempo máximo de espera en milisegundos (0 = sin límite)
+	 * @return	Punto de la pulsación, null si se ha acabado el tiempo o se ha cerrado la ventana
+	 */
+	public Point esperaPulsacionRaton( long milisMax ) {
+		long limite = System.currentTimeMillis() + milisMax;
+		synchronized (lock) {
+			long pulsaciones = numPulsaciones;
+			while (pointPressed==null && numPulsaciones==pulsaciones && !cerrada) {  // Vale también una pulsación ya soltada
+				if (!esperaAviso( lock, limite, milisMax )) return null;
+			}
+			if (cerrada) return null;
+			return (pointPressed!=null) ? pointPressed : pointUltimaPulsacion;
+		}
+	}
+	/** Espera a que se suelte el ratón, sin consumir procesador mientras tanto
+	 * (si no está pulsado vuelve inmediatamente)
+	 * @param milisMax	Tiempo máximo de espera en milisegundos (0 = sin límite)
+	 * @return	true si el ratón está suelto, false si se ha acabado el tiempo o se ha cerrado la ventana
+	 */
+	public boolean esperaSueltaRaton( long milisMax ) {
+		long limite = System.currentTimeMillis() + milisMax;
+		synchronized (lock) {
+			long sueltas = numSueltas;
+			while (pointPressed!=null && numSueltas==sueltas && !cerrada) {
+				if (!esperaAviso( lock, limite, milisMax )) return false;
+			}
+			return !cerrada;
+		}
+	}
+	/** Espera a que se pulse una tecla, sin consumir procesador mientras tanto
+	 * (solo vale una pulsación posterior a la llamada)
+	 * @param milisMax	Tiempo máximo de espera en milisegundos (0 = sin límite)
+	 * @return	Código de la tecla pulsada, 0 si se ha acabado el tiempo o se ha cerrado la ventana
+	 */
+	public int esperaPulsacionTecla( long milisMax ) {
+		long limite = System.currentTimeMillis() + milisMax;
+		synchronized (lockTeclado) {
+			long pulsaciones = numPulsacionesTecla;
+			while (numPulsacionesTecla==pulsaciones && !cerrada) {
+				if (!esperaAviso( lockTeclado, limite, milisMax )) return 0;
+			}
+			return cerrada ? 0 : codTeclaUltimaPulsacion;
+		}
+	}
+	/** Espera a que se teclee una tecla (pulsada y soltada), sin consumir procesador mientras tanto. Como
+	 * {@link #getCodUltimaTeclaTecleada()}, si ya había una tecla tecleada sin consultar se devuelve esa, y la tecla se borra
+	 * @param milisMax	Tiempo máximo de espera en milisegundos (0 = sin límite)
+	 * @return	Código de la tecla tecleada, 0 si se ha acabado el tiempo o se ha cerrado la ventana
+	 */
+	public int esperaTeclaTecleada( long milisMax ) {
+		long limite = System.currentTimeMillis() + milisMax;
+		synchronized (lockTeclado) {
+			while (codTeclaTecleada==0 && !cerrada) {
+				if (!esperaAviso( lockTeclado, limite, milisMax )) return 0;
+			}
+			return getCodUltimaTeclaTecleada();
+		}
+	}
+		// Espera un aviso del monitor (que debe tenerse bloqueado) hasta el límite de tiempo.
+		// Devuelve false si ya se ha pasado el límite o se interrumpe el hilo
+		private static boolean esperaAviso( Object monitor, long limite, long milisMax ) {
+			long milis = 0;  // 0 = sin límite en wait
+			if (milisMax>0) {
+				milis = limite - System.currentTimeMillis();
+				if (milis<=0) return false;
+			}
+			try {
+				monitor.wait( milis );
+				return true;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		// Despierta a los hilos que estén esperando ratón o teclado (al cerrar la ventana)
+		private void avisaEsperas() {
+			synchronized (lock) {
+				lock.notifyAll();
+			}
+			synchronized (lockTeclado) {
+				lockTeclado.notifyAll();
+			}
+		}
+	/** Cierra la ventana (también ocurre cuando se pulsa el icono de cierre)
+	 */
+	public void acaba() {
+		ventana.dispose();
+		cerrada = true;
+		avisaEsperas();
+	}
+	
+	/** Consultor de estado de visibilidad de la ventana
+	 * @return	false si sigue activa, true si ya se ha cerrado
+	 */
+	public boolean estaCerrada() {
+		return cerrada;
+	}
+	
+	/** Devuelve el punto donde está el ratón pulsado en este momento
+	 * @return	Punto relativo a la ventana, null si el ratón no está siendo pulsado
+	 */
+	public Point getRatonPulsado() {
+		synchronized (lock) {
+			return pointPressed;
+		}
+	}
+	
+	/** Devuelve el punto donde está el ratón en este momento
+	 * @return	Punto relativo a la ventana, null si el ratón no se ha movido nunca
+	 */
+	public Point getRatonMovido() {
+		synchronized (lock) {
+			return pointMoved;
+		}
+	}
+	
+	/** Devuelve el último vector de movimiento del ratón (desde la última vez que se llamó a este mismo método)
+	 * @return	Punto relativo a la ventana, null si el ratón no se ha movido nunca
+	 */
+	public Point getVectorRatonMovido() {
+		synchronized (lock) {
+			Point ret = new Point( 0, 0 );
+			if (pointMovedPrev!=null) {
+				ret.setLocation( pointMoved.getX()-pointMovedPrev.getX(), pointMoved.getY()- pointMovedPrev.getY() );
+			}
+			pointMovedPrev = pointMoved;
+			return ret;
+		}
+	}	
+	
+	/** Cambia el mensaje de la ventana (línea inferior de mensajes)
+	 * @param mensaje	Texto de mensaje
+	 */
+	public void setMensaje( String mensaje ) {
+		if (mensaje==null || mensaje.isEmpty())
+			lMens.setText( " " );
+		else
+			lMens.setText( mensaje );
+	}
+	
+	/** Devuelve la altura del panel de dibujo de la ventana
+	 * @return	Altura del panel principal (última coordenada y) en píxels
+	 */
+	public int getAltura() {
+		return panel.getHeight()-1;
+	}
+	
+	/** Devuelve la anchura del panel de dibujo de la ventana
+	 * @return	Anchura del panel principal (última coordenada x) en píxels
+	 */
+	public int getAnchura() {
+		return panel.getWidth()-1;
+	}
+	
+	/** Borra toda la ventana (pinta de color blanco)
+	 */
+	public void borra() {
+		graphics.setColor( Color.white );
+		graphics.fillRect( 0, 0, panel.getWidth()+2, panel.getHeight()+2 );
+		if (dibujadoInmediato) panel.repaint();
+	}
+	
+	/** Dibuja un rectángulo en la ventana
+	 * @param rectangulo	Rectángulo a dibujar
+	 * @param grosor	Grueso de la línea del rectángulo (en píxels)
+	 * @param color  	Color del rectángulo
+	 */
+	public void dibujaRect( Rectangle rectangulo, float grosor, Color color ) {
+		dibujaRect( rectangulo.getX(), rectangulo.getY(), rectangulo.getX()+rectangulo.getWidth(), rectangulo.getY()+rectangulo.getHeight(), grosor, color );
+	}
+	
+	/** Dibuja un rectángulo en la ventana
+	 * @param x	Coordenada x de la esquina superior izquierda del rectángulo
+	 * @param y	Coordenada y de la esquina superior izquierda del rectángulo
+	 * @param anchura	Anchura del rectángulo (en píxels) 
+	 * @param altura	Altura del rectángulo (en píxels)
+	 * @param grosor	Grueso del rectángulo (en píxels)
+	 * @param color  	Color del rectángulo
+	 */
+	public void dibujaRect( double x, double y, double anchura, double altura, float grosor, Color color ) {
+		graphics.setColor( color );
+		graphics.setStroke( new BasicStroke( grosor ));
+		graphics.drawRect( (int)Math.round(x), (int)Math.round(y), (int)Math.round(anchura), (int)Math.round(altura) );
+		if (dibujadoInmediato) panel.repaint();
+	}
+	
+	/** Dibuja un rectángulo relleno en la ventana
+	 * @param x	Coordenada x de la esquina superior izquierda del rectángulo
+	 * @param y	Coordenada y de la esquina superior izquierda del rectángulo
+	 * @param anchura	Anchura del rectángulo (en píxels) 
+	 * @param altura	Altura del rectángulo (en píxels)
+	 * @param grosor	Grueso del rectángulo (en píxels)
+	 * @param color  	Color de la línea del rectángulo
+	 * @param colorRell	Color del relleno del rectángulo
+	 */
+	public void dibujaRect( double x, double y, double anchura, double altura, float grosor, Color color, Color colorRell ) {
+		graphics.setColor( colorRell );
+		graphics.setStroke( new BasicStroke( grosor ));
+		graphics.fillRect( (int)Math.round(x), (int)Math.round(y), (int)Math.round(anchura), (int)Math.round(altura) );
+		graphics.setColor( color );
+		graphics.drawRect( (int)Math.round(x), (int)Math.round(y), (int)Math.round(anchura), (int)Math.round(altura) );
+		if (dibujadoInmediato) panel.repaint();
+	}
+	
+	/** Dibuja un rectángulo azul en la ventana
+	 * @param x	Coordenada x de la esquina superior izquierda del rectángulo
+	 * @param y	Coordenada y de la esquina superior izquierda del rectángulo
+	 * @param anchura	Anchura del rectángulo (en píxels) 
+	 * @param altura	Altura del rectángulo (en píxels)
+	 * @param grosor	Grueso del rectángulo (en píxels)
+	 */
+	public void dibujaRect( double x, double y, double anchura, double altura, float grosor ) {
+		dibujaRect( x, y, anchura, altura, grosor, Color.blue );
+	}
+	
+	/** Borra un rectángulo en la ventana
+	 * @param x	Coordenada x de la esquina superior izquierda del rectángulo
+	 * @param y	Coordenada y de la esquina superior izquierda del rectángulo
+	 * @param anchura	Anchura del rectángulo (en píxels) 
+	 * @param altura	Altura del rectángulo (en píxels)
+	 * @param grosor	Grueso del rectángulo (en píxels)
+	 */
+	public void borraRect( double x, double y, double anchura, double altura, float grosor ) {
+		dibujaRect( x, y, anchura, altura, grosor, Color.white );
+	}
+	
+	/** Dibuja un círculo en la ventana
+	 * @param x	Coordenada x del centro del círculo
+	 * @param y	Coordenada y del centro del círculo
+	 * @param radio	Radio del círculo (en píxels) 
+	 * @param grosor	Grueso del círculo (en píxels)
+	 * @param color  	Color del círculo
+	 */
+	public void dibujaCirculo( double x, double y, double radio, float grosor, Color color ) {
+		graphics.setColor( color );
+		graphics.setStroke( new BasicStroke( grosor ));
+		graphics.drawOval( (int)Math.round(x-radio), (int)Math.round(y-radio), (int)Math.round(radio*2), (int)Math.round(radio*2) );
+		if (dibujadoInmediato) panel.repaint();
+	}
+	
+	/** Dibuja un círculo azul en la ventana
+	 * @param x	Coordenada x del centro del círculo
+	 * @param y	Coordenada y del centro del círculo
+	 * @param radio	Radio del círculo (en píxels) 
+	 * @param grosor	Grueso del círculo (en píxels)
+	 */
+	public void dibujaCirculo( double x, double y, double radio, float grosor ) {
+		dibujaCirculo( x, y, radio, grosor, Color.blue );
+	}
+	
+	/** Borra un círculo en la ventana
+	 * @param x	Coordenada x del centro del círculo
+	 * @param y	Coordenada y del centro del círculo
+	 * @param radio	Radio del círculo (en píxels) 
+	 * @param grosor	Grueso del círculo (en píxels)
+	 */
+	public void borraCirculo( double x, double y, double radio, float grosor ) {
+		dibujaCirculo( x, y, radio, grosor, Color.white );
+	}
+	
+	/** Dibuja una línea en la ventana
+	 * @param linea	a dibujar
+	 * @param grosor	Grueso de la línea (en píxels)
+	 * @param color  	Color de la línea
+	 */
+	public void dibujaLinea( Line2D linea, float grosor, Color color ) {
+		dibujaLinea( linea.getX1(), linea.getY1(), linea.getX2(), linea.getY2(), grosor, color );
+	}
+	
+	/** Dibuja una línea en la ventana
+	 * @param x	Coordenada x de un punto de la línea 
+	 * @param y	Coordenada y de un punto de la línea
+	 * @param x2	Coordenada x del segundo punto de la línea 
+	 * @param y2	Coordenada y del segundo punto de la línea
+	 * @param grosor	Grueso de la línea (en píxels)
+	 * @param color  	Color de la línea
+	 */
+	public void dibujaLinea( double x, double y, double x2, double y2, float grosor, Color color ) {
+		graphics.setColor( color );
+		graphics.setStroke( new BasicStroke( grosor ));
+		graphics.drawLine( (int)Math.round(x), (int)Math.round(y), (int)Math.round(x2), (int)Math.round(y2) );
+		if (dibujadoInmediato) panel.repaint();
+	}
+	
+	/** Dibuja una línea azul en la ventana
+	 * @param x	Coordenada x de un punto de la línea 
+	 * @param y	Coordenada y de un punto de la línea
+	 * @param x2	Coordenada x del segundo punto de la línea 
+	 * @param y2	Coordenada y del segundo punto de la línea
+	 * @param grosor	Grueso de la línea (en píxels)
+	 */
+	public void dibujaLinea( double x, double y, double x2, double y2, float grosor ) {
+		dibujaLinea( x, y, x2, y2, grosor, Color.blue );
+	}
+	
+	/** Borra una línea en la ventana
+	 * @param x	Coordenada x de un punto de la línea 
+	 * @param y	Coordenada y de un punto de la línea
+	 * @param x2	Coordenada x del segundo punto de la línea 
+	 * @param y2	Coordenada y del segundo punto de la línea
+	 * @param grosor	Grueso de la línea (en píxels)
+	 */
+	public void borraLinea( double x, double y, double x2, double y2, float grosor ) {
+		dibujaLinea( x, y, x2, y2, grosor, Color.white );
+	}
+
+	/** Dibuja una flecha en la ventana
+	 * @param linea	a dibujar (el segundo punto es la punta de la flecha)
+	 * @param grosor	Grueso de la línea (en píxels)
+	 * @param color  	Color de la línea
+	 */
+	public void dibujaFlecha( Line2D linea, float grosor, Color color ) {
+		dibujaFlecha( linea.getX1(), linea.getY1(), linea.getX2(), linea.getY2(), grosor, color );
+	}
+	
+	/** Dibuja una flecha en la ventana
+	 * @param x	Coordenada x de un punto de la línea 
+	 * @param y	Coordenada y de un punto de la línea
+	 * @param x2	Coordenada x del segundo punto de la línea (el de la flecha)
+	 * @param y2	Coordenada y del segundo punto de la línea (el de la flecha)
+	 * @param grosor	Grueso de la línea (en píxels)
+	 * @param color  	Color de la línea
+	 */
+	public void dibujaFlecha( double x, double y, double x2, double y2, float grosor, Color color ) {
+		dibujaFlecha( x, y, x2, y2, grosor, color, 10 );
+	}
+	
+	/** Dibuja una flecha en la ventana
+	 * @param x	Coordenada x de un punto de la línea 
+	 * @param y	Coordenada y de un punto de la línea
+	 * @param x2	Coordenada x del segundo punto de la línea (el de la flecha)
+	 * @param y2	Coordenada y del segundo punto de la línea (el de la flecha)
+	 * @param grosor	Grueso de la línea (en píxels)
+	 * @param color  	Color de la línea
+	 * @param largoFl	Pixels de largo de la flecha
+	 */
+	public void dibujaFlecha( double x, double y, double x2, double y2, float grosor, Color color, int largoFl ) {
+		graphics.setColor( color );
+		graphics.setStroke( new BasicStroke( grosor ));
+		graphics.drawLine( (int)Math.round(x), (int)Math.round(y), (int)Math.round(x2), (int)Math.round(y2) );
+		double angulo = Math.atan2( y2-y, x2-x ) + Math.PI;
+		double angulo1 = angulo - Math.PI / 10;  // La flecha se forma rotando 1/10 de Pi hacia los dos lados
+		double angulo2 = angulo + Math.PI / 10;
+		graphics.drawLine( (int)Math.round(x2), (int)Math.round(y2), 
+				(int)Math.round(x2+largoFl*Math.cos(angulo1)), (int)Math.round(y2+largoFl*Math.sin(angulo1)) );
+		graphics.drawLine( (int)Math.round(x2), (int)Math.round(y2), 
+				(int)Math.round(x2+largoFl*Math.cos(angulo2)), (int)Math.round(y2+largoFl*Math.sin(angulo2)) );
+		if (dibujadoInmediato) panel.repaint();
+	}
+	
+	/** Dibuja una línea azul en la ventana
+	 * @param x	Coordenada x de un punto de la línea 
+	 * @param y	Coordenada y de un punto de la línea
+	 * @param x2	Coordenada x del segundo punto de la línea (el de la flecha)
+	 * @param y2	Coordenada y del segundo punto de la línea (el de la flecha)
+	 * @param grosor	Grueso de la línea (en píxels)
+	 */
+	public void dibujaFlecha( double x, double y, double x2, double y2, float grosor ) {
+		dibujaFlecha( x, y, x2, y2, grosor, Color.blue );
+	}
+	
+	/** Borra una línea en la ventana
+	 * @param x	Coordenada x de un punto de la línea 
+	 * @param y	Coordenada y de un punto de la línea
+	 * @param x2	Coordenada x del segundo punto de la línea (el de la flecha)
+	 * @param y2	Coordenada y del segundo punto de la línea (el de la flecha)
+	 * @param grosor	Grueso de la línea (en píxels)
+	 */
+	public void borraFlecha( double x, double y, double x2, double y2, float grosor ) {
+		dibujaFlecha( x, y, x2, y2, grosor, Color.white );
+	}
+	
+	/** Dibuja un polígono en la ventana
+	 * @param grosor	Grueso de la línea (en píxels)
+	 * @param color  	Color de la línea
+	 * @param cerrado	true si el polígono se cierra (último punto con el primero), false en caso contrario
+	 * @param punto		Puntos a dibujar (cada punto se enlaza con el siguiente)
+	 */
+	public void dibujaPoligono( float grosor, Color color, boolean cerrado, Point2D... punto ) {
+		graphics.setColor( color );
+		graphics.setStroke( new BasicStroke( grosor ));
+		if (punto.length<2) return;
+		Point2D puntoIni = punto[0];
+		Point2D puntoAnt = punto[0];
+		Point2D pto = null;
+		int numPto = 1;
+		do {
+			pto = punto[numPto];
+			graphics.drawLine( (int)Math.round(puntoAnt.getX()), (int)Math.round(puntoAnt.getY()), (int)Math.round(pto.getX()), (int)Math.round(pto.getY()) );
+			puntoAnt = pto;
+			numPto++;
+		} while (numPto<punto.length);
+		if (cerrado) {
+			graphics.drawLine( (int)Math.round(pto.getX()), (int)Math.round(pto.getY()), (int)Math.round(puntoIni.getX()), (int)Math.round(puntoIni.getY()) );
+		}
+		if (dibujadoInmediato) panel.repaint();
+	}
+	
+	/** Borra un polígono en la ventana
+	 * @param grosor	Grueso de la línea (en píxels)
+	 * @param cerrado	true si el polígono se cierra (último punto con el primero), false en caso contrario
+	 * @param punto		Puntos a borrar (cada punto se enlaza con el siguiente)
+	 */
+	public void borraPoligono( float grosor, boolean cerrado, Point2D... punto ) {
+		dibujaPoligono( grosor, Color.white, cerrado, punto );
+	}
+
+	/** Dibuja un texto en la ventana
+	 * @param x	Coordenada x de la esquina superior izquierda del rectángulo
+	 * @param y	Coordenada y de la esquina superior izquierda del rectángulo
+	 * @param texto	Texto a dibujar 
+	 * @param font	Tipo de letra con el que dibujar el texto
+	 * @param color	Color del texto
+	 */
+	public void dibujaTexto( double x, double y, String texto, Font font, Color color ) {
+		graphics.setColor( color );
+		graphics.setFont( font );
+		graphics.drawString( texto, (int)Math.round(x), (int)Math.round(y) );
+		if (dibujadoInmediato) panel.repaint();
+	}
+	
+	/** Dibuja muchos puntos de una vez escribiendo directamente en los píxels de la ventana, sin pasar por el
+	 * objeto gráfico (para sistemas de partículas: miles de puntos por fotograma). Cada punto es un cuadrado de
+	 * lado x lado píxels con su esquina superior izquierda en sus coordenadas, y se mezcla con lo que hubiera
+	 * debajo según su transparencia. Los puntos fuera de la ventana se ignoran.<br/>
+	 * Al acceder a los píxels la imagen de la ventana deja de poder acelerarse por hardware, así que solo conviene
+	 * usarlo si se redibuja la ventana en cada fotograma.
+	 * @param xs	Coordenadas x de los puntos
+	 * @param ys	Coordenadas y de los puntos
+	 * @param colores	Colores ARGB de los puntos (alfa 0 = no se dibuja, 255 = opaco)
+	 * @param desde	Índice del primer punto a dibujar
+	 * @param hasta	Índice siguiente al último punto a dibujar
+	 * @param lado	Tamaño de cada punto en píxels
+	 */
+	public void dibujaPuntos( float[] xs, float[] ys, int[] colores, int desde, int hasta, int lado ) {
+		if (pixels==null) pixels = ((DataBufferInt) buffer.getRaster().getDataBuffer()).getData();
+		dibujaPuntos( pixels, buffer.getWidth(), Math.min( buffer.getWidth(), panel.getWidth()+2 ), 
+				Math.min( buffer.getHeight(), panel.getHeight()+2 ), xs, ys, colores, desde, hasta, lado );
+		if (dibujadoInmediato) panel.repaint();
+	}
+	
+		// Mezcla de los puntos en un array de píxels ARGB (anchuraFila = píxels por fila del array, anchura y altura = zona visible)
+		private static void dibujaPuntos( int[] pixels, int anchuraFila, int anchura, int altura, 
+				float[] xs, float[] ys, int[] colores, int desde, int hasta, int lado ) {
+			for (int i=desde; i<hasta; i++) {
+				int color = colores[i];
+				int alfa = color >>> 24;
+				if (alfa==0) continue;
+				int px = (int) xs[i];
+				int py = (int) ys[i];
+				if (px>=anchura || py>=altura || px+lado<=0 || py+lado<=0) continue;  // Fuera (si está en parte dentro, se recorta)
+				int x0 = Math.max( 0, px ), x1 = Math.min( anchura, px+lado );
+				int y0 = Math.max( 0, py ), y1 = Math.min( altura, py+lado );
+				if (alfa==255) {
+					for (int fy=y0; fy<y1; fy++) {
+						int fila = fy*anchuraFila;
+						for (int fx=x0; fx<x1; fx++) pixels[fila+fx] = color;
+					}
+				} else {
+					int a = alfa + (alfa >> 7);  // 0..256 (para dividir con desplazamiento)
+					int na = 256 - a;
+					int rb = (color & 0xFF00FF) * a;
+					int g = (color & 0x00FF00) * a;
+					for (int fy=y0; fy<y1; fy++) {
+						int fila = fy*anchuraFila;
+						for (int fx=x0; fx<x1; fx++) {
+							int fondo = pixels[fila+fx];
+							pixels[fila+fx] = 0xFF000000
+									| (((rb + (fondo & 0xFF00FF) * na) >>> 8) & 0xFF00FF)
+									| (((g + (fondo & 0x00FF00) * na) >>> 8) & 0x00FF00);
+						}
+					}
+				}
+			}
+		}
+	
+	
+	
+	
+	
+	/** Devuelve el objeto de gráfico sobre el que pintar, correspondiente al 
+	 * panel principal de la ventana. Después de actualizar graphics hay que llamar a {@link #repaint()}
+	 * si se quiere que se visualice en pantalla
+	 * @return	Objeto gráfico principal de la ventana
+	 */
+	public Graphics2D getGraphics() {
+		return graphics;
+	}
+	
+	/** Repinta la ventana. En caso de que el dibujado inmediato esté desactivado,
+	 * es imprescindible llamar a este método para que la ventana gráfica se refresque.
+	 */
+	public void repaint() {
+		if (lienzo!=null)
+			presenta();
+		else
+			panel.paintImmediately( 0, 0, panel.getWidth(), panel.getHeight() );
+	}
+	
+		// Modo activo: copia la zona visible del buffer al buffer de pantalla del lienzo y lo muestra
+		private void presenta() {
+			synchronized (lockPresentacion) {
+				if (estrategia==null || cerrada) return;
+				int anchura = Math.min( lienzo.getWidth(), buffer.getWidth() );
+				int altura = Math.min( lienzo.getHeight(), buffer.getHeight() );
+				try {
+					do {
+						do {  // Si el sistema libera la memoria de las imágenes de pantalla hay que volver a dibujar
+							Graphics2D g = (Graphics2D) estrategia.getDrawGraphics();
+							g.setComposite( AlphaComposite.Src );  // El buffer es opaco: copia directa sin mezclar
+							g.drawImage( buffer, 0, 0, anchura, altura, 0, 0, anchura, altura, null );
+							g.dispose();
+						} while (estrategia.contentsRestored());
+						estrategia.show();
+					} while (estrategia.contentsLost());
+				} catch (IllegalStateException e) {  // Ventana cerrada mientras se presentaba
+					return;
+				}
+				Toolkit.getDefaultToolkit().sync();
+				cuentaPresentacion();
+			}
+		}
+		
+		// Cuenta una presentación en pantalla y actualiza los fotogramas por segundo cada medio segundo
+		private void cuentaPresentacion() {
+			synchronized (lockPresentacion) {
+				numPresentaciones++;
+				presentacionesMedida++;
+				long ahora = System.nanoTime();
+				if (inicioMedidaFps==0) {
+					inicioMedidaFps = ahora;
+					presentacionesMedida = 0;
+				} else if (ahora - inicioMedidaFps >= 500000000L) {
+					fps = presentacionesMedida * 1E9 / (ahora - inicioMedidaFps);
+					inicioMedidaFps = ahora;
+					presentacionesMedida = 0;
+				}
+			}
+		}
+	
+	/** Indica si la ventana está en modo de renderizado activo
+	 * @return	true si se presenta en pantalla desde el hilo que llama a {@link #repaint()}, false si lo hace Swing
+	 */
+	public boolean isRenderizadoActivo() {
+		return lienzo!=null;
+	}
+	
+	/** Devuelve los fotogramas por segundo que realmente llegan a la pantalla
+	 * @return	Presentaciones por segundo en el último medio segundo medido (0 si aún no se ha medido)
+	 */
+	public double getFps() {
+		synchronized (lockPresentacion) {
+			return fps;
+		}
+	}
+	
+	/** Devuelve el número de veces que se ha copiado el dibujo a la pantalla
+	 * @return	Presentaciones desde que se creó la ventana
+	 */
+	public long getNumPresentaciones() {
+		synchronized (lockPresentacion) {
+			return numPresentaciones;
+		}
+	}
+	
+
+	// Métodos estáticos
+		private static volatile int codTeclaTecleada = 0;
+		private static volatile int codTeclaActualmentePulsada = 0;
+		private static int codTeclaUltimaPulsacion = 0;  // Última tecla pulsada (aunque ya se haya soltado)
+		private static long numPulsacionesTecla = 0;     // Pulsaciones de tecla desde que se cargó la clase (para las esperas)
+		private static final Object lockTeclado = new Object();  // Aviso de eventos de teclado a las esperas
+		private static HashSet<Integer> teclasPulsadas = new HashSet<Integer>();
+		private static boolean controlActivo = false;
+	// Inicializa el control de teclado
+	private static void init() {
+		KeyboardFocusManager manager = KeyboardFocusManager.getCurrentKeyboardFocusManager();
+		manager.addKeyEventDispatcher( new KeyEventDispatcher() {
+			@Override
+			public boolean dispatchKeyEvent(KeyEvent e) {
+				if (e.getID() == KeyEvent.KEY_PRESSED) {
+					teclasPulsadas.add( e.getKeyCode() );
+					codTeclaActualmentePulsada = e.getKeyCode();
+					if (e.getKeyCode() == KeyEvent.VK_CONTROL) controlActivo = true; 
+					synchronized (lockTeclado) {
+						codTeclaUltimaPulsacion = e.getKeyCode();
+						numPulsacionesTecla++;
+						lockTeclado.notifyAll();
+					}
+				} else if (e.getID() == KeyEvent.KEY_RELEASED) {
+					teclasPulsadas.remove( e.getKeyCode() );
+					if (e.getKeyCode() == KeyEvent.VK_CONTROL) controlActivo = false; 
+					synchronized (lockTeclado) {
+						codTeclaTecleada = e.getKeyCode();
+						lockTeclado.notifyAll();
+					}
+					codTeclaActualmentePulsada = 0;
+				} else if (e.getID() == KeyEvent.KEY_TYPED) {
+				}
+				return false;   // false = enviar el evento al comp
+			} } );
+	}
+	static {  // Inicializar en la carta de la clase
+		init();
+	}
+
+	/** Indica si la tecla Ctrl está siendo pulsada en este momento
+	 * @return	true si está pulsada, false en caso contrario
+	 */
+	public boolean isControlPulsado() {
+		return controlActivo;
+	}
+	
+	/** Devuelve el código de la tecla pulsada actualmente
+	 * @return	código de tecla pulsada, 0 si no hay ninguna. Si hay varias, se devuelve la última que se pulsó.<br>
+	 * 			Si se pulsan varias a la vez, tras soltar la primera este método devuelve 0.
+	 */
+	public int getCodTeclaQueEstaPulsada() {
+		return codTeclaActualmentePulsada;
+	}
+	
+	/** Devuelve el código de la última tecla tecleada (pulsada y soltada). Tras eso, borra la tecla (solo se devuelve una vez)
+	 * @return	Código de la última tecla tecleada. Si no ha sido tecleada ninguna o ya se ha consultado, se devuelve 0.
+	 */
+	public int getCodUltimaTeclaTecleada() {
+		int ret = codTeclaTecleada;
+		codTeclaTecleada = 0;
+		return ret;
+	}
+
+	/** Devuelve la información de si una tecla está o no pulsada actualmente
+	 * @param codTecla	Código de tecla a chequear
+	 * @return	true si la tecla está pulsada, false en caso contrario.
+	 */
+	public boolean isTeclaPulsada( int codTecla ) {
+		return teclasPulsadas.contains(codTecla);
+	}
+	
+	/** Pone modo de dibujado (por defecto el modo es de dibujado inmediato = true)
+	 * @param dibujadoInmediato	true si cada orden de dibujado inmediatamente pinta la ventana. false si se
+	 * van acumulando las órdenes y se pinta la ventana solo al hacer un {@link #repaint()}.
+	 */
+	public void setDibujadoInmediato( boolean dibujadoInmediato ) {
+		this.dibujadoInmediato = dibujadoInmediato;
+	}
+	
+	/** Indica el modo de dibujado
+	 * @return	true si cada orden de dibujado pinta la ventana, false si se pinta solo al hacer un {@link #repaint()}
+	 */
+	public boolean isDibujadoInmediato() {
+		return dibujadoInmediato;
+	}
+
+		// Variable local para guardar las imágenes y no recargarlas cada vez
+		private static volatile HashMap<String,ImageIcon> recursosGraficos = new HashMap<>();
+		
+	/** Carga una imagen de un fichero gráfico y la dibuja en la ventana. Si la imagen no puede cargarse, no se dibuja nada.
+	 * El recurso gráfico se busca en el paquete de esta clase o en la clase llamadora.
+	 * El recurso gráfico se carga en memoria, de modo que al volver a dibujar la misma imagen, no se vuelve a cargar ya de fichero
+	 * @param recursoGrafico	Nombre del fichero (path absoluto desde la carpeta raíz de clases del proyecto)  (p. ej. "/img/prueba.png")
+	 * @param centroX	Coordenada x de la ventana donde colocar el centro de la imagen 
+	 * @param centroY	Coordenada y de la ventana donde colocar el centro de la imagen
+	 * @param anchuraDibujo	Pixels de anchura con los que dibujar la imagen (se escala de acuerdo a su tamaño)
+	 * @param alturaDibujo	Pixels de altura con los que dibujar la imagen (se escala de acuerdo a su tamaño)
+	 * @param zoom	Zoom a aplicar (mayor que 1 aumenta la imagen, menor que 1 y mayor que 0 la disminuye)
+	 * @param radsRotacion	Rotación en radianes
+	 * @param opacity	Opacidad (0.0f = totalmente transparente, 1.0f = totalmente opaca)
+	 */
+	public void dibujaImagen( String recursoGrafico, double centroX, double centroY, 
+			int anchuraDibujo, int alturaDibujo, double zoom, double radsRotacion, float opacity ) {
+		ImageIcon ii = getRecursoGrafico(recursoGrafico); if (ii==null) return;
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,RenderingHints.VALUE_INTERPOLATION_BILINEAR); // Configuración para mejor calidad del gráfico escalado
+		graphics.setRenderingHint(RenderingHints.KEY_RENDERING,RenderingHints.VALUE_RENDER_QUALITY);
+		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,RenderingHints.VALUE_ANTIALIAS_ON);	
+		graphics.translate( centroX-anchuraDibujo/2, centroY-alturaDibujo/2 );
+		graphics.rotate( radsRotacion, anchuraDibujo/2, alturaDibujo/2 );  // Incorporar al gráfico la rotación definida
+		graphics.setComposite(AlphaComposite.getInstance( AlphaComposite.SRC_OVER, opacity ) ); // Incorporar la transparencia definida
+        int anchoDibujado = (int)Math.round(anchuraDibujo*zoom);  // Calcular las coordenadas de dibujado con el zoom, siempre centrado en el label
+        int altoDibujado = (int)Math.round(alturaDibujo*zoom);
+        int difAncho = (anchuraDibujo - anchoDibujado) / 2;  // Offset x para centrar
+        int difAlto = (alturaDibujo - altoDibujado) / 2;     // Offset y para centrar
+        graphics.drawImage( ii.getImage(), difAncho, difAlto, anchoDibujado, altoDibujado, null);  // Dibujar la imagen con el tamaño calculado tras aplicar el zoom
+		graphics.setTransform( new AffineTransform() );  // Restaurar graphics  (sin rotación ni traslación)
+		graphics.setComposite(AlphaComposite.getInstance( AlphaComposite.SRC_OVER, 1f ));  // Restaurar graphics (pintado sin transparencia)
+		if (dibujadoInmediato) panel.repaint();
+	}
+
+	/** Carga una imagen de un fichero gráfico y la dibuja en la ventana. Si la imagen no puede cargarse, no se dibuja nada.
+	 * El recurso gráfico se busca en el paquete de esta clase o en la clase llamadora.
+	 * El recurso gráfico se carga en memoria, de modo que al volver a dibujar la misma imagen, no se vuelve a cargar ya de fichero
+	 * @param recursoGrafico	Nombre del fichero (path absoluto desde la carpeta raíz de clases del proyecto)  (p. ej. "/img/prueba.png")
+	 * @param centroX	Coordenada x de la ventana donde colocar el centro de la imagen 
+	 * @param centroY	Coordenada y de la ventana donde colocar el centro de la imagen
+	 * @param zoom	Zoom a aplicar (mayor que 1 aumenta la imagen, menor que 1 y mayor que 0 la disminuye)
+	 * @param radsRotacion	Rotación en radianes
+	 * @param opacity	Opacidad (0.0f = totalmente transparente, 1.0f = totalmente opaca)
+	 */
+	public void dibujaImagen( String recursoGrafico, double centroX, double centroY, 
+			double zoom, double radsRotacion, float opacity ) {
+		ImageIcon ii = getRecursoGrafico(recursoGrafico); if (ii==null) return;
+		dibujaImagen( recursoGrafico, centroX, centroY, ii.getIconWidth(), ii.getIconHeight(), zoom, radsRotacion, opacity);
+	}
+		// Intenta cargar el recurso gráfico del mapa interno, de la clase actual, o de la clase llamadora. Devuelve null si no se ha podido hacer
+		private ImageIcon getRecursoGrafico( String recursoGrafico ) {
+			ImageIcon ii = recursosGraficos.get( recursoGrafico );
+			if (ii==null) {
+				try {
+					ii = new ImageIcon( VentanaGrafica.class.getResource( recursoGrafico ));
+					recursosGraficos.put( recursoGrafico, ii );
+				} catch (NullPointerException e) {  // Mirar si está en la clase llamadora en lugar de en la ventana gráfica
+					StackTraceElement[] stElements = Thread.currentThread().getStackTrace();
+					for (int i=1; i<stElements.length; i++) {
+						StackTraceElement ste = stElements[i];
+						if ( !ste.getClassName().endsWith("VentanaGrafica") ) {  // Busca la clase llamadora a VentanaGrafica y busca ahí el recurso
+							try {
+								Class<?> c = Class.forName( ste.getClassName() );
+								URL url = c.getResource( recursoGrafico );
+								if (url==null) return null;
+								ii = new ImageIcon( url );
+								recursosGraficos.put( recursoGrafico, ii );
+								return ii;
+							} catch (ClassNotFoundException e1) {
+								return null;
+							}
+						}
+					}
+					return null;
+				}			
+			}
+			return ii;
+		}
+
+
+	
+	private transient JPanel pBotonera = null;
+/** Añade un botón de acción a la botonera superior
+ * @param texto	Texto del botón
+ * @param evento	Evento a lanzar en la pulsación del botón
+ */
+public void anyadeBoton( String texto, ActionListener evento ) {
+	JButton b = new JButton( texto );
+	if (pBotonera==null) {
+		pBotonera = new JPanel();
+		pBotonera.add( b );
+		ventana.getContentPane().add( pBotonera, BorderLayout.NORTH );
+		ventana.revalidate();
+	} else {
+		pBotonera.add( b );
+		pBotonera.revalidate();
+	}
+	b.addActionListener( evento );
+}
+
+	
+	/** Método main de prueba de la clase
+	 * @param args	"activo" para probar el modo de renderizado activo
+	 */
+	public static void main(String[] args) {
+		VentanaGrafica v = new VentanaGrafica( 600, 480, "Test Ventana Gráfica", args.length>0 && args[0].equals("activo") );
+		v.anyadeBoton( "Pon dibujado inmediato", new ActionListener() {  // Para ver cómo se ve con flickering si se dibujan cosas una a una
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				v.setDibujadoInmediato( true );
+			}
+		});
+		v.setDibujadoInmediato( false );
+		for (int i=0; i<=200; i++) {
+			v.borra();
+			v.dibujaImagen( "/utils/ventanas/ventanaJuego/img/" + "UD-green.png",
+				100, 100, 0.5+i/200.0, Math.PI / 100 * i, 0.9f );
+			v.dibujaImagen( "/utils/ventanas/ventanaJuego/img/" + "UD-magenta.png",
+					500, 100, 100, 50, 1.2, Math.PI / 100 * i, 0.1f );
+			v.dibujaRect( 20, 20, 160, 160, 0.5f, Color.red );
+			v.dibujaRect( 0, 0, 100, 100, 1.5f, Color.blue );
+			v.dibujaCirculo( 500, 100, 50, 1.5f, Color.orange );
+			v.dibujaPoligono( 2.3f, Color.magenta, true, 
+				new Point(200,250), new Point(300,320), new Point(400,220) );
+			v.repaint();
+			v.espera( 10 );
+		}
+		v.setMensaje( "Modo " + (v.isRenderizadoActivo() ? "activo" : "normal") + ": " + String.format( "%.1f", v.getFps() ) + " fps" );
+		v.espera( 5000 );
+		v.acaba();
+	}
+	
+	/** Añade un escuchador al cambio de tamaño del panel de dibujado de la ventana
+	 * @param l	Escuchador de cambio de tamaño a añadir
+	 */
+	public void addComponentListener( ComponentListener l ) {
+		panel.addComponentListener( l );
+	}
+	
+	/** Elimina un escuchador de cambio de tamaño del panel de dibujado de la ventana
+	 * @param l	Escuchador de cambio de tamaño a eliminar
+	 */
+	public void removeComponentListener( ComponentListener l ) {
+		panel.removeComponentListener( l );
+	}
+
+	/** Añade un escuchador de ventana a la ventana
+	 * @param l	Escuchador a añadir
+	 */
+	public void addWindowListener( WindowListener l ) {
+		ventana.addWindowListener( l );
+	}
+	
+	/** Elimina un escuchador de ventana de la ventana
+	 * @param l	Escuchador a eliminar
+	 */
+	public void removeWindowListener( WindowListener l ) {
+		ventana.removeWindowListener( l );
+	}
+	
+	
+}